@@ -25,6 +25,13 @@
 
 package com.saptarshidebnath.lib.processrunner.configuration;
 
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.CaptureEngine;
+import com.saptarshidebnath.lib.processrunner.constants.DurabilityPolicy;
+import com.saptarshidebnath.lib.processrunner.constants.LongLinePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
 import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessConfigurationException;
 import com.saptarshidebnath.lib.processrunner.process.Runner;
@@ -35,6 +42,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,39 +63,86 @@ public class Configuration {
   private final Charset charset;
   private final boolean autoDeleteFileOnExit;
   private final boolean enableLogStreaming;
+  private final CaptureEngine captureEngine;
+  private final int captureBufferCapacity;
+  private final BackpressurePolicy backpressurePolicy;
+  private final boolean enableStreamMerging;
+  private final boolean enableSharedLogWriter;
+  private final DurabilityPolicy durabilityPolicy;
+  private final int groupCommitRecords;
+  private final long groupCommitDelayMillis;
+  private final MasterLogFormat masterLogFormat;
+  private final boolean enableMasterLogCompression;
+  private final long masterLogSegmentBytes;
+  private final long masterLogSegmentMillis;
+  private final long masterLogRetainedBytes;
+  private final MasterLogIoMode masterLogIoMode;
+  private final boolean enableInMemoryCapture;
+  private final long inMemoryCaptureRunBytes;
+  private final long inMemoryCaptureGlobalBytes;
+  private final boolean enableLineDictionary;
+  private final boolean enableChunkCapture;
+  private final int maxRecordLength;
+  private final LongLinePolicy longLinePolicy;
+  private final boolean enableContinuationJoining;
+  private final boolean enableHeadTailRetention;
+  private final int retainedHeadRecords;
+  private final int retainedTailRecords;
+  private final int captureSampleInterval;
+  private final int captureRateLimit;
+  private final int captureRateLimitBurst;
+  private final Pattern captureKeepPattern;
+  private final boolean enableCompactGrepResults;
 
   /**
-   * Constructor to set the configuration to be consumed by {@link Runner}.
-   *
-   * @param interpreter : sets the {@link String} command interpreter like /bin/bash in unix
-   * @param command : set the actual {@link String} command to be executed
-   * @param workingDir : sets the working directory in {@link File} format
-   * @param masterLogFile : {@link File} where the log data will be stored.
-   * @param charset : a reference of which {@link Charset} to use while writing the {@link
-   *     Configuration#masterLogFile}
-   * @param autoDeleteFileOnExit : set the flag to denote if the sysout and the syserror {@link
-   *     File} going to be auto deleted on exit.
-   * @param enableLogStreaming : enable lor disable log streaming by passing a @{@link Boolean}
-   *     value
-   */
-  Configuration(
-      final String interpreter,
-      final String command,
-      final Path workingDir,
-      final File masterLogFile,
-      final Charset charset,
-      final boolean autoDeleteFileOnExit,
-      final boolean enableLogStreaming) {
-    this.interpreter = interpreter.trim();
+   * Constructor to set the configuration to be consumed by {@link Runner}, from the settings of a
+   * {@link ConfigBuilder}.
+   *
+   * @param configBuilder : the {@link ConfigBuilder} holding the settings.
+   * @param command : set the actual {@link String} command to be executed, along with its
+   *     parameters.
+   */
+  private Configuration(final ConfigBuilder configBuilder, final String command) {
+    this.interpreter = configBuilder.interpreter.trim();
     this.command = command.trim();
-    this.workingDir = workingDir;
-    this.autoDeleteFileOnExit = autoDeleteFileOnExit;
-    this.masterLogFile = masterLogFile;
+    this.workingDir = configBuilder.workingDir;
+    this.autoDeleteFileOnExit = configBuilder.autoDeleteFileOnExit;
+    this.masterLogFile = configBuilder.masterLogFile;
     if (this.autoDeleteFileOnExit) {
       this.masterLogFile.deleteOnExit();
     }
-    this.enableLogStreaming = enableLogStreaming;
-    this.charset = charset;
+    this.enableLogStreaming = configBuilder.logStreamingEnabled;
+    this.charset = configBuilder.charset;
+    this.captureEngine = configBuilder.captureEngine;
+    this.captureBufferCapacity = configBuilder.captureBufferCapacity;
+    this.backpressurePolicy = configBuilder.backpressurePolicy;
+    this.enableStreamMerging = configBuilder.streamMergingEnabled;
+    this.enableSharedLogWriter = configBuilder.sharedLogWriterEnabled;
+    this.durabilityPolicy = configBuilder.durabilityPolicy;
+    this.groupCommitRecords = configBuilder.groupCommitRecords;
+    this.groupCommitDelayMillis = configBuilder.groupCommitDelayMillis;
+    this.masterLogFormat = configBuilder.masterLogFormat;
+    this.enableMasterLogCompression = configBuilder.masterLogCompressionEnabled;
+    this.masterLogSegmentBytes = configBuilder.masterLogSegmentBytes;
+    this.masterLogSegmentMillis = configBuilder.masterLogSegmentMillis;
+    this.masterLogRetainedBytes = configBuilder.masterLogRetainedBytes;
+    this.masterLogIoMode = configBuilder.masterLogIoMode;
+    this.enableInMemoryCapture = configBuilder.inMemoryCaptureEnabled;
+    this.inMemoryCaptureRunBytes = configBuilder.inMemoryCaptureRunBytes;
+    this.inMemoryCaptureGlobalBytes = configBuilder.inMemoryCaptureGlobalBytes;
+    this.enableLineDictionary = configBuilder.lineDictionaryEnabled;
+    this.enableChunkCapture = configBuilder.chunkCaptureEnabled;
+    this.maxRecordLength = configBuilder.maxRecordLength;
+    this.longLinePolicy = configBuilder.longLinePolicy;
+    this.enableContinuationJoining = configBuilder.continuationJoiningEnabled;
+    this.enableHeadTailRetention = configBuilder.headTailRetentionEnabled;
+    this.retainedHeadRecords = configBuilder.retainedHeadRecords;
+    this.retainedTailRecords = configBuilder.retainedTailRecords;
+    this.captureSampleInterval = configBuilder.captureSampleInterval;
+    this.captureRateLimit = configBuilder.captureRateLimit;
+    this.captureRateLimitBurst = configBuilder.captureRateLimitBurst;
+    this.captureKeepPattern = configBuilder.captureKeepPattern;
+    this.enableCompactGrepResults = configBuilder.compactGrepResultsEnabled;
     logger.debug("Process Runner Configuration : {}", this);
   }
 
@@ -145,6 +201,15 @@ public class Configuration {
     return charset;
   }
 
+  /**
+   * Returns the {@link MasterLogFormat} of the {@link Configuration#masterLogFile}.
+   *
+   * @return a reference of {@link MasterLogFormat}
+   */
+  public MasterLogFormat getMasterLogFormat() {
+    return masterLogFormat;
+  }
+
   /**
    * Denotes if the master log file is going to be auto deleted when teh JVM exits.
    *
@@ -164,6 +229,314 @@ public class Configuration {
     return enableLogStreaming;
   }
 
+  /**
+   * Returns the {@link CaptureEngine} which is going to read the process output.
+   *
+   * @return a reference of {@link CaptureEngine}
+   */
+  public CaptureEngine getCaptureEngine() {
+    return captureEngine;
+  }
+
+  /**
+   * Returns the maximum number of lines held in memory between the output readers and the master
+   * log writer.
+   *
+   * @return a {@link Integer} value
+   */
+  public int getCaptureBufferCapacity() {
+    return captureBufferCapacity;
+  }
+
+  /**
+   * Returns the {@link BackpressurePolicy} applied when the capture buffer is full.
+   *
+   * @return a reference of {@link BackpressurePolicy}
+   */
+  public BackpressurePolicy getBackpressurePolicy() {
+    return backpressurePolicy;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the error stream of the process is merged into its output
+   * stream, and captured as {@link OutputSourceType#MERGED}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableStreamMerging() {
+    return enableStreamMerging;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the master log file is written by the writer threads shared
+   * among all the runs, instead of a disk writer thread of its own.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableSharedLogWriter() {
+    return enableSharedLogWriter;
+  }
+
+  /**
+   * Returns the {@link DurabilityPolicy} of the master log file.
+   *
+   * @return a reference of {@link DurabilityPolicy}
+   */
+  public DurabilityPolicy getDurabilityPolicy() {
+    return durabilityPolicy;
+  }
+
+  /**
+   * Returns the number of records written to the master log file after which they are committed.
+   *
+   * @return a {@link Integer} value
+   */
+  public int getGroupCommitRecords() {
+    return groupCommitRecords;
+  }
+
+  /**
+   * Returns the time in milliseconds after which a record written to the master log file is
+   * committed, even if fewer than {@link Configuration#getGroupCommitRecords()} records are
+   * pending.
+   *
+   * @return a {@link Long} value
+   */
+  public long getGroupCommitDelayMillis() {
+    return groupCommitDelayMillis;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the master log file is written in independently compressed
+   * blocks, see {@link
+   * com.saptarshidebnath.lib.processrunner.utilities.fileutils.BlockCompressedLog}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableMasterLogCompression() {
+    return enableMasterLogCompression;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the records are written to segments of the master log, with
+   * the {@link Configuration#getMasterLogFile()} listing them, see {@link
+   * com.saptarshidebnath.lib.processrunner.utilities.fileutils.SegmentedLog}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isMasterLogSegmented() {
+    return masterLogSegmentBytes > 0L;
+  }
+
+  /**
+   * Returns the number of bytes written to a segment of the master log after which a new segment
+   * is started, zero if the master log is not segmented.
+   *
+   * @return a {@link Long} value
+   */
+  public long getMasterLogSegmentBytes() {
+    return masterLogSegmentBytes;
+  }
+
+  /**
+   * Returns the time in milliseconds after which a new segment of the master log is started, zero
+   * if segments are only started by size.
+   *
+   * @return a {@link Long} value
+   */
+  public long getMasterLogSegmentMillis() {
+    return masterLogSegmentMillis;
+  }
+
+  /**
+   * Returns the number of bytes the closed segments of the master log are kept within, zero if
+   * all the segments are kept.
+   *
+   * @return a {@link Long} value
+   */
+  public long getMasterLogRetainedBytes() {
+    return masterLogRetainedBytes;
+  }
+
+  /**
+   * Returns the {@link MasterLogIoMode} the master log is written and read with.
+   *
+   * @return a reference of {@link MasterLogIoMode}
+   */
+  public MasterLogIoMode getMasterLogIoMode() {
+    return masterLogIoMode;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the records are kept in memory instead of being written to the
+   * {@link Configuration#getMasterLogFile()}, see {@link
+   * com.saptarshidebnath.lib.processrunner.utilities.fileutils.MemoryLog}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableInMemoryCapture() {
+    return enableInMemoryCapture;
+  }
+
+  /**
+   * Returns the number of bytes the records of the run are kept in memory up to before being
+   * spilled to the {@link Configuration#getMasterLogFile()}, zero if there is no limit.
+   *
+   * @return a {@link Long} value
+   */
+  public long getInMemoryCaptureRunBytes() {
+    return inMemoryCaptureRunBytes;
+  }
+
+  /**
+   * Returns the number of bytes the records of all the runs are kept in memory up to before being
+   * spilled to their master log files, zero if there is no limit.
+   *
+   * @return a {@link Long} value
+   */
+  public long getInMemoryCaptureGlobalBytes() {
+    return inMemoryCaptureGlobalBytes;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if recurring lines are written as references to an earlier
+   * occurrence, see {@link
+   * com.saptarshidebnath.lib.processrunner.utilities.fileutils.BinaryLogEncoder}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableLineDictionary() {
+    return enableLineDictionary;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the {@link Configuration#getMasterLogFile()} holds the raw
+   * chunks of bytes read from the process instead of lines, see {@link
+   * com.saptarshidebnath.lib.processrunner.utilities.fileutils.ChunkLogWriter}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableChunkCapture() {
+    return enableChunkCapture;
+  }
+
+  /**
+   * Returns the number of bytes of a line of output kept in a single record. Longer lines are
+   * handled as per {@link Configuration#getLongLinePolicy()}.
+   *
+   * @return the maximum record length in bytes.
+   */
+  public int getMaxRecordLength() {
+    return maxRecordLength;
+  }
+
+  /**
+   * Returns the {@link LongLinePolicy} applied to the lines longer than {@link
+   * Configuration#getMaxRecordLength()}.
+   *
+   * @return a reference of {@link LongLinePolicy}
+   */
+  public LongLinePolicy getLongLinePolicy() {
+    return longLinePolicy;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the records split off a long line are joined back into one
+   * when searching, see {@link LongLinePolicy#SPLIT}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableContinuationJoining() {
+    return enableContinuationJoining;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if only the first and the last records are kept, in memory, see
+   * {@link com.saptarshidebnath.lib.processrunner.utilities.fileutils.HeadTailLog}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableHeadTailRetention() {
+    return enableHeadTailRetention;
+  }
+
+  /**
+   * Returns the number of first records kept with the head and tail retention.
+   *
+   * @return a {@link Integer} value
+   */
+  public int getRetainedHeadRecords() {
+    return retainedHeadRecords;
+  }
+
+  /**
+   * Returns the number of last records kept with the head and tail retention.
+   *
+   * @return a {@link Integer} value
+   */
+  public int getRetainedTailRecords() {
+    return retainedTailRecords;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the lines of {@link OutputSourceType#SYSOUT} are sampled or
+   * rate limited before being captured, see {@link Configuration#getCaptureSampleInterval()} and
+   * {@link Configuration#getCaptureRateLimit()}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isCaptureSampled() {
+    return captureSampleInterval > 1 || captureRateLimit > 0;
+  }
+
+  /**
+   * Returns the number of lines of a stream out of which one is kept, one if all of them are.
+   *
+   * @return a {@link Integer} value
+   */
+  public int getCaptureSampleInterval() {
+    return captureSampleInterval;
+  }
+
+  /**
+   * Returns the number of lines of a stream kept per second, zero if there is no limit.
+   *
+   * @return a {@link Integer} value
+   */
+  public int getCaptureRateLimit() {
+    return captureRateLimit;
+  }
+
+  /**
+   * Returns the number of lines of a stream which may be kept at once under the rate limit, after
+   * a quiet spell.
+   *
+   * @return a {@link Integer} value
+   */
+  public int getCaptureRateLimitBurst() {
+    return captureRateLimitBurst;
+  }
+
+  /**
+   * Returns the {@link Pattern} of the lines kept whatever the sampling and the rate limit.
+   *
+   * @return a reference of {@link Pattern}, or null if none is set.
+   */
+  public Pattern getCaptureKeepPattern() {
+    return captureKeepPattern;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the grep results are packed into a {@link
+   * com.saptarshidebnath.lib.processrunner.model.CompactRecordList} instead of a plain {@link
+   * List}.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isEnableCompactGrepResults() {
+    return enableCompactGrepResults;
+  }
+
   @Override
   public String toString() {
     return "Configuration{"
@@ -183,6 +556,66 @@ public class Configuration {
         + autoDeleteFileOnExit
         + ", enableLogStreaming="
         + enableLogStreaming
+        + ", captureEngine="
+        + captureEngine
+        + ", captureBufferCapacity="
+        + captureBufferCapacity
+        + ", backpressurePolicy="
+        + backpressurePolicy
+        + ", enableStreamMerging="
+        + enableStreamMerging
+        + ", enableSharedLogWriter="
+        + enableSharedLogWriter
+        + ", durabilityPolicy="
+        + durabilityPolicy
+        + ", groupCommitRecords="
+        + groupCommitRecords
+        + ", groupCommitDelayMillis="
+        + groupCommitDelayMillis
+        + ", masterLogFormat="
+        + masterLogFormat
+        + ", enableMasterLogCompression="
+        + enableMasterLogCompression
+        + ", masterLogSegmentBytes="
+        + masterLogSegmentBytes
+        + ", masterLogSegmentMillis="
+        + masterLogSegmentMillis
+        + ", masterLogRetainedBytes="
+        + masterLogRetainedBytes
+        + ", masterLogIoMode="
+        + masterLogIoMode
+        + ", enableInMemoryCapture="
+        + enableInMemoryCapture
+        + ", inMemoryCaptureRunBytes="
+        + inMemoryCaptureRunBytes
+        + ", inMemoryCaptureGlobalBytes="
+        + inMemoryCaptureGlobalBytes
+        + ", enableLineDictionary="
+        + enableLineDictionary
+        + ", enableChunkCapture="
+        + enableChunkCapture
+        + ", maxRecordLength="
+        + maxRecordLength
+        + ", longLinePolicy="
+        + longLinePolicy
+        + ", enableContinuationJoining="
+        + enableContinuationJoining
+        + ", enableHeadTailRetention="
+        + enableHeadTailRetention
+        + ", retainedHeadRecords="
+        + retainedHeadRecords
+        + ", retainedTailRecords="
+        + retainedTailRecords
+        + ", captureSampleInterval="
+        + captureSampleInterval
+        + ", captureRateLimit="
+        + captureRateLimit
+        + ", captureRateLimitBurst="
+        + captureRateLimitBurst
+        + ", captureKeepPattern="
+        + captureKeepPattern
+        + ", enableCompactGrepResults="
+        + enableCompactGrepResults
         + '}';
   }
 
@@ -202,6 +635,36 @@ public class Configuration {
     private boolean autoDeleteFileOnExit;
     private boolean logStreamingEnabled;
     private Charset charset;
+    private CaptureEngine captureEngine;
+    private int captureBufferCapacity;
+    private BackpressurePolicy backpressurePolicy;
+    private boolean streamMergingEnabled;
+    private boolean sharedLogWriterEnabled;
+    private DurabilityPolicy durabilityPolicy;
+    private int groupCommitRecords;
+    private long groupCommitDelayMillis;
+    private MasterLogFormat masterLogFormat;
+    private boolean masterLogCompressionEnabled;
+    private long masterLogSegmentBytes;
+    private long masterLogSegmentMillis;
+    private long masterLogRetainedBytes;
+    private MasterLogIoMode masterLogIoMode;
+    private boolean inMemoryCaptureEnabled;
+    private long inMemoryCaptureRunBytes;
+    private long inMemoryCaptureGlobalBytes;
+    private boolean lineDictionaryEnabled;
+    private boolean chunkCaptureEnabled;
+    private int maxRecordLength;
+    private LongLinePolicy longLinePolicy;
+    private boolean continuationJoiningEnabled;
+    private boolean headTailRetentionEnabled;
+    private int retainedHeadRecords;
+    private int retainedTailRecords;
+    private int captureSampleInterval;
+    private int captureRateLimit;
+    private int captureRateLimitBurst;
+    private Pattern captureKeepPattern;
+    private boolean compactGrepResultsEnabled;
 
     /**
      * The constructor for {@link ConfigBuilder}. The only required parameters are the {@link
@@ -227,6 +690,36 @@ public class Configuration {
       this.command = command;
       this.comamndParams = new ArrayList<>();
       this.logStreamingEnabled = false;
+      this.captureEngine = CaptureEngine.THREAD_PER_STREAM;
+      this.captureBufferCapacity = ProcessRunnerConstants.DEFAULT_CAPTURE_BUFFER_CAPACITY;
+      this.backpressurePolicy = BackpressurePolicy.BLOCK;
+      this.streamMergingEnabled = false;
+      this.sharedLogWriterEnabled = false;
+      this.durabilityPolicy = DurabilityPolicy.NONE;
+      this.groupCommitRecords = ProcessRunnerConstants.DEFAULT_GROUP_COMMIT_RECORDS;
+      this.groupCommitDelayMillis = ProcessRunnerConstants.DEFAULT_GROUP_COMMIT_DELAY_MILLIS;
+      this.masterLogFormat = MasterLogFormat.JSON;
+      this.masterLogCompressionEnabled = false;
+      this.masterLogSegmentBytes = 0L;
+      this.masterLogSegmentMillis = 0L;
+      this.masterLogRetainedBytes = 0L;
+      this.masterLogIoMode = MasterLogIoMode.STREAM;
+      this.inMemoryCaptureEnabled = false;
+      this.inMemoryCaptureRunBytes = 0L;
+      this.inMemoryCaptureGlobalBytes = 0L;
+      this.lineDictionaryEnabled = false;
+      this.chunkCaptureEnabled = false;
+      this.maxRecordLength = ProcessRunnerConstants.DEFAULT_MAX_RECORD_LENGTH;
+      this.longLinePolicy = LongLinePolicy.SPLIT;
+      this.continuationJoiningEnabled = false;
+      this.headTailRetentionEnabled = false;
+      this.retainedHeadRecords = 0;
+      this.retainedTailRecords = 0;
+      this.captureSampleInterval = 1;
+      this.captureRateLimit = 0;
+      this.captureRateLimitBurst = 0;
+      this.captureKeepPattern = null;
+      this.compactGrepResultsEnabled = false;
     }
 
     /**
@@ -319,7 +812,45 @@ public class Configuration {
     public ConfigBuilder setMasterLogFile(
         File masterLogFile, boolean autoDeleteFileOnExit, Charset charset)
         throws ProcessConfigurationException {
-      if (masterLogFile.isDirectory()) {
+      return this.setMasterLogFile(
+          masterLogFile, autoDeleteFileOnExit, charset, MasterLogFormat.JSON);
+    }
+
+    /**
+     * Set the master log file as {@link File} with {@link Boolean} autodelete, {@link Charset} and
+     * {@link MasterLogFormat}.
+     *
+     * <p>Master log file is a {@link File} where all the logs are stored by default. If the {@link
+     * Configuration#masterLogFile} is not set, the logs are not store anywhere and are discarded.
+     * A {@link MasterLogFormat#BINARY} master log file is a lot smaller and faster to search, and
+     * can be turned into json with {@link
+     * com.saptarshidebnath.lib.processrunner.utilities.fileutils.MasterLogConverter}.
+     *
+     * @param masterLogFile accepts a {@link File} reference as master log file.
+     * @param autoDeleteFileOnExit accepts a {@link Boolean} flag to determine if the master log
+     *     file is going to be auto deleted or not on JVM exit.
+     * @param charset a reference of {@link Charset} class to set in which chaset the output file is
+     *     going to be written.
+     * @param masterLogFormat the {@link MasterLogFormat} the master log file is written in.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException is thrown if the {@link File} object passed refers to a
+     *     directory or is a read only file, if the {@link MasterLogFormat} is null, or if only the
+     *     first and the last records are kept, see {@link
+     *     ConfigBuilder#setHeadTailRetention(int, int)}.
+     */
+    public ConfigBuilder setMasterLogFile(
+        File masterLogFile,
+        boolean autoDeleteFileOnExit,
+        Charset charset,
+        MasterLogFormat masterLogFormat)
+        throws ProcessConfigurationException {
+      if (masterLogFormat == null) {
+        throw new ProcessConfigurationException("Master log format cannot be null.");
+      } else if (this.headTailRetentionEnabled) {
+        throw new ProcessConfigurationException(
+            "Head and tail retention is set. It keeps the records in memory only and cannot write "
+                + "a master log file.");
+      } else if (masterLogFile.isDirectory()) {
         throw new ProcessConfigurationException(
             "Master log file : "
                 + masterLogFile.getAbsolutePath()
@@ -334,6 +865,7 @@ public class Configuration {
       this.masterLogFile = masterLogFile;
       this.autoDeleteFileOnExit = autoDeleteFileOnExit;
       this.charset = charset;
+      this.masterLogFormat = masterLogFormat;
       return this;
     }
 
@@ -352,6 +884,546 @@ public class Configuration {
       return this;
     }
 
+    /**
+     * Set the {@link CaptureEngine} used to read the process output. Defaults to {@link
+     * CaptureEngine#THREAD_PER_STREAM}. Use {@link CaptureEngine#REACTOR} when a large number of
+     * processes are going to run concurrently, and {@link CaptureEngine#REDIRECT} when the output
+     * is too large to be copied through the JVM.
+     *
+     * @param captureEngine a reference of {@link CaptureEngine}
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the {@link CaptureEngine} is null.
+     */
+    public ConfigBuilder setCaptureEngine(CaptureEngine captureEngine)
+        throws ProcessConfigurationException {
+      if (captureEngine == null) {
+        throw new ProcessConfigurationException("Capture engine cannot be null.");
+      }
+      logger.trace("Setting capture engine as {}", captureEngine);
+      this.captureEngine = captureEngine;
+      return this;
+    }
+
+    /**
+     * Bounds the number of lines held in memory between the output readers and the master log
+     * writer, and sets what happens when a process writes faster than the lines can be written to
+     * disk. Defaults to {@link ProcessRunnerConstants#DEFAULT_CAPTURE_BUFFER_CAPACITY} lines with
+     * {@link BackpressurePolicy#BLOCK}.
+     *
+     * @param captureBufferCapacity maximum number of lines held in memory. Must be positive.
+     * @param backpressurePolicy the {@link BackpressurePolicy} applied when the buffer is full.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the capacity is not positive or the {@link
+     *     BackpressurePolicy} is null.
+     */
+    public ConfigBuilder setCaptureBuffer(
+        int captureBufferCapacity, BackpressurePolicy backpressurePolicy)
+        throws ProcessConfigurationException {
+      if (captureBufferCapacity <= 0) {
+        throw new ProcessConfigurationException(
+            "Capture buffer capacity is set '"
+                + captureBufferCapacity
+                + "'. It must be a positive number.");
+      } else if (backpressurePolicy == null) {
+        throw new ProcessConfigurationException("Backpressure policy cannot be null.");
+      }
+      logger.trace("Capture buffer parameters passed validation");
+      this.captureBufferCapacity = captureBufferCapacity;
+      this.backpressurePolicy = backpressurePolicy;
+      return this;
+    }
+
+    /**
+     * Enable or disable merging the error stream into the output stream. The merge is done by the
+     * operating system, so the lines are captured in the exact order they are written, by a single
+     * reader, and recorded as {@link OutputSourceType#MERGED}. Use this when there is no need to
+     * tell {@link OutputSourceType#SYSOUT} and {@link OutputSourceType#SYSERR} apart. Cannot be
+     * combined with the capture sampling nor the rate limit, see {@link
+     * ConfigBuilder#setCaptureSampleInterval(int)}.
+     *
+     * @param streamMergingEnabled {@link Boolean#TRUE} to merge the streams.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the streams are merged while the capture is sampled
+     *     or rate limited.
+     */
+    public ConfigBuilder enableStreamMerging(boolean streamMergingEnabled)
+        throws ProcessConfigurationException {
+      if (streamMergingEnabled && (this.captureSampleInterval > 1 || this.captureRateLimit > 0)) {
+        throw new ProcessConfigurationException(
+            ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_SAMPLING_WITH_STREAM_MERGING);
+      }
+      logger.trace("Setting stream merging as per request");
+      this.streamMergingEnabled = streamMergingEnabled;
+      return this;
+    }
+
+    /**
+     * Enable or disable the shared log writer. By default every run writes its master log file
+     * from a disk writer thread of its own. The shared log writer serves the master log files of
+     * all the runs from {@link ProcessRunnerConstants#SHARED_WRITER_THREAD_COUNT} threads, taking
+     * turns between them, which saves threads and flushes when many processes run at once.
+     *
+     * @param sharedLogWriterEnabled {@link Boolean#TRUE} to use the shared log writer.
+     * @return the {@link ConfigBuilder}
+     */
+    public ConfigBuilder enableSharedLogWriter(boolean sharedLogWriterEnabled) {
+      logger.trace("Setting shared log writer as per request");
+      this.sharedLogWriterEnabled = sharedLogWriterEnabled;
+      return this;
+    }
+
+    /**
+     * Set the {@link DurabilityPolicy} of the master log file. Defaults to {@link
+     * DurabilityPolicy#NONE}.
+     *
+     * @param durabilityPolicy a reference of {@link DurabilityPolicy}
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the {@link DurabilityPolicy} is null.
+     */
+    public ConfigBuilder setDurabilityPolicy(DurabilityPolicy durabilityPolicy)
+        throws ProcessConfigurationException {
+      if (durabilityPolicy == null) {
+        throw new ProcessConfigurationException("Durability policy cannot be null.");
+      }
+      logger.trace("Setting durability policy as {}", durabilityPolicy);
+      this.durabilityPolicy = durabilityPolicy;
+      return this;
+    }
+
+    /**
+     * Sets when the records written to the master log file are committed, i.e. handed over to the
+     * operating system and synced as per the {@link DurabilityPolicy}. A commit happens once the
+     * given number of records are pending, once the oldest pending record has waited for the given
+     * delay, or as soon as the process has no more output for the moment. Defaults to {@link
+     * ProcessRunnerConstants#DEFAULT_GROUP_COMMIT_RECORDS} records and {@link
+     * ProcessRunnerConstants#DEFAULT_GROUP_COMMIT_DELAY_MILLIS} milliseconds.
+     *
+     * @param groupCommitRecords number of pending records triggering a commit. Must be positive.
+     * @param groupCommitDelayMillis milliseconds a pending record may wait for a commit. Must not
+     *     be negative.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if any of the values is out of range.
+     */
+    public ConfigBuilder setGroupCommit(int groupCommitRecords, long groupCommitDelayMillis)
+        throws ProcessConfigurationException {
+      if (groupCommitRecords <= 0) {
+        throw new ProcessConfigurationException(
+            "Group commit records is set '"
+                + groupCommitRecords
+                + "'. It must be a positive number.");
+      } else if (groupCommitDelayMillis < 0) {
+        throw new ProcessConfigurationException(
+            "Group commit delay is set '"
+                + groupCommitDelayMillis
+                + "'. It must not be a negative number.");
+      }
+      logger.trace("Group commit parameters passed validation");
+      this.groupCommitRecords = groupCommitRecords;
+      this.groupCommitDelayMillis = groupCommitDelayMillis;
+      return this;
+    }
+
+    /**
+     * Enable or disable compressing the master log file. The records are then written in blocks of
+     * about {@link ProcessRunnerConstants#MASTER_LOG_BLOCK_SIZE} bytes, each compressed on its
+     * own by the disk writer, followed by an index of the blocks. The file takes a fraction of the
+     * disk space, and is searched by inflating its blocks in parallel. It is read back through
+     * {@link com.saptarshidebnath.lib.processrunner.output.Output} as usual, in whichever {@link
+     * MasterLogFormat} it is written.
+     *
+     * @param masterLogCompressionEnabled {@link Boolean#TRUE} to compress the master log file.
+     * @return the {@link ConfigBuilder}
+     */
+    public ConfigBuilder enableMasterLogCompression(boolean masterLogCompressionEnabled) {
+      logger.trace("Setting master log compression as per request");
+      this.masterLogCompressionEnabled = masterLogCompressionEnabled;
+      return this;
+    }
+
+    /**
+     * Splits the master log into segments, for processes producing more output than a single file
+     * should hold, e.g. daemons. A new segment is started once the current one has had about
+     * the given number of bytes written to it, or has been open for the given time. The master
+     * log file then lists the segments still kept, see {@link
+     * com.saptarshidebnath.lib.processrunner.utilities.fileutils.SegmentedLog}, and every method
+     * of {@link com.saptarshidebnath.lib.processrunner.output.Output} reads across the segments.
+     *
+     * @param masterLogSegmentBytes bytes written to a segment after which a new one is started.
+     *     Must be positive.
+     * @param masterLogSegmentMillis milliseconds after which a new segment is started, zero for
+     *     no time limit. Must not be negative.
+     * @param masterLogRetainedBytes bytes the closed segments are kept within by deleting the
+     *     oldest ones, zero to keep all of them. Must not be negative.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if any of the values is out of range.
+     */
+    public ConfigBuilder setMasterLogSegments(
+        long masterLogSegmentBytes, long masterLogSegmentMillis, long masterLogRetainedBytes)
+        throws ProcessConfigurationException {
+      if (masterLogSegmentBytes <= 0L) {
+        throw new ProcessConfigurationException(
+            "Master log segment size is set '"
+                + masterLogSegmentBytes
+                + "'. It must be a positive number.");
+      } else if (masterLogSegmentMillis < 0L) {
+        throw new ProcessConfigurationException(
+            "Master log segment time is set '"
+                + masterLogSegmentMillis
+                + "'. It must not be a negative number.");
+      } else if (masterLogRetainedBytes < 0L) {
+        throw new ProcessConfigurationException(
+            "Master log retained size is set '"
+                + masterLogRetainedBytes
+                + "'. It must not be a negative number.");
+      }
+      logger.trace("Master log segment parameters passed validation");
+      this.masterLogSegmentBytes = masterLogSegmentBytes;
+      this.masterLogSegmentMillis = masterLogSegmentMillis;
+      this.masterLogRetainedBytes = masterLogRetainedBytes;
+      return this;
+    }
+
+    /**
+     * Set the {@link MasterLogIoMode} the master log is written and read with. Defaults to {@link
+     * MasterLogIoMode#STREAM}. {@link MasterLogIoMode#MEMORY_MAPPED} saves the system calls and the
+     * copies through the buffers of the JVM, which pays off for large master logs.
+     *
+     * @param masterLogIoMode a reference of {@link MasterLogIoMode}
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the {@link MasterLogIoMode} is null.
+     */
+    public ConfigBuilder setMasterLogIoMode(MasterLogIoMode masterLogIoMode)
+        throws ProcessConfigurationException {
+      if (masterLogIoMode == null) {
+        throw new ProcessConfigurationException("Master log io mode cannot be null.");
+      }
+      logger.trace("Setting master log io mode as {}", masterLogIoMode);
+      this.masterLogIoMode = masterLogIoMode;
+      return this;
+    }
+
+    /**
+     * Enable or disable keeping the records in memory instead of a master log file. The records
+     * are packed into a few growing byte arrays, and every method of {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output} works on them without a master log file
+     * being set, which spares a short lived process the creation of a file. A master log file set
+     * as well is not written, unless a budget is set with {@link
+     * ConfigBuilder#setInMemoryCaptureBudget(long, long)}. The files saved from the {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output} are written in the {@link Charset} of
+     * the master log file if set, else in the platform default. Ignored with {@link
+     * CaptureEngine#REDIRECT}, which always captures to files.
+     *
+     * @param inMemoryCaptureEnabled {@link Boolean#TRUE} to keep the records in memory.
+     * @return the {@link ConfigBuilder}
+     */
+    public ConfigBuilder enableInMemoryCapture(boolean inMemoryCaptureEnabled) {
+      logger.trace("Setting in memory capture as per request");
+      this.inMemoryCaptureEnabled = inMemoryCaptureEnabled;
+      return this;
+    }
+
+    /**
+     * Keeps the records in memory only up to a budget, for processes whose output size is not
+     * known up front. The in memory capture is enabled, see {@link
+     * ConfigBuilder#enableInMemoryCapture(boolean)}. Once the records of the run take more than
+     * the run budget, or the records kept in memory by all the runs take more than the global
+     * budget, the records of the run are moved to the master log file and the rest of the run is
+     * written there, as if the in memory capture was not enabled. The {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output} works the same either way. Memory is
+     * given back to the global budget once a run spills or its {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output} is garbage collected. The records stay
+     * in memory whatever the budget if no master log file is set.
+     *
+     * @param inMemoryCaptureRunBytes bytes the records of the run are kept in memory up to. Must be
+     *     positive.
+     * @param inMemoryCaptureGlobalBytes bytes the records of all the runs are kept in memory up
+     *     to, zero for no global limit. Must not be negative.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if any of the values is out of range.
+     */
+    public ConfigBuilder setInMemoryCaptureBudget(
+        long inMemoryCaptureRunBytes, long inMemoryCaptureGlobalBytes)
+        throws ProcessConfigurationException {
+      if (inMemoryCaptureRunBytes <= 0L) {
+        throw new ProcessConfigurationException(
+            "In memory capture run budget is set '"
+                + inMemoryCaptureRunBytes
+                + "'. It must be a positive number.");
+      } else if (inMemoryCaptureGlobalBytes < 0L) {
+        throw new ProcessConfigurationException(
+            "In memory capture global budget is set '"
+                + inMemoryCaptureGlobalBytes
+                + "'. It must not be a negative number.");
+      }
+      logger.trace("In memory capture budget passed validation");
+      this.inMemoryCaptureEnabled = true;
+      this.inMemoryCaptureRunBytes = inMemoryCaptureRunBytes;
+      this.inMemoryCaptureGlobalBytes = inMemoryCaptureGlobalBytes;
+      return this;
+    }
+
+    /**
+     * Enable or disable the line dictionary, for processes repeating the same lines over and over,
+     * e.g. progress lines or warnings. A line seen again is written as a reference to a table of
+     * recent lines instead of its text, which shrinks the records and lets a search match the line
+     * once for all its occurrences. Applies to the {@link MasterLogFormat#BINARY} master log and
+     * the in memory capture, see {@link ConfigBuilder#enableInMemoryCapture(boolean)}. Ignored
+     * with {@link MasterLogFormat#JSON}, which stays plain json.
+     *
+     * @param lineDictionaryEnabled {@link Boolean#TRUE} to write recurring lines as references.
+     * @return the {@link ConfigBuilder}
+     */
+    public ConfigBuilder enableLineDictionary(boolean lineDictionaryEnabled) {
+      logger.trace("Setting line dictionary as per request");
+      this.lineDictionaryEnabled = lineDictionaryEnabled;
+      return this;
+    }
+
+    /**
+     * Enable or disable the chunk capture, for processes writing binary data, huge single lines or
+     * progress bars redrawn with carriage returns. The bytes are not split into lines but written
+     * to the master log file as read from the pipe, each chunk along with its offset in the
+     * stream and the time it was read at, and the files saved from the {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output} are exact copies of the streams. The
+     * chunks can be read back with {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#openChunkReader()} and {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#openChannel(OutputSourceType)}, and the
+     * searches split them into lines on the fly. The master log format, compression, segments, io
+     * mode, line dictionary, capture buffer and group commit do not apply, and the logs cannot be
+     * streamed. Ignored with {@link CaptureEngine#REDIRECT}, which captures the raw bytes to files
+     * already, and without a master log file.
+     *
+     * @param chunkCaptureEnabled {@link Boolean#TRUE} to capture raw chunks of bytes.
+     * @return the {@link ConfigBuilder}
+     */
+    public ConfigBuilder enableChunkCapture(boolean chunkCaptureEnabled) {
+      logger.trace("Setting chunk capture as per request");
+      this.chunkCaptureEnabled = chunkCaptureEnabled;
+      return this;
+    }
+
+    /**
+     * Set the maximum length of a record, for processes which may write huge lines or never end
+     * their lines at all. A line of output longer than the maximum record length is split into
+     * several records or truncated as per the {@link LongLinePolicy}, and no more than the maximum
+     * record length of a line is ever held in memory while capturing. The length is counted in
+     * bytes of the process output, and a line is split or truncated before a UTF-8 character
+     * rather than in its middle. The files saved from the {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output} join the records split off a line
+     * back into it. Defaults to {@link ProcessRunnerConstants#DEFAULT_MAX_RECORD_LENGTH} bytes,
+     * split.
+     *
+     * @param maxRecordLength the number of bytes of a line kept in a single record. Must be
+     *     positive.
+     * @param longLinePolicy the {@link LongLinePolicy} applied to the longer lines.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the length is not positive or the policy is null.
+     */
+    public ConfigBuilder setMaxRecordLength(int maxRecordLength, LongLinePolicy longLinePolicy)
+        throws ProcessConfigurationException {
+      if (maxRecordLength <= 0) {
+        throw new ProcessConfigurationException(
+            "Max record length is set '" + maxRecordLength + "'. It must be a positive number.");
+      } else if (longLinePolicy == null) {
+        throw new ProcessConfigurationException("Long line policy cannot be null.");
+      }
+      logger.trace("Max record length passed validation");
+      this.maxRecordLength = maxRecordLength;
+      this.longLinePolicy = longLinePolicy;
+      return this;
+    }
+
+    /**
+     * Enable or disable joining the records split off a long line, see {@link
+     * LongLinePolicy#SPLIT}, back into one when searching the output with {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#grepForRegex(String)} and {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#searchMasterLog(String)}, so that a
+     * match across the split is found. The joined line is held in memory whole, and the records
+     * are then read one after the other instead of the segments and blocks of the master log in
+     * parallel. A joined record comes once its line is complete, with the sequence number and
+     * timestamp of its first part.
+     *
+     * @param continuationJoiningEnabled {@link Boolean#TRUE} to join the split records.
+     * @return the {@link ConfigBuilder}
+     */
+    public ConfigBuilder enableContinuationJoining(boolean continuationJoiningEnabled) {
+      logger.trace("Setting continuation joining as per request");
+      this.continuationJoiningEnabled = continuationJoiningEnabled;
+      return this;
+    }
+
+    /**
+     * Keep only the first and the last records of the output, for chatty processes of which only
+     * the start and the end are ever looked at. The first headRecords records are kept, and the
+     * last tailRecords records after them in a ring, while the ones in between are only counted,
+     * see {@link
+     * com.saptarshidebnath.lib.processrunner.output.CaptureStatistics#getSkippedRecordCount()}. The
+     * records are kept in memory only, so the run takes the same memory and no disk whatever the
+     * length of its output, and cannot be combined with a master log file, see {@link
+     * ConfigBuilder#setMasterLogFile(File, boolean)}. The kept records are returned by {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#getHead()} and {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#getTail()}, and every other method of
+     * the {@link com.saptarshidebnath.lib.processrunner.output.Output} works on them alone. Takes
+     * precedence over the in memory capture, see {@link
+     * ConfigBuilder#enableInMemoryCapture(boolean)}. Ignored with {@link CaptureEngine#REDIRECT},
+     * which writes all the output to files. The chunk capture, see {@link
+     * ConfigBuilder#enableChunkCapture(boolean)}, needs a master log file and so never applies
+     * along with it.
+     *
+     * @param retainedHeadRecords the number of first records kept. Must not be negative.
+     * @param retainedTailRecords the number of last records kept. Must not be negative.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if any of the values is negative, both are zero, or a
+     *     master log file is set.
+     */
+    public ConfigBuilder setHeadTailRetention(int retainedHeadRecords, int retainedTailRecords)
+        throws ProcessConfigurationException {
+      if (this.masterLogFile != null) {
+        throw new ProcessConfigurationException(
+            "Master log file is set '"
+                + this.masterLogFile.getAbsolutePath()
+                + "'. Head and tail retention keeps the records in memory only and cannot "
+                + "write it.");
+      } else if (retainedHeadRecords < 0) {
+        throw new ProcessConfigurationException(
+            "Retained head records is set '"
+                + retainedHeadRecords
+                + "'. It must not be a negative number.");
+      } else if (retainedTailRecords < 0) {
+        throw new ProcessConfigurationException(
+            "Retained tail records is set '"
+                + retainedTailRecords
+                + "'. It must not be a negative number.");
+      } else if (retainedHeadRecords == 0 && retainedTailRecords == 0) {
+        throw new ProcessConfigurationException(
+            "Retained head and tail records are both set '0'. At least one record must be kept.");
+      }
+      logger.trace("Head and tail retention passed validation");
+      this.headTailRetentionEnabled = true;
+      this.retainedHeadRecords = retainedHeadRecords;
+      this.retainedTailRecords = retainedTailRecords;
+      return this;
+    }
+
+    /**
+     * Keep only one line out of every captureSampleInterval lines of {@link
+     * OutputSourceType#SYSOUT}, for processes logging far more low value lines than are worth
+     * keeping. The lines are dropped as soon as they are read, so they cost neither the capture
+     * buffer, the writer nor the disk. {@link OutputSourceType#SYSERR} is never sampled, and
+     * neither are the lines holding a match of the pattern set with {@link
+     * ConfigBuilder#setCaptureKeepPattern(String)}. Cannot be combined with {@link
+     * ConfigBuilder#enableStreamMerging(boolean)}, which would sample both. The dropped lines are
+     * counted per second, see {@link
+     * com.saptarshidebnath.lib.processrunner.output.CaptureStatistics#getSamplingWindows()}. Can be
+     * combined with {@link ConfigBuilder#setCaptureRateLimit(int, int)}, the rate limit then
+     * applying to the sampled lines. Ignored with {@link CaptureEngine#REDIRECT} and the chunk
+     * capture, see {@link ConfigBuilder#enableChunkCapture(boolean)}, which do not read lines.
+     *
+     * @param captureSampleInterval keep one line out of that many. Must be positive, one keeps
+     *     all the lines.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the interval is not positive, or is more than one
+     *     while the streams are merged.
+     */
+    public ConfigBuilder setCaptureSampleInterval(int captureSampleInterval)
+        throws ProcessConfigurationException {
+      if (captureSampleInterval <= 0) {
+        throw new ProcessConfigurationException(
+            "Capture sample interval is set '"
+                + captureSampleInterval
+                + "'. It must be a positive number.");
+      } else if (captureSampleInterval > 1 && this.streamMergingEnabled) {
+        throw new ProcessConfigurationException(
+            ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_SAMPLING_WITH_STREAM_MERGING);
+      }
+      logger.trace("Capture sample interval passed validation");
+      this.captureSampleInterval = captureSampleInterval;
+      return this;
+    }
+
+    /**
+     * Keep at most captureRateLimit lines per second of {@link OutputSourceType#SYSOUT}, for
+     * processes logging far more low value lines than are worth keeping. The lines are let through
+     * by a token bucket, filled at the rate limit up to captureRateLimitBurst lines, so a process
+     * quiet for a while may write a burst of lines at once before being limited. The lines over
+     * the limit are dropped as soon as they are read. {@link OutputSourceType#SYSERR} is never
+     * limited, and neither are the lines matching the pattern set with {@link
+     * ConfigBuilder#setCaptureKeepPattern(String)}. See {@link
+     * ConfigBuilder#setCaptureSampleInterval(int)} for the rest.
+     *
+     * @param captureRateLimit the number of lines kept per second. Must be positive.
+     * @param captureRateLimitBurst the number of lines kept at once. Must be positive.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if any of the values is not positive, or if the
+     *     streams are merged.
+     */
+    public ConfigBuilder setCaptureRateLimit(int captureRateLimit, int captureRateLimitBurst)
+        throws ProcessConfigurationException {
+      if (captureRateLimit <= 0) {
+        throw new ProcessConfigurationException(
+            "Capture rate limit is set '" + captureRateLimit + "'. It must be a positive number.");
+      } else if (captureRateLimitBurst <= 0) {
+        throw new ProcessConfigurationException(
+            "Capture rate limit burst is set '"
+                + captureRateLimitBurst
+                + "'. It must be a positive number.");
+      } else if (this.streamMergingEnabled) {
+        throw new ProcessConfigurationException(
+            ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_SAMPLING_WITH_STREAM_MERGING);
+      }
+      logger.trace("Capture rate limit passed validation");
+      this.captureRateLimit = captureRateLimit;
+      this.captureRateLimitBurst = captureRateLimitBurst;
+      return this;
+    }
+
+    /**
+     * Set a regular expression for the lines of {@link OutputSourceType#SYSOUT} to be kept whatever
+     * the sampling and the rate limit, e.g. the errors and warnings. A line is kept if the regular
+     * expression is found anywhere in it, the same as with {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#searchMasterLog(String)}. The lines kept
+     * this way do not count against the sampling nor the rate limit.
+     *
+     * @param regex the regular expression of the lines to keep.
+     * @return the {@link ConfigBuilder}
+     * @throws ProcessConfigurationException if the regular expression is null or invalid.
+     */
+    public ConfigBuilder setCaptureKeepPattern(String regex) throws ProcessConfigurationException {
+      if (regex == null) {
+        throw new ProcessConfigurationException("Capture keep pattern cannot be null.");
+      }
+      try {
+        this.captureKeepPattern = Pattern.compile(regex);
+      } catch (PatternSyntaxException ex) {
+        throw new ProcessConfigurationException(
+            "Capture keep pattern is set '"
+                + regex
+                + "'. It must be a valid regular expression : "
+                + ex.getDescription());
+      }
+      logger.trace("Capture keep pattern passed validation");
+      return this;
+    }
+
+    /**
+     * Enable or disable the compact grep results, for greps matching a great many lines which are
+     * held on to. The records found by {@link
+     * com.saptarshidebnath.lib.processrunner.output.Output#grepForRegex(String)} are packed into a
+     * {@link com.saptarshidebnath.lib.processrunner.model.CompactRecordList}, which takes a
+     * fraction of the memory of one {@link
+     * com.saptarshidebnath.lib.processrunner.model.OutputRecord} per line but compresses the
+     * texts, decodes a new record on every {@link List#get(int)}, and can only be appended to. By
+     * default the records are returned in a plain {@link java.util.ArrayList}.
+     *
+     * @param compactGrepResultsEnabled {@link Boolean#TRUE} to pack the grep results.
+     * @return the {@link ConfigBuilder}
+     */
+    public ConfigBuilder enableCompactGrepResults(boolean compactGrepResultsEnabled) {
+      logger.trace("Setting compact grep results as per request");
+      this.compactGrepResultsEnabled = compactGrepResultsEnabled;
+      return this;
+    }
+
     /**
      * Builds the {@link Configuration} object and returns it back.
      *
@@ -368,14 +1440,7 @@ public class Configuration {
                       .collect(Collectors.joining(ProcessRunnerConstants.SPACE_STR)))
               .toString();
       logger.trace("Command to be executed : {}", commandWithParam);
-      return new Configuration(
-          interpreter,
-          commandWithParam,
-          workingDir,
-          masterLogFile,
-          charset,
-          autoDeleteFileOnExit,
-          logStreamingEnabled);
+      return new Configuration(this, commandWithParam);
     }
   }
 }
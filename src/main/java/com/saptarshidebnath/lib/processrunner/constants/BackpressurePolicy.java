@@ -0,0 +1,25 @@
+package com.saptarshidebnath.lib.processrunner.constants;
+
+/**
+ * Denotes what happens when a process writes its output faster than the captured records can be
+ * written to the master log file and the capture buffer is full.
+ */
+public enum BackpressurePolicy {
+  /**
+   * The stream reader waits for room in the capture buffer. The pipe then fills up and the process
+   * itself blocks on its next write. No output is lost.
+   */
+  BLOCK,
+
+  /** The oldest record waiting in the capture buffer is discarded to make room for the new one. */
+  DROP_OLDEST,
+
+  /** The new record is discarded. */
+  DROP_NEWEST,
+
+  /**
+   * The overflowing records are written to a temporary spill file and are read back by the disk
+   * writer in order. No output is lost and the process is never blocked.
+   */
+  SPILL_TO_DISK
+}
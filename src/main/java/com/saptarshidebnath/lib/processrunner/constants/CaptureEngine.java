@@ -0,0 +1,27 @@
+package com.saptarshidebnath.lib.processrunner.constants;
+
+/** Denotes how the {@link OutputSourceType#SYSOUT} and {@link OutputSourceType#SYSERR} are read. */
+public enum CaptureEngine {
+  /**
+   * Each stream of each process is read by its own blocking {@link Thread}. This is the default
+   * and works well for a handful of concurrent processes.
+   */
+  THREAD_PER_STREAM,
+
+  /**
+   * The streams of all the running processes are serviced by a small fixed number of shared
+   * reactor threads, which only read the bytes already available on the pipe. Use this when
+   * thousands of processes are running concurrently in the same JVM.
+   */
+  REACTOR,
+
+  /**
+   * The streams are redirected by the operating system straight to files, and the JVM never reads
+   * them while the process runs. The master log file is only built when it is asked for, e.g. by a
+   * search. Use this for processes with huge output which is not streamed live. As the two streams
+   * go to separate files, the master log lists all the {@link OutputSourceType#SYSOUT} lines
+   * before the {@link OutputSourceType#SYSERR} ones, and the records are timestamped when the
+   * master log file is built.
+   */
+  REDIRECT
+}
@@ -0,0 +1,26 @@
+package com.saptarshidebnath.lib.processrunner.constants;
+
+/**
+ * Denotes how hard the master log writer tries to get the records onto the storage device. The
+ * records are always handed over to the operating system at every group commit; the policies only
+ * differ in when the operating system is asked to sync the file.
+ */
+public enum DurabilityPolicy {
+  /**
+   * The file is never synced. The records survive a crash of the JVM but not of the machine. This
+   * is the fastest policy.
+   */
+  NONE,
+
+  /**
+   * The file is synced once, when the master log file is complete. The whole log survives a crash
+   * of the machine after the run, at the price of a single sync per run.
+   */
+  SYNC_ON_EXIT,
+
+  /**
+   * The file data is synced at every group commit, the same as fdatasync. Records written before
+   * the last commit survive a crash of the machine during the run. This is the slowest policy.
+   */
+  SYNC_ON_COMMIT
+}
@@ -0,0 +1,22 @@
+package com.saptarshidebnath.lib.processrunner.constants;
+
+/**
+ * Denotes what happens to a line of output longer than the maximum record length, see {@link
+ * com.saptarshidebnath.lib.processrunner.configuration.Configuration#getMaxRecordLength()}. Either
+ * way no more than the maximum record length of a line is ever held in memory while capturing.
+ */
+public enum LongLinePolicy {
+  /**
+   * The line is split into records of at most the maximum record length. Every record but the
+   * last is flagged as continued, see {@link
+   * com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordReader#isContinued()},
+   * telling that the next record of the same stream goes on with it. No output is lost.
+   */
+  SPLIT,
+
+  /**
+   * Only the start of the line is kept, followed by {@link
+   * ProcessRunnerConstants#TRUNCATED_RECORD_MARKER_FORMAT} with the number of bytes dropped.
+   */
+  TRUNCATE
+}
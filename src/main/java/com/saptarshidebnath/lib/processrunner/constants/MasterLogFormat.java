@@ -0,0 +1,18 @@
+package com.saptarshidebnath.lib.processrunner.constants;
+
+/** Denotes how the records are laid out in the master log file. */
+public enum MasterLogFormat {
+  /**
+   * One json object per line, in the {@link java.nio.charset.Charset} of the master log file. Easy
+   * to read for humans and other tools. This is the default.
+   */
+  JSON,
+
+  /**
+   * Length prefixed binary records: the timestamp as a variable length delta to the one before, the
+   * {@link OutputSourceType} as a single byte and the output text as raw UTF-8 bytes. Much smaller
+   * than {@link MasterLogFormat#JSON} and read without any parsing. The text is always UTF-8,
+   * whatever the {@link java.nio.charset.Charset} of the master log file.
+   */
+  BINARY
+}
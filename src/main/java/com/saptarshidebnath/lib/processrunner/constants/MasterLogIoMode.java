@@ -0,0 +1,29 @@
+package com.saptarshidebnath.lib.processrunner.constants;
+
+/** Denotes how the bytes of the master log file are moved to and from the disk. */
+public enum MasterLogIoMode {
+  /**
+   * Plain reads and writes of a file channel, through buffers of the JVM. This is the default.
+   */
+  STREAM,
+
+  /**
+   * The file is mapped into memory in regions of {@link
+   * ProcessRunnerConstants#MASTER_LOG_MAP_REGION_SIZE} bytes. The writer copies the records
+   * straight into the page cache, with no write system call, and the readers scan the mapped
+   * regions, with no read system call. The file grows a region at a time while written, and is
+   * cut to its size once closed.
+   */
+  MEMORY_MAPPED,
+
+  /**
+   * The writer bypasses the page cache, so that a large master log does not push the data of
+   * other processes out of it. Records are gathered in pooled buffers of {@link
+   * ProcessRunnerConstants#MASTER_LOG_DIRECT_BUFFER_SIZE} bytes, aligned to the block size of the
+   * disk, and written with O_DIRECT. The last, partial block is padded when written and the file
+   * is cut to its size. Needs Java 10 or later and a file system supporting O_DIRECT, otherwise
+   * the file is written as with {@link MasterLogIoMode#STREAM}. The readers read as with {@link
+   * MasterLogIoMode#STREAM}.
+   */
+  DIRECT
+}
@@ -42,5 +42,11 @@ public enum OutputSourceType {
    * Depcts both sysout and SYSERR Please read https://en.wikipedia.org/wiki/Standard_streams for
    * more details.
    */
-  ALL
+  ALL,
+
+  /**
+   * Depicts SYSERR merged into sysout by the operating system, when the streams are not told apart.
+   * Please read https://en.wikipedia.org/wiki/Standard_streams for more details.
+   */
+  MERGED
 }
@@ -38,13 +38,41 @@ public class ProcessRunnerConstants {
   /** Private constructor */
   private ProcessRunnerConstants() {}
 
-  public static final int CACHE_SIZE = Integer.MAX_VALUE;
+  public static final int DEFAULT_CAPTURE_BUFFER_CAPACITY = 4096;
+  public static final long RING_BUFFER_MIN_BACKOFF_NANOS = 1_000L;
+  public static final long RING_BUFFER_MAX_BACKOFF_NANOS = 1_000_000L;
+  public static final long WALL_CLOCK_RESYNC_NANOS = 1_000_000_000L;
+  public static final long WALL_CLOCK_MAX_DRIFT_NANOS = 2_000_000L;
   public static final int FILE_WRITER_OBJECT_SIZE = 128;
+  public static final int FILE_WRITER_MAX_OBJECT_SIZE = 4096;
+  public static final int MASTER_LOG_WRITE_BUFFER_SIZE = 64 * 1024;
+  public static final int MASTER_LOG_BLOCK_SIZE = 256 * 1024;
+  public static final int MASTER_LOG_MAP_REGION_SIZE = 64 * 1024 * 1024;
+  public static final int MASTER_LOG_DIRECT_BUFFER_SIZE = 1024 * 1024;
+  public static final int MASTER_LOG_DIRECT_BUFFER_POOL_SIZE = 8;
+  public static final int MEMORY_LOG_MIN_CHUNK_SIZE = 4 * 1024;
+  public static final int MEMORY_LOG_MAX_CHUNK_SIZE = 1024 * 1024;
+  public static final int RECORD_LIST_BLOCK_SIZE = 32 * 1024;
+  public static final int LINE_DICTIONARY_ENTRIES = 256;
+  public static final int LINE_DICTIONARY_MIN_TEXT_LENGTH = 16;
+  public static final int LINE_DICTIONARY_MAX_TEXT_LENGTH = 2048;
+  public static final int DEFAULT_GROUP_COMMIT_RECORDS = 1024;
+  public static final int DEFAULT_MAX_RECORD_LENGTH = 1024 * 1024;
+  public static final String TRUNCATED_RECORD_MARKER_FORMAT = "...[%d bytes truncated]";
+  public static final int HEAD_TAIL_LOG_MIN_CAPACITY = 64;
+  public static final long SAMPLING_WINDOW_NANOS = 1_000_000_000L;
+  public static final long DEFAULT_GROUP_COMMIT_DELAY_MILLIS = 100L;
   public static final String SPACE_STR = " ";
   public static final char SPACE_CHAR = ' ';
   public static final String EMPTY_STR = "";
   public static final String FILE_PREFIX_NAME_LOG_DUMP = "Runner-log-dump-";
+  public static final String FILE_PREFIX_NAME_SPILL = "Runner-spill-";
+  public static final String FILE_PREFIX_NAME_REDIRECT = "Runner-redirect-";
   public static final String FILE_SUFFIX_JSON = ".json";
+  public static final String FILE_SUFFIX_LOG = ".log";
+  public static final String FILE_SUFFIX_BINARY = ".bin";
+  public static final String FILE_SUFFIX_TEMP = ".tmp";
+  public static final String MASTER_LOG_SEGMENT_NAME_FORMAT = "%s.%06d";
   public static final String GENERIC_ERROR = "Generic Error. Please see log for more details.";
   public static final Charset UTF_8 = StandardCharsets.UTF_8;
   public static final String USER_DIR = System.getProperty("user.dir");
@@ -53,8 +81,25 @@ public class ProcessRunnerConstants {
   public static final String DISK_WRITER_THREAD_NAME_SUFFIX = "-DISKRT";
   public static final String STREAM_READER_THREAD_NAME_SUFFIX = "-STRMRD-";
   public static final String PROCESS_RUNNER_THREAD_GROUP_NAME = "PR";
-  public static final long THREAD_WAIT_TIME = 100L;
+  public static final String REACTOR_THREAD_NAME_SUFFIX = "-REACTOR-";
+  public static final int REACTOR_THREAD_COUNT =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+  public static final int STREAM_READ_BUFFER_SIZE = 64 * 1024;
+  public static final long REACTOR_MIN_IDLE_WAIT_MICROS = 50L;
+  public static final long REACTOR_MAX_IDLE_WAIT_MICROS = 10_000L;
+  public static final String SHARED_WRITER_THREAD_NAME_SUFFIX = "-LOGWRT-";
+  public static final int SHARED_WRITER_THREAD_COUNT =
+      Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 4));
+  public static final long SHARED_WRITER_MIN_IDLE_WAIT_MICROS = 100L;
+  public static final long SHARED_WRITER_MAX_IDLE_WAIT_MICROS = 2_000L;
   public static final Gson GSON = new GsonBuilder().create();
   public static final String STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED =
       "Master log file not configured. Configuration : ";
+  public static final String STRING_CONSTANT_EXCEPTION_CHUNK_CAPTURE_NOT_ENABLED =
+      "Chunk capture not enabled. Configuration : ";
+  public static final String STRING_CONSTANT_EXCEPTION_HEAD_TAIL_RETENTION_NOT_ENABLED =
+      "Head and tail retention not enabled. Configuration : ";
+  public static final String STRING_CONSTANT_EXCEPTION_SAMPLING_WITH_STREAM_MERGING =
+      "Capture sampling and rate limit cannot be combined with stream merging, SYSERR is never"
+          + " sampled.";
 }
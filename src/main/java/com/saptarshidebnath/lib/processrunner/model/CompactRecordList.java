@@ -0,0 +1,325 @@
+package com.saptarshidebnath.lib.processrunner.model;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link java.util.List} of {@link OutputRecord} packed into a few arrays instead of an object
+ * graph per record, for holding on to many records, e.g. the result of a grep.
+ *
+ * <p>The texts are encoded as UTF-8 one after the other into blocks of about {@link
+ * ProcessRunnerConstants#RECORD_LIST_BLOCK_SIZE} bytes, every full block compressed with {@link
+ * Deflater}. Alongside are an int array of where every text ends in its block, long arrays of the
+ * sequence numbers and the timestamps and a byte array of the {@link OutputSourceType}. A record
+ * costs 21 bytes plus its compressed text, where an {@link OutputRecord} costs about 80 bytes for
+ * the {@link OutputRecord}, its {@link String} and the array of the {@link String}, plus its text,
+ * in chars before Java 9.
+ *
+ * <p>{@link CompactRecordList#get(int)} decodes the record into a new {@link OutputRecord}, which
+ * serializes to JSON like any other. The last block inflated is kept, so reading the records in
+ * order inflates every block once. Reading them out of order may inflate a block per record, so
+ * the list is not marked {@link java.util.RandomAccess}. Records can only be appended: {@link
+ * List#set(int, Object)}, {@link List#remove(int)} and the other methods changing or removing
+ * records throw {@link UnsupportedOperationException}. Not thread safe for writing; once filled,
+ * it can be read by any number of threads at once. Returned by {@link
+ * com.saptarshidebnath.lib.processrunner.output.Output#grepForRegex(String)} only if asked for,
+ * see {@link
+ * com.saptarshidebnath.lib.processrunner.configuration.Configuration#isEnableCompactGrepResults()}.
+ */
+public class CompactRecordList extends AbstractList<OutputRecord> {
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final byte NULL_TEXT = (byte) 0x80;
+  private static final byte[] EMPTY_BLOCK = new byte[0];
+  private static final OutputSourceType[] OUTPUT_SOURCE_TYPES = OutputSourceType.values();
+  private final List<byte[]> blocks;
+  private int[] blockStarts;
+  private int[] blockSizes;
+  private byte[] openBlock;
+  private int openBlockSize;
+  private int openBlockStart;
+  private int[] textEnds;
+  private long[] sequences;
+  private long[] timeStamps;
+  private byte[] outputSourceTypes;
+  private int size;
+  private volatile InflatedBlock inflatedBlock;
+
+  /** Creates an empty {@link CompactRecordList}. */
+  public CompactRecordList() {
+    this.blocks = new ArrayList<>();
+    this.blockStarts = new int[DEFAULT_CAPACITY];
+    this.blockSizes = new int[DEFAULT_CAPACITY];
+    this.openBlock = EMPTY_BLOCK;
+    this.textEnds = new int[DEFAULT_CAPACITY];
+    this.sequences = new long[DEFAULT_CAPACITY];
+    this.timeStamps = new long[DEFAULT_CAPACITY];
+    this.outputSourceTypes = new byte[DEFAULT_CAPACITY];
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param sequence the sequence number as in {@link OutputRecord#getSequence()}.
+   * @param timeStamp the timestamp as in {@link OutputRecord#getTimeStamp()}.
+   * @param outputSourceType the {@link OutputSourceType}, may be null.
+   * @param outputText the line of output, may be null.
+   */
+  public void add(
+      long sequence, long timeStamp, OutputSourceType outputSourceType, String outputText) {
+    this.ensureCapacity(this.size + 1);
+    byte type = outputSourceType == null ? 0 : (byte) (outputSourceType.ordinal() + 1);
+    if (outputText == null) {
+      type |= NULL_TEXT;
+    } else {
+      this.appendText(outputText);
+    }
+    this.textEnds[this.size] = this.openBlockSize;
+    this.sequences[this.size] = sequence;
+    this.timeStamps[this.size] = timeStamp;
+    this.outputSourceTypes[this.size] = type;
+    this.size++;
+    this.modCount++;
+    if (this.openBlockSize >= ProcessRunnerConstants.RECORD_LIST_BLOCK_SIZE) {
+      this.closeBlock();
+    }
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param outputRecord the {@link OutputRecord} to copy into the arrays.
+   * @return {@link Boolean#TRUE}
+   */
+  @Override
+  public boolean add(OutputRecord outputRecord) {
+    this.add(
+        outputRecord.getSequence(),
+        outputRecord.getTimeStamp(),
+        outputRecord.getOutputSourceType(),
+        outputRecord.getOutputText());
+    return true;
+  }
+
+  /**
+   * Appends all the records of another {@link CompactRecordList}. Its compressed blocks are shared
+   * rather than copied, as they never change.
+   *
+   * @param recordList the {@link CompactRecordList} whose records are appended.
+   */
+  public void addAll(CompactRecordList recordList) {
+    this.closeBlock();
+    this.ensureCapacity(this.size + recordList.size);
+    for (int block = 0; block < recordList.blocks.size(); block++) {
+      this.addBlock(
+          recordList.blocks.get(block),
+          this.size + recordList.blockStarts[block],
+          recordList.blockSizes[block]);
+    }
+    System.arraycopy(recordList.textEnds, 0, this.textEnds, this.size, recordList.size);
+    System.arraycopy(recordList.sequences, 0, this.sequences, this.size, recordList.size);
+    System.arraycopy(recordList.timeStamps, 0, this.timeStamps, this.size, recordList.size);
+    System.arraycopy(
+        recordList.outputSourceTypes, 0, this.outputSourceTypes, this.size, recordList.size);
+    this.openBlockStart = this.size + recordList.openBlockStart;
+    this.openBlock = Arrays.copyOf(recordList.openBlock, recordList.openBlock.length);
+    this.openBlockSize = recordList.openBlockSize;
+    this.size += recordList.size;
+    this.modCount++;
+  }
+
+  /**
+   * Appends all the records of a {@link Collection}, sharing the compressed blocks if it is a
+   * {@link CompactRecordList}.
+   *
+   * @param records the {@link Collection} whose records are appended.
+   * @return {@link Boolean#TRUE} if any record was appended.
+   */
+  @Override
+  public boolean addAll(Collection<? extends OutputRecord> records) {
+    if (records instanceof CompactRecordList) {
+      this.addAll((CompactRecordList) records);
+      return !records.isEmpty();
+    }
+    return super.addAll(records);
+  }
+
+  /**
+   * Compresses the last block and cuts the arrays down to what the records take, once no more
+   * records are to be added.
+   */
+  public void trimToSize() {
+    this.closeBlock();
+    this.openBlock = EMPTY_BLOCK;
+    this.blockStarts = Arrays.copyOf(this.blockStarts, this.blocks.size());
+    this.blockSizes = Arrays.copyOf(this.blockSizes, this.blocks.size());
+    this.textEnds = Arrays.copyOf(this.textEnds, this.size);
+    this.sequences = Arrays.copyOf(this.sequences, this.size);
+    this.timeStamps = Arrays.copyOf(this.timeStamps, this.size);
+    this.outputSourceTypes = Arrays.copyOf(this.outputSourceTypes, this.size);
+  }
+
+  @Override
+  public OutputRecord get(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+    return new OutputRecord(
+        this.sequences[index],
+        this.timeStamps[index],
+        this.getOutputSourceType(index),
+        this.getOutputText(index));
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > this.textEnds.length) {
+      int newCapacity = Math.max(capacity, this.textEnds.length + (this.textEnds.length >> 1));
+      this.textEnds = Arrays.copyOf(this.textEnds, newCapacity);
+      this.sequences = Arrays.copyOf(this.sequences, newCapacity);
+      this.timeStamps = Arrays.copyOf(this.timeStamps, newCapacity);
+      this.outputSourceTypes = Arrays.copyOf(this.outputSourceTypes, newCapacity);
+    }
+  }
+
+  private void appendText(String outputText) {
+    int length = outputText.length();
+    this.ensureBlockCapacity(length);
+    int index = 0;
+    while (index < length && outputText.charAt(index) < 0x80) {
+      this.openBlock[this.openBlockSize + index] = (byte) outputText.charAt(index);
+      index++;
+    }
+    if (index == length) {
+      this.openBlockSize += length;
+      return;
+    }
+    byte[] encoded = outputText.getBytes(StandardCharsets.UTF_8);
+    this.ensureBlockCapacity(encoded.length);
+    System.arraycopy(encoded, 0, this.openBlock, this.openBlockSize, encoded.length);
+    this.openBlockSize += encoded.length;
+  }
+
+  private void ensureBlockCapacity(int length) {
+    int required = this.openBlockSize + length;
+    if (required > this.openBlock.length) {
+      this.openBlock =
+          Arrays.copyOf(
+              this.openBlock, Math.max(required, ProcessRunnerConstants.RECORD_LIST_BLOCK_SIZE));
+    }
+  }
+
+  /** Compresses the open block, if it holds any record, and starts a new one. */
+  private void closeBlock() {
+    if (this.openBlockStart == this.size) {
+      return;
+    }
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(this.openBlock, 0, this.openBlockSize);
+      deflater.finish();
+      byte[] compressed = new byte[this.openBlockSize / 2 + 64];
+      int compressedSize = 0;
+      while (!deflater.finished()) {
+        if (compressedSize == compressed.length) {
+          compressed = Arrays.copyOf(compressed, compressed.length * 2);
+        }
+        compressedSize +=
+            deflater.deflate(compressed, compressedSize, compressed.length - compressedSize);
+      }
+      this.addBlock(
+          Arrays.copyOf(compressed, compressedSize), this.openBlockStart, this.openBlockSize);
+    } finally {
+      deflater.end();
+    }
+    this.openBlockStart = this.size;
+    this.openBlockSize = 0;
+  }
+
+  private void addBlock(byte[] compressed, int blockStart, int blockSize) {
+    int block = this.blocks.size();
+    if (block == this.blockStarts.length) {
+      this.blockStarts = Arrays.copyOf(this.blockStarts, Math.max(DEFAULT_CAPACITY, block * 2));
+      this.blockSizes = Arrays.copyOf(this.blockSizes, this.blockStarts.length);
+    }
+    this.blocks.add(compressed);
+    this.blockStarts[block] = blockStart;
+    this.blockSizes[block] = blockSize;
+  }
+
+  private String getOutputText(int index) {
+    if ((this.outputSourceTypes[index] & NULL_TEXT) != 0) {
+      return null;
+    }
+    byte[] text;
+    int blockStart;
+    if (index >= this.openBlockStart) {
+      text = this.openBlock;
+      blockStart = this.openBlockStart;
+    } else {
+      int block = Arrays.binarySearch(this.blockStarts, 0, this.blocks.size(), index);
+      if (block < 0) {
+        block = -block - 2;
+      }
+      text = this.inflate(block);
+      blockStart = this.blockStarts[block];
+    }
+    int start = index == blockStart ? 0 : this.textEnds[index - 1];
+    return new String(text, start, this.textEnds[index] - start, StandardCharsets.UTF_8);
+  }
+
+  private byte[] inflate(int block) {
+    InflatedBlock lastInflated = this.inflatedBlock;
+    if (lastInflated != null && lastInflated.block == block) {
+      return lastInflated.text;
+    }
+    byte[] text = new byte[this.blockSizes[block]];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(this.blocks.get(block));
+      int inflated = 0;
+      while (inflated < text.length) {
+        int count = inflater.inflate(text, inflated, text.length - inflated);
+        if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new IllegalStateException("Record block " + block + " is cut short");
+        }
+        inflated += count;
+      }
+    } catch (DataFormatException ex) {
+      throw new IllegalStateException("Record block " + block + " cannot be inflated", ex);
+    } finally {
+      inflater.end();
+    }
+    this.inflatedBlock = new InflatedBlock(block, text);
+    return text;
+  }
+
+  private OutputSourceType getOutputSourceType(int index) {
+    int type = this.outputSourceTypes[index] & ~NULL_TEXT;
+    return type == 0 ? null : OUTPUT_SOURCE_TYPES[type - 1];
+  }
+
+  /** The text of the block inflated last. */
+  private static class InflatedBlock {
+    private final int block;
+    private final byte[] text;
+
+    InflatedBlock(int block, byte[] text) {
+      this.block = block;
+      this.text = text;
+    }
+  }
+}
@@ -29,13 +29,20 @@ import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
 import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.output.Output;
 import com.saptarshidebnath.lib.processrunner.process.Runner;
+import com.saptarshidebnath.lib.processrunner.utilities.WallClock;
 
 /**
  * Stores each line of output from the {@link Runner}. {@link OutputRecord} captures the follwoing
- * details : timeStamp, {@link OutputSourceType} and the actual output in String format.
+ * details : sequence, timeStamp, {@link OutputSourceType} and the actual output in String format.
+ *
+ * <p>The sequence numbers the records of a run in the order they were captured, SYSOUT and SYSERR
+ * alike, starting from 1. The timestamp is the wall clock time the line was read at, in
+ * nanoseconds since the epoch as given by {@link WallClock}, so records can be compared across runs
+ * and JVM. The lines read together share their timestamp, their order is told by the sequence.
  */
 public class OutputRecord {
 
+  private final long sequence;
   private final long timeStamp;
   private final OutputSourceType outputSourceType;
   private final String outputText;
@@ -48,24 +55,70 @@ public class OutputRecord {
    * @param outputText The log as {@link String} that is logged.
    */
   public OutputRecord(final OutputSourceType outputSourceType, final String outputText) {
+    this.sequence = 0L;
     this.timeStamp = getCurrentTime();
     this.outputSourceType = outputSourceType;
     this.outputText = outputText;
   }
 
+  /**
+   * Constructor to store an OutputRecord which has already been timestamped, without a sequence
+   * number.
+   *
+   * @param timeStamp the wall clock time at which the line was read, see {@link WallClock#now()}.
+   * @param outputSourceType Type of {@link OutputSourceType} ie. either {@link
+   *     OutputSourceType#SYSOUT} or {@link OutputSourceType#SYSERR}
+   * @param outputText The log as {@link String} that is logged.
+   */
+  public OutputRecord(
+      final long timeStamp, final OutputSourceType outputSourceType, final String outputText) {
+    this(0L, timeStamp, outputSourceType, outputText);
+  }
+
+  /**
+   * Constructor to store an OutputRecord which has already been numbered and timestamped.
+   *
+   * @param sequence the sequence number of the record in its run, starting from 1, zero if unknown.
+   * @param timeStamp the wall clock time at which the line was read, see {@link WallClock#now()}.
+   * @param outputSourceType Type of {@link OutputSourceType} ie. either {@link
+   *     OutputSourceType#SYSOUT} or {@link OutputSourceType#SYSERR}
+   * @param outputText The log as {@link String} that is logged.
+   */
+  public OutputRecord(
+      final long sequence,
+      final long timeStamp,
+      final OutputSourceType outputSourceType,
+      final String outputText) {
+    this.sequence = sequence;
+    this.timeStamp = timeStamp;
+    this.outputSourceType = outputSourceType;
+    this.outputText = outputText;
+  }
+
   /**
    * Get the current timestamp in nano seconds.
    *
-   * @return a {@link Long} number denoting {@link System#nanoTime()}
+   * @return a {@link Long} number denoting {@link WallClock#now()}
    */
   private static long getCurrentTime() {
-    return System.nanoTime();
+    return WallClock.now();
+  }
+
+  /**
+   * Returns the sequence number of the record in its run. Records of older master log files, or
+   * created without one, have none.
+   *
+   * @return a {@link Long} from 1 on, or zero if unknown.
+   */
+  public long getSequence() {
+    return this.sequence;
   }
 
   /**
    * Returns the registered timestamp.
    *
-   * @return currently set {@link Long} timestamp for the current log.
+   * @return currently set {@link Long} timestamp for the current log, in nanoseconds since the
+   *     epoch.
    */
   public long getTimeStamp() {
     return this.timeStamp;
@@ -101,7 +154,9 @@ public class OutputRecord {
   @Override
   public String toString() {
     return "OutputRecord{"
-        + "timeStamp="
+        + "sequence="
+        + sequence
+        + ", timeStamp="
         + timeStamp
         + ", outputSourceType="
         + outputSourceType
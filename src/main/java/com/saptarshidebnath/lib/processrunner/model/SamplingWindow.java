@@ -0,0 +1,102 @@
+package com.saptarshidebnath.lib.processrunner.model;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.utilities.WallClock;
+
+/**
+ * The number of lines of a stream kept and dropped over a window of time, up to a second long,
+ * while sampling or rate limiting the capture, see {@link Configuration#isCaptureSampled()}.
+ */
+public class SamplingWindow {
+
+  private final OutputSourceType outputSourceType;
+  private final long startTime;
+  private final long endTime;
+  private final long keptRecordCount;
+  private final long droppedRecordCount;
+
+  /**
+   * Creates a {@link SamplingWindow}.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream.
+   * @param startTime the time the first line of the window was read at, see {@link
+   *     WallClock#now()}.
+   * @param endTime the time the last line of the window was read at.
+   * @param keptRecordCount the number of lines kept.
+   * @param droppedRecordCount the number of lines dropped.
+   */
+  public SamplingWindow(
+      final OutputSourceType outputSourceType,
+      final long startTime,
+      final long endTime,
+      final long keptRecordCount,
+      final long droppedRecordCount) {
+    this.outputSourceType = outputSourceType;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.keptRecordCount = keptRecordCount;
+    this.droppedRecordCount = droppedRecordCount;
+  }
+
+  /**
+   * Returns the stream the lines were read from.
+   *
+   * @return {@link OutputSourceType#SYSOUT} or {@link OutputSourceType#MERGED}.
+   */
+  public OutputSourceType getOutputSourceType() {
+    return this.outputSourceType;
+  }
+
+  /**
+   * Returns the time the first line of the window was read at.
+   *
+   * @return the nanoseconds since the epoch, as in {@link OutputRecord#getTimeStamp()}.
+   */
+  public long getStartTime() {
+    return this.startTime;
+  }
+
+  /**
+   * Returns the time the last line of the window was read at.
+   *
+   * @return the nanoseconds since the epoch, as in {@link OutputRecord#getTimeStamp()}.
+   */
+  public long getEndTime() {
+    return this.endTime;
+  }
+
+  /**
+   * Returns the number of lines of the window kept.
+   *
+   * @return a {@link Long} count of the lines.
+   */
+  public long getKeptRecordCount() {
+    return this.keptRecordCount;
+  }
+
+  /**
+   * Returns the number of lines of the window dropped.
+   *
+   * @return a {@link Long} count of the lines.
+   */
+  public long getDroppedRecordCount() {
+    return this.droppedRecordCount;
+  }
+
+  @Override
+  public String toString() {
+    return "SamplingWindow{"
+        + "outputSourceType="
+        + outputSourceType
+        + ", startTime="
+        + startTime
+        + ", endTime="
+        + endTime
+        + ", keptRecordCount="
+        + keptRecordCount
+        + ", droppedRecordCount="
+        + droppedRecordCount
+        + '}';
+  }
+}
@@ -0,0 +1,353 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.utilities.WallClock;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordEncoder;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordReader;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.TempFile;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lock based, bounded {@link RecordHandoff} supporting every {@link BackpressurePolicy}.
+ *
+ * <p>{@link RecordRingBuffer} is faster for {@link BackpressurePolicy#BLOCK} and {@link
+ * BackpressurePolicy#DROP_NEWEST}. This class is used for the policies which need to remove or
+ * reorder records behind the producers' back, i.e. {@link BackpressurePolicy#DROP_OLDEST} and
+ * {@link BackpressurePolicy#SPILL_TO_DISK}.
+ *
+ * <p>When the buffer is full, the configured {@link BackpressurePolicy} decides what happens to a
+ * new record. Once the buffer is abandoned by the disk writer, every new record is dropped. The
+ * buffer also keeps track of the number of open streams, so that the disk writer can block on
+ * {@link CaptureBuffer#drainTo(RecordConsumer, int, long)} and still learn when all the readers
+ * are done.
+ *
+ * <p>With {@link BackpressurePolicy#SPILL_TO_DISK}, once a record has overflowed to the spill file
+ * all the following records go to the spill file as well, till the disk writer has taken the spill
+ * file over. The disk writer always empties the in memory records before the spill file, so the
+ * records come out in the order they went in. The spill file is written in the {@link
+ * MasterLogFormat#BINARY} format.
+ */
+class CaptureBuffer implements RecordHandoff {
+
+  private static final Logger logger = LoggerFactory.getLogger(CaptureBuffer.class);
+  private final int capacity;
+  private final BackpressurePolicy backpressurePolicy;
+  private final CaptureStatistics captureStatistics;
+  private final ArrayDeque<BufferedRecord> records;
+  private final ReentrantLock lock;
+  private final Condition notEmpty;
+  private final Condition notFull;
+  private int openStreams;
+  private boolean abandoned;
+  private long lastSequence;
+  private File spillFile;
+  private FileOutputStream spillStream;
+  private RecordEncoder spillEncoder;
+  private int spilledRecordsPending;
+  private File spillFileBeingRead;
+  private RecordReader spillReader;
+
+  /**
+   * Creates a {@link CaptureBuffer}.
+   *
+   * @param capacity maximum number of records held in memory.
+   * @param backpressurePolicy what to do with a new record when the buffer is full.
+   * @param openStreams the number of stream readers which are going to call {@link
+   *     CaptureBuffer#endOfStream()}.
+   * @param captureStatistics the {@link CaptureStatistics} to update on drops and spills.
+   */
+  CaptureBuffer(
+      int capacity,
+      BackpressurePolicy backpressurePolicy,
+      int openStreams,
+      CaptureStatistics captureStatistics) {
+    this.capacity = capacity;
+    this.backpressurePolicy = backpressurePolicy;
+    this.openStreams = openStreams;
+    this.captureStatistics = captureStatistics;
+    this.records =
+        new ArrayDeque<>(Math.min(capacity, ProcessRunnerConstants.FILE_WRITER_OBJECT_SIZE));
+    this.lock = new ReentrantLock();
+    this.notEmpty = this.lock.newCondition();
+    this.notFull = this.lock.newCondition();
+  }
+
+  @Override
+  public void add(OutputSourceType outputSourceType, List<String> lines, BitSet continuedLines)
+      throws InterruptedException {
+    long timeStamp = WallClock.now();
+    for (int index = 0; index < lines.size(); index++) {
+      this.add(timeStamp, outputSourceType, lines.get(index), continuedLines.get(index));
+    }
+  }
+
+  /**
+   * Numbers a line and adds it as per the configured {@link BackpressurePolicy}. A line dropped
+   * keeps its number, so the records dropped leave a gap in the sequence.
+   *
+   * @param timeStamp the time the line was read at.
+   * @param outputSourceType the {@link OutputSourceType} the line was read from.
+   * @param line the line to be added.
+   * @param continued {@link Boolean#TRUE} if the next line of the stream continues the line.
+   * @throws InterruptedException if interrupted while waiting for room with {@link
+   *     BackpressurePolicy#BLOCK}.
+   */
+  private void add(
+      long timeStamp, OutputSourceType outputSourceType, String line, boolean continued)
+      throws InterruptedException {
+    this.lock.lockInterruptibly();
+    try {
+      BufferedRecord record =
+          new BufferedRecord(++this.lastSequence, timeStamp, outputSourceType, line, continued);
+      if (this.abandoned) {
+        this.captureStatistics.incrementDroppedRecordCount();
+        return;
+      }
+      boolean full = this.records.size() >= this.capacity;
+      switch (this.backpressurePolicy) {
+        case DROP_OLDEST:
+          if (full) {
+            this.records.pollFirst();
+            this.captureStatistics.incrementDroppedRecordCount();
+          }
+          this.records.addLast(record);
+          break;
+        case DROP_NEWEST:
+          if (full) {
+            this.captureStatistics.incrementDroppedRecordCount();
+            return;
+          }
+          this.records.addLast(record);
+          break;
+        case SPILL_TO_DISK:
+          if (full || this.spilledRecordsPending > 0) {
+            this.spill(record);
+          } else {
+            this.records.addLast(record);
+          }
+          break;
+        default:
+          while (this.records.size() >= this.capacity && !this.abandoned) {
+            this.notFull.await();
+          }
+          if (this.abandoned) {
+            this.captureStatistics.incrementDroppedRecordCount();
+            return;
+          }
+          this.records.addLast(record);
+      }
+      this.notEmpty.signal();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    if (this.backpressurePolicy != BackpressurePolicy.BLOCK) {
+      return Integer.MAX_VALUE;
+    }
+    this.lock.lock();
+    try {
+      return this.abandoned ? Integer.MAX_VALUE : Math.max(0, this.capacity - this.records.size());
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void endOfStream() {
+    this.lock.lock();
+    try {
+      this.openStreams--;
+      this.notEmpty.signal();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void abandon() {
+    this.lock.lock();
+    try {
+      this.abandoned = true;
+      this.notFull.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public int drainTo(RecordConsumer recordConsumer, int maxRecords, long timeoutNanos)
+      throws InterruptedException, IOException {
+    if (this.spillReader == null) {
+      long remaining = timeoutNanos;
+      this.lock.lockInterruptibly();
+      try {
+        while (this.records.isEmpty() && this.spilledRecordsPending == 0 && this.openStreams > 0) {
+          if (timeoutNanos == Long.MAX_VALUE) {
+            this.notEmpty.await();
+          } else if (remaining > 0) {
+            remaining = this.notEmpty.awaitNanos(remaining);
+          } else {
+            return 0;
+          }
+        }
+      } finally {
+        this.lock.unlock();
+      }
+    }
+    //
+    // The disk writer is the only consumer, so whatever woke it up is still there.
+    //
+    return this.pollTo(recordConsumer, maxRecords);
+  }
+
+  @Override
+  public int pollTo(RecordConsumer recordConsumer, int maxRecords) throws IOException {
+    if (this.spillReader != null) {
+      return this.readSpill(recordConsumer, maxRecords);
+    }
+    List<BufferedRecord> drainedRecords;
+    this.lock.lock();
+    try {
+      drainedRecords = new ArrayList<>(Math.min(maxRecords, this.records.size()));
+      while (drainedRecords.size() < maxRecords && !this.records.isEmpty()) {
+        drainedRecords.add(this.records.pollFirst());
+      }
+      if (!drainedRecords.isEmpty()) {
+        this.notFull.signalAll();
+      } else if (this.spilledRecordsPending == 0) {
+        return this.openStreams > 0 ? 0 : -1;
+      } else {
+        this.takeSpillFileOver();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+    if (drainedRecords.isEmpty()) {
+      return this.readSpill(recordConsumer, maxRecords);
+    }
+    //
+    // Hand the records over outside the lock so that the readers are not held up by the disk.
+    //
+    for (BufferedRecord record : drainedRecords) {
+      recordConsumer.accept(
+          record.sequence,
+          record.timeStamp,
+          record.outputSourceType,
+          record.outputText,
+          record.continued);
+    }
+    return drainedRecords.size();
+  }
+
+  /**
+   * Closes the spill file and lets the disk writer read it back. Called with the lock held.
+   *
+   * @throws IOException if the spill file cannot be opened.
+   */
+  private void takeSpillFileOver() throws IOException {
+    //
+    // New records go to memory again, and they are newer than all the spilled ones.
+    //
+    logger.debug("Reading back {} spilled records", this.spilledRecordsPending);
+    try {
+      this.spillEncoder.flush();
+    } finally {
+      this.spillStream.close();
+    }
+    this.spillFileBeingRead = this.spillFile;
+    this.spillReader =
+        RecordReader.open(
+            this.spillFileBeingRead, MasterLogFormat.BINARY, ProcessRunnerConstants.UTF_8);
+    this.spillFile = null;
+    this.spillStream = null;
+    this.spillEncoder = null;
+    this.spilledRecordsPending = 0;
+  }
+
+  private void spill(BufferedRecord record) {
+    try {
+      if (this.spillEncoder == null) {
+        this.spillFile = new TempFile().createTempSpillFile();
+        this.spillStream = new FileOutputStream(this.spillFile);
+        this.spillEncoder =
+            RecordEncoder.create(
+                this.spillStream.getChannel(),
+                MasterLogFormat.BINARY,
+                ProcessRunnerConstants.UTF_8,
+                ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE);
+        logger.debug("Capture buffer full, spilling to : {}", this.spillFile);
+      }
+      this.spillEncoder.write(
+          record.sequence,
+          record.timeStamp,
+          record.outputSourceType,
+          record.outputText,
+          record.continued);
+      this.spilledRecordsPending++;
+      this.captureStatistics.incrementSpilledRecordCount();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private int readSpill(RecordConsumer recordConsumer, int maxRecords) throws IOException {
+    int read = 0;
+    while (read < maxRecords) {
+      if (!this.spillReader.next()) {
+        this.spillReader.close();
+        this.spillReader = null;
+        if (!this.spillFileBeingRead.delete()) {
+          logger.warn("Unable to delete spill file : {}", this.spillFileBeingRead);
+        }
+        break;
+      }
+      recordConsumer.accept(
+          this.spillReader.getSequence(),
+          this.spillReader.getTimeStamp(),
+          this.spillReader.getOutputSourceType(),
+          this.spillReader.getOutputText(),
+          this.spillReader.isContinued());
+      read++;
+    }
+    return read;
+  }
+
+  /** A record held in memory. */
+  private static class BufferedRecord {
+    private final long sequence;
+    private final long timeStamp;
+    private final OutputSourceType outputSourceType;
+    private final String outputText;
+    private final boolean continued;
+
+    BufferedRecord(
+        long sequence,
+        long timeStamp,
+        OutputSourceType outputSourceType,
+        String outputText,
+        boolean continued) {
+      this.sequence = sequence;
+      this.timeStamp = timeStamp;
+      this.outputSourceType = outputSourceType;
+      this.outputText = outputText;
+      this.continued = continued;
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.DurabilityPolicy;
+import com.saptarshidebnath.lib.processrunner.constants.LongLinePolicy;
+import com.saptarshidebnath.lib.processrunner.model.SamplingWindow;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters collected while capturing the output of a process. The counters are updated by the
+ * capture pipeline as it goes, and are final in {@link Output#getCaptureStatistics()} once the
+ * process has finished.
+ */
+public class CaptureStatistics {
+
+  private final AtomicLong droppedRecordCount;
+  private final AtomicLong spilledRecordCount;
+  private final AtomicLong capturedRecordCount;
+  private final AtomicLong writtenRecordCount;
+  private final AtomicLong masterLogWriteCount;
+  private final AtomicLong masterLogWrittenBytes;
+  private final AtomicLong masterLogWriteNanos;
+  private final AtomicLong masterLogUncompressedBytes;
+  private final AtomicLong masterLogSyncCount;
+  private final AtomicLong masterLogSyncNanos;
+  private final AtomicLong longLineCount;
+  private final AtomicLong truncatedByteCount;
+  private final AtomicLong skippedRecordCount;
+  private final AtomicLong sampledOutRecordCount;
+  private final Queue<SamplingWindow> samplingWindows;
+
+  /** Creates a {@link CaptureStatistics} with all the counters set to zero. */
+  CaptureStatistics() {
+    this.droppedRecordCount = new AtomicLong();
+    this.spilledRecordCount = new AtomicLong();
+    this.capturedRecordCount = new AtomicLong();
+    this.writtenRecordCount = new AtomicLong();
+    this.masterLogWriteCount = new AtomicLong();
+    this.masterLogWrittenBytes = new AtomicLong();
+    this.masterLogWriteNanos = new AtomicLong();
+    this.masterLogUncompressedBytes = new AtomicLong();
+    this.masterLogSyncCount = new AtomicLong();
+    this.masterLogSyncNanos = new AtomicLong();
+    this.longLineCount = new AtomicLong();
+    this.truncatedByteCount = new AtomicLong();
+    this.skippedRecordCount = new AtomicLong();
+    this.sampledOutRecordCount = new AtomicLong();
+    this.samplingWindows = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Returns the number of output lines handed over to the capture buffer, including the ones
+   * dropped later on.
+   *
+   * @return a {@link Long} count of the captured lines.
+   */
+  public long getCapturedRecordCount() {
+    return this.capturedRecordCount.get();
+  }
+
+  /**
+   * Returns the number of output lines written to the master log file.
+   *
+   * @return a {@link Long} count of the written lines.
+   */
+  public long getWrittenRecordCount() {
+    return this.writtenRecordCount.get();
+  }
+
+  /**
+   * Returns the number of captured lines still waiting to be written to the master log file, i.e.
+   * how far the disk writer is behind the process. Zero once the process has finished.
+   *
+   * @return a {@link Long} count of the lines not yet written.
+   */
+  public long getWriterLag() {
+    return Math.max(
+        0L,
+        this.capturedRecordCount.get()
+            - this.droppedRecordCount.get()
+            - this.skippedRecordCount.get()
+            - this.writtenRecordCount.get());
+  }
+
+  /**
+   * Returns the number of output lines discarded because the capture buffer was full. Only {@link
+   * BackpressurePolicy#DROP_OLDEST} and {@link BackpressurePolicy#DROP_NEWEST} discard lines.
+   *
+   * @return a {@link Long} count of the discarded lines.
+   */
+  public long getDroppedRecordCount() {
+    return this.droppedRecordCount.get();
+  }
+
+  /**
+   * Returns the number of output lines which overflowed to the spill file with {@link
+   * BackpressurePolicy#SPILL_TO_DISK}.
+   *
+   * @return a {@link Long} count of the spilled lines.
+   */
+  public long getSpilledRecordCount() {
+    return this.spilledRecordCount.get();
+  }
+
+  /**
+   * Returns the number of writes issued to the master log file, i.e. the number of write system
+   * calls.
+   *
+   * @return a {@link Long} count of the writes.
+   */
+  public long getMasterLogWriteCount() {
+    return this.masterLogWriteCount.get();
+  }
+
+  /**
+   * Returns the number of bytes written to the master log file.
+   *
+   * @return a {@link Long} count of the bytes.
+   */
+  public long getMasterLogWrittenBytes() {
+    return this.masterLogWrittenBytes.get();
+  }
+
+  /**
+   * Returns how many times smaller the master log file is than its records, i.e. the bytes of the
+   * records in the {@link com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat} over
+   * the bytes written. Above one only if the master log file is compressed, known once the master
+   * log file is closed.
+   *
+   * @return the compression ratio, or one if nothing was written.
+   */
+  public double getMasterLogCompressionRatio() {
+    long writtenBytes = this.masterLogWrittenBytes.get();
+    long uncompressedBytes = this.masterLogUncompressedBytes.get();
+    return writtenBytes == 0 || uncompressedBytes == 0
+        ? 1.0d
+        : (double) uncompressedBytes / writtenBytes;
+  }
+
+  /**
+   * Returns the average number of bytes per write to the master log file.
+   *
+   * @return the bytes per write, or zero if nothing was written.
+   */
+  public long getAverageBytesPerWrite() {
+    long writeCount = this.masterLogWriteCount.get();
+    return writeCount == 0 ? 0L : this.masterLogWrittenBytes.get() / writeCount;
+  }
+
+  /**
+   * Returns the average time taken by a write to the master log file.
+   *
+   * @return the latency in nanoseconds, or zero if nothing was written.
+   */
+  public long getAverageWriteLatencyNanos() {
+    long writeCount = this.masterLogWriteCount.get();
+    return writeCount == 0 ? 0L : this.masterLogWriteNanos.get() / writeCount;
+  }
+
+  /**
+   * Returns the number of times the master log file was synced to the storage device as per the
+   * {@link DurabilityPolicy}.
+   *
+   * @return a {@link Long} count of the syncs.
+   */
+  public long getMasterLogSyncCount() {
+    return this.masterLogSyncCount.get();
+  }
+
+  /**
+   * Returns the average time taken to sync the master log file to the storage device.
+   *
+   * @return the latency in nanoseconds, or zero if the file was never synced.
+   */
+  public long getAverageSyncLatencyNanos() {
+    long syncCount = this.masterLogSyncCount.get();
+    return syncCount == 0 ? 0L : this.masterLogSyncNanos.get() / syncCount;
+  }
+
+  /**
+   * Returns the number of output lines longer than the maximum record length, which were split or
+   * truncated as per the {@link LongLinePolicy}.
+   *
+   * @return a {@link Long} count of the long lines.
+   */
+  public long getLongLineCount() {
+    return this.longLineCount.get();
+  }
+
+  /**
+   * Returns the number of bytes of output dropped off the long lines with {@link
+   * LongLinePolicy#TRUNCATE}.
+   *
+   * @return a {@link Long} count of the dropped bytes.
+   */
+  public long getTruncatedByteCount() {
+    return this.truncatedByteCount.get();
+  }
+
+  /**
+   * Returns the number of output lines neither in the head nor in the tail, and so not kept, with
+   * {@link Configuration#isEnableHeadTailRetention()}.
+   *
+   * @return a {@link Long} count of the skipped lines.
+   */
+  public long getSkippedRecordCount() {
+    return this.skippedRecordCount.get();
+  }
+
+  /**
+   * Returns the number of output lines dropped as they were read by the sampling or the rate
+   * limit, see {@link Configuration#isCaptureSampled()}. These lines never reach the capture
+   * buffer, and are not part of {@link CaptureStatistics#getCapturedRecordCount()}.
+   *
+   * @return a {@link Long} count of the sampled out lines.
+   */
+  public long getSampledOutRecordCount() {
+    return this.sampledOutRecordCount.get();
+  }
+
+  /**
+   * Returns the number of output lines kept and dropped by the sampling or the rate limit, per
+   * stream and per window of up to a second, for the windows in which lines were dropped. The
+   * dropped lines of all the windows add up to {@link
+   * CaptureStatistics#getSampledOutRecordCount()} once the process has finished.
+   *
+   * @return an unmodifiable {@link List} of {@link SamplingWindow}, in the order they ended.
+   */
+  public List<SamplingWindow> getSamplingWindows() {
+    return Collections.unmodifiableList(new ArrayList<>(this.samplingWindows));
+  }
+
+  void incrementDroppedRecordCount() {
+    this.droppedRecordCount.incrementAndGet();
+  }
+
+  void addDroppedRecordCount(long count) {
+    this.droppedRecordCount.addAndGet(count);
+  }
+
+  void incrementSpilledRecordCount() {
+    this.spilledRecordCount.incrementAndGet();
+  }
+
+  void addCapturedRecordCount(long count) {
+    this.capturedRecordCount.addAndGet(count);
+  }
+
+  void addWrittenRecordCount(long count) {
+    this.writtenRecordCount.addAndGet(count);
+  }
+
+  void recordMasterLogWrite(int bytes, long nanos) {
+    this.masterLogWriteCount.incrementAndGet();
+    this.masterLogWrittenBytes.addAndGet(bytes);
+    this.masterLogWriteNanos.addAndGet(nanos);
+  }
+
+  void recordMasterLogUncompressedBytes(long bytes) {
+    this.masterLogUncompressedBytes.set(bytes);
+  }
+
+  void recordMasterLogSync(long nanos) {
+    this.masterLogSyncCount.incrementAndGet();
+    this.masterLogSyncNanos.addAndGet(nanos);
+  }
+
+  void incrementLongLineCount() {
+    this.longLineCount.incrementAndGet();
+  }
+
+  void addTruncatedByteCount(long count) {
+    this.truncatedByteCount.addAndGet(count);
+  }
+
+  void addSkippedRecordCount(long count) {
+    this.skippedRecordCount.addAndGet(count);
+  }
+
+  void addSampledOutRecordCount(long count) {
+    this.sampledOutRecordCount.addAndGet(count);
+  }
+
+  void addSamplingWindow(SamplingWindow samplingWindow) {
+    this.samplingWindows.add(samplingWindow);
+  }
+
+  @Override
+  public String toString() {
+    return "CaptureStatistics{"
+        + "droppedRecordCount="
+        + droppedRecordCount
+        + ", spilledRecordCount="
+        + spilledRecordCount
+        + ", capturedRecordCount="
+        + capturedRecordCount
+        + ", writtenRecordCount="
+        + writtenRecordCount
+        + ", masterLogWriteCount="
+        + masterLogWriteCount
+        + ", masterLogWrittenBytes="
+        + masterLogWrittenBytes
+        + ", masterLogCompressionRatio="
+        + getMasterLogCompressionRatio()
+        + ", masterLogSyncCount="
+        + masterLogSyncCount
+        + ", longLineCount="
+        + longLineCount
+        + ", truncatedByteCount="
+        + truncatedByteCount
+        + ", skippedRecordCount="
+        + skippedRecordCount
+        + ", sampledOutRecordCount="
+        + sampledOutRecordCount
+        + '}';
+  }
+}
@@ -0,0 +1,177 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.ChunkLogReader;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.ChunkLogWriter;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Reads a master log file of chunks, see {@link ChunkLogWriter}, as lines, so that the searches
+ * work on the chunk capture the same as on a master log file of lines.
+ *
+ * <p>The chunks of each stream are split by a {@link LineSplitter} of their own, in the order they
+ * were captured, and a line takes the timestamp of the chunk completing it. The lines are numbered
+ * from 1 in the order they are completed, so a line of one stream begun before, but completed
+ * after, a line of the other one comes after it. The lines are limited to the {@link
+ * Configuration#getMaxRecordLength()} the same as when capturing them. Not thread safe.
+ */
+class ChunkRecordReader implements RecordReader {
+
+  private static final OutputSourceType[] SOURCE_TYPES = OutputSourceType.values();
+  private final ChunkLogReader chunkLogReader;
+  private final Charset charset;
+  private final Configuration configuration;
+  private final CaptureStatistics captureStatistics;
+  private final LineSplitter[] lineSplitters;
+  private final long[] chunkTimeStamps;
+  private final List<String> pendingLines;
+  private final BitSet pendingContinuedLines;
+  private byte[] chunk;
+  private boolean endOfChunks;
+  private int finishedStreams;
+  private int pendingIndex;
+  private OutputSourceType pendingSourceType;
+  private long pendingTimeStamp;
+  private long sequence;
+  private long timeStamp;
+  private OutputSourceType outputSourceType;
+  private String outputText;
+  private boolean continued;
+
+  /**
+   * Opens the master log file of chunks of a {@link Configuration} for reading as lines.
+   *
+   * @param configuration the {@link Configuration} holding the master log file, the {@link
+   *     Charset} to decode the lines with and the maximum record length.
+   * @throws IOException if the file cannot be opened.
+   */
+  ChunkRecordReader(Configuration configuration) throws IOException {
+    this.chunkLogReader = new ChunkLogReader(configuration.getMasterLogFile());
+    this.charset = LogHandler.resolveCharset(configuration);
+    this.configuration = configuration;
+    this.captureStatistics = new CaptureStatistics();
+    this.lineSplitters = new LineSplitter[SOURCE_TYPES.length];
+    this.chunkTimeStamps = new long[SOURCE_TYPES.length];
+    this.pendingLines = new ArrayList<>();
+    this.pendingContinuedLines = new BitSet();
+    this.chunk = new byte[ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE];
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    while (this.pendingIndex == this.pendingLines.size()) {
+      this.pendingLines.clear();
+      this.pendingContinuedLines.clear();
+      this.pendingIndex = 0;
+      if (!this.splitChunk() && !this.finishStream()) {
+        return false;
+      }
+    }
+    this.sequence++;
+    this.timeStamp = this.pendingTimeStamp;
+    this.outputSourceType = this.pendingSourceType;
+    this.continued = this.pendingContinuedLines.get(this.pendingIndex);
+    this.outputText = this.pendingLines.get(this.pendingIndex++);
+    return true;
+  }
+
+  @Override
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return this.timeStamp;
+  }
+
+  @Override
+  public OutputSourceType getOutputSourceType() {
+    return this.outputSourceType;
+  }
+
+  @Override
+  public String getOutputText() {
+    return this.outputText;
+  }
+
+  @Override
+  public boolean isContinued() {
+    return this.continued;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.chunkLogReader.close();
+  }
+
+  /**
+   * Splits the next chunk with the {@link LineSplitter} of its stream.
+   *
+   * @return {@link Boolean#FALSE} if all the chunks have been read.
+   * @throws IOException if the file cannot be read.
+   */
+  private boolean splitChunk() throws IOException {
+    if (this.endOfChunks || !this.chunkLogReader.next()) {
+      this.endOfChunks = true;
+      return false;
+    }
+    int length = this.chunkLogReader.getLength();
+    if (length > this.chunk.length) {
+      this.chunk = new byte[Math.max(length, this.chunk.length * 2)];
+    }
+    this.chunkLogReader.getBytes().get(this.chunk, 0, length);
+    this.pendingSourceType = this.chunkLogReader.getOutputSourceType();
+    this.pendingTimeStamp = this.chunkLogReader.getTimeStamp();
+    int stream = this.pendingSourceType.ordinal();
+    this.chunkTimeStamps[stream] = this.pendingTimeStamp;
+    if (this.lineSplitters[stream] == null) {
+      this.lineSplitters[stream] =
+          new LineSplitter(
+              this.charset, this.configuration, this.captureStatistics, this::addPendingLines);
+    }
+    this.lineSplitters[stream].split(this.chunk, 0, length);
+    return true;
+  }
+
+  /**
+   * Takes over the lines split off a chunk, along with which of them are continued.
+   *
+   * @param lines the lines, in order.
+   * @param continuedLines the indexes of the continued lines.
+   */
+  private void addPendingLines(List<String> lines, BitSet continuedLines) {
+    int offset = this.pendingLines.size();
+    for (int index = continuedLines.nextSetBit(0);
+        index >= 0;
+        index = continuedLines.nextSetBit(index + 1)) {
+      this.pendingContinuedLines.set(offset + index);
+    }
+    this.pendingLines.addAll(lines);
+  }
+
+  /**
+   * Hands over the last line of the next stream, if it did not end with a line separator.
+   *
+   * @return {@link Boolean#FALSE} if all the streams have been finished.
+   */
+  private boolean finishStream() {
+    while (this.finishedStreams < this.lineSplitters.length) {
+      int stream = this.finishedStreams++;
+      if (this.lineSplitters[stream] != null) {
+        this.pendingSourceType = SOURCE_TYPES[stream];
+        this.pendingTimeStamp = this.chunkTimeStamps[stream];
+        this.lineSplitters[stream].finish();
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,317 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.LongLinePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.utilities.ByteScanner;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits the raw bytes of a process stream into lines.
+ *
+ * <p>A line ends with a line feed, a carriage return or a carriage return followed by a line feed,
+ * same as {@link java.io.BufferedReader#readLine()}. The bytes are scanned in place with {@link
+ * ByteScanner}, and only the line left incomplete at the end of a chunk is copied, to be completed
+ * by the next chunk. Lines made of ASCII bytes only are turned into {@link String} without going
+ * through the {@link java.nio.charset.CharsetDecoder}.
+ *
+ * <p>A line longer than the maximum line length is split or truncated as per its {@link
+ * LongLinePolicy}, and the partial line is never let grow past the maximum line length. With UTF-8
+ * the line is cut before a character rather than in its middle. The parts split off a line are
+ * told apart from the lines by their index in the continued lines of the batch, never by their
+ * text, so whatever bytes the process writes are kept as they are.
+ *
+ * <p>Works only with charsets encoding ASCII as single bytes, see {@link
+ * LineSplitter#supports(Charset)}.
+ */
+class LineSplitter {
+
+  private static final byte LINE_FEED = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+  private static final int INITIAL_PARTIAL_LINE_SIZE = 256;
+  private final Charset charset;
+  private final int maxLineLength;
+  private final boolean truncate;
+  private final boolean utf8;
+  private final CaptureStatistics captureStatistics;
+  private final LineConsumer lineConsumer;
+  private final List<String> lines;
+  private final BitSet continuedLines;
+  private byte[] chunk;
+  private ByteBuffer chunkBuffer;
+  private byte[] partialLine;
+  private ByteBuffer partialLineBuffer;
+  private int partialLineLength;
+  private boolean afterCarriageReturn;
+  private boolean longLine;
+  private boolean truncating;
+  private long truncatedLength;
+  private int lineCount;
+
+  /**
+   * Creates a {@link LineSplitter} with no limit on the length of a line, so no line is ever
+   * continued.
+   *
+   * @param charset the {@link Charset} used to decode the lines.
+   * @param lineConsumer receives the lines, in order, one batch per call to {@link
+   *     LineSplitter#split(byte[], int, int)}. The batch is reused after the call returns.
+   */
+  LineSplitter(Charset charset, Consumer<List<String>> lineConsumer) {
+    this(
+        charset,
+        Integer.MAX_VALUE,
+        LongLinePolicy.SPLIT,
+        new CaptureStatistics(),
+        (lines, continuedLines) -> lineConsumer.accept(lines));
+  }
+
+  /**
+   * Creates a {@link LineSplitter} limiting the lines to the {@link
+   * Configuration#getMaxRecordLength()}, as per the {@link Configuration#getLongLinePolicy()}.
+   *
+   * @param charset the {@link Charset} used to decode the lines.
+   * @param configuration the {@link Configuration} of the process.
+   * @param captureStatistics the {@link CaptureStatistics} counting the long lines.
+   * @param lineConsumer receives the lines, in order, one batch per call to {@link
+   *     LineSplitter#split(byte[], int, int)}.
+   */
+  LineSplitter(
+      Charset charset,
+      Configuration configuration,
+      CaptureStatistics captureStatistics,
+      LineConsumer lineConsumer) {
+    this(
+        charset,
+        configuration.getMaxRecordLength(),
+        configuration.getLongLinePolicy(),
+        captureStatistics,
+        lineConsumer);
+  }
+
+  /**
+   * Creates a {@link LineSplitter} limiting the length of the lines.
+   *
+   * @param charset the {@link Charset} used to decode the lines.
+   * @param maxLineLength the number of bytes of a line handed over as a single line.
+   * @param longLinePolicy the {@link LongLinePolicy} applied to the longer lines.
+   * @param captureStatistics the {@link CaptureStatistics} counting the long lines.
+   * @param lineConsumer receives the lines, in order, one batch per call to {@link
+   *     LineSplitter#split(byte[], int, int)}.
+   */
+  LineSplitter(
+      Charset charset,
+      int maxLineLength,
+      LongLinePolicy longLinePolicy,
+      CaptureStatistics captureStatistics,
+      LineConsumer lineConsumer) {
+    this.charset = charset;
+    this.maxLineLength = maxLineLength;
+    this.truncate = longLinePolicy == LongLinePolicy.TRUNCATE;
+    this.utf8 = StandardCharsets.UTF_8.equals(charset);
+    this.captureStatistics = captureStatistics;
+    this.lineConsumer = lineConsumer;
+    this.lines = new ArrayList<>();
+    this.continuedLines = new BitSet();
+    this.partialLine = new byte[Math.min(INITIAL_PARTIAL_LINE_SIZE, maxLineLength)];
+    this.partialLineBuffer = ByteScanner.wrap(this.partialLine);
+  }
+
+  /**
+   * Tells if a {@link Charset} can be split at the byte level, i.e. if it encodes every ASCII
+   * character as the same single byte.
+   *
+   * @param charset the {@link Charset} to check.
+   * @return {@link Boolean#TRUE} if {@link LineSplitter} can be used with the {@link Charset}.
+   */
+  static boolean supports(Charset charset) {
+    return ByteScanner.isAsciiCompatible(charset);
+  }
+
+  /**
+   * Splits a chunk of bytes and hands the completed lines over to the line consumer.
+   *
+   * @param buffer the bytes read from the stream.
+   * @param offset the offset of the first byte in the buffer.
+   * @param length the number of bytes read.
+   */
+  void split(byte[] buffer, int offset, int length) {
+    if (buffer != this.chunk) {
+      //
+      // Callers read into the same array over and over, so it is wrapped only once.
+      //
+      this.chunk = buffer;
+      this.chunkBuffer = ByteScanner.wrap(buffer);
+    }
+    int end = offset + length;
+    int lineStart = offset;
+    for (int index = offset;
+        (index = ByteScanner.indexOfLineSeparator(this.chunkBuffer, index, end)) != -1;
+        index++) {
+      byte current = buffer[index];
+      if (current == LINE_FEED
+          && this.afterCarriageReturn
+          && index == lineStart
+          && this.partialLineLength == 0) {
+        //
+        // Second half of a CR LF, the line has already been emitted.
+        //
+        this.afterCarriageReturn = false;
+        lineStart = index + 1;
+        continue;
+      }
+      this.emit(lineStart, index);
+      this.afterCarriageReturn = current == CARRIAGE_RETURN;
+      lineStart = index + 1;
+    }
+    if (lineStart < end) {
+      this.appendToPartialLine(buffer, lineStart, end);
+    }
+    this.handOver();
+  }
+
+  /** Hands the last line over if the stream did not end with a line separator. */
+  void finish() {
+    if (this.partialLineLength > 0 || this.truncating) {
+      this.lines.add(this.takePartialLine());
+      this.lineCount++;
+      this.handOver();
+    }
+  }
+
+  /**
+   * Returns the number of lines handed over so far.
+   *
+   * @return the number of lines.
+   */
+  int getLineCount() {
+    return this.lineCount;
+  }
+
+  private void emit(int from, int to) {
+    String line;
+    if (this.partialLineLength == 0 && !this.truncating && to - from <= this.maxLineLength) {
+      line = ByteScanner.decode(this.chunkBuffer, from, to, this.charset);
+      this.longLine = false;
+    } else {
+      this.appendToPartialLine(this.chunk, from, to);
+      line = this.takePartialLine();
+    }
+    this.lines.add(line);
+    this.lineCount++;
+  }
+
+  /**
+   * Appends bytes to the partial line, up to the maximum line length. The bytes past it either
+   * complete a part of the line handed over on its own, or are dropped.
+   */
+  private void appendToPartialLine(byte[] buffer, int from, int to) {
+    while (from < to) {
+      if (this.partialLineLength == this.maxLineLength && !this.truncating) {
+        this.cutLongLine(buffer[from]);
+      }
+      if (this.truncating) {
+        this.truncatedLength += to - from;
+        this.captureStatistics.addTruncatedByteCount(to - from);
+        return;
+      }
+      int count = Math.min(to - from, this.maxLineLength - this.partialLineLength);
+      int required = this.partialLineLength + count;
+      if (required > this.partialLine.length) {
+        this.partialLine =
+            Arrays.copyOf(
+                this.partialLine,
+                Math.min(Math.max(required, this.partialLine.length * 2), this.maxLineLength));
+        this.partialLineBuffer = ByteScanner.wrap(this.partialLine);
+      }
+      System.arraycopy(buffer, from, this.partialLine, this.partialLineLength, count);
+      this.partialLineLength = required;
+      from += count;
+    }
+  }
+
+  /**
+   * Handles a partial line grown to the maximum line length with more bytes to come. Its start is
+   * handed over as a continued line, or kept while the rest of the line is dropped.
+   *
+   * @param nextByte the first of the bytes to come.
+   */
+  private void cutLongLine(byte nextByte) {
+    if (!this.longLine) {
+      this.longLine = true;
+      this.captureStatistics.incrementLongLineCount();
+    }
+    int cut = this.partialLineLength;
+    if (this.utf8 && isContinuationByte(nextByte)) {
+      int lead = cut - 1;
+      while (lead > 0 && isContinuationByte(this.partialLine[lead])) {
+        lead--;
+      }
+      cut = lead > 0 ? lead : cut;
+    }
+    if (this.truncate) {
+      this.truncating = true;
+      this.truncatedLength = this.partialLineLength - cut;
+      this.captureStatistics.addTruncatedByteCount(this.truncatedLength);
+      this.partialLineLength = cut;
+    } else {
+      this.continuedLines.set(this.lines.size());
+      this.lines.add(ByteScanner.decode(this.partialLineBuffer, 0, cut, this.charset));
+      this.lineCount++;
+      System.arraycopy(this.partialLine, cut, this.partialLine, 0, this.partialLineLength - cut);
+      this.partialLineLength -= cut;
+    }
+  }
+
+  /**
+   * Decodes the partial line, marked as truncated if it was, and starts a new one.
+   *
+   * @return the line.
+   */
+  private String takePartialLine() {
+    String line =
+        ByteScanner.decode(this.partialLineBuffer, 0, this.partialLineLength, this.charset);
+    if (this.truncating) {
+      line +=
+          String.format(
+              ProcessRunnerConstants.TRUNCATED_RECORD_MARKER_FORMAT, this.truncatedLength);
+    }
+    this.partialLineLength = 0;
+    this.longLine = false;
+    this.truncating = false;
+    this.truncatedLength = 0L;
+    return line;
+  }
+
+  private static boolean isContinuationByte(byte current) {
+    return (current & 0xC0) == 0x80;
+  }
+
+  private void handOver() {
+    if (!this.lines.isEmpty()) {
+      this.lineConsumer.accept(this.lines, this.continuedLines);
+      this.lines.clear();
+      this.continuedLines.clear();
+    }
+  }
+
+  /** Receives the lines split off a stream. */
+  @FunctionalInterface
+  interface LineConsumer {
+
+    /**
+     * Accepts a batch of lines.
+     *
+     * @param lines the lines, in order. Reused after the call returns.
+     * @param continuedLines the indexes of the lines split off a long line and continued by the
+     *     next line of the stream, see {@link LongLinePolicy#SPLIT}. Reused after the call returns.
+     */
+    void accept(List<String> lines, BitSet continuedLines);
+  }
+}
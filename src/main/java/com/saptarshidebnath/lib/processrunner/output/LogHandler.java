@@ -3,50 +3,65 @@ package com.saptarshidebnath.lib.processrunner.output;
 import static com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants.EMPTY_STR;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.CaptureEngine;
 import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
 import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
 import com.saptarshidebnath.lib.processrunner.utilities.Threadify;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import com.saptarshidebnath.lib.processrunner.utilities.WallClock;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.ChunkLogWriter;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.HeadTailLog;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.MemoryLog;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Scanner;
 import java.util.StringJoiner;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Writes the process logs as single line json of format {@link OutputRecord} to the file as
- * configured in {@link Configuration#getMasterLogFile()}. If {@link
- * Configuration#getMasterLogFile()} returns null, the logs will not be written.
+ * configured in {@link Configuration#getMasterLogFile()}, or keeps them in a {@link MemoryLog} if
+ * {@link Configuration#isEnableInMemoryCapture()}, spilling them to the master log file once over
+ * budget. With {@link Configuration#isEnableHeadTailRetention()} only the first and the last
+ * records are kept, in a {@link HeadTailLog}. With {@link Configuration#isEnableChunkCapture()} the
+ * raw bytes are written to the master log file by a {@link ChunkLogWriter} instead. Otherwise, if
+ * {@link Configuration#getMasterLogFile()} returns null, the logs will not be written.
  */
 public class LogHandler {
 
+  private static final ThreadLocal<byte[]> READ_BUFFER =
+      ThreadLocal.withInitial(() -> new byte[ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE]);
   private Logger logger = LoggerFactory.getLogger(LogHandler.class);
-  private PrintWriter printWriter;
-  private BlockingQueue<OutputRecord> queue;
+  private MasterLogWriter masterLogWriter;
+  private MemoryLog memoryLog;
+  private HeadTailLog headTailLog;
+  private ChunkLogWriter chunkLogWriter;
+  private RecordHandoff recordHandoff;
+  private RecordSampler[] recordSamplers;
+  private CaptureStatistics captureStatistics;
   private boolean streamingEnabled;
   private ArrayList<Future> inputStreamReadingThreads;
   private ExecutorService executorService;
   private Future diskWritingThread;
   private String processConfigrationAsString;
-  private File masterLogFile;
   private boolean logsNeedTobeWritten;
   private Process process;
+  private RedirectedLog redirectedLog;
   private Configuration configuration;
+  private Charset charset;
 
   /**
    * The construcor of the class {@link LogHandler}.
@@ -66,19 +81,75 @@ public class LogHandler {
    * @throws IOException in case of oany IOError
    */
   public LogHandler(Process process, Configuration configuration) throws IOException {
+    this(process, configuration, null);
+  }
+
+  /**
+   * The construcor of the class {@link LogHandler} for a process whose output may have been
+   * redirected to files, see {@link LogHandler#LogHandler(Process, Configuration)}.
+   *
+   * @param process a object of type {@link Process}
+   * @param configuration a reference of type {@link Configuration}
+   * @param redirectedLog the {@link RedirectedLog} of the process, or null if the output was not
+   *     redirected.
+   * @throws IOException in case of any IOError
+   */
+  public LogHandler(Process process, Configuration configuration, RedirectedLog redirectedLog)
+      throws IOException {
     this.process = process;
+    this.redirectedLog = redirectedLog;
     this.configuration = configuration;
-    this.masterLogFile = this.configuration.getMasterLogFile();
     this.streamingEnabled = this.configuration.isEnableLogStreaming();
-    this.logsNeedTobeWritten = this.configuration.getMasterLogFile() != null;
+    this.logsNeedTobeWritten =
+        this.configuration.getMasterLogFile() != null
+            || this.configuration.isEnableInMemoryCapture()
+            || this.configuration.isEnableHeadTailRetention();
     this.processConfigrationAsString = this.configuration.toString();
+    this.captureStatistics = new CaptureStatistics();
+    this.charset = resolveCharset(configuration);
+    this.recordSamplers = new RecordSampler[OutputSourceType.values().length];
   }
 
-  public LogHandler start() throws FileNotFoundException {
+  /**
+   * Picks the {@link Charset} used to decode the process output. The charset configured for the
+   * master log file is used if it can be split into lines at the byte level, else the platform
+   * default.
+   *
+   * @param configuration the {@link Configuration} of the process.
+   * @return the {@link Charset} to decode the process output with.
+   */
+  static Charset resolveCharset(Configuration configuration) {
+    Charset configuredCharset = configuration.getCharset();
+    if (configuredCharset == null) {
+      return Charset.defaultCharset();
+    }
+    if (!LineSplitter.supports(configuredCharset)) {
+      LoggerFactory.getLogger(LogHandler.class)
+          .warn(
+              "Process output cannot be decoded as {}, using {}",
+              configuredCharset,
+              Charset.defaultCharset());
+      return Charset.defaultCharset();
+    }
+    return configuredCharset;
+  }
+
+  public LogHandler start() throws IOException {
 
     boolean logsNeedTobeRead = logsNeedTobeWritten || streamingEnabled;
-    if (logsNeedTobeRead) {
-      this.queue = new LinkedBlockingQueue<>(ProcessRunnerConstants.CACHE_SIZE);
+    if (this.configuration.getCaptureEngine() == CaptureEngine.REDIRECT) {
+      //
+      // The operating system writes the output to files, there is nothing to read.
+      //
+      if (streamingEnabled) {
+        logger.warn("Logs cannot be streamed when redirected to files.");
+      }
+      logger.debug("Process output redirected. Not tracking SYSOUT and SYSERROR");
+    } else if (this.configuration.isEnableChunkCapture()
+        && this.configuration.getMasterLogFile() != null) {
+      this.startChunkCapture();
+    } else if (logsNeedTobeRead) {
+      this.recordHandoff = this.createRecordHandoff();
       executorService = new Threadify().getProcessRunnerExecutorService();
       if (streamingEnabled) {
         logger.info("Logs will be streamed on real time.");
@@ -86,23 +157,47 @@ public class LogHandler {
         logger.warn("Logs streaming disabled.");
       }
       this.inputStreamReadingThreads = new ArrayList<>();
-      //
-      // Track SYSOUT
-      //
-      this.saveInpuStreamToDisk(process.getInputStream(), OutputSourceType.SYSOUT);
-      //
-      // Track SYSERR
-      //
-      this.saveInpuStreamToDisk(process.getErrorStream(), OutputSourceType.SYSERR);
+      if (this.configuration.isEnableStreamMerging()) {
+        //
+        // SYSERR is merged into SYSOUT by the operating system, so one reader is enough.
+        //
+        this.saveInpuStreamToDisk(process.getInputStream(), OutputSourceType.MERGED);
+      } else {
+        //
+        // Track SYSOUT
+        //
+        this.saveInpuStreamToDisk(process.getInputStream(), OutputSourceType.SYSOUT);
+        //
+        // Track SYSERR
+        //
+        this.saveInpuStreamToDisk(process.getErrorStream(), OutputSourceType.SYSERR);
+      }
       //
       // Write content to DISK
       //
-      if (logsNeedTobeWritten) {
-        this.printWriter =
-            new PrintWriter(
-                new OutputStreamWriter(
-                    new FileOutputStream(masterLogFile), this.configuration.getCharset()));
-        this.diskWritingThread = executorService.submit(this::writeToDisk);
+      if (this.configuration.isEnableHeadTailRetention()) {
+        this.headTailLog =
+            new HeadTailLog(
+                this.configuration.getRetainedHeadRecords(),
+                this.configuration.getRetainedTailRecords());
+        this.diskWritingThread = executorService.submit(this::retainHeadAndTail);
+      } else if (logsNeedTobeWritten && this.configuration.isEnableInMemoryCapture()) {
+        this.memoryLog =
+            this.configuration.getMasterLogFile() == null
+                ? new MemoryLog(0L, 0L, this.configuration.isEnableLineDictionary())
+                : new MemoryLog(
+                    this.configuration.getInMemoryCaptureRunBytes(),
+                    this.configuration.getInMemoryCaptureGlobalBytes(),
+                    this.configuration.isEnableLineDictionary());
+        this.diskWritingThread = executorService.submit(this::writeToMemory);
+      } else if (logsNeedTobeWritten) {
+        this.masterLogWriter = new MasterLogWriter(this.configuration, this.captureStatistics);
+        if (this.configuration.isEnableSharedLogWriter()) {
+          this.diskWritingThread =
+              SharedLogWriter.getInstance().register(this.recordHandoff, this.masterLogWriter);
+        } else {
+          this.diskWritingThread = executorService.submit(this::writeToDisk);
+        }
       } else {
         logger.warn(
             "Logs not written to file as per configuration : {}", processConfigrationAsString);
@@ -119,6 +214,82 @@ public class LogHandler {
     return this;
   }
 
+  /**
+   * Starts reading the streams of the process in raw chunks, see {@link
+   * Configuration#isEnableChunkCapture()}. The stream readers write the chunks to the master log
+   * file themselves, so there is no record handoff, and the disk writing thread only waits for
+   * them to finish to close the file.
+   *
+   * @throws IOException if the master log file cannot be opened.
+   */
+  private void startChunkCapture() throws IOException {
+    if (streamingEnabled) {
+      logger.warn("Logs cannot be streamed when captured in chunks.");
+    }
+    this.chunkLogWriter =
+        new ChunkLogWriter(
+            this.configuration,
+            channel -> new MasterLogWriter.MeteredChannel(channel, this.captureStatistics));
+    executorService = new Threadify().getProcessRunnerExecutorService();
+    this.inputStreamReadingThreads = new ArrayList<>();
+    if (this.configuration.isEnableStreamMerging()) {
+      this.saveChunksToDisk(process.getInputStream(), OutputSourceType.MERGED);
+    } else {
+      this.saveChunksToDisk(process.getInputStream(), OutputSourceType.SYSOUT);
+      this.saveChunksToDisk(process.getErrorStream(), OutputSourceType.SYSERR);
+    }
+    this.diskWritingThread = executorService.submit(this::closeChunkLog);
+    this.executorService.shutdown();
+    logger.debug("Created LogHandler. Capturing SYSOUT and SYSERROR in chunks");
+  }
+
+  /**
+   * Threadify the writing of the chunks of the inputStream to disk.
+   *
+   * @param inputStream {@link InputStream} from {@link Process#getInputStream()} and {@link
+   *     Process#getErrorStream()}.
+   * @param outputSourceType Type of Output as per {@link OutputSourceType}
+   */
+  private void saveChunksToDisk(InputStream inputStream, OutputSourceType outputSourceType) {
+    StreamReactor.ChunkConsumer chunkConsumer =
+        (buffer, offset, length) -> this.writeChunk(outputSourceType, buffer, offset, length);
+    if (this.configuration.getCaptureEngine() == CaptureEngine.REACTOR) {
+      logger.trace("Registering {} with the stream reactor", outputSourceType);
+      inputStreamReadingThreads.add(
+          StreamReactor.getInstance().register(this.process, inputStream, chunkConsumer));
+    } else {
+      inputStreamReadingThreads.add(
+          this.executorService.submit(
+              () -> this.readChunks(inputStream, outputSourceType, chunkConsumer)));
+    }
+  }
+
+  /**
+   * Waits for all the stream readers to be done, and closes the master log file of chunks.
+   *
+   * @return long depicting the number of chunks written.
+   * @throws InterruptedException if the thread is interrupted.
+   * @throws IOException if the master log file cannot be written or closed.
+   */
+  private long closeChunkLog() throws InterruptedException, IOException {
+    try {
+      for (Future<?> inputStreamReadingThread : this.inputStreamReadingThreads) {
+        try {
+          inputStreamReadingThread.get();
+        } catch (ExecutionException ex) {
+          logger.debug("Stream reader ended with an error, already reported", ex);
+        }
+      }
+    } finally {
+      this.chunkLogWriter.close();
+    }
+    logger.debug(
+        "Wrote {} chunks, {} bytes, to master log file.",
+        this.chunkLogWriter.getChunkCount(),
+        this.chunkLogWriter.getByteCount());
+    return this.chunkLogWriter.getChunkCount();
+  }
+
   /**
    * Threadify the writing of the inputStream to disk.
    *
@@ -129,8 +300,65 @@ public class LogHandler {
    * @param outputSourceType Type of Output as per {@link OutputSourceType}
    */
   private void saveInpuStreamToDisk(InputStream inputStream, OutputSourceType outputSourceType) {
-    inputStreamReadingThreads.add(
-        this.executorService.submit(() -> this.readInputStream(inputStream, outputSourceType)));
+    if (this.configuration.isCaptureSampled() && outputSourceType == OutputSourceType.SYSOUT) {
+      this.recordSamplers[outputSourceType.ordinal()] =
+          new RecordSampler(outputSourceType, this.configuration, this.captureStatistics);
+    }
+    if (this.configuration.getCaptureEngine() == CaptureEngine.REACTOR) {
+      logger.trace("Registering {} with the stream reactor", outputSourceType);
+      CompletableFuture<Integer> reactorFuture =
+          StreamReactor.getInstance()
+              .register(
+                  this.process,
+                  inputStream,
+                  this.newLineSplitter(outputSourceType),
+                  this.recordHandoff::remainingCapacity);
+      reactorFuture.whenComplete(
+          (lineCount, throwable) -> this.signalEndOfStream(outputSourceType));
+      inputStreamReadingThreads.add(reactorFuture);
+    } else {
+      inputStreamReadingThreads.add(
+          this.executorService.submit(
+              () -> {
+                try {
+                  this.readInputStream(inputStream, outputSourceType);
+                } finally {
+                  this.signalEndOfStream(outputSourceType);
+                }
+              }));
+    }
+  }
+
+  /**
+   * Creates the {@link RecordHandoff} between the stream readers and the disk writer. The lock free
+   * {@link RecordRingBuffer} is used wherever the {@link BackpressurePolicy} allows it.
+   *
+   * @return a new {@link RecordHandoff} for SYSOUT and SYSERR, or for the merged stream.
+   */
+  private RecordHandoff createRecordHandoff() {
+    int capacity = this.configuration.getCaptureBufferCapacity();
+    BackpressurePolicy backpressurePolicy = this.configuration.getBackpressurePolicy();
+    int openStreams = this.configuration.isEnableStreamMerging() ? 1 : 2;
+    if (backpressurePolicy == BackpressurePolicy.BLOCK
+        || backpressurePolicy == BackpressurePolicy.DROP_NEWEST) {
+      return new RecordRingBuffer(
+          capacity, backpressurePolicy, openStreams, this.captureStatistics);
+    }
+    return new CaptureBuffer(capacity, backpressurePolicy, openStreams, this.captureStatistics);
+  }
+
+  /**
+   * Wakes up the disk writer to let it know that one more stream reader is done. The disk writer
+   * exits once all the readers have signalled.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream done.
+   */
+  private void signalEndOfStream(OutputSourceType outputSourceType) {
+    RecordSampler recordSampler = this.recordSamplers[outputSourceType.ordinal()];
+    if (recordSampler != null) {
+      recordSampler.finish();
+    }
+    this.recordHandoff.endOfStream();
   }
 
   /**
@@ -145,7 +373,9 @@ public class LogHandler {
    * @throws ExecutionException when waiting for the disk writer to finish.
    */
   public void waitForShutdown() throws InterruptedException, ExecutionException {
-    if (this.configuration.getMasterLogFile() != null) {
+    if (this.configuration.getCaptureEngine() == CaptureEngine.REDIRECT) {
+      logger.debug("Process output redirected. No log handler thread to wait for.");
+    } else if (this.logsNeedTobeWritten) {
       logger.info("Waiting for all the logs writing thread to shutdown.");
       //
       // Wait for the disk writing thread to stop.
@@ -164,16 +394,59 @@ public class LogHandler {
   }
 
   /**
-   * Write the content of {@link LogHandler#queue} to the file as recived from {@link Configuration}
-   * object.
+   * Returns the {@link CaptureStatistics} collected so far. Complete once {@link
+   * LogHandler#waitForShutdown()} has returned.
+   *
+   * @return a reference of {@link CaptureStatistics}
+   */
+  CaptureStatistics getCaptureStatistics() {
+    return this.captureStatistics;
+  }
+
+  /**
+   * Returns the {@link MemoryLog} holding the records if {@link
+   * Configuration#isEnableInMemoryCapture()}. Complete once {@link LogHandler#waitForShutdown()}
+   * has returned.
+   *
+   * @return a reference of {@link MemoryLog}, or null if the records are not kept in memory or
+   *     have been spilled to the master log file.
+   */
+  MemoryLog getMemoryLog() {
+    return this.memoryLog;
+  }
+
+  /**
+   * Returns the {@link HeadTailLog} holding the first and the last records if {@link
+   * Configuration#isEnableHeadTailRetention()}. Complete once {@link LogHandler#waitForShutdown()}
+   * has returned.
+   *
+   * @return a reference of {@link HeadTailLog}, or null if the records are not retained this way.
+   */
+  HeadTailLog getHeadTailLog() {
+    return this.headTailLog;
+  }
+
+  /**
+   * Returns the {@link RedirectedLog} of the process.
+   *
+   * @return a reference of {@link RedirectedLog}, or null if the output was not redirected.
+   */
+  RedirectedLog getRedirectedLog() {
+    return this.redirectedLog;
+  }
+
+  /**
+   * Write the content of {@link LogHandler#recordHandoff} to the file as recived from {@link
+   * Configuration} object.
    *
    * <p>Internal method, shouldn't be used externallyy. Automatically called when a object of {@link
    * LogHandler} is created.
    *
    * @return int depciting the number of lines written.
    * @throws InterruptedException if the disk writing thread is interrupted.
+   * @throws IOException if the records spilled to disk cannot be read back.
    */
-  private int writeToDisk() throws InterruptedException {
+  private int writeToDisk() throws InterruptedException, IOException {
     String threadName =
         new StringJoiner(EMPTY_STR)
             .add(Thread.currentThread().getName())
@@ -181,44 +454,179 @@ public class LogHandler {
             .toString();
     Thread.currentThread().setName(threadName);
     logger.info("Starting {}  to write to disk", threadName);
-    //
-    // Look for log while the intputstream still have data or the queue have not
-    // finished writing to
-    // disk
-    //
-    int counter = -1;
-    while (this.inputStreamReadingThreads.stream().anyMatch(future -> !future.isDone())
-        || !queue.isEmpty()) {
-      if (queue.isEmpty()) {
+    int counter = 0;
+    boolean drainedAll = false;
+    try {
+      while (true) {
         //
-        // If queue is empty wait for some time
+        // Block on the record handoff till either records arrive, all the stream readers are done
+        // or the pending records are due to be committed.
         //
-        logger.debug(
-            "Queue is empty, waiting for {} milliseconds", ProcessRunnerConstants.THREAD_WAIT_TIME);
-        Thread.sleep(ProcessRunnerConstants.THREAD_WAIT_TIME);
+        int batchSize = this.masterLogWriter.getBatchSize();
+        int drained =
+            this.recordHandoff.drainTo(
+                this.masterLogWriter, batchSize, this.masterLogWriter.getNanosToCommit());
+        if (drained == -1) {
+          drainedAll = true;
+          break;
+        }
+        counter += drained;
+        this.masterLogWriter.drained(drained, batchSize);
+      }
+    } finally {
+      if (!drainedAll) {
+        this.recordHandoff.abandon();
+      }
+      this.masterLogWriter.close();
+    }
+    logger.debug("Wrote {} lines to master log file.", counter);
+    return counter;
+  }
+
+  /**
+   * Keeps the content of {@link LogHandler#recordHandoff} in the {@link LogHandler#memoryLog}, or
+   * in the master log file once spilled.
+   *
+   * <p>Internal method, shouldn't be used externally.
+   *
+   * @return int depicting the number of lines kept.
+   * @throws InterruptedException if the thread is interrupted.
+   * @throws IOException if the records cannot be encoded or spilled.
+   */
+  private int writeToMemory() throws InterruptedException, IOException {
+    int counter = 0;
+    boolean drainedAll = false;
+    try {
+      while (true) {
+        long nanosToCommit =
+            this.masterLogWriter == null ? Long.MAX_VALUE : this.masterLogWriter.getNanosToCommit();
+        int drained =
+            this.recordHandoff.drainTo(
+                this::keepRecord,
+                ProcessRunnerConstants.FILE_WRITER_MAX_OBJECT_SIZE,
+                nanosToCommit);
+        if (drained == -1) {
+          drainedAll = true;
+          break;
+        }
+        counter += drained;
+        this.captureStatistics.addWrittenRecordCount(drained);
+        if (this.masterLogWriter != null) {
+          this.masterLogWriter.commitIfDue();
+        }
+      }
+    } finally {
+      if (!drainedAll) {
+        this.recordHandoff.abandon();
+      }
+      if (this.masterLogWriter != null) {
+        this.masterLogWriter.close();
       } else {
+        this.memoryLog.finish();
+      }
+    }
+    logger.debug("Kept {} lines.", counter);
+    return counter;
+  }
+
+  /**
+   * Keeps the first and the last records of {@link LogHandler#recordHandoff} in the {@link
+   * LogHandler#headTailLog}, and counts the ones in between as skipped.
+   *
+   * <p>Internal method, shouldn't be used externally.
+   *
+   * @return int depicting the number of lines handed over.
+   * @throws InterruptedException if the thread is interrupted.
+   * @throws IOException if the record handoff fails on IO.
+   */
+  private int retainHeadAndTail() throws InterruptedException, IOException {
+    int counter = 0;
+    long skippedRecordCount = 0L;
+    boolean drainedAll = false;
+    try {
+      while (true) {
+        int drained =
+            this.recordHandoff.drainTo(
+                this.headTailLog::write, ProcessRunnerConstants.FILE_WRITER_MAX_OBJECT_SIZE);
+        if (drained == -1) {
+          drainedAll = true;
+          break;
+        }
+        counter += drained;
         //
-        // Write all the element in the queue to the disk.
+        // A record pushed out of the tail was counted as kept when it came in.
         //
-        List<OutputRecord> record = new ArrayList<>(ProcessRunnerConstants.FILE_WRITER_OBJECT_SIZE);
-        int numberElementDrained =
-            queue.drainTo(record, ProcessRunnerConstants.FILE_WRITER_OBJECT_SIZE);
-        assert numberElementDrained == record.size();
-        counter += record.size();
-        record.stream().map(ProcessRunnerConstants.GSON::toJson).forEach(printWriter::println);
+        long skipped = this.headTailLog.getSkippedRecordCount() - skippedRecordCount;
+        skippedRecordCount += skipped;
+        this.captureStatistics.addSkippedRecordCount(skipped);
+        this.captureStatistics.addWrittenRecordCount(drained - skipped);
+      }
+    } finally {
+      if (!drainedAll) {
+        this.recordHandoff.abandon();
       }
-      //
-      // Force flush
-      //
-      printWriter.flush();
     }
-    printWriter.close();
-    logger.debug("Wrote {} lines to master log file.", ++counter);
+    logger.debug("Kept {} lines, skipped {}.", counter - skippedRecordCount, skippedRecordCount);
     return counter;
   }
 
   /**
-   * Reads the {@link InputStream} and write them to a {@link LogHandler#queue} as {@link
+   * Keeps a record in the {@link LogHandler#memoryLog}, and spills all of them to the master log
+   * file once it is over budget. Writes the record to the master log file if already spilled.
+   *
+   * @param sequence the sequence number of the record.
+   * @param timeStamp the time the record was read at.
+   * @param outputSourceType the {@link OutputSourceType} of the record.
+   * @param outputText the line of output.
+   * @param continued {@link Boolean#TRUE} if the next record of the stream continues the line.
+   * @throws IOException if the record cannot be encoded or spilled.
+   */
+  private void keepRecord(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException {
+    if (this.masterLogWriter != null) {
+      this.masterLogWriter.accept(sequence, timeStamp, outputSourceType, outputText, continued);
+      return;
+    }
+    this.memoryLog.write(sequence, timeStamp, outputSourceType, outputText, continued);
+    if (this.memoryLog.isOverBudget()) {
+      this.spillMemoryLog();
+    }
+  }
+
+  /**
+   * Moves the records of the {@link LogHandler#memoryLog} to the master log file, and releases it.
+   *
+   * @throws IOException if the master log file cannot be written.
+   */
+  private void spillMemoryLog() throws IOException {
+    this.memoryLog.finish();
+    logger.info(
+        "Spilling {} records kept in memory to the master log file, over budget at {} bytes",
+        this.memoryLog.getRecordCount(),
+        this.memoryLog.getSize());
+    this.masterLogWriter = new MasterLogWriter(this.configuration, this.captureStatistics);
+    try (RecordReader recordReader = this.memoryLog.openReader()) {
+      while (recordReader.next()) {
+        this.masterLogWriter.accept(
+            recordReader.getSequence(),
+            recordReader.getTimeStamp(),
+            recordReader.getOutputSourceType(),
+            recordReader.getOutputText(),
+            recordReader.isContinued());
+      }
+    }
+    this.masterLogWriter.commit();
+    this.memoryLog.release();
+    this.memoryLog = null;
+  }
+
+  /**
+   * Reads the {@link InputStream} and write them to a {@link LogHandler#recordHandoff} as {@link
    * OutputRecord}.
    *
    * <p>This is a internal method and shouldn't be used by any body in the library.
@@ -239,20 +647,123 @@ public class LogHandler {
             .toString();
     Thread.currentThread().setName(threadName);
     logger.trace("Starting {} to read {}", threadName, outputSourceTypeAsString);
-    Scanner scanner = new Scanner(inputStream, Charset.defaultCharset().toString());
-    String currentLine;
-    String loggingMessage;
-    while (scanner.hasNextLine()) {
-      currentLine = scanner.nextLine();
-      loggingMessage =
-          new StringJoiner(" >> ").add(outputSourceType.toString()).add(currentLine).toString();
-      if (streamingEnabled) {
-        logger.info(loggingMessage);
-      } else {
-        logger.trace(loggingMessage);
+    LineSplitter lineSplitter = this.newLineSplitter(outputSourceType);
+    byte[] buffer = READ_BUFFER.get();
+    try {
+      for (int read; (read = inputStream.read(buffer)) != -1; ) {
+        lineSplitter.split(buffer, 0, read);
+      }
+      lineSplitter.finish();
+    } catch (IOException ex) {
+      logger.error("Unable to read process output stream {}", outputSourceTypeAsString, ex);
+    } catch (UncheckedIOException ex) {
+      logger.error("Stopped reading process output stream {}", outputSourceTypeAsString, ex);
+    }
+  }
+
+  /**
+   * Creates the {@link LineSplitter} of a stream, publishing its lines.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream.
+   * @return a new {@link LineSplitter}.
+   */
+  private LineSplitter newLineSplitter(OutputSourceType outputSourceType) {
+    return new LineSplitter(
+        this.charset,
+        this.configuration,
+        this.captureStatistics,
+        (lines, continuedLines) -> this.publish(outputSourceType, lines, continuedLines));
+  }
+
+  /**
+   * Reads the {@link InputStream} and hands it over as raw chunks, one per read.
+   *
+   * @param inputStream the {@link InputStream} to be read.
+   * @param outputSourceType the {@link OutputSourceType} of the stream.
+   * @param chunkConsumer receives the chunks.
+   */
+  private void readChunks(
+      InputStream inputStream,
+      OutputSourceType outputSourceType,
+      StreamReactor.ChunkConsumer chunkConsumer) {
+    String threadName =
+        new StringJoiner("")
+            .add(Thread.currentThread().getName())
+            .add(ProcessRunnerConstants.STREAM_READER_THREAD_NAME_SUFFIX)
+            .add(outputSourceType.toString())
+            .toString();
+    Thread.currentThread().setName(threadName);
+    logger.trace("Starting {} to read {} in chunks", threadName, outputSourceType);
+    byte[] buffer = READ_BUFFER.get();
+    try {
+      for (int read; (read = inputStream.read(buffer)) != -1; ) {
+        chunkConsumer.accept(buffer, 0, read);
+      }
+    } catch (IOException ex) {
+      logger.error("Unable to capture process output stream {}", outputSourceType, ex);
+    }
+  }
+
+  /**
+   * Writes a chunk read from the process to the master log file and counts it.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream.
+   * @param buffer the array holding the chunk.
+   * @param offset the index of the first byte of the chunk.
+   * @param length the number of bytes of the chunk.
+   * @throws IOException if the chunk cannot be written.
+   */
+  private void writeChunk(OutputSourceType outputSourceType, byte[] buffer, int offset, int length)
+      throws IOException {
+    this.chunkLogWriter.write(outputSourceType, buffer, offset, length);
+    this.captureStatistics.addCapturedRecordCount(1L);
+    this.captureStatistics.addWrittenRecordCount(1L);
+  }
+
+  /**
+   * Streams the lines read from the process if streaming is enabled, and adds them to the {@link
+   * LogHandler#recordHandoff} if the logs need to be written. The lines are sampled first if
+   * {@link Configuration#isCaptureSampled()}.
+   *
+   * @param outputSourceType either as input {@link OutputSourceType#SYSOUT} or {@link
+   *     OutputSourceType#SYSERR}.
+   * @param linesRead the lines read from the process, in order.
+   * @param continuedLines the indexes of the lines continued by the next line of the stream.
+   * @throws UncheckedIOException wrapping an {@link InterruptedIOException} if interrupted while
+   *     waiting for room in the {@link LogHandler#recordHandoff}. The handoff is abandoned, so that
+   *     the other stream reader is not left waiting, and the reader stops reading.
+   */
+  private void publish(
+      OutputSourceType outputSourceType, List<String> linesRead, BitSet continuedLines) {
+    RecordSampler recordSampler = this.recordSamplers[outputSourceType.ordinal()];
+    List<String> lines =
+        recordSampler == null
+            ? linesRead
+            : recordSampler.sample(linesRead, continuedLines, WallClock.now());
+    if (lines.isEmpty()) {
+      return;
+    }
+    if (streamingEnabled || logger.isTraceEnabled()) {
+      for (String currentLine : lines) {
+        if (streamingEnabled) {
+          logger.info("{} >> {}", outputSourceType, currentLine);
+        } else {
+          logger.trace("{} >> {}", outputSourceType, currentLine);
+        }
+      }
+    }
+    if (logsNeedTobeWritten) {
+      try {
+        this.captureStatistics.addCapturedRecordCount(lines.size());
+        this.recordHandoff.add(outputSourceType, lines, continuedLines);
+      } catch (InterruptedException ex) {
+        this.recordHandoff.abandon();
+        Thread.currentThread().interrupt();
+        InterruptedIOException interruptedIoException =
+            new InterruptedIOException("Interrupted while waiting for room in the capture buffer");
+        interruptedIoException.initCause(ex);
+        throw new UncheckedIOException(interruptedIoException);
       }
-      boolean response = this.queue.add(new OutputRecord(outputSourceType, currentLine));
-      assert response;
     }
   }
 }
@@ -0,0 +1,212 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.DurabilityPolicy;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordEncoder;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.SegmentedLogEncoder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes records to the master log file and commits them in groups.
+ *
+ * <p>Records are encoded in the {@link Configuration#getMasterLogFormat()} by a {@link
+ * RecordEncoder}, without creating any object per record, and buffered in memory. They are
+ * committed, i.e. handed over to the operating system in writes of up to {@link
+ * ProcessRunnerConstants#MASTER_LOG_WRITE_BUFFER_SIZE} bytes, once {@link
+ * Configuration#getGroupCommitRecords()} records are pending or once the oldest pending record has
+ * waited for {@link Configuration#getGroupCommitDelayMillis()}. A disk writer running out of
+ * records waits for more at most till the next commit is due, see {@link
+ * MasterLogWriter#getNanosToCommit()}, so a quiet process does not see its output held back for
+ * longer than the delay. Each commit, or only the last one, syncs the file as per the {@link
+ * DurabilityPolicy}.
+ *
+ * <p>With {@link Configuration#isEnableMasterLogCompression()} every commit ends a compressed
+ * block, so the records are compressed on the disk writer thread, never on the capture threads.
+ * With {@link Configuration#isMasterLogSegmented()} the records are spread over segments by the
+ * {@link SegmentedLogEncoder}.
+ *
+ * <p>The batch size the disk writer should drain next adapts to the incoming rate: it doubles,
+ * up to {@link ProcessRunnerConstants#FILE_WRITER_MAX_OBJECT_SIZE}, every time a drain comes back
+ * full, and halves, down to {@link ProcessRunnerConstants#FILE_WRITER_OBJECT_SIZE}, every time a
+ * drain comes back less than half full.
+ *
+ * <p>Write sizes, write latencies and sync latencies are recorded in the {@link
+ * CaptureStatistics} of the run. Not thread safe, only ever used by one disk writer at a time.
+ */
+class MasterLogWriter implements RecordHandoff.RecordConsumer, Closeable {
+
+  private final SegmentedLogEncoder recordEncoder;
+  private final DurabilityPolicy durabilityPolicy;
+  private final int groupCommitRecords;
+  private final long groupCommitDelayNanos;
+  private final CaptureStatistics captureStatistics;
+  private int pendingRecords;
+  private long firstPendingNanos;
+  private int batchSize;
+
+  /**
+   * Opens the master log file for writing.
+   *
+   * @param configuration the {@link Configuration} holding the master log file, its {@link
+   *     java.nio.charset.Charset} and the commit settings.
+   * @param captureStatistics the {@link CaptureStatistics} to record the writes in.
+   * @throws IOException if the master log file cannot be opened.
+   */
+  MasterLogWriter(Configuration configuration, CaptureStatistics captureStatistics)
+      throws IOException {
+    this.recordEncoder =
+        new SegmentedLogEncoder(
+            configuration, channel -> new MeteredChannel(channel, captureStatistics));
+    this.durabilityPolicy = configuration.getDurabilityPolicy();
+    this.groupCommitRecords = configuration.getGroupCommitRecords();
+    this.groupCommitDelayNanos =
+        TimeUnit.MILLISECONDS.toNanos(configuration.getGroupCommitDelayMillis());
+    this.captureStatistics = captureStatistics;
+    this.batchSize = ProcessRunnerConstants.FILE_WRITER_OBJECT_SIZE;
+  }
+
+  @Override
+  public void accept(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException {
+    if (this.pendingRecords++ == 0) {
+      this.firstPendingNanos = System.nanoTime();
+    }
+    this.recordEncoder.write(sequence, timeStamp, outputSourceType, outputText, continued);
+  }
+
+  /**
+   * Returns the number of records the disk writer should drain next.
+   *
+   * @return the adaptive batch size.
+   */
+  int getBatchSize() {
+    return this.batchSize;
+  }
+
+  /**
+   * Returns the time left till the pending records are due to be committed.
+   *
+   * @return the time in nanoseconds, zero if overdue, or {@link Long#MAX_VALUE} if no record is
+   *     pending.
+   */
+  long getNanosToCommit() {
+    if (this.pendingRecords == 0) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0L, this.groupCommitDelayNanos - (System.nanoTime() - this.firstPendingNanos));
+  }
+
+  /**
+   * Tells the writer that a drain has handed over a number of records. Adapts the batch size and
+   * commits if a commit is due.
+   *
+   * @param drained the number of records just handed over, zero if the drain timed out.
+   * @param requested the number of records the drain was asked for.
+   * @throws IOException if the commit fails.
+   */
+  void drained(int drained, int requested) throws IOException {
+    this.captureStatistics.addWrittenRecordCount(drained);
+    if (drained >= requested) {
+      this.batchSize =
+          Math.min(this.batchSize * 2, ProcessRunnerConstants.FILE_WRITER_MAX_OBJECT_SIZE);
+    } else if (drained < requested / 2) {
+      this.batchSize =
+          Math.max(this.batchSize / 2, ProcessRunnerConstants.FILE_WRITER_OBJECT_SIZE);
+    }
+    this.commitIfDue();
+  }
+
+  /**
+   * Commits the pending records if enough of them are pending or the oldest has waited long enough.
+   *
+   * @throws IOException if the commit fails.
+   */
+  void commitIfDue() throws IOException {
+    if (this.pendingRecords >= this.groupCommitRecords || this.getNanosToCommit() == 0L) {
+      this.commit();
+    }
+  }
+
+  /**
+   * Commits the pending records, if there are any.
+   *
+   * @throws IOException if the records cannot be written or synced.
+   */
+  void commit() throws IOException {
+    if (this.pendingRecords == 0) {
+      return;
+    }
+    this.recordEncoder.flush();
+    this.pendingRecords = 0;
+    if (this.durabilityPolicy == DurabilityPolicy.SYNC_ON_COMMIT) {
+      this.sync(Boolean.FALSE);
+    }
+  }
+
+  /**
+   * Commits the pending records, ends the file as its format needs, syncs the file if the {@link
+   * DurabilityPolicy} asks for it, and closes it.
+   *
+   * @throws IOException if the records cannot be written or synced.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      this.commit();
+      this.recordEncoder.finish();
+      this.captureStatistics.recordMasterLogUncompressedBytes(
+          this.recordEncoder.getUncompressedBytes());
+      if (this.durabilityPolicy == DurabilityPolicy.SYNC_ON_EXIT) {
+        this.sync(Boolean.TRUE);
+      }
+    } finally {
+      this.recordEncoder.close();
+    }
+  }
+
+  private void sync(boolean metaData) throws IOException {
+    long start = System.nanoTime();
+    this.recordEncoder.force(metaData);
+    this.captureStatistics.recordMasterLogSync(System.nanoTime() - start);
+  }
+
+  /** Measures every write reaching the master log file. */
+  static class MeteredChannel implements WritableByteChannel {
+    private final WritableByteChannel channel;
+    private final CaptureStatistics captureStatistics;
+
+    MeteredChannel(WritableByteChannel channel, CaptureStatistics captureStatistics) {
+      this.channel = channel;
+      this.captureStatistics = captureStatistics;
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+      long start = System.nanoTime();
+      int written = this.channel.write(source);
+      this.captureStatistics.recordMasterLogWrite(written, System.nanoTime() - start);
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return this.channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+  }
+}
@@ -27,12 +27,15 @@ package com.saptarshidebnath.lib.processrunner.output;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
 import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessConfigurationException;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessException;
 import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
 import com.saptarshidebnath.lib.processrunner.process.Runner;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.ChunkLogReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.List;
 
 /**
@@ -77,7 +80,9 @@ public interface Output {
 
   /**
    * Returns the master log file originally captured while executing the Process. Its an Json Array
-   * of type {@link OutputRecord}.
+   * of type {@link OutputRecord}. A {@link
+   * com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat#BINARY} master log file is
+   * converted to json first.
    *
    * @return a {@link File} reference to the json formatted master log .
    * @throws ProcessConfigurationException if the {@link Configuration#masterLogFile} is not set. If
@@ -126,6 +131,12 @@ public interface Output {
    * <p>Searches for a pattern and returns a {@link List} of {@link OutputRecord} which contains
    * extracts from the output matching the provided regex ins {@link String} format
    *
+   * <p>The records are returned in a plain {@link java.util.ArrayList}, or packed into a {@link
+   * com.saptarshidebnath.lib.processrunner.model.CompactRecordList} if {@link
+   * Configuration#isEnableCompactGrepResults()}, which can be appended to but not otherwise
+   * modified: {@link List#set(int, Object)} and {@link List#remove(int)} then throw {@link
+   * UnsupportedOperationException}.
+   *
    * @param regex accepts a {@link String} object to search for
    * @return a {@link List} of {@link String}
    * @throws ProcessConfigurationException if the {@link Configuration#masterLogFile} is not set. If
@@ -134,4 +145,80 @@ public interface Output {
    * @throws IOException if there is an error reading the {@link Configuration#masterLogFile}
    */
   List<OutputRecord> grepForRegex(String regex) throws IOException, ProcessConfigurationException;
+
+  /**
+   * Returns the counters collected while capturing the output, like the number of lines dropped
+   * because the capture buffer was full. All zero by default.
+   *
+   * @return a reference of {@link CaptureStatistics}
+   */
+  default CaptureStatistics getCaptureStatistics() {
+    return new CaptureStatistics();
+  }
+
+  /**
+   * Opens the raw chunks captured from the process, with their offsets and timestamps, see {@link
+   * Configuration#isEnableChunkCapture()}. Not captured in chunks by default.
+   *
+   * @return a {@link ChunkLogReader} positioned before the first chunk, to be closed.
+   * @throws IOException if the master log file cannot be opened.
+   * @throws ProcessConfigurationException if the output was not captured in chunks.
+   */
+  default ChunkLogReader openChunkReader() throws IOException, ProcessConfigurationException {
+    throw new ProcessConfigurationException(
+        ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_CHUNK_CAPTURE_NOT_ENABLED + this);
+  }
+
+  /**
+   * Opens the bytes written by the process to a stream, exactly as they were written, see {@link
+   * Configuration#isEnableChunkCapture()}. {@link OutputSourceType#ALL} reads the bytes of both
+   * streams in the order they were captured. Not captured in chunks by default.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream to read.
+   * @return a {@link ReadableByteChannel}, to be closed.
+   * @throws IOException if the master log file cannot be opened.
+   * @throws ProcessConfigurationException if the output was not captured in chunks.
+   */
+  default ReadableByteChannel openChannel(OutputSourceType outputSourceType)
+      throws IOException, ProcessConfigurationException {
+    throw new ProcessConfigurationException(
+        ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_CHUNK_CAPTURE_NOT_ENABLED + this);
+  }
+
+  /**
+   * Returns the first records of the output, see {@link
+   * Configuration#isEnableHeadTailRetention()}. Not retained by default.
+   *
+   * @return an unmodifiable {@link List} of up to {@link Configuration#getRetainedHeadRecords()}
+   *     {@link OutputRecord}, in the order they were read.
+   * @throws ProcessConfigurationException if the head and tail retention was not enabled.
+   */
+  default List<OutputRecord> getHead() throws ProcessConfigurationException {
+    throw new ProcessConfigurationException(
+        ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_HEAD_TAIL_RETENTION_NOT_ENABLED + this);
+  }
+
+  /**
+   * Returns the last records of the output, after the head, see {@link
+   * Configuration#isEnableHeadTailRetention()}. The records in between are counted in {@link
+   * CaptureStatistics#getSkippedRecordCount()}. Not retained by default.
+   *
+   * @return an unmodifiable {@link List} of up to {@link Configuration#getRetainedTailRecords()}
+   *     {@link OutputRecord}, in the order they were read.
+   * @throws ProcessConfigurationException if the head and tail retention was not enabled.
+   */
+  default List<OutputRecord> getTail() throws ProcessConfigurationException {
+    throw new ProcessConfigurationException(
+        ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_HEAD_TAIL_RETENTION_NOT_ENABLED + this);
+  }
+
+  /**
+   * Releases the files the output was redirected to, see {@link
+   * com.saptarshidebnath.lib.processrunner.constants.CaptureEngine#REDIRECT}, once the master log
+   * file is built out of them. The logs are then saved from the master log file. Nothing to
+   * release by default.
+   *
+   * @throws IOException if the master log file cannot be built.
+   */
+  default void release() throws IOException {}
 }
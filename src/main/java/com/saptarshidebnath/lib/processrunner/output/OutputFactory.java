@@ -26,6 +26,8 @@
 package com.saptarshidebnath.lib.processrunner.output;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.HeadTailLog;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.MemoryLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,8 +46,54 @@ public class OutputFactory {
    * @return a reference of type {@link Output}
    */
   public Output createOutput(final Configuration configuration, final int returnCode) {
+    return this.createOutput(configuration, returnCode, new CaptureStatistics(), null, null, null);
+  }
+
+  /**
+   * Creates a object of type {@link Output} from what the {@link LogHandler} captured of the run.
+   *
+   * @param configuration Accepts a valid {@link Configuration} reference.
+   * @param returnCode Accepts the exit code of process / script executed.
+   * @param logHandler Accepts the {@link LogHandler} of the process, after {@link
+   *     LogHandler#waitForShutdown()} has returned.
+   * @return a reference of type {@link Output}
+   */
+  public Output createOutput(
+      final Configuration configuration, final int returnCode, final LogHandler logHandler) {
+    return this.createOutput(
+        configuration,
+        returnCode,
+        logHandler.getCaptureStatistics(),
+        logHandler.getRedirectedLog(),
+        logHandler.getMemoryLog(),
+        logHandler.getHeadTailLog());
+  }
+
+  /**
+   * Creates a object of type {@link OutputImpl} out of the logs of the run.
+   *
+   * @param configuration Accepts a valid {@link Configuration} reference.
+   * @param returnCode Accepts the exit code of process / script executed.
+   * @param captureStatistics Accepts the {@link CaptureStatistics} collected by the {@link
+   *     LogHandler}.
+   * @param redirectedLog Accepts the {@link RedirectedLog} of the process, or null if the output
+   *     was not redirected.
+   * @param memoryLog Accepts the {@link MemoryLog} of the process, or null if the output was not
+   *     kept in memory.
+   * @param headTailLog Accepts the {@link HeadTailLog} of the process, or null if the output was
+   *     not retained this way.
+   * @return a reference of type {@link Output}
+   */
+  private Output createOutput(
+      final Configuration configuration,
+      final int returnCode,
+      final CaptureStatistics captureStatistics,
+      final RedirectedLog redirectedLog,
+      final MemoryLog memoryLog,
+      final HeadTailLog headTailLog) {
     logger.debug(
         "Creating Output for configuration {} with return code {}", configuration, returnCode);
-    return new OutputImpl(configuration, returnCode);
+    return new OutputImpl(
+        configuration, returnCode, captureStatistics, redirectedLog, memoryLog, headTailLog);
   }
 }
@@ -27,26 +27,41 @@ package com.saptarshidebnath.lib.processrunner.output;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration.ConfigBuilder;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
 import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
 import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessConfigurationException;
 import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.BlockCompressedLog;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.ChunkLogReader;
 import com.saptarshidebnath.lib.processrunner.utilities.fileutils.GrepFile;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.HeadTailLog;
 import com.saptarshidebnath.lib.processrunner.utilities.fileutils.LogWriter;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.MasterLogConverter;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.MemoryLog;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordMatcher;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordReader;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.SegmentedLog;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.TempFile;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Default Implementation of {@link Output}.
  *
- * <p>If the masterlog file is configured, the class gives the ability to :-
+ * <p>If the masterlog file is configured, or the output is kept in memory as per {@link
+ * Configuration#isEnableInMemoryCapture()}, the class gives the ability to :-
  *
  * <ul>
  *   <li>Save the {@link OutputSourceType#SYSOUT} to a file.
@@ -55,21 +70,48 @@ import org.slf4j.LoggerFactory;
  *   <li>Search the master log file for a regular expression pattern.
  *   <li>get the return code and the actual log file if saved while executing the program.
  * </ul>
+ *
+ * <p>If the output was captured in chunks as per {@link Configuration#isEnableChunkCapture()}, the
+ * files are saved byte for byte, and the chunks are split into lines on the fly for the searches.
+ * If only the first and the last records were kept as per {@link
+ * Configuration#isEnableHeadTailRetention()}, all of the above works on them alone.
  */
 class OutputImpl implements Output {
   private static Logger logger = LoggerFactory.getLogger(Output.class);
   private final Configuration configuration;
   private final int returnCode;
+  private final CaptureStatistics captureStatistics;
+  private final RedirectedLog redirectedLog;
+  private final MemoryLog memoryLog;
+  private final HeadTailLog headTailLog;
+  private File masterLogAsJson;
 
   /**
-   * Accepts {@link Configuration} and return code to create a {@link Output} object.
+   * Accepts {@link Configuration}, return code, {@link CaptureStatistics}, {@link RedirectedLog},
+   * {@link MemoryLog} and {@link HeadTailLog} to create a {@link Output} object.
    *
    * @param configuration a valid {@link Configuration} object.
    * @param returnCode a {@link Integer} value typically ranging from 0 - 255
+   * @param captureStatistics the {@link CaptureStatistics} collected while capturing the output.
+   * @param redirectedLog the {@link RedirectedLog} if the output was redirected to files, else
+   *     null.
+   * @param memoryLog the {@link MemoryLog} if the output was kept in memory, else null.
+   * @param headTailLog the {@link HeadTailLog} if only the first and the last records were kept,
+   *     else null.
    */
-  OutputImpl(final Configuration configuration, final int returnCode) {
+  OutputImpl(
+      final Configuration configuration,
+      final int returnCode,
+      final CaptureStatistics captureStatistics,
+      final RedirectedLog redirectedLog,
+      final MemoryLog memoryLog,
+      final HeadTailLog headTailLog) {
     this.configuration = configuration;
     this.returnCode = returnCode;
+    this.captureStatistics = captureStatistics;
+    this.redirectedLog = redirectedLog;
+    this.memoryLog = memoryLog;
+    this.headTailLog = headTailLog;
   }
 
   @Override
@@ -92,13 +134,9 @@ class OutputImpl implements Output {
   @Override
   public File saveSysOut(final File sysOut) throws ProcessConfigurationException, IOException {
     File response;
-    if (configuration.getMasterLogFile() == null) {
-      throw new ProcessConfigurationException(
-          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED
-              + configuration);
-    }
+    this.checkMasterLog();
     logger.trace("Saving sys out to {}", sysOut.getAbsolutePath());
-    response = new LogWriter().writeLog(this.configuration, sysOut, OutputSourceType.SYSOUT);
+    response = this.writeLog(sysOut, OutputSourceType.SYSOUT);
     return response;
   }
 
@@ -117,20 +155,16 @@ class OutputImpl implements Output {
   @Override
   public File saveSysError(final File sysError) throws ProcessConfigurationException, IOException {
     File response;
-    if (configuration.getMasterLogFile() == null) {
-      throw new ProcessConfigurationException(
-          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED
-              + configuration);
-    } else {
-      logger.trace("Saving sys error to : {}", sysError.getAbsolutePath());
-      response = new LogWriter().writeLog(this.configuration, sysError, OutputSourceType.SYSERR);
-    }
+    this.checkMasterLog();
+    logger.trace("Saving sys error to : {}", sysError.getAbsolutePath());
+    response = this.writeLog(sysError, OutputSourceType.SYSERR);
     return response;
   }
 
   /**
    * Returns the master log file originally captured while executing the Process. Its an Json Array
-   * of type {@link OutputRecord}.
+   * of type {@link OutputRecord}. A {@link MasterLogFormat#BINARY}, compressed or segmented master
+   * log, or the records kept in memory, are converted to a temporary json file on first use.
    *
    * @return A {@link File} master pointing to the Master log file. May return null if master log
    *     file was not configured. Please see {@link ConfigBuilder#setMasterLogFile(File, boolean)}
@@ -139,13 +173,29 @@ class OutputImpl implements Output {
    * @throws ProcessConfigurationException if master log is accessed without configuring the same.
    */
   @Override
-  public File getMasterLogAsJson() throws ProcessConfigurationException {
-    if (this.configuration.getMasterLogFile() == null) {
-      throw new ProcessConfigurationException(
-          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED
-              + configuration);
+  public synchronized File getMasterLogAsJson() throws ProcessConfigurationException {
+    this.checkMasterLog();
+    if (this.memoryLog == null
+        && this.headTailLog == null
+        && !this.isChunkCapture()
+        && this.configuration.getMasterLogFormat() == MasterLogFormat.JSON
+        && !this.configuration.isEnableMasterLogCompression()
+        && !this.configuration.isMasterLogSegmented()) {
+      this.masterLogAsJson = this.configuration.getMasterLogFile();
     }
-    return this.configuration.getMasterLogFile();
+    try {
+      this.buildMasterLog();
+      if (this.masterLogAsJson == null) {
+        File jsonFile = new TempFile().createTempLogDump();
+        if (this.configuration.getAutoDeleteFileOnExit()) {
+          jsonFile.deleteOnExit();
+        }
+        this.masterLogAsJson = this.convertToJson(jsonFile);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return this.masterLogAsJson;
   }
 
   /**
@@ -161,12 +211,8 @@ class OutputImpl implements Output {
    */
   @Override
   public File saveLog(File log) throws IOException, ProcessConfigurationException {
-    if (configuration.getMasterLogFile() == null) {
-      throw new ProcessConfigurationException(
-          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED
-              + configuration);
-    }
-    return new LogWriter().writeLog(this.configuration, log, OutputSourceType.ALL);
+    this.checkMasterLog();
+    return this.writeLog(log, OutputSourceType.ALL);
   }
 
   /**
@@ -184,17 +230,9 @@ class OutputImpl implements Output {
   @Override
   public boolean searchMasterLog(final String regex)
       throws IOException, ProcessConfigurationException {
-    Boolean response;
-    if (configuration.getMasterLogFile() == null) {
-      String message =
-          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED
-              + configuration;
-      throw new ProcessConfigurationException(message);
-    } else {
-      response =
-          this.searchFile(configuration.getMasterLogFile(), regex, this.configuration.getCharset());
-    }
-    return response;
+    this.checkMasterLog();
+    this.buildMasterLog();
+    return this.searchFile(regex);
   }
 
   /**
@@ -211,13 +249,16 @@ class OutputImpl implements Output {
   @Override
   public List<OutputRecord> grepForRegex(String regex)
       throws IOException, ProcessConfigurationException {
-    if (configuration.getMasterLogFile() == null) {
-      String message =
-          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED
-              + configuration;
-      throw new ProcessConfigurationException(message);
+    this.checkMasterLog();
+    this.buildMasterLog();
+    if (this.isReadInOrder()) {
+      try (RecordReader recordReader = this.openRecordReader()) {
+        return new GrepFile(this.configuration.isEnableCompactGrepResults())
+            .grepRecords(regex, recordReader);
+      }
     }
-    return new GrepFile().grepFile(regex, configuration);
+    return new GrepFile(this.configuration.isEnableCompactGrepResults())
+        .grepFile(regex, configuration);
   }
 
   /**
@@ -230,14 +271,320 @@ class OutputImpl implements Output {
     return this.returnCode;
   }
 
-  private boolean searchFile(File fileToRead, final String regex, Charset charset)
+  /**
+   * Returns the counters collected while capturing the output.
+   *
+   * @return a reference of {@link CaptureStatistics}
+   */
+  @Override
+  public CaptureStatistics getCaptureStatistics() {
+    return this.captureStatistics;
+  }
+
+  /**
+   * Opens the raw chunks captured from the process.
+   *
+   * @return a {@link ChunkLogReader} positioned before the first chunk, to be closed.
+   * @throws IOException if the master log file cannot be opened.
+   * @throws ProcessConfigurationException if the output was not captured in chunks.
+   */
+  @Override
+  public ChunkLogReader openChunkReader() throws IOException, ProcessConfigurationException {
+    this.checkChunkCapture();
+    return new ChunkLogReader(this.configuration.getMasterLogFile());
+  }
+
+  /**
+   * Opens the bytes written by the process to a stream.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream to read.
+   * @return a {@link ReadableByteChannel}, to be closed.
+   * @throws IOException if the master log file cannot be opened.
+   * @throws ProcessConfigurationException if the output was not captured in chunks.
+   */
+  @Override
+  public ReadableByteChannel openChannel(OutputSourceType outputSourceType)
+      throws IOException, ProcessConfigurationException {
+    this.checkChunkCapture();
+    return ChunkLogReader.openChannel(this.configuration.getMasterLogFile(), outputSourceType);
+  }
+
+  /**
+   * Returns the first records of the output.
+   *
+   * @return an unmodifiable {@link List} of {@link OutputRecord}.
+   * @throws ProcessConfigurationException if the head and tail retention was not enabled.
+   */
+  @Override
+  public List<OutputRecord> getHead() throws ProcessConfigurationException {
+    this.checkHeadTailRetention();
+    return this.headTailLog.getHead();
+  }
+
+  /**
+   * Returns the last records of the output.
+   *
+   * @return an unmodifiable {@link List} of {@link OutputRecord}.
+   * @throws ProcessConfigurationException if the head and tail retention was not enabled.
+   */
+  @Override
+  public List<OutputRecord> getTail() throws ProcessConfigurationException {
+    this.checkHeadTailRetention();
+    return this.headTailLog.getTail();
+  }
+
+  /**
+   * Builds the master log file out of the {@link RedirectedLog}, if one is set, and deletes the
+   * redirected files. Nothing to do if the output was not redirected.
+   *
+   * @throws IOException if the master log file cannot be built.
+   */
+  @Override
+  public void release() throws IOException {
+    if (this.redirectedLog == null || this.redirectedLog.isReleased()) {
+      return;
+    }
+    if (this.configuration.getMasterLogFile() != null) {
+      this.buildMasterLog();
+    }
+    this.redirectedLog.release();
+  }
+
+  /**
+   * Checks that the records were kept, either in the master log file or in memory.
+   *
+   * @throws ProcessConfigurationException if neither was configured.
+   */
+  private void checkMasterLog() throws ProcessConfigurationException {
+    if (this.configuration.getMasterLogFile() == null
+        && this.memoryLog == null
+        && this.headTailLog == null) {
+      throw new ProcessConfigurationException(
+          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_MASTER_LOG_FILE_NOT_CONFIGURED
+              + configuration);
+    }
+  }
+
+  /**
+   * Checks that the output was captured in chunks.
+   *
+   * @throws ProcessConfigurationException if it was not.
+   */
+  private void checkChunkCapture() throws ProcessConfigurationException {
+    if (!this.isChunkCapture()) {
+      throw new ProcessConfigurationException(
+          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_CHUNK_CAPTURE_NOT_ENABLED
+              + configuration);
+    }
+  }
+
+  /**
+   * Checks that only the first and the last records were kept.
+   *
+   * @throws ProcessConfigurationException if they were not.
+   */
+  private void checkHeadTailRetention() throws ProcessConfigurationException {
+    if (this.headTailLog == null) {
+      throw new ProcessConfigurationException(
+          ProcessRunnerConstants.STRING_CONSTANT_EXCEPTION_HEAD_TAIL_RETENTION_NOT_ENABLED
+              + configuration);
+    }
+  }
+
+  /**
+   * Tells if the master log file holds raw chunks, see {@link
+   * Configuration#isEnableChunkCapture()}. The chunk capture is ignored when the output is
+   * redirected or there is no master log file.
+   *
+   * @return {@link Boolean#TRUE} if the output was captured in chunks.
+   */
+  private boolean isChunkCapture() {
+    return this.configuration.isEnableChunkCapture()
+        && this.redirectedLog == null
+        && this.configuration.getMasterLogFile() != null;
+  }
+
+  /**
+   * Tells if the records are to be searched one after the other through {@link
+   * OutputImpl#openRecordReader()}, rather than the segments and blocks of the master log file in
+   * parallel.
+   *
+   * @return {@link Boolean#TRUE} if the records are kept in memory or in chunks, or if the split
+   *     records are to be joined.
+   */
+  private boolean isReadInOrder() {
+    return this.memoryLog != null
+        || this.headTailLog != null
+        || this.isChunkCapture()
+        || this.configuration.isEnableContinuationJoining();
+  }
+
+  /**
+   * Opens the records, from memory, the chunks or the master log file, joining the records split
+   * off a long line if {@link Configuration#isEnableContinuationJoining()}.
+   *
+   * @return a new {@link RecordReader}.
+   * @throws IOException if the master log file cannot be opened.
+   */
+  private RecordReader openRecordReader() throws IOException {
+    RecordReader recordReader;
+    if (this.memoryLog != null || this.headTailLog != null) {
+      recordReader = this.openRecordsInMemory();
+    } else if (this.isChunkCapture()) {
+      recordReader = new ChunkRecordReader(this.configuration);
+    } else {
+      recordReader = RecordReader.open(this.configuration);
+    }
+    return this.configuration.isEnableContinuationJoining()
+        ? RecordReader.joinContinuations(recordReader)
+        : recordReader;
+  }
+
+  private File convertToJson(File jsonFile) throws IOException {
+    if (this.isChunkCapture()) {
+      try (RecordReader recordReader = new ChunkRecordReader(this.configuration)) {
+        return new MasterLogConverter()
+            .convert(recordReader, jsonFile, MasterLogFormat.JSON, this.getCharset());
+      }
+    }
+    if (this.memoryLog == null && this.headTailLog == null) {
+      return new MasterLogConverter().convert(this.configuration, jsonFile, MasterLogFormat.JSON);
+    }
+    try (RecordReader recordReader = this.openRecordsInMemory()) {
+      return new MasterLogConverter()
+          .convert(recordReader, jsonFile, MasterLogFormat.JSON, this.getCharset());
+    }
+  }
+
+  private File writeLog(File targetFile, OutputSourceType outputSourceType) throws IOException {
+    if (this.redirectedLog != null && !this.redirectedLog.isReleased()) {
+      return this.redirectedLog.copyTo(targetFile, outputSourceType);
+    }
+    if (this.memoryLog != null || this.headTailLog != null) {
+      try (RecordReader recordReader = this.openRecordsInMemory()) {
+        return new LogWriter()
+            .writeLog(recordReader, this.getCharset(), targetFile, outputSourceType);
+      }
+    }
+    if (this.isChunkCapture()) {
+      return this.copyChunks(targetFile, outputSourceType);
+    }
+    return new LogWriter().writeLog(this.configuration, targetFile, outputSourceType);
+  }
+
+  /**
+   * Opens the records kept in memory, either all of them or only the first and the last ones.
+   *
+   * @return a new {@link RecordReader}.
+   */
+  private RecordReader openRecordsInMemory() {
+    return this.headTailLog != null ? this.headTailLog.openReader() : this.memoryLog.openReader();
+  }
+
+  /**
+   * Appends the bytes of a stream captured in chunks to a file, exactly as the process wrote them.
+   *
+   * @param targetFile the {@link File} to append to.
+   * @param outputSourceType the {@link OutputSourceType} of the stream.
+   * @return the target {@link File}.
+   * @throws IOException if either file cannot be read or written.
+   */
+  private File copyChunks(File targetFile, OutputSourceType outputSourceType)
       throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(ProcessRunnerConstants.MASTER_LOG_WRITE_BUFFER_SIZE);
+    try (ReadableByteChannel source =
+            ChunkLogReader.openChannel(this.configuration.getMasterLogFile(), outputSourceType);
+        FileChannel target = new FileOutputStream(targetFile, Boolean.TRUE).getChannel()) {
+      while (source.read(buffer) != -1) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          target.write(buffer);
+        }
+        buffer.clear();
+      }
+    }
+    return targetFile;
+  }
+
+  /**
+   * Builds the master log file out of the {@link RedirectedLog} on first use. Nothing to do if the
+   * output was not redirected.
+   *
+   * @throws IOException if the master log file cannot be written.
+   */
+  private void buildMasterLog() throws IOException {
+    if (this.redirectedLog != null) {
+      this.redirectedLog.writeMasterLog(this.configuration, this.captureStatistics);
+    }
+  }
+
+  /**
+   * Returns the {@link Charset} the saved files are written with.
+   *
+   * @return the {@link Configuration#getCharset()}, or the default {@link Charset} if not set.
+   */
+  private Charset getCharset() {
+    return this.configuration.getCharset() == null
+        ? Charset.defaultCharset()
+        : this.configuration.getCharset();
+  }
+
+  private boolean searchFile(final String regex) throws IOException {
     logger.trace("Searching for regular expression : {}", regex);
-    try (Stream<String> stream = Files.lines(Paths.get(fileToRead.getCanonicalPath()), charset)) {
-      return stream
-          .parallel()
-          .map(currentLine -> ProcessRunnerConstants.GSON.fromJson(currentLine, OutputRecord.class))
-          .anyMatch(outputRecord -> outputRecord.getOutputText().matches(regex));
+    Pattern pattern = Pattern.compile(regex);
+    if (this.isReadInOrder()) {
+      try (RecordReader recordReader = this.openRecordReader()) {
+        return search(recordReader, pattern);
+      }
+    }
+    try {
+      return SegmentedLog.getSegmentFiles(this.configuration)
+          .parallelStream()
+          .anyMatch(segmentFile -> this.searchSegment(segmentFile, pattern));
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  private boolean searchSegment(File segmentFile, Pattern pattern) {
+    try {
+      if (BlockCompressedLog.isBlockCompressed(segmentFile)) {
+        try (BlockCompressedLog blockCompressedLog =
+            BlockCompressedLog.open(segmentFile, this.configuration.getCharset())) {
+          return IntStream.range(0, blockCompressedLog.getBlockCount())
+              .parallel()
+              .anyMatch(block -> searchBlock(blockCompressedLog, block, pattern));
+        }
+      }
+      try (RecordReader recordReader =
+          RecordReader.open(
+              segmentFile,
+              this.configuration.getMasterLogFormat(),
+              this.configuration.getCharset(),
+              this.configuration.getMasterLogIoMode())) {
+        return search(recordReader, pattern);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static boolean searchBlock(
+      BlockCompressedLog blockCompressedLog, int block, Pattern pattern) {
+    try (RecordReader recordReader = blockCompressedLog.openBlock(block)) {
+      return search(recordReader, pattern);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static boolean search(RecordReader recordReader, Pattern pattern) throws IOException {
+    RecordMatcher recordMatcher = new RecordMatcher(pattern);
+    while (recordReader.next()) {
+      if (recordMatcher.matches(recordReader)) {
+        return true;
+      }
     }
+    return false;
   }
 }
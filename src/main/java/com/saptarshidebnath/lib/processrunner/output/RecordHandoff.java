@@ -0,0 +1,136 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Hands the lines read by the stream readers over to the disk writer. Many stream readers may add
+ * lines concurrently, while a single disk writer drains them.
+ *
+ * <p>A batch of lines is timestamped once, with {@link
+ * com.saptarshidebnath.lib.processrunner.utilities.WallClock#now()}, and every line is numbered, as
+ * in {@link OutputRecord#getSequence()}, in the order the lines of all the streams are handed over
+ * in.
+ */
+interface RecordHandoff {
+
+  /**
+   * Adds a batch of lines read from the same stream, in order, all of them read at once, none of
+   * them continued.
+   *
+   * @param outputSourceType the {@link OutputSourceType} the lines were read from.
+   * @param lines the lines to be added.
+   * @throws InterruptedException if interrupted while waiting for room.
+   */
+  default void add(OutputSourceType outputSourceType, List<String> lines)
+      throws InterruptedException {
+    this.add(outputSourceType, lines, new BitSet());
+  }
+
+  /**
+   * Adds a batch of lines read from the same stream, in order, all of them read at once.
+   *
+   * @param outputSourceType the {@link OutputSourceType} the lines were read from.
+   * @param lines the lines to be added.
+   * @param continuedLines the indexes of the lines continued by the next line of the stream, see
+   *     {@link LineSplitter.LineConsumer}.
+   * @throws InterruptedException if interrupted while waiting for room.
+   */
+  void add(OutputSourceType outputSourceType, List<String> lines, BitSet continuedLines)
+      throws InterruptedException;
+
+  /**
+   * Returns the number of lines {@link RecordHandoff#add(OutputSourceType, List)} can take without
+   * blocking. Only grows till lines are added again, as the disk writer makes room.
+   *
+   * @return the number of lines, {@link Integer#MAX_VALUE} if adding never blocks.
+   */
+  int remainingCapacity();
+
+  /** Marks one of the streams as exhausted and wakes up the disk writer. */
+  void endOfStream();
+
+  /**
+   * Marks the handoff as abandoned by the disk writer, which failed or stopped, so that the stream
+   * readers are never left waiting for room it is not going to make. The producers waiting for
+   * room are woken up, and the lines added from then on are dropped and counted as per {@link
+   * CaptureStatistics#getDroppedRecordCount()}, which keeps the process output flowing till the
+   * process ends.
+   */
+  void abandon();
+
+  /**
+   * Hands up to maxRecords records to the consumer, blocking till at least one record is available
+   * or all the streams have ended. Only ever called from a single thread.
+   *
+   * @param recordConsumer receives the records in order.
+   * @param maxRecords the maximum number of records to hand over.
+   * @return the number of records handed over, or -1 once all the streams have ended and every
+   *     record has been handed over.
+   * @throws InterruptedException if interrupted while waiting.
+   * @throws IOException if the consumer or the handoff itself fails on IO.
+   */
+  default int drainTo(RecordConsumer recordConsumer, int maxRecords)
+      throws InterruptedException, IOException {
+    return this.drainTo(recordConsumer, maxRecords, Long.MAX_VALUE);
+  }
+
+  /**
+   * Hands up to maxRecords records to the consumer, blocking till at least one record is
+   * available, all the streams have ended or the timeout has elapsed. Only ever called from a
+   * single thread.
+   *
+   * @param recordConsumer receives the records in order.
+   * @param maxRecords the maximum number of records to hand over.
+   * @param timeoutNanos the maximum time to wait for a record, {@link Long#MAX_VALUE} to wait
+   *     without a timeout.
+   * @return the number of records handed over, 0 if the timeout elapsed first, or -1 once all the
+   *     streams have ended and every record has been handed over.
+   * @throws InterruptedException if interrupted while waiting.
+   * @throws IOException if the consumer or the handoff itself fails on IO.
+   */
+  int drainTo(RecordConsumer recordConsumer, int maxRecords, long timeoutNanos)
+      throws InterruptedException, IOException;
+
+  /**
+   * Hands up to maxRecords records to the consumer without waiting for more to arrive. Only ever
+   * called from a single thread, and never along with {@link RecordHandoff#drainTo(RecordConsumer,
+   * int, long)}.
+   *
+   * @param recordConsumer receives the records in order.
+   * @param maxRecords the maximum number of records to hand over.
+   * @return the number of records handed over, 0 if none is available yet, or -1 once all the
+   *     streams have ended and every record has been handed over.
+   * @throws IOException if the consumer or the handoff itself fails on IO.
+   */
+  int pollTo(RecordConsumer recordConsumer, int maxRecords) throws IOException;
+
+  /**
+   * Receives the fields of a record without requiring an {@link OutputRecord} to be created.
+   * Fields must not be retained beyond the call.
+   */
+  @FunctionalInterface
+  interface RecordConsumer {
+
+    /**
+     * Accepts a single record.
+     *
+     * @param sequence the sequence number of the record as in {@link OutputRecord#getSequence()}.
+     * @param timeStamp the timestamp of the record as in {@link OutputRecord#getTimeStamp()}.
+     * @param outputSourceType the {@link OutputSourceType} of the record.
+     * @param outputText the line of output.
+     * @param continued {@link Boolean#TRUE} if the next record of the stream continues the line.
+     * @throws IOException if the record cannot be consumed.
+     */
+    void accept(
+        long sequence,
+        long timeStamp,
+        OutputSourceType outputSourceType,
+        String outputText,
+        boolean continued)
+        throws IOException;
+  }
+}
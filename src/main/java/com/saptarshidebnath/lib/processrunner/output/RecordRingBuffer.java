@@ -0,0 +1,245 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.utilities.WallClock;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock free, multi producer / single consumer {@link RecordHandoff} for {@link
+ * BackpressurePolicy#BLOCK} and {@link BackpressurePolicy#DROP_NEWEST}.
+ *
+ * <p>The buffer is a ring of reusable record slots. A producer claims a batch of consecutive
+ * sequences with a single compare and set, fills the claimed slots and publishes each of them by
+ * writing its sequence into the slot. The sequence of a slot plus one is the sequence number of
+ * its record, see {@link com.saptarshidebnath.lib.processrunner.model.OutputRecord}. The disk
+ * writer reads the slots in sequence order and hands the fields over without creating any object
+ * per line. A slot is allocated the first time its index is used and is reused for every later
+ * lap, so a short lived run never pays for the full capacity.
+ *
+ * <p>The disk writer parks when the ring is empty and the producers unpark it after publishing. A
+ * producer finding the ring full either drops the rest of its batch, or parks with an exponential
+ * back off between {@link ProcessRunnerConstants#RING_BUFFER_MIN_BACKOFF_NANOS} and {@link
+ * ProcessRunnerConstants#RING_BUFFER_MAX_BACKOFF_NANOS} till the disk writer makes room, or
+ * abandons the ring.
+ */
+class RecordRingBuffer implements RecordHandoff {
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<RecordSlot> slots;
+  private final boolean dropWhenFull;
+  private final CaptureStatistics captureStatistics;
+  private final AtomicLong claimedSequence;
+  private final AtomicInteger openStreams;
+  private volatile long consumedSequence;
+  private volatile boolean consumerWaiting;
+  private volatile boolean abandoned;
+  private volatile Thread consumerThread;
+
+  /**
+   * Creates a {@link RecordRingBuffer}.
+   *
+   * @param requestedCapacity minimum number of slots. Rounded up to the next power of two.
+   * @param backpressurePolicy either {@link BackpressurePolicy#BLOCK} or {@link
+   *     BackpressurePolicy#DROP_NEWEST}.
+   * @param openStreams the number of stream readers which are going to call {@link
+   *     RecordRingBuffer#endOfStream()}.
+   * @param captureStatistics the {@link CaptureStatistics} to update on drops.
+   */
+  RecordRingBuffer(
+      int requestedCapacity,
+      BackpressurePolicy backpressurePolicy,
+      int openStreams,
+      CaptureStatistics captureStatistics) {
+    if (backpressurePolicy != BackpressurePolicy.BLOCK
+        && backpressurePolicy != BackpressurePolicy.DROP_NEWEST) {
+      throw new IllegalArgumentException(
+          "Ring buffer does not support backpressure policy : " + backpressurePolicy);
+    }
+    int ringSize = 1;
+    while (ringSize < requestedCapacity) {
+      ringSize <<= 1;
+    }
+    this.capacity = ringSize;
+    this.mask = this.capacity - 1;
+    this.slots = new AtomicReferenceArray<>(this.capacity);
+    this.dropWhenFull = backpressurePolicy == BackpressurePolicy.DROP_NEWEST;
+    this.captureStatistics = captureStatistics;
+    this.claimedSequence = new AtomicLong();
+    this.openStreams = new AtomicInteger(openStreams);
+  }
+
+  @Override
+  public void add(OutputSourceType outputSourceType, List<String> lines, BitSet continuedLines)
+      throws InterruptedException {
+    long timeStamp = WallClock.now();
+    int index = 0;
+    long backoff = ProcessRunnerConstants.RING_BUFFER_MIN_BACKOFF_NANOS;
+    while (index < lines.size()) {
+      long claimed = this.claimedSequence.get();
+      long free = this.capacity - (claimed - this.consumedSequence);
+      if (free <= 0 || this.abandoned) {
+        if (this.dropWhenFull || this.abandoned) {
+          this.captureStatistics.addDroppedRecordCount(lines.size() - index);
+          return;
+        }
+        LockSupport.parkNanos(this, backoff);
+        if (Thread.interrupted()) {
+          throw new InterruptedException("Interrupted while waiting for room in the ring buffer");
+        }
+        backoff = Math.min(backoff * 2, ProcessRunnerConstants.RING_BUFFER_MAX_BACKOFF_NANOS);
+        continue;
+      }
+      int batchSize = (int) Math.min(free, lines.size() - index);
+      if (!this.claimedSequence.compareAndSet(claimed, claimed + batchSize)) {
+        continue;
+      }
+      for (int offset = 0; offset < batchSize; offset++) {
+        this.publish(
+            claimed + offset,
+            timeStamp,
+            outputSourceType,
+            lines.get(index + offset),
+            continuedLines.get(index + offset));
+      }
+      index += batchSize;
+      backoff = ProcessRunnerConstants.RING_BUFFER_MIN_BACKOFF_NANOS;
+      this.wakeUpConsumer();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    if (this.dropWhenFull || this.abandoned) {
+      return Integer.MAX_VALUE;
+    }
+    return (int) Math.max(0L, this.capacity - (this.claimedSequence.get() - this.consumedSequence));
+  }
+
+  @Override
+  public void endOfStream() {
+    this.openStreams.decrementAndGet();
+    LockSupport.unpark(this.consumerThread);
+  }
+
+  @Override
+  public void abandon() {
+    //
+    // The parked producers see it within their back off.
+    //
+    this.abandoned = true;
+  }
+
+  @Override
+  public int drainTo(RecordConsumer recordConsumer, int maxRecords, long timeoutNanos)
+      throws InterruptedException, IOException {
+    boolean timed = timeoutNanos != Long.MAX_VALUE;
+    long deadline = timed ? System.nanoTime() + timeoutNanos : 0L;
+    while (true) {
+      int drained = this.pollTo(recordConsumer, maxRecords);
+      if (drained != 0) {
+        return drained;
+      }
+      long remaining = timed ? deadline - System.nanoTime() : Long.MAX_VALUE;
+      if (remaining <= 0) {
+        return 0;
+      }
+      long next = this.consumedSequence;
+      //
+      // Announce that the consumer is going to park, then check again so that a record published
+      // in between is not missed.
+      //
+      this.consumerThread = Thread.currentThread();
+      this.consumerWaiting = true;
+      if (this.publishedSlot(next) == null && this.openStreams.get() > 0) {
+        if (timed) {
+          LockSupport.parkNanos(this, remaining);
+        } else {
+          LockSupport.park(this);
+        }
+      }
+      this.consumerWaiting = false;
+      if (Thread.interrupted()) {
+        throw new InterruptedException("Interrupted while waiting for records");
+      }
+    }
+  }
+
+  @Override
+  public int pollTo(RecordConsumer recordConsumer, int maxRecords) throws IOException {
+    long next = this.consumedSequence;
+    int drained = 0;
+    RecordSlot slot;
+    while (drained < maxRecords && (slot = this.publishedSlot(next)) != null) {
+      recordConsumer.accept(
+          next + 1, slot.timeStamp, slot.outputSourceType, slot.outputText, slot.continued);
+      slot.outputText = null;
+      next++;
+      drained++;
+    }
+    if (drained > 0) {
+      this.consumedSequence = next;
+      return drained;
+    }
+    return this.openStreams.get() == 0 && this.claimedSequence.get() == next ? -1 : 0;
+  }
+
+  /**
+   * Returns the size of the ring.
+   *
+   * @return the number of slots.
+   */
+  int getCapacity() {
+    return this.capacity;
+  }
+
+  private void publish(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued) {
+    int index = (int) sequence & this.mask;
+    RecordSlot slot = this.slots.get(index);
+    boolean newSlot = slot == null;
+    if (newSlot) {
+      slot = new RecordSlot();
+    }
+    slot.timeStamp = timeStamp;
+    slot.outputSourceType = outputSourceType;
+    slot.outputText = outputText;
+    slot.continued = continued;
+    slot.sequence = sequence;
+    if (newSlot) {
+      this.slots.set(index, slot);
+    }
+  }
+
+  private RecordSlot publishedSlot(long sequence) {
+    RecordSlot slot = this.slots.get((int) sequence & this.mask);
+    return slot != null && slot.sequence == sequence ? slot : null;
+  }
+
+  private void wakeUpConsumer() {
+    if (this.consumerWaiting) {
+      LockSupport.unpark(this.consumerThread);
+    }
+  }
+
+  /** A reusable slot of the ring. */
+  private static class RecordSlot {
+    private long timeStamp;
+    private OutputSourceType outputSourceType;
+    private String outputText;
+    private boolean continued;
+    private volatile long sequence = -1;
+  }
+}
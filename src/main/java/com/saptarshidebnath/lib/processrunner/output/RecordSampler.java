@@ -0,0 +1,186 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.SamplingWindow;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Thins out the lines of a stream as they are read, before they are captured, see {@link
+ * Configuration#isCaptureSampled()}.
+ *
+ * <p>A line the {@link Configuration#getCaptureKeepPattern()} is found in is always kept. Of the
+ * others, one out of {@link Configuration#getCaptureSampleInterval()} is picked, and the picked
+ * ones are let through by a token bucket holding up to {@link
+ * Configuration#getCaptureRateLimitBurst()} tokens, filled at {@link
+ * Configuration#getCaptureRateLimit()} tokens per second. The bucket is kept in nanoseconds of
+ * credit, so a batch of lines costs one reading of the clock and no floating point. The parts of
+ * a long line split off by {@link LineSplitter} are kept or dropped along with its first part.
+ *
+ * <p>The lines kept and dropped are counted over windows of {@link
+ * ProcessRunnerConstants#SAMPLING_WINDOW_NANOS}, and every window which dropped a line is added
+ * to the {@link CaptureStatistics} once it is over. Not thread safe, the lines of a stream are
+ * handed over by one thread at a time.
+ */
+class RecordSampler {
+
+  private final OutputSourceType outputSourceType;
+  private final CaptureStatistics captureStatistics;
+  private final int sampleInterval;
+  private final Matcher keepMatcher;
+  private final long nanosPerLine;
+  private final long maxCredit;
+  private long credit;
+  private long lastTime;
+  private long sampleCounter;
+  private long windowStart;
+  private long windowEnd;
+  private long windowKept;
+  private long windowDropped;
+  private boolean continuing;
+  private boolean keepingLine;
+
+  /**
+   * Creates the {@link RecordSampler} of a stream.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream.
+   * @param configuration the {@link Configuration} holding the sampling and the rate limit.
+   * @param captureStatistics the {@link CaptureStatistics} the dropped lines are counted in.
+   */
+  RecordSampler(
+      OutputSourceType outputSourceType,
+      Configuration configuration,
+      CaptureStatistics captureStatistics) {
+    this.outputSourceType = outputSourceType;
+    this.captureStatistics = captureStatistics;
+    this.sampleInterval = configuration.getCaptureSampleInterval();
+    Pattern keepPattern = configuration.getCaptureKeepPattern();
+    this.keepMatcher =
+        keepPattern == null ? null : keepPattern.matcher(ProcessRunnerConstants.EMPTY_STR);
+    if (configuration.getCaptureRateLimit() > 0) {
+      this.nanosPerLine =
+          Math.max(
+              1L,
+              ProcessRunnerConstants.SAMPLING_WINDOW_NANOS / configuration.getCaptureRateLimit());
+      this.maxCredit = this.nanosPerLine * configuration.getCaptureRateLimitBurst();
+    } else {
+      this.nanosPerLine = 0L;
+      this.maxCredit = 0L;
+    }
+    this.credit = this.maxCredit;
+    this.windowStart = -1L;
+  }
+
+  /**
+   * Picks the lines to be kept out of a batch read at once, none of them continued.
+   *
+   * @param lines the lines read, in order.
+   * @param timeStamp the time the lines were read at, see {@link
+   *     com.saptarshidebnath.lib.processrunner.utilities.WallClock#now()}.
+   * @return the lines kept, in order. The same {@link List} if all of them are kept.
+   */
+  List<String> sample(List<String> lines, long timeStamp) {
+    return this.sample(lines, new BitSet(), timeStamp);
+  }
+
+  /**
+   * Picks the lines to be kept out of a batch read at once.
+   *
+   * @param lines the lines read, in order.
+   * @param continuedLines the indexes of the continued lines, see {@link
+   *     LineSplitter.LineConsumer}. Updated to the indexes in the lines kept.
+   * @param timeStamp the time the lines were read at, see {@link
+   *     com.saptarshidebnath.lib.processrunner.utilities.WallClock#now()}.
+   * @return the lines kept, in order. The same {@link List} if all of them are kept.
+   */
+  List<String> sample(List<String> lines, BitSet continuedLines, long timeStamp) {
+    this.advance(timeStamp);
+    List<String> keptLines = null;
+    for (int index = 0; index < lines.size(); index++) {
+      String line = lines.get(index);
+      boolean keep = this.continuing ? this.keepingLine : this.keep(line);
+      this.continuing = continuedLines.get(index);
+      this.keepingLine = keep;
+      if (keep) {
+        this.windowKept++;
+        if (keptLines != null) {
+          continuedLines.set(keptLines.size(), this.continuing);
+          keptLines.add(line);
+        }
+      } else {
+        this.windowDropped++;
+        if (keptLines == null) {
+          keptLines = new ArrayList<>(lines.subList(0, index));
+        }
+      }
+    }
+    if (keptLines == null) {
+      return lines;
+    }
+    continuedLines.clear(keptLines.size(), lines.size());
+    this.captureStatistics.addSampledOutRecordCount(lines.size() - keptLines.size());
+    return keptLines;
+  }
+
+  /** Closes the last window, once the stream has ended. */
+  void finish() {
+    this.closeWindow();
+  }
+
+  private boolean keep(String line) {
+    if (this.keepMatcher != null && this.keepMatcher.reset(line).find()) {
+      return true;
+    }
+    if (this.sampleInterval > 1 && this.sampleCounter++ % this.sampleInterval != 0) {
+      return false;
+    }
+    if (this.nanosPerLine > 0L) {
+      if (this.credit < this.nanosPerLine) {
+        return false;
+      }
+      this.credit -= this.nanosPerLine;
+    }
+    return true;
+  }
+
+  /**
+   * Fills the token bucket with the time elapsed since the last batch, and starts a new window if
+   * the current one is over.
+   *
+   * @param timeStamp the time the batch was read at.
+   */
+  private void advance(long timeStamp) {
+    if (this.windowStart == -1L) {
+      this.windowStart = timeStamp;
+    } else {
+      long elapsed = Math.max(0L, timeStamp - this.lastTime);
+      this.credit =
+          elapsed >= this.maxCredit - this.credit ? this.maxCredit : this.credit + elapsed;
+      if (timeStamp - this.windowStart >= ProcessRunnerConstants.SAMPLING_WINDOW_NANOS) {
+        this.closeWindow();
+        this.windowStart = timeStamp;
+      }
+    }
+    this.lastTime = timeStamp;
+    this.windowEnd = timeStamp;
+  }
+
+  private void closeWindow() {
+    if (this.windowDropped > 0L) {
+      this.captureStatistics.addSamplingWindow(
+          new SamplingWindow(
+              this.outputSourceType,
+              this.windowStart,
+              this.windowEnd,
+              this.windowKept,
+              this.windowDropped));
+    }
+    this.windowKept = 0L;
+    this.windowDropped = 0L;
+  }
+}
@@ -0,0 +1,246 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.CaptureEngine;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.utilities.WallClock;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.RecordEncoder;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.SegmentedLogEncoder;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.TempFile;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The files the output of a process started with {@link CaptureEngine#REDIRECT} is redirected to.
+ *
+ * <p>The bytes are written by the operating system. The text logs are plain copies of those files,
+ * and the master log file is built out of them the first time it is needed. When the streams are
+ * merged, there is a single file and its lines are recorded as {@link OutputSourceType#MERGED}.
+ *
+ * <p>The files are deleted once the {@link RedirectedLog} is released, see {@link
+ * Output#release()}, or garbage collected. The files of the collected ones are deleted the next
+ * time output is redirected, and any still left when the JVM exits.
+ */
+public class RedirectedLog {
+
+  private static final Logger logger = LoggerFactory.getLogger(RedirectedLog.class);
+  private static final ReferenceQueue<RedirectedLog> COLLECTED_LOGS = new ReferenceQueue<>();
+  private static final Set<RedirectFiles> REDIRECT_FILES = ConcurrentHashMap.newKeySet();
+  private final File sysOutFile;
+  private final File sysErrFile;
+  private final Charset charset;
+  private final RedirectFiles redirectFiles;
+  private volatile boolean released;
+  private boolean masterLogWritten;
+  private long lastSequence;
+
+  private RedirectedLog(File sysOutFile, File sysErrFile, Charset charset) {
+    this.sysOutFile = sysOutFile;
+    this.sysErrFile = sysErrFile;
+    this.charset = charset;
+    this.redirectFiles = new RedirectFiles(this, sysOutFile, sysErrFile);
+  }
+
+  /**
+   * Redirects the streams of the process to be started to temporary files.
+   *
+   * @param processBuilder the {@link ProcessBuilder} of the process, not yet started.
+   * @param configuration the {@link Configuration} of the process.
+   * @return the {@link RedirectedLog} to be handed over to the {@link Output}.
+   * @throws IOException if the temporary files cannot be created.
+   */
+  public static RedirectedLog redirect(ProcessBuilder processBuilder, Configuration configuration)
+      throws IOException {
+    deleteCollected();
+    TempFile tempFile = new TempFile();
+    File sysOutFile = tempFile.createTempRedirectFile();
+    File sysErrFile = null;
+    processBuilder.redirectOutput(sysOutFile);
+    if (configuration.isEnableStreamMerging()) {
+      logger.debug("Redirecting merged SYSOUT and SYSERR to {}", sysOutFile);
+    } else {
+      sysErrFile = tempFile.createTempRedirectFile();
+      processBuilder.redirectError(sysErrFile);
+      logger.debug("Redirecting SYSOUT to {} and SYSERR to {}", sysOutFile, sysErrFile);
+    }
+    return new RedirectedLog(sysOutFile, sysErrFile, LogHandler.resolveCharset(configuration));
+  }
+
+  /**
+   * Appends the output of the process to a {@link File} as it is.
+   *
+   * @param targetFile the {@link File} to append to.
+   * @param outputSourceType the {@link OutputSourceType} to be copied.
+   * @return the target {@link File}.
+   * @throws IOException when there are problems reading and writing the {@link File}.
+   */
+  File copyTo(File targetFile, OutputSourceType outputSourceType) throws IOException {
+    try (FileChannel target = new FileOutputStream(targetFile, Boolean.TRUE).getChannel()) {
+      if (outputSourceType != OutputSourceType.SYSERR) {
+        transfer(this.sysOutFile, target);
+      }
+      if (outputSourceType != OutputSourceType.SYSOUT && this.sysErrFile != null) {
+        transfer(this.sysErrFile, target);
+      }
+    }
+    logger.info("{} copied completely to : {}", outputSourceType, targetFile.getCanonicalPath());
+    return targetFile;
+  }
+
+  /**
+   * Builds the master log file out of the redirected files, unless already done.
+   *
+   * @param configuration the {@link Configuration} holding the master log file and its {@link
+   *     Charset}.
+   * @param captureStatistics the {@link CaptureStatistics} counting the long lines.
+   * @throws IOException when there are problems reading and writing the files.
+   */
+  synchronized void writeMasterLog(
+      Configuration configuration, CaptureStatistics captureStatistics) throws IOException {
+    if (this.masterLogWritten) {
+      return;
+    }
+    logger.debug("Building master log file : {}", configuration.getMasterLogFile());
+    this.lastSequence = 0L;
+    try (SegmentedLogEncoder recordEncoder =
+        new SegmentedLogEncoder(configuration, UnaryOperator.identity())) {
+      if (this.sysErrFile == null) {
+        this.writeRecords(
+            this.sysOutFile,
+            OutputSourceType.MERGED,
+            recordEncoder,
+            configuration,
+            captureStatistics);
+      } else {
+        this.writeRecords(
+            this.sysOutFile,
+            OutputSourceType.SYSOUT,
+            recordEncoder,
+            configuration,
+            captureStatistics);
+        this.writeRecords(
+            this.sysErrFile,
+            OutputSourceType.SYSERR,
+            recordEncoder,
+            configuration,
+            captureStatistics);
+      }
+      recordEncoder.finish();
+    }
+    this.masterLogWritten = true;
+  }
+
+  /**
+   * Deletes the redirected files. Nothing can be read from the {@link RedirectedLog} afterwards.
+   */
+  synchronized void release() {
+    this.released = true;
+    this.redirectFiles.delete();
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} once the redirected files are deleted.
+   *
+   * @return a {@link Boolean}
+   */
+  boolean isReleased() {
+    return this.released;
+  }
+
+  /**
+   * Writes the lines of a redirected file as records, numbered on from the lines of the files
+   * written before. The lines read at once share their timestamp, the time they were read at.
+   */
+  private void writeRecords(
+      File redirectFile,
+      OutputSourceType outputSourceType,
+      RecordEncoder recordEncoder,
+      Configuration configuration,
+      CaptureStatistics captureStatistics)
+      throws IOException {
+    LineSplitter lineSplitter =
+        new LineSplitter(
+            this.charset,
+            configuration,
+            captureStatistics,
+            (lines, continuedLines) -> {
+              try {
+                long timeStamp = WallClock.now();
+                for (int index = 0; index < lines.size(); index++) {
+                  recordEncoder.write(
+                      ++this.lastSequence,
+                      timeStamp,
+                      outputSourceType,
+                      lines.get(index),
+                      continuedLines.get(index));
+                }
+              } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+              }
+            });
+    byte[] buffer = new byte[ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE];
+    try (InputStream inputStream = new FileInputStream(redirectFile)) {
+      for (int read; (read = inputStream.read(buffer)) != -1; ) {
+        lineSplitter.split(buffer, 0, read);
+      }
+      lineSplitter.finish();
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  private static void deleteCollected() {
+    for (Reference<? extends RedirectedLog> collected;
+        (collected = COLLECTED_LOGS.poll()) != null; ) {
+      ((RedirectFiles) collected).delete();
+    }
+  }
+
+  private static void transfer(File sourceFile, FileChannel target) throws IOException {
+    try (FileChannel source = new FileInputStream(sourceFile).getChannel()) {
+      long size = source.size();
+      for (long position = 0; position < size; ) {
+        position += source.transferTo(position, size - position, target);
+      }
+    }
+  }
+
+  /** The files of a {@link RedirectedLog}, deleted once it is released or garbage collected. */
+  private static class RedirectFiles extends PhantomReference<RedirectedLog> {
+    private final File sysOutFile;
+    private final File sysErrFile;
+
+    RedirectFiles(RedirectedLog redirectedLog, File sysOutFile, File sysErrFile) {
+      super(redirectedLog, COLLECTED_LOGS);
+      this.sysOutFile = sysOutFile;
+      this.sysErrFile = sysErrFile;
+      REDIRECT_FILES.add(this);
+    }
+
+    void delete() {
+      if (!REDIRECT_FILES.remove(this)) {
+        return;
+      }
+      for (File redirectFile : new File[] {this.sysOutFile, this.sysErrFile}) {
+        if (redirectFile != null && !redirectFile.delete()) {
+          logger.warn("Unable to delete redirect file : {}", redirectFile);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the master log files of all the runs configured to share the log writer from a small
+ * fixed number of threads, instead of one disk writer thread per run.
+ *
+ * <p>Each registered run is pinned to one of {@link
+ * ProcessRunnerConstants#SHARED_WRITER_THREAD_COUNT} writer threads. A writer thread visits its
+ * runs round robin. On each visit it takes at most {@link
+ * ProcessRunnerConstants#FILE_WRITER_OBJECT_SIZE} records out of the run's {@link RecordHandoff}
+ * without blocking and writes them with the run's {@link MasterLogWriter}, which commits them as
+ * per the group commit settings of the run. A run with nothing to write gets its pending records
+ * committed once they are due. A chatty run therefore gets the same share of the writer as a quiet
+ * one, and can never hold the others up. When none of its runs have records, the thread backs off
+ * between {@link ProcessRunnerConstants#SHARED_WRITER_MIN_IDLE_WAIT_MICROS} and {@link
+ * ProcessRunnerConstants#SHARED_WRITER_MAX_IDLE_WAIT_MICROS}, and it sleeps without a timeout when
+ * it has no run registered at all.
+ *
+ * <p>How far the writer is behind a run is available from {@link
+ * CaptureStatistics#getWriterLag()}.
+ */
+class SharedLogWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedLogWriter.class);
+  private static final SharedLogWriter INSTANCE =
+      new SharedLogWriter(ProcessRunnerConstants.SHARED_WRITER_THREAD_COUNT);
+  private final WriterLoop[] writerLoops;
+  private final AtomicInteger nextWriterLoop;
+
+  /**
+   * Creates the shared writer and starts the writer threads as daemon threads.
+   *
+   * @param threadCount number of writer threads.
+   */
+  private SharedLogWriter(int threadCount) {
+    this.writerLoops = new WriterLoop[threadCount];
+    this.nextWriterLoop = new AtomicInteger();
+    for (int index = 0; index < threadCount; index++) {
+      this.writerLoops[index] = new WriterLoop();
+      Thread thread =
+          new Thread(
+              this.writerLoops[index],
+              ProcessRunnerConstants.PROCESS_RUNNER_THREAD_GROUP_NAME
+                  + ProcessRunnerConstants.SHARED_WRITER_THREAD_NAME_SUFFIX
+                  + index);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    logger.debug("Started {} shared log writer threads", threadCount);
+  }
+
+  /**
+   * Returns the JVM wide {@link SharedLogWriter}.
+   *
+   * @return the shared reference of {@link SharedLogWriter}
+   */
+  static SharedLogWriter getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers the master log file of a run with the shared writer.
+   *
+   * @param recordHandoff the {@link RecordHandoff} the stream readers of the run add records to.
+   * @param masterLogWriter the {@link MasterLogWriter} of the run. Closed once all the records are
+   *     written.
+   * @return a {@link CompletableFuture} which completes with the number of records written once
+   *     all the streams of the run have ended.
+   */
+  CompletableFuture<Integer> register(
+      RecordHandoff recordHandoff, MasterLogWriter masterLogWriter) {
+    RegisteredLog registeredLog = new RegisteredLog(recordHandoff, masterLogWriter);
+    int index = Math.floorMod(this.nextWriterLoop.getAndIncrement(), this.writerLoops.length);
+    this.writerLoops[index].pending.add(registeredLog);
+    return registeredLog.completion;
+  }
+
+  /** One writer thread servicing all the master log files pinned to it. */
+  private static class WriterLoop implements Runnable {
+    private final BlockingQueue<RegisteredLog> pending = new LinkedBlockingQueue<>();
+    private final List<RegisteredLog> active = new ArrayList<>();
+
+    @Override
+    public void run() {
+      long idleWait = ProcessRunnerConstants.SHARED_WRITER_MIN_IDLE_WAIT_MICROS;
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          if (this.active.isEmpty()) {
+            this.active.add(this.pending.take());
+          }
+          this.pending.drainTo(this.active);
+          if (this.serviceActiveLogs()) {
+            idleWait = ProcessRunnerConstants.SHARED_WRITER_MIN_IDLE_WAIT_MICROS;
+          } else {
+            //
+            // Nothing to write. Back off, but wake up at once if a new run is registered.
+            //
+            RegisteredLog registeredLog = this.pending.poll(idleWait, TimeUnit.MICROSECONDS);
+            if (registeredLog != null) {
+              this.active.add(registeredLog);
+            }
+            idleWait =
+                Math.min(idleWait * 2, ProcessRunnerConstants.SHARED_WRITER_MAX_IDLE_WAIT_MICROS);
+          }
+        }
+      } catch (InterruptedException ex) {
+        this.pending.drainTo(this.active);
+        logger.error("Shared log writer interrupted. {} logs abandoned.", this.active.size(), ex);
+        for (RegisteredLog registeredLog : this.active) {
+          registeredLog.abandon(ex);
+        }
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Does one round robin pass over all the active master log files.
+     *
+     * @return {@link Boolean#TRUE} if any of the files made progress.
+     */
+    private boolean serviceActiveLogs() {
+      boolean progressed = false;
+      Iterator<RegisteredLog> iterator = this.active.iterator();
+      while (iterator.hasNext()) {
+        RegisteredLog registeredLog = iterator.next();
+        try {
+          progressed |= registeredLog.service();
+        } catch (IOException | RuntimeException ex) {
+          logger.error("Unable to write master log file", ex);
+          registeredLog.abandon(ex);
+        }
+        if (registeredLog.completion.isDone()) {
+          iterator.remove();
+        }
+      }
+      return progressed;
+    }
+  }
+
+  /** The master log file of a run along with where its records come from. */
+  private static class RegisteredLog {
+    private final RecordHandoff recordHandoff;
+    private final MasterLogWriter masterLogWriter;
+    private final CompletableFuture<Integer> completion;
+    private int writtenRecordCount;
+
+    RegisteredLog(RecordHandoff recordHandoff, MasterLogWriter masterLogWriter) {
+      this.recordHandoff = recordHandoff;
+      this.masterLogWriter = masterLogWriter;
+      this.completion = new CompletableFuture<>();
+    }
+
+    /**
+     * Writes one batch of records, if there is any.
+     *
+     * @return {@link Boolean#TRUE} if any record was written or the log got completed.
+     * @throws IOException when the records cannot be handed over or committed.
+     */
+    boolean service() throws IOException {
+      int written =
+          this.recordHandoff.pollTo(
+              this.masterLogWriter, ProcessRunnerConstants.FILE_WRITER_OBJECT_SIZE);
+      if (written > 0) {
+        this.writtenRecordCount += written;
+        this.masterLogWriter.drained(written, ProcessRunnerConstants.FILE_WRITER_OBJECT_SIZE);
+        return true;
+      }
+      if (written == 0) {
+        this.masterLogWriter.commitIfDue();
+        return false;
+      }
+      this.masterLogWriter.close();
+      logger.debug("Wrote {} lines to master log file.", this.writtenRecordCount);
+      this.completion.complete(this.writtenRecordCount);
+      return true;
+    }
+
+    /**
+     * Gives up on the master log file after an error.
+     *
+     * @param cause the error.
+     */
+    void abandon(Throwable cause) {
+      this.recordHandoff.abandon();
+      try {
+        this.masterLogWriter.close();
+      } catch (IOException ex) {
+        cause.addSuppressed(ex);
+      }
+      this.completion.completeExceptionally(cause);
+    }
+  }
+}
@@ -0,0 +1,372 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import com.saptarshidebnath.lib.processrunner.constants.CaptureEngine;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the output streams of all the processes started with {@link CaptureEngine#REACTOR} from a
+ * small fixed number of threads.
+ *
+ * <p>Each registered stream is pinned to the one of the {@link
+ * ProcessRunnerConstants#REACTOR_THREAD_COUNT} reactor threads with the fewest streams left to read
+ * at the time. A reactor thread never blocks on the pipe of a live process. It only reads the bytes
+ * reported by {@link InputStream#available()}, splits them into lines and hands the lines of each
+ * read over to the registered consumer as one batch, or hands the bytes over as read to a {@link
+ * ChunkConsumer}. A byte ends at most one line, so a read is cut down to the number of lines the
+ * consumer can take without blocking, and a full consumer never holds up the other streams of the
+ * thread. Both streams of a process are pinned to the same thread, so they never take the same room
+ * at once. When none of its streams have data, the thread backs off between {@link
+ * ProcessRunnerConstants#REACTOR_MIN_IDLE_WAIT_MICROS} and {@link
+ * ProcessRunnerConstants#REACTOR_MAX_IDLE_WAIT_MICROS}, and it sleeps without a timeout when it has
+ * no stream registered at all.
+ *
+ * <p>The JDK does not expose the pipe file descriptors of a {@link Process}, so readiness is
+ * detected through {@link InputStream#available()} instead of epoll. Once the {@link Process} is
+ * dead, the stream is read till its real end, one blocking read per pass over the streams, so the
+ * output of a grandchild process still holding the pipe open is not lost. While nothing is left to
+ * read, such a stream holds up its reactor thread till the grandchild writes more or closes the
+ * pipe.
+ */
+class StreamReactor {
+
+  private static final Logger logger = LoggerFactory.getLogger(StreamReactor.class);
+  private static final StreamReactor INSTANCE =
+      new StreamReactor(ProcessRunnerConstants.REACTOR_THREAD_COUNT);
+  private final ReactorLoop[] reactorLoops;
+  private final Thread[] threads;
+  private final Map<Process, ReactorLoop> processLoops = new WeakHashMap<>();
+
+  /**
+   * Creates the reactor and starts the reactor threads as daemon threads. Only the JVM wide
+   * {@link StreamReactor} is to be used outside of the tests.
+   *
+   * @param threadCount number of reactor threads.
+   */
+  StreamReactor(int threadCount) {
+    this.reactorLoops = new ReactorLoop[threadCount];
+    this.threads = new Thread[threadCount];
+    for (int index = 0; index < threadCount; index++) {
+      this.reactorLoops[index] = new ReactorLoop();
+      Thread thread =
+          new Thread(
+              this.reactorLoops[index],
+              ProcessRunnerConstants.PROCESS_RUNNER_THREAD_GROUP_NAME
+                  + ProcessRunnerConstants.REACTOR_THREAD_NAME_SUFFIX
+                  + index);
+      thread.setDaemon(true);
+      thread.start();
+      this.threads[index] = thread;
+    }
+    logger.debug("Started {} reactor threads", threadCount);
+  }
+
+  /**
+   * Interrupts the reactor threads and waits for them to stop, failing the streams left. Only the
+   * reactors created by the tests are ever shut down.
+   *
+   * @throws InterruptedException if interrupted while waiting for the threads.
+   */
+  void shutdown() throws InterruptedException {
+    for (Thread thread : this.threads) {
+      thread.interrupt();
+    }
+    for (Thread thread : this.threads) {
+      thread.join();
+    }
+  }
+
+  /**
+   * Returns the JVM wide {@link StreamReactor}.
+   *
+   * @return the shared reference of {@link StreamReactor}
+   */
+  static StreamReactor getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers a process stream with the reactor.
+   *
+   * @param process the {@link Process} owning the stream. Used to detect the end of the stream.
+   * @param inputStream the {@link InputStream} from {@link Process#getInputStream()} or {@link
+   *     Process#getErrorStream()}.
+   * @param lineSplitter the {@link LineSplitter} splitting the stream into lines, handing the
+   *     lines of each read over to its consumer as one batch.
+   * @param roomForLines tells the number of lines the consumer can take without blocking. The
+   *     stream is skipped while it returns zero, which leaves the bytes in the pipe and eventually
+   *     blocks the process on its writes.
+   * @return a {@link CompletableFuture} which completes with the number of lines read once the
+   *     stream is exhausted.
+   */
+  CompletableFuture<Integer> register(
+      Process process,
+      InputStream inputStream,
+      LineSplitter lineSplitter,
+      IntSupplier roomForLines) {
+    return this.register(new RegisteredStream(process, inputStream, lineSplitter, roomForLines));
+  }
+
+  /**
+   * Registers a process stream with the reactor, to be read in raw chunks of bytes.
+   *
+   * @param process the {@link Process} owning the stream. Used to detect the end of the stream.
+   * @param inputStream the {@link InputStream} from {@link Process#getInputStream()} or {@link
+   *     Process#getErrorStream()}.
+   * @param chunkConsumer receives the chunks read from the stream, in order, one per read.
+   * @return a {@link CompletableFuture} which completes with the number of chunks read once the
+   *     stream is exhausted.
+   */
+  CompletableFuture<Integer> register(
+      Process process, InputStream inputStream, ChunkConsumer chunkConsumer) {
+    return this.register(new RegisteredStream(process, inputStream, chunkConsumer));
+  }
+
+  private CompletableFuture<Integer> register(RegisteredStream registeredStream) {
+    ReactorLoop reactorLoop = this.assign(registeredStream.process);
+    registeredStream.completion.whenComplete(
+        (count, throwable) -> reactorLoop.streamCount.decrementAndGet());
+    reactorLoop.pending.add(registeredStream);
+    if (reactorLoop.stopped) {
+      reactorLoop.abandonPendingStreams();
+    }
+    return registeredStream.completion;
+  }
+
+  /**
+   * Picks the reactor thread of a new stream of a process: the thread of its other stream if any,
+   * else the running thread with the fewest streams, and counts the stream against it.
+   *
+   * @param process the {@link Process} owning the stream.
+   * @return the {@link ReactorLoop} the stream is to be pinned to.
+   */
+  private synchronized ReactorLoop assign(Process process) {
+    ReactorLoop reactorLoop = this.processLoops.get(process);
+    if (reactorLoop == null || reactorLoop.stopped) {
+      reactorLoop = this.reactorLoops[0];
+      for (ReactorLoop candidate : this.reactorLoops) {
+        if (candidate.getLoad() < reactorLoop.getLoad()) {
+          reactorLoop = candidate;
+        }
+      }
+      this.processLoops.put(process, reactorLoop);
+    }
+    reactorLoop.streamCount.incrementAndGet();
+    return reactorLoop;
+  }
+
+  /** Receives the raw chunks of bytes read from a process stream. */
+  @FunctionalInterface
+  interface ChunkConsumer {
+
+    /**
+     * Accepts a chunk.
+     *
+     * @param buffer the array holding the chunk. Reused after the call returns.
+     * @param offset the index of the first byte of the chunk.
+     * @param length the number of bytes of the chunk.
+     * @throws IOException if the chunk cannot be kept.
+     */
+    void accept(byte[] buffer, int offset, int length) throws IOException;
+  }
+
+  /**
+   * One reactor thread servicing all the streams pinned to it. Once interrupted, the thread stops,
+   * and the streams pinned to it are completed exceptionally, even those registered afterwards.
+   */
+  private static class ReactorLoop implements Runnable {
+    private final BlockingQueue<RegisteredStream> pending = new LinkedBlockingQueue<>();
+    private final List<RegisteredStream> active = new ArrayList<>();
+    private final byte[] buffer = new byte[ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE];
+    private final AtomicInteger streamCount = new AtomicInteger();
+    private volatile boolean stopped;
+
+    /**
+     * Returns the number of streams pinned to the thread and not yet completed, or {@link
+     * Integer#MAX_VALUE} once the thread is stopped.
+     *
+     * @return a {@link Integer} count of the streams.
+     */
+    int getLoad() {
+      return this.stopped ? Integer.MAX_VALUE : this.streamCount.get();
+    }
+
+    @Override
+    public void run() {
+      long idleWait = ProcessRunnerConstants.REACTOR_MIN_IDLE_WAIT_MICROS;
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          if (this.active.isEmpty()) {
+            this.active.add(this.pending.take());
+          }
+          this.pending.drainTo(this.active);
+          if (this.serviceActiveStreams()) {
+            idleWait = ProcessRunnerConstants.REACTOR_MIN_IDLE_WAIT_MICROS;
+          } else {
+            //
+            // Nothing to read. Back off, but wake up at once if a new stream is registered.
+            //
+            RegisteredStream registeredStream =
+                this.pending.poll(idleWait, TimeUnit.MICROSECONDS);
+            if (registeredStream != null) {
+              this.active.add(registeredStream);
+            }
+            idleWait = Math.min(idleWait * 2, ProcessRunnerConstants.REACTOR_MAX_IDLE_WAIT_MICROS);
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      //
+      // Stopped before the pending streams are drained, so a stream registered meanwhile is
+      // abandoned by the registering thread.
+      //
+      this.stopped = true;
+      this.pending.drainTo(this.active);
+      logger.error("Reactor thread interrupted. {} streams abandoned.", this.active.size());
+      for (RegisteredStream registeredStream : this.active) {
+        registeredStream.abandon();
+      }
+      this.active.clear();
+    }
+
+    /** Completes exceptionally the streams registered but not yet serviced. */
+    private void abandonPendingStreams() {
+      List<RegisteredStream> abandoned = new ArrayList<>();
+      this.pending.drainTo(abandoned);
+      for (RegisteredStream registeredStream : abandoned) {
+        registeredStream.abandon();
+      }
+    }
+
+    /**
+     * Does one pass over all the active streams.
+     *
+     * @return {@link Boolean#TRUE} if any of the stream made progress.
+     */
+    private boolean serviceActiveStreams() {
+      boolean progressed = false;
+      Iterator<RegisteredStream> iterator = this.active.iterator();
+      while (iterator.hasNext()) {
+        RegisteredStream registeredStream = iterator.next();
+        try {
+          progressed |= registeredStream.service(this.buffer);
+        } catch (IOException | RuntimeException ex) {
+          logger.error("Unable to read process output stream", ex);
+          registeredStream.completion.completeExceptionally(ex);
+        }
+        if (registeredStream.completion.isDone()) {
+          iterator.remove();
+        }
+      }
+      return progressed;
+    }
+  }
+
+  /** A process stream along with its partially read line, or the consumer of its chunks. */
+  private static class RegisteredStream {
+    private final Process process;
+    private final InputStream inputStream;
+    private final IntSupplier roomForLines;
+    private final LineSplitter lineSplitter;
+    private final ChunkConsumer chunkConsumer;
+    private final CompletableFuture<Integer> completion;
+    private int chunkCount;
+
+    RegisteredStream(
+        Process process,
+        InputStream inputStream,
+        LineSplitter lineSplitter,
+        IntSupplier roomForLines) {
+      this.process = process;
+      this.inputStream = inputStream;
+      this.roomForLines = roomForLines;
+      this.lineSplitter = lineSplitter;
+      this.chunkConsumer = null;
+      this.completion = new CompletableFuture<>();
+    }
+
+    RegisteredStream(Process process, InputStream inputStream, ChunkConsumer chunkConsumer) {
+      this.process = process;
+      this.inputStream = inputStream;
+      this.roomForLines = () -> Integer.MAX_VALUE;
+      this.lineSplitter = null;
+      this.chunkConsumer = chunkConsumer;
+      this.completion = new CompletableFuture<>();
+    }
+
+    /**
+     * Reads whatever is available on the stream without blocking while the process is alive. Once
+     * it is dead, reads the stream even if nothing is available, and completes the stream at its
+     * end.
+     *
+     * @param buffer the reactor thread's read buffer.
+     * @return {@link Boolean#TRUE} if any byte was read or the stream got completed.
+     * @throws IOException when the stream cannot be read.
+     */
+    boolean service(byte[] buffer) throws IOException {
+      int room = this.roomForLines.getAsInt();
+      if (room <= 0) {
+        return false;
+      }
+      //
+      // Checked before the stream, so that the last bytes written before dying are not missed.
+      //
+      boolean alive = this.process.isAlive();
+      int available = this.inputStream.available();
+      if (available == 0 && alive) {
+        return false;
+      }
+      //
+      // With nothing available, the read blocks till a grandchild still holding the pipe writes
+      // more, or the pipe is closed.
+      //
+      int length = available > 0 ? Math.min(available, buffer.length) : buffer.length;
+      int read = this.inputStream.read(buffer, 0, Math.min(length, room));
+      if (read != -1) {
+        this.consume(buffer, read);
+        return true;
+      }
+      this.inputStream.close();
+      if (this.lineSplitter == null) {
+        this.completion.complete(this.chunkCount);
+      } else {
+        this.lineSplitter.finish();
+        this.completion.complete(this.lineSplitter.getLineCount());
+      }
+      return true;
+    }
+
+    /**
+     * Completes the stream exceptionally, as it is not going to be read any more. The bytes left
+     * in the pipe are not read.
+     */
+    void abandon() {
+      this.completion.completeExceptionally(
+          new IOException("Stream reactor thread interrupted. Stream abandoned."));
+    }
+
+    private void consume(byte[] buffer, int read) throws IOException {
+      if (this.lineSplitter == null) {
+        this.chunkConsumer.accept(buffer, 0, read);
+        this.chunkCount++;
+      } else {
+        this.lineSplitter.split(buffer, 0, read);
+      }
+    }
+  }
+}
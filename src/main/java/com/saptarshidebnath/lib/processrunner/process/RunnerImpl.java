@@ -26,18 +26,21 @@
 package com.saptarshidebnath.lib.processrunner.process;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.CaptureEngine;
 import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.output.LogHandler;
 import com.saptarshidebnath.lib.processrunner.output.Output;
 import com.saptarshidebnath.lib.processrunner.output.OutputFactory;
+import com.saptarshidebnath.lib.processrunner.output.RedirectedLog;
 import com.saptarshidebnath.lib.processrunner.utilities.Threadify;
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,7 +48,6 @@ import org.slf4j.LoggerFactory;
 class RunnerImpl implements Runner {
   private Logger logger = LoggerFactory.getLogger(Runner.class);
   private final Configuration configuration;
-  private final Runtime runTime;
   private final String configurationAsString;
 
   /**
@@ -56,7 +58,6 @@ class RunnerImpl implements Runner {
   RunnerImpl(final Configuration configuration) {
     this.configurationAsString = configuration.toString();
     this.configuration = configuration;
-    this.runTime = Runtime.getRuntime();
     logger.info("Process Runner created");
     logger.debug("With configuration : {}", this.configurationAsString);
   }
@@ -76,27 +77,33 @@ class RunnerImpl implements Runner {
         .append(ProcessRunnerConstants.SPACE_CHAR)
         .append(this.configuration.getCommand());
     logger.debug("Executing command : {}", commandToExecute);
+    //
+    // Split the command the same way as Runtime#exec(String) does.
+    //
+    List<String> commandTokens = new ArrayList<>();
+    StringTokenizer commandTokenizer = new StringTokenizer(commandToExecute.toString());
+    while (commandTokenizer.hasMoreTokens()) {
+      commandTokens.add(commandTokenizer.nextToken());
+    }
+    ProcessBuilder processBuilder =
+        new ProcessBuilder(commandTokens)
+            .redirectErrorStream(this.configuration.isEnableStreamMerging());
     Path currentWorkingDir = this.configuration.getWorkingDir();
-    File currentWorkingDirFile = null;
     if (null != currentWorkingDir) {
-      currentWorkingDirFile = currentWorkingDir.toFile();
+      processBuilder.directory(currentWorkingDir.toFile());
+    }
+    RedirectedLog redirectedLog = null;
+    if (this.configuration.getCaptureEngine() == CaptureEngine.REDIRECT) {
+      redirectedLog = RedirectedLog.redirect(processBuilder, this.configuration);
     }
-    String[] environmentVariable =
-        System.getenv()
-            .entrySet()
-            .stream()
-            .map(setElement -> setElement.getKey() + "=" + setElement.getValue())
-            .collect(Collectors.toList())
-            .toArray(new String[] {});
-    final Process currentProcess =
-        this.runTime.exec(commandToExecute.toString(), environmentVariable, currentWorkingDirFile);
-    LogHandler logHandler = new LogHandler(currentProcess, configuration).start();
+    final Process currentProcess = processBuilder.start();
+    LogHandler logHandler = new LogHandler(currentProcess, configuration, redirectedLog).start();
     logger.trace("Waiting for Log handlers to complete writing / handling logs.");
     logHandler.waitForShutdown();
     logger.info("Waiting for the process to terminate");
     currentProcess.waitFor();
     final Integer processExitValue = currentProcess.exitValue();
-    output = new OutputFactory().createOutput(this.configuration, processExitValue);
+    output = new OutputFactory().createOutput(this.configuration, processExitValue, logHandler);
     logger.trace("Process exited with exit value : {}", processExitValue);
     return output;
   }
@@ -115,6 +122,6 @@ class RunnerImpl implements Runner {
 
   @Override
   public String toString() {
-    return "RunnerImpl{" + "configuration=" + configuration + ", runTime=" + runTime + '}';
+    return "RunnerImpl{" + "configuration=" + configuration + '}';
   }
 }
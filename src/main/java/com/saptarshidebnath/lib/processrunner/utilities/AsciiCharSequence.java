@@ -0,0 +1,61 @@
+package com.saptarshidebnath.lib.processrunner.utilities;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link CharSequence} over 7 bit ASCII bytes, read in place. Lets the output text of a master
+ * log record be matched against a {@link java.util.regex.Pattern} straight out of the read buffer,
+ * without creating a {@link String} for it. The bytes are not checked, see {@link
+ * ByteScanner#isAscii(java.nio.ByteBuffer, int, int)}.
+ *
+ * <p>Meant to be reused record after record, so it is only valid as long as the bytes it wraps are
+ * left untouched. Not thread safe.
+ */
+public final class AsciiCharSequence implements CharSequence {
+
+  private byte[] bytes = new byte[0];
+  private int offset;
+  private int length;
+
+  /**
+   * Points the sequence at other bytes.
+   *
+   * @param bytes the byte array holding the ASCII bytes.
+   * @param from index of the first byte.
+   * @param to index after the last byte.
+   * @return this {@link AsciiCharSequence}.
+   */
+  public AsciiCharSequence wrap(byte[] bytes, int from, int to) {
+    this.bytes = bytes;
+    this.offset = from;
+    this.length = to - from;
+    return this;
+  }
+
+  @Override
+  public int length() {
+    return this.length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException("Index : " + index + ", length : " + this.length);
+    }
+    return (char) this.bytes[this.offset + index];
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    if (start < 0 || end > this.length || start > end) {
+      throw new IndexOutOfBoundsException(
+          "Start : " + start + ", end : " + end + ", length : " + this.length);
+    }
+    return new String(this.bytes, this.offset + start, end - start, StandardCharsets.US_ASCII);
+  }
+
+  @Override
+  public String toString() {
+    return new String(this.bytes, this.offset, this.length, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,224 @@
+package com.saptarshidebnath.lib.processrunner.utilities;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Scans bytes eight at a time, SIMD within a register. Used to find line separators, json string
+ * boundaries and literals in the process output and in the master log file.
+ *
+ * <p>Each method takes a {@link ByteBuffer} of {@link ByteOrder#LITTLE_ENDIAN} order, see {@link
+ * ByteScanner#wrap(byte[])}, and absolute indices into it. The position and the limit of the
+ * {@link ByteBuffer} are ignored and left untouched. The search methods return the index of the
+ * first match, or -1 if there is none.
+ */
+public final class ByteScanner {
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final long LINE_FEEDS = ONES * '\n';
+  private static final long CARRIAGE_RETURNS = ONES * '\r';
+  private static final long QUOTES = ONES * '"';
+  private static final long BACKSLASHES = ONES * '\\';
+
+  private ByteScanner() {}
+
+  /**
+   * Wraps a byte array for scanning.
+   *
+   * @param bytes the bytes to be scanned.
+   * @return a {@link ByteBuffer} of {@link ByteOrder#LITTLE_ENDIAN} order over the array.
+   */
+  public static ByteBuffer wrap(byte[] bytes) {
+    return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Finds a byte.
+   *
+   * @param buffer the {@link ByteBuffer} to scan.
+   * @param from index of the first byte to scan.
+   * @param to index after the last byte to scan.
+   * @param value the byte to find.
+   * @return the index of the byte or -1.
+   */
+  public static int indexOf(ByteBuffer buffer, int from, int to, byte value) {
+    long pattern = ONES * (value & 0xFF);
+    int index = from;
+    for (; index + Long.BYTES <= to; index += Long.BYTES) {
+      long matches = matches(buffer.getLong(index), pattern);
+      if (matches != 0) {
+        return index + firstMatch(matches);
+      }
+    }
+    for (; index < to; index++) {
+      if (buffer.get(index) == value) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the next line feed or carriage return.
+   *
+   * @param buffer the {@link ByteBuffer} to scan.
+   * @param from index of the first byte to scan.
+   * @param to index after the last byte to scan.
+   * @return the index of the line separator or -1.
+   */
+  public static int indexOfLineSeparator(ByteBuffer buffer, int from, int to) {
+    int index = from;
+    for (; index + Long.BYTES <= to; index += Long.BYTES) {
+      long word = buffer.getLong(index);
+      long matches = matches(word, LINE_FEEDS) | matches(word, CARRIAGE_RETURNS);
+      if (matches != 0) {
+        return index + firstMatch(matches);
+      }
+    }
+    for (; index < to; index++) {
+      byte current = buffer.get(index);
+      if (current == '\n' || current == '\r') {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the next double quote or backslash, i.e. the end of a json string or the start of an
+   * escape sequence inside it.
+   *
+   * @param buffer the {@link ByteBuffer} to scan.
+   * @param from index of the first byte to scan.
+   * @param to index after the last byte to scan.
+   * @return the index of the double quote or backslash or -1.
+   */
+  public static int indexOfQuoteOrBackslash(ByteBuffer buffer, int from, int to) {
+    int index = from;
+    for (; index + Long.BYTES <= to; index += Long.BYTES) {
+      long word = buffer.getLong(index);
+      long matches = matches(word, QUOTES) | matches(word, BACKSLASHES);
+      if (matches != 0) {
+        return index + firstMatch(matches);
+      }
+    }
+    for (; index < to; index++) {
+      byte current = buffer.get(index);
+      if (current == '"' || current == '\\') {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds a sequence of bytes.
+   *
+   * @param buffer the {@link ByteBuffer} to scan.
+   * @param from index of the first byte to scan.
+   * @param to index after the last byte to scan.
+   * @param literal the non empty sequence of bytes to find.
+   * @return the index of the first byte of the sequence or -1.
+   */
+  public static int indexOf(ByteBuffer buffer, int from, int to, byte[] literal) {
+    int last = to - literal.length;
+    int index = from;
+    while (index <= last) {
+      index = indexOf(buffer, index, last + 1, literal[0]);
+      if (index == -1) {
+        return -1;
+      }
+      if (startsWith(buffer, index, literal)) {
+        return index;
+      }
+      index++;
+    }
+    return -1;
+  }
+
+  /**
+   * Tells if all the bytes are 7 bit ASCII.
+   *
+   * @param buffer the {@link ByteBuffer} to scan.
+   * @param from index of the first byte to scan.
+   * @param to index after the last byte to scan.
+   * @return {@link Boolean#TRUE} if no byte has its high bit set.
+   */
+  public static boolean isAscii(ByteBuffer buffer, int from, int to) {
+    int index = from;
+    for (; index + Long.BYTES <= to; index += Long.BYTES) {
+      if ((buffer.getLong(index) & HIGH_BITS) != 0) {
+        return false;
+      }
+    }
+    for (; index < to; index++) {
+      if (buffer.get(index) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Turns bytes of an array backed {@link ByteBuffer} into a {@link String}. ASCII only bytes are
+   * copied as they are, without going through the {@link java.nio.charset.CharsetDecoder}, which
+   * is only correct for an ASCII compatible {@link Charset}.
+   *
+   * @param buffer the {@link ByteBuffer} holding the bytes.
+   * @param from index of the first byte.
+   * @param to index after the last byte.
+   * @param charset an ASCII compatible {@link Charset}, see {@link
+   *     ByteScanner#isAsciiCompatible(Charset)}.
+   * @return the decoded {@link String}.
+   */
+  @SuppressWarnings("deprecation")
+  public static String decode(ByteBuffer buffer, int from, int to, Charset charset) {
+    byte[] bytes = buffer.array();
+    int offset = buffer.arrayOffset();
+    if (isAscii(buffer, from, to)) {
+      return new String(bytes, 0, offset + from, to - from);
+    }
+    return new String(bytes, offset + from, to - from, charset);
+  }
+
+  /**
+   * Tells if a {@link Charset} encodes every ASCII character as the same single byte. Byte level
+   * scanning for ASCII separators only works for such charsets.
+   *
+   * @param charset the {@link Charset} to check.
+   * @return {@link Boolean#TRUE} if the {@link Charset} is ASCII compatible.
+   */
+  public static boolean isAsciiCompatible(Charset charset) {
+    byte[] ascii = new byte[128];
+    for (int index = 0; index < ascii.length; index++) {
+      ascii[index] = (byte) index;
+    }
+    return charset.canEncode()
+        && Arrays.equals(new String(ascii, 0, ascii.length, charset).getBytes(charset), ascii);
+  }
+
+  private static boolean startsWith(ByteBuffer buffer, int index, byte[] literal) {
+    for (int offset = 1; offset < literal.length; offset++) {
+      if (buffer.get(index + offset) != literal[offset]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets the high bit of every byte of the word equal to the matching byte of the pattern. Bytes
+   * above the first match may be flagged wrongly, the lowest flagged byte is always right.
+   */
+  private static long matches(long word, long pattern) {
+    long difference = word ^ pattern;
+    return (difference - ONES) & ~difference & HIGH_BITS;
+  }
+
+  private static int firstMatch(long matches) {
+    return Long.numberOfTrailingZeros(matches) >>> 3;
+  }
+}
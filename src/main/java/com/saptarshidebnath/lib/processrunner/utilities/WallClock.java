@@ -0,0 +1,71 @@
+package com.saptarshidebnath.lib.processrunner.utilities;
+
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A wall clock of nanosecond resolution which costs a {@link System#nanoTime()} per reading.
+ *
+ * <p>The time is the {@link System#currentTimeMillis()} read at an anchor plus the {@link
+ * System#nanoTime()} elapsed since. The anchor is checked against {@link
+ * System#currentTimeMillis()} at most once per {@link
+ * ProcessRunnerConstants#WALL_CLOCK_RESYNC_NANOS}, and moved only if the two have drifted apart by
+ * more than {@link ProcessRunnerConstants#WALL_CLOCK_MAX_DRIFT_NANOS}, e.g. after the system clock
+ * was set. So the readings never go backwards but for such a correction, and are as precise as the
+ * millisecond clock they are anchored to. Shared by all the runs of the JVM, so their records can
+ * be correlated, with each other and with the records of other JVM. Thread safe.
+ */
+public final class WallClock {
+
+  private static volatile Anchor anchor = new Anchor(System.nanoTime(), epochNanos());
+
+  /** Private constructor */
+  private WallClock() {}
+
+  /**
+   * Returns the current time.
+   *
+   * @return the nanoseconds since the epoch, 1970-01-01T00:00:00Z.
+   */
+  public static long now() {
+    long nanoTime = System.nanoTime();
+    Anchor current = anchor;
+    if (nanoTime - current.nanoTime >= ProcessRunnerConstants.WALL_CLOCK_RESYNC_NANOS) {
+      current = resync(current, nanoTime);
+    }
+    return current.epochNanos + (nanoTime - current.nanoTime);
+  }
+
+  private static Anchor resync(Anchor current, long nanoTime) {
+    long estimated = current.epochNanos + (nanoTime - current.nanoTime);
+    long actual = epochNanos();
+    //
+    // The millisecond clock lags the estimate by up to a millisecond, so only a larger gap, or a
+    // lead, is a drift.
+    //
+    long drift = estimated - actual;
+    Anchor resynced =
+        new Anchor(
+            nanoTime,
+            drift < 0L || drift > ProcessRunnerConstants.WALL_CLOCK_MAX_DRIFT_NANOS
+                ? actual
+                : estimated);
+    anchor = resynced;
+    return resynced;
+  }
+
+  private static long epochNanos() {
+    return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+  }
+
+  /** A {@link System#nanoTime()} and the wall clock time it stands for. */
+  private static class Anchor {
+    private final long nanoTime;
+    private final long epochNanos;
+
+    Anchor(long nanoTime, long epochNanos) {
+      this.nanoTime = nanoTime;
+      this.epochNanos = epochNanos;
+    }
+  }
+}
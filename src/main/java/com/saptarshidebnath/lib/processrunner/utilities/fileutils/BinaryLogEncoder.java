@@ -0,0 +1,282 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes {@link OutputRecord} to a master log file in the {@link MasterLogFormat#BINARY} format.
+ *
+ * <p>The file starts with {@link BinaryLogEncoder#MAGIC} and a version byte, {@link
+ * BinaryLogEncoder#VERSION} plus the features the file is written with, as bits. It is followed by
+ * the records. Each record is
+ *
+ * <ul>
+ *   <li>the difference of its timestamp to the one of the record before, or to zero for the first
+ *       record, zigzag encoded as a variable length integer of seven bits per byte.
+ *   <li>with {@link BinaryLogEncoder#SEQUENCE_FEATURE}, always written now, the difference of its
+ *       sequence number to the one of the record before plus one, zigzag encoded as well, so a
+ *       record numbered right after the one before takes a single zero byte.
+ *   <li>a single byte for the {@link OutputSourceType}, the index into {@link
+ *       BinaryLogEncoder#SOURCE_TYPES}, with {@link BinaryLogEncoder#CONTINUED_FLAG} set for a part
+ *       split off a long line, see {@link RecordReader#isContinued()}.
+ *   <li>the length of the output text in bytes plus one, as a variable length integer, zero
+ *       standing for a null text.
+ *   <li>the output text in UTF-8. A lone surrogate is written as a question mark, the same as
+ *       {@link String#getBytes(java.nio.charset.Charset)} does.
+ * </ul>
+ *
+ * <p>With the line dictionary enabled, {@link BinaryLogEncoder#DICTIONARY_FEATURE}, a recurring
+ * text is written as a reference to an earlier record. The texts are hashed into a table of {@link
+ * ProcessRunnerConstants#LINE_DICTIONARY_ENTRIES} slots. A text whose hash was seen in its slot
+ * before is written with {@link BinaryLogEncoder#STORE_FLAG} set in the source type byte, and the
+ * slot as a variable length integer before its length, and is kept in the slot. A text found kept
+ * in its slot is written with {@link BinaryLogEncoder#REFERENCE_FLAG} set and the slot alone, no
+ * length and no text. So a line is written in full twice, then in a few bytes for as long as it
+ * keeps its slot. Only texts of {@link ProcessRunnerConstants#LINE_DICTIONARY_MIN_TEXT_LENGTH} to
+ * {@link ProcessRunnerConstants#LINE_DICTIONARY_MAX_TEXT_LENGTH} chars are looked up, as shorter
+ * ones gain little and longer ones are seldom repeated.
+ *
+ * <p>The text is encoded straight into a reusable byte buffer, so no object is created per record
+ * other than the texts kept in the dictionary. Not thread safe.
+ */
+public class BinaryLogEncoder implements RecordEncoder {
+
+  /** The bytes a {@link MasterLogFormat#BINARY} master log file starts with, "PRLB". */
+  static final byte[] MAGIC = {'P', 'R', 'L', 'B'};
+
+  /** The version byte of a file written without any feature. */
+  static final int VERSION = 1;
+
+  /** The feature bit of a file written with the line dictionary. */
+  static final int DICTIONARY_FEATURE = 1;
+
+  /** The feature bit of a file whose records carry a sequence number. */
+  static final int SEQUENCE_FEATURE = 2;
+
+  /** The bytes a file starts with before its records: the magic and the version byte. */
+  static final int FILE_HEADER_SIZE = MAGIC.length + 1;
+
+  /** Set in the source type byte of a record continued by the next record of its stream. */
+  static final int CONTINUED_FLAG = 0x10;
+
+  /** Set in the source type byte of a record whose text is an entry of the dictionary. */
+  static final int REFERENCE_FLAG = 0x20;
+
+  /** Set in the source type byte of a record whose text is to be kept in the dictionary. */
+  static final int STORE_FLAG = 0x40;
+
+  /** The {@link OutputSourceType} by the byte it is written as. Never to be reordered. */
+  static final OutputSourceType[] SOURCE_TYPES = {
+    null,
+    OutputSourceType.SYSOUT,
+    OutputSourceType.SYSERR,
+    OutputSourceType.ALL,
+    OutputSourceType.MERGED
+  };
+
+  /** The most bytes a record takes before its text: four variable length integers and a byte. */
+  static final int MAX_RECORD_HEADER_SIZE = 10 + 10 + 1 + 5 + 5;
+
+  private static final int MAX_BYTES_PER_CHAR = 3;
+  private final WritableByteChannel channel;
+  private final ByteBuffer byteBuffer;
+  private final byte[] bytes;
+  private final int[] seenHashes;
+  private final String[] entries;
+  private int position;
+  private long previousTimeStamp;
+  private long previousSequence;
+
+  /**
+   * Creates a {@link BinaryLogEncoder}. The {@link BinaryLogEncoder#MAGIC} is written along with
+   * the first flush.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file.
+   * @param bufferSize the size of the byte buffer, i.e. of the largest write to the channel.
+   */
+  public BinaryLogEncoder(WritableByteChannel channel, int bufferSize) {
+    this(channel, bufferSize, Boolean.FALSE);
+  }
+
+  /**
+   * Creates a {@link BinaryLogEncoder}, optionally writing recurring texts as references. The
+   * {@link BinaryLogEncoder#MAGIC} and the version byte are written along with the first flush.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file.
+   * @param bufferSize the size of the byte buffer, i.e. of the largest write to the channel.
+   * @param dictionaryEnabled {@link Boolean#TRUE} to write recurring texts as references.
+   */
+  public BinaryLogEncoder(WritableByteChannel channel, int bufferSize, boolean dictionaryEnabled) {
+    this.channel = channel;
+    this.bytes = new byte[Math.max(bufferSize, MAX_RECORD_HEADER_SIZE + MAX_BYTES_PER_CHAR + 1)];
+    this.byteBuffer = ByteBuffer.wrap(this.bytes);
+    System.arraycopy(MAGIC, 0, this.bytes, 0, MAGIC.length);
+    this.bytes[MAGIC.length] =
+        (byte) (VERSION + SEQUENCE_FEATURE + (dictionaryEnabled ? DICTIONARY_FEATURE : 0));
+    this.position = FILE_HEADER_SIZE;
+    this.seenHashes =
+        dictionaryEnabled ? new int[ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES] : null;
+    this.entries =
+        dictionaryEnabled ? new String[ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES] : null;
+  }
+
+  @Override
+  public void write(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException {
+    int code = sourceTypeCode(outputSourceType) | (continued ? CONTINUED_FLAG : 0);
+    int slot = this.entries == null ? -1 : dictionarySlot(outputText);
+    if (slot >= 0 && outputText.equals(this.entries[slot])) {
+      this.writeHeader(sequence, timeStamp, code | REFERENCE_FLAG, slot);
+      return;
+    }
+    if (slot >= 0) {
+      int hash = outputText.hashCode();
+      if (this.seenHashes[slot] == hash) {
+        this.entries[slot] = outputText;
+        code |= STORE_FLAG;
+      } else {
+        this.seenHashes[slot] = hash;
+        slot = -1;
+      }
+    }
+    int textLength = outputText == null ? -1 : utf8Length(outputText);
+    if (this.bytes.length - this.position < MAX_RECORD_HEADER_SIZE + Math.max(textLength, 0)) {
+      this.flush();
+    }
+    this.writeHeader(sequence, timeStamp, code, slot);
+    this.writeVarLong(textLength + 1L);
+    if (textLength > 0) {
+      this.writeUtf8(outputText);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    this.byteBuffer.limit(this.position).position(0);
+    while (this.byteBuffer.hasRemaining()) {
+      this.channel.write(this.byteBuffer);
+    }
+    this.byteBuffer.clear();
+    this.position = 0;
+  }
+
+  /**
+   * Writes the timestamp, the sequence number, the source type byte and the dictionary slot if
+   * any. Flushes before if the header may not fit in the buffer.
+   */
+  private void writeHeader(long sequence, long timeStamp, int code, int slot) throws IOException {
+    if (this.bytes.length - this.position < MAX_RECORD_HEADER_SIZE) {
+      this.flush();
+    }
+    long delta = timeStamp - this.previousTimeStamp;
+    this.previousTimeStamp = timeStamp;
+    this.writeVarLong((delta << 1) ^ (delta >> 63));
+    long gap = sequence - this.previousSequence - 1;
+    this.previousSequence = sequence;
+    this.writeVarLong((gap << 1) ^ (gap >> 63));
+    this.bytes[this.position++] = (byte) code;
+    if (slot >= 0) {
+      this.writeVarLong(slot);
+    }
+  }
+
+  private void writeVarLong(long value) {
+    while ((value & ~0x7FL) != 0) {
+      this.bytes[this.position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    this.bytes[this.position++] = (byte) value;
+  }
+
+  /**
+   * Writes the text as UTF-8. Flushes on the way if the text does not fit in the buffer.
+   *
+   * @param text the text to be written.
+   * @throws IOException if the channel cannot be written to.
+   */
+  private void writeUtf8(String text) throws IOException {
+    int textLength = text.length();
+    for (int index = 0; index < textLength; index++) {
+      if (this.bytes.length - this.position < MAX_BYTES_PER_CHAR + 1) {
+        this.flush();
+      }
+      char current = text.charAt(index);
+      if (current < 0x80) {
+        this.bytes[this.position++] = (byte) current;
+      } else if (current < 0x800) {
+        this.bytes[this.position++] = (byte) (0xC0 | current >> 6);
+        this.bytes[this.position++] = (byte) (0x80 | current & 0x3F);
+      } else if (!Character.isSurrogate(current)) {
+        this.bytes[this.position++] = (byte) (0xE0 | current >> 12);
+        this.bytes[this.position++] = (byte) (0x80 | current >> 6 & 0x3F);
+        this.bytes[this.position++] = (byte) (0x80 | current & 0x3F);
+      } else if (Character.isHighSurrogate(current)
+          && index + 1 < textLength
+          && Character.isLowSurrogate(text.charAt(index + 1))) {
+        int codePoint = Character.toCodePoint(current, text.charAt(++index));
+        this.bytes[this.position++] = (byte) (0xF0 | codePoint >> 18);
+        this.bytes[this.position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        this.bytes[this.position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        this.bytes[this.position++] = (byte) (0x80 | codePoint & 0x3F);
+      } else {
+        this.bytes[this.position++] = '?';
+      }
+    }
+  }
+
+  /**
+   * Returns the slot of the dictionary a text hashes to.
+   *
+   * @param text the output text, may be null.
+   * @return the slot, or -1 if the text is not to be looked up.
+   */
+  private static int dictionarySlot(String text) {
+    if (text == null
+        || text.length() < ProcessRunnerConstants.LINE_DICTIONARY_MIN_TEXT_LENGTH
+        || text.length() > ProcessRunnerConstants.LINE_DICTIONARY_MAX_TEXT_LENGTH) {
+      return -1;
+    }
+    int hash = text.hashCode();
+    return (hash ^ hash >>> 16) & (ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES - 1);
+  }
+
+  private static int utf8Length(String text) {
+    int textLength = text.length();
+    int length = textLength;
+    for (int index = 0; index < textLength; index++) {
+      char current = text.charAt(index);
+      if (current < 0x80) {
+        continue;
+      } else if (current < 0x800) {
+        length++;
+      } else if (!Character.isSurrogate(current)) {
+        length += 2;
+      } else if (Character.isHighSurrogate(current)
+          && index + 1 < textLength
+          && Character.isLowSurrogate(text.charAt(index + 1))) {
+        length += 2;
+        index++;
+      }
+    }
+    return length;
+  }
+
+  static int sourceTypeCode(OutputSourceType outputSourceType) {
+    for (int code = 1; code < SOURCE_TYPES.length; code++) {
+      if (SOURCE_TYPES[code] == outputSourceType) {
+        return code;
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,294 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import com.saptarshidebnath.lib.processrunner.utilities.AsciiCharSequence;
+import com.saptarshidebnath.lib.processrunner.utilities.ByteScanner;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads the {@link OutputRecord} of a {@link MasterLogFormat#BINARY} master log file one by one,
+ * see {@link BinaryLogEncoder} for the layout. The file is read in large chunks and nothing but the
+ * output text is ever decoded, and only once it is asked for.
+ *
+ * <p>A file written with the line dictionary is read the same way, the references to earlier texts
+ * being expanded on the fly. The texts kept in the dictionary are decoded once however often they
+ * are referred to, see {@link BinaryLogReader#getTextReference()}.
+ */
+public class BinaryLogReader implements RecordReader {
+
+  private final InputStream inputStream;
+  private final AsciiCharSequence outputChars = new AsciiCharSequence();
+  private byte[] buffer;
+  private ByteBuffer scanBuffer;
+  private int start;
+  private int end;
+  private boolean endOfFile;
+  private boolean magicRead;
+  private long timeStamp;
+  private long sequence;
+  private OutputSourceType outputSourceType;
+  private String outputText;
+  private boolean continued;
+  private boolean textPending;
+  private int textStart;
+  private int textEnd;
+  private boolean sequenceEnabled;
+  private boolean dictionaryEnabled;
+  private byte[][] entries;
+  private String[] entryTexts;
+  private long[] entryIds;
+  private long storeCount;
+  private int textSlot;
+  private long textReference;
+
+  /**
+   * Opens a master log file for reading.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @throws IOException if the file cannot be opened.
+   */
+  public BinaryLogReader(File masterLogFile) throws IOException {
+    this(new FileInputStream(masterLogFile));
+  }
+
+  /**
+   * Reads master log records from an {@link InputStream}.
+   *
+   * @param inputStream the {@link InputStream} to read from. Closed along with the reader.
+   */
+  BinaryLogReader(InputStream inputStream) {
+    this.inputStream = inputStream;
+    this.buffer = new byte[ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE];
+    this.scanBuffer = ByteScanner.wrap(this.buffer);
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    if (!this.magicRead) {
+      this.readMagic();
+    }
+    if (!this.fillTo(BinaryLogEncoder.MAX_RECORD_HEADER_SIZE) && this.start == this.end) {
+      return false;
+    }
+    int index = this.start;
+    long zigzag = 0;
+    int shift = 0;
+    byte current;
+    do {
+      current = this.byteAt(index++);
+      zigzag |= (long) (current & 0x7F) << shift;
+      shift += 7;
+    } while (current < 0);
+    long sequenceZigzag = -1L;
+    if (this.sequenceEnabled) {
+      sequenceZigzag = 0;
+      shift = 0;
+      do {
+        current = this.byteAt(index++);
+        sequenceZigzag |= (long) (current & 0x7F) << shift;
+        shift += 7;
+      } while (current < 0);
+    }
+    int sourceTypeCode = this.byteAt(index++);
+    boolean continuedRecord = (sourceTypeCode & BinaryLogEncoder.CONTINUED_FLAG) != 0;
+    sourceTypeCode &= ~BinaryLogEncoder.CONTINUED_FLAG;
+    int flags =
+        this.dictionaryEnabled
+            ? sourceTypeCode & (BinaryLogEncoder.REFERENCE_FLAG | BinaryLogEncoder.STORE_FLAG)
+            : 0;
+    sourceTypeCode &= ~flags;
+    if (sourceTypeCode < 0 || sourceTypeCode >= BinaryLogEncoder.SOURCE_TYPES.length) {
+      throw new IOException("Corrupt master log file, unknown source type : " + sourceTypeCode);
+    }
+    int slot = -1;
+    if (flags != 0) {
+      slot = 0;
+      shift = 0;
+      do {
+        current = this.byteAt(index++);
+        slot |= (current & 0x7F) << shift;
+        shift += 7;
+      } while (current < 0 && shift < 35);
+      if (flags == (BinaryLogEncoder.REFERENCE_FLAG | BinaryLogEncoder.STORE_FLAG)
+          || slot < 0
+          || slot >= this.entries.length
+          || (flags == BinaryLogEncoder.REFERENCE_FLAG && this.entries[slot] == null)) {
+        throw new IOException("Corrupt master log file, bad dictionary reference : " + slot);
+      }
+    }
+    long textLength = 0;
+    if (flags != BinaryLogEncoder.REFERENCE_FLAG) {
+      shift = 0;
+      do {
+        current = this.byteAt(index++);
+        textLength |= (long) (current & 0x7F) << shift;
+        shift += 7;
+      } while (current < 0);
+    }
+    int headerLength = index - this.start;
+    int recordLength = headerLength + (int) Math.max(textLength - 1, 0);
+    if (!this.fillTo(recordLength)) {
+      throw new IOException("Corrupt master log file, the last record is cut short");
+    }
+    //
+    // Filling may have moved the record to the start of the buffer.
+    //
+    this.textStart = this.start + headerLength;
+    this.textEnd = this.start + recordLength;
+    this.timeStamp += (zigzag >>> 1) ^ -(zigzag & 1);
+    if (this.sequenceEnabled) {
+      this.sequence += ((sequenceZigzag >>> 1) ^ -(sequenceZigzag & 1)) + 1;
+    }
+    this.outputSourceType = BinaryLogEncoder.SOURCE_TYPES[sourceTypeCode];
+    this.continued = continuedRecord;
+    this.outputText = null;
+    this.textPending = textLength != 0;
+    this.start = this.textEnd;
+    if (flags == BinaryLogEncoder.STORE_FLAG) {
+      this.entries[slot] = Arrays.copyOfRange(this.buffer, this.textStart, this.textEnd);
+      this.entryTexts[slot] = null;
+      this.entryIds[slot] = this.storeCount++ * this.entries.length + slot;
+    }
+    this.textSlot = slot;
+    this.textReference = slot < 0 ? -1L : this.entryIds[slot];
+    return true;
+  }
+
+  @Override
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return this.timeStamp;
+  }
+
+  @Override
+  public OutputSourceType getOutputSourceType() {
+    return this.outputSourceType;
+  }
+
+  @Override
+  public String getOutputText() {
+    if (this.textSlot >= 0) {
+      if (this.entryTexts[this.textSlot] == null) {
+        this.entryTexts[this.textSlot] =
+            new String(this.entries[this.textSlot], ProcessRunnerConstants.UTF_8);
+      }
+      return this.entryTexts[this.textSlot];
+    }
+    if (this.textPending) {
+      this.outputText =
+          ByteScanner.decode(
+              this.scanBuffer, this.textStart, this.textEnd, ProcessRunnerConstants.UTF_8);
+      this.textPending = false;
+    }
+    return this.outputText;
+  }
+
+  @Override
+  public boolean isContinued() {
+    return this.continued;
+  }
+
+  @Override
+  public CharSequence getOutputChars() {
+    if (this.textSlot < 0
+        && this.textPending
+        && ByteScanner.isAscii(this.scanBuffer, this.textStart, this.textEnd)) {
+      return this.outputChars.wrap(this.buffer, this.textStart, this.textEnd);
+    }
+    return this.getOutputText();
+  }
+
+  /**
+   * Returns an id of the text of the current record, the same for all the records referring to the
+   * same entry of the line dictionary and never reused by this reader, or -1 for a text written in
+   * full alone. A scan can remember what it made of a text by its id and skip the records repeating
+   * it.
+   *
+   * @return the id of the text, or -1.
+   */
+  @Override
+  public long getTextReference() {
+    return this.textReference;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.inputStream.close();
+  }
+
+  private void readMagic() throws IOException {
+    this.magicRead = true;
+    this.fillTo(BinaryLogEncoder.FILE_HEADER_SIZE);
+    if (this.start == this.end) {
+      return;
+    }
+    int features =
+        this.end - this.start < BinaryLogEncoder.FILE_HEADER_SIZE
+            ? -1
+            : this.buffer[this.start + BinaryLogEncoder.MAGIC.length] - BinaryLogEncoder.VERSION;
+    byte[] magic =
+        Arrays.copyOfRange(this.buffer, this.start, this.start + BinaryLogEncoder.MAGIC.length);
+    if (!Arrays.equals(magic, BinaryLogEncoder.MAGIC)
+        || features < 0
+        || features > (BinaryLogEncoder.DICTIONARY_FEATURE | BinaryLogEncoder.SEQUENCE_FEATURE)) {
+      throw new IOException("Not a " + MasterLogFormat.BINARY + " master log file");
+    }
+    this.dictionaryEnabled = (features & BinaryLogEncoder.DICTIONARY_FEATURE) != 0;
+    this.sequenceEnabled = (features & BinaryLogEncoder.SEQUENCE_FEATURE) != 0;
+    if (this.dictionaryEnabled) {
+      this.entries = new byte[ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES][];
+      this.entryTexts = new String[ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES];
+      this.entryIds = new long[ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES];
+    }
+    this.start += BinaryLogEncoder.FILE_HEADER_SIZE;
+  }
+
+  private byte byteAt(int index) throws IOException {
+    if (index >= this.end) {
+      throw new IOException("Corrupt master log file, the last record is cut short");
+    }
+    return this.buffer[index];
+  }
+
+  /**
+   * Makes sure that a number of bytes past {@link BinaryLogReader#start} are in the buffer, moving
+   * the unread bytes to the start of the buffer and growing it as needed.
+   *
+   * @param length the number of bytes needed.
+   * @return {@link Boolean#FALSE} if the file ended before.
+   * @throws IOException on disk error.
+   */
+  private boolean fillTo(int length) throws IOException {
+    while (this.end - this.start < length && !this.endOfFile) {
+      int remaining = this.end - this.start;
+      if (length > this.buffer.length) {
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(length, this.buffer.length * 2));
+        this.scanBuffer = ByteScanner.wrap(this.buffer);
+      }
+      if (this.start > 0) {
+        System.arraycopy(this.buffer, this.start, this.buffer, 0, remaining);
+        this.start = 0;
+        this.end = remaining;
+      }
+      int read = this.inputStream.read(this.buffer, this.end, this.buffer.length - this.end);
+      if (read == -1) {
+        this.endOfFile = true;
+      } else {
+        this.end += read;
+      }
+    }
+    return this.end - this.start >= length;
+  }
+}
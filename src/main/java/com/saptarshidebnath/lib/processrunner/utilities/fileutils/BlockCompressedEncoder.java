@@ -0,0 +1,240 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the records of a master log file in independently compressed blocks, followed by a block
+ * index, see {@link BlockCompressedLog} for the layout.
+ *
+ * <p>The records are encoded in the {@link MasterLogFormat} into memory. A block is compressed and
+ * written out once it holds {@link ProcessRunnerConstants#MASTER_LOG_BLOCK_SIZE} bytes, or on
+ * {@link BlockCompressedEncoder#flush()}, so a master log writer committing often writes smaller
+ * blocks. The compression runs on the thread writing the records, i.e. the disk writer, never on
+ * the threads reading the process output. Not thread safe.
+ */
+public class BlockCompressedEncoder implements RecordEncoder {
+
+  private static final int RECORD_BUFFER_SIZE = 8 * 1024;
+  private final WritableByteChannel channel;
+  private final MasterLogFormat masterLogFormat;
+  private final Charset charset;
+  private final boolean dictionaryEnabled;
+  private final Deflater deflater;
+  private final MemoryChannel blockChannel;
+  private final MemoryChannel indexChannel;
+  private RecordEncoder blockEncoder;
+  private byte[] compressed;
+  private long offset;
+  private int blockCount;
+  private int blockRecordCount;
+  private long blockFirstTimeStamp;
+  private long uncompressedBytes;
+
+  /**
+   * Creates a {@link BlockCompressedEncoder}.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file, at its start.
+   * @param masterLogFormat the {@link MasterLogFormat} the records are written in.
+   * @param charset the {@link Charset} of the master log file.
+   */
+  public BlockCompressedEncoder(
+      WritableByteChannel channel, MasterLogFormat masterLogFormat, Charset charset) {
+    this(channel, masterLogFormat, charset, Boolean.FALSE);
+  }
+
+  /**
+   * Creates a {@link BlockCompressedEncoder}, optionally writing the recurring texts of a block as
+   * references, see {@link BinaryLogEncoder}. Every block starts with an empty line dictionary, so
+   * it can still be read on its own.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file, at its start.
+   * @param masterLogFormat the {@link MasterLogFormat} the records are written in.
+   * @param charset the {@link Charset} of the master log file.
+   * @param dictionaryEnabled {@link Boolean#TRUE} to write recurring texts as references.
+   */
+  public BlockCompressedEncoder(
+      WritableByteChannel channel,
+      MasterLogFormat masterLogFormat,
+      Charset charset,
+      boolean dictionaryEnabled) {
+    this.channel = channel;
+    this.masterLogFormat = masterLogFormat;
+    this.charset = charset;
+    this.dictionaryEnabled = dictionaryEnabled;
+    this.deflater = new Deflater(Deflater.BEST_SPEED);
+    this.blockChannel = new MemoryChannel(ProcessRunnerConstants.MASTER_LOG_BLOCK_SIZE);
+    this.indexChannel = new MemoryChannel(BlockCompressedLog.INDEX_ENTRY_SIZE * 64);
+    this.compressed = new byte[BlockCompressedLog.BLOCK_HEADER_SIZE + RECORD_BUFFER_SIZE];
+  }
+
+  @Override
+  public void write(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException {
+    if (this.blockEncoder == null) {
+      this.blockEncoder =
+          RecordEncoder.create(
+              this.blockChannel,
+              this.masterLogFormat,
+              this.charset,
+              RECORD_BUFFER_SIZE,
+              Boolean.FALSE,
+              this.dictionaryEnabled);
+      this.blockFirstTimeStamp = timeStamp;
+    }
+    this.blockEncoder.write(sequence, timeStamp, outputSourceType, outputText, continued);
+    this.blockRecordCount++;
+    if (this.blockChannel.size() >= ProcessRunnerConstants.MASTER_LOG_BLOCK_SIZE) {
+      this.writeBlock();
+    }
+  }
+
+  /**
+   * Compresses the records written so far into a block and writes it to the channel.
+   *
+   * @throws IOException if the channel cannot be written to.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (this.blockEncoder != null) {
+      this.writeBlock();
+    }
+  }
+
+  /**
+   * Writes the last block, the block index and the footer.
+   *
+   * @throws IOException if the channel cannot be written to.
+   */
+  @Override
+  public void finish() throws IOException {
+    try {
+      this.flush();
+      this.writeFileHeader();
+      long indexOffset = this.offset;
+      ByteBuffer footer = ByteBuffer.allocate(BlockCompressedLog.FOOTER_SIZE);
+      footer.putLong(indexOffset).putInt(this.blockCount).put(BlockCompressedLog.INDEX_MAGIC);
+      footer.flip();
+      this.write(this.indexChannel.toByteBuffer());
+      this.write(footer);
+    } finally {
+      this.deflater.end();
+    }
+  }
+
+  /**
+   * Returns the number of bytes the records took before compression.
+   *
+   * @return a {@link Long} count of the bytes.
+   */
+  public long getUncompressedBytes() {
+    return this.uncompressedBytes;
+  }
+
+  private void writeBlock() throws IOException {
+    this.blockEncoder.flush();
+    this.blockEncoder = null;
+    this.writeFileHeader();
+    ByteBuffer records = this.blockChannel.toByteBuffer();
+    int uncompressedLength = records.remaining();
+    this.deflater.reset();
+    this.deflater.setInput(records.array(), 0, uncompressedLength);
+    this.deflater.finish();
+    int compressedEnd = BlockCompressedLog.BLOCK_HEADER_SIZE;
+    while (!this.deflater.finished()) {
+      if (compressedEnd == this.compressed.length) {
+        this.compressed = Arrays.copyOf(this.compressed, this.compressed.length * 2);
+      }
+      compressedEnd +=
+          this.deflater.deflate(
+              this.compressed, compressedEnd, this.compressed.length - compressedEnd);
+    }
+    int compressedLength = compressedEnd - BlockCompressedLog.BLOCK_HEADER_SIZE;
+    ByteBuffer block = ByteBuffer.wrap(this.compressed, 0, compressedEnd);
+    block
+        .putInt(compressedLength)
+        .putInt(uncompressedLength)
+        .putInt(this.blockRecordCount)
+        .putLong(this.blockFirstTimeStamp);
+    block.position(0);
+    ByteBuffer indexEntry = ByteBuffer.allocate(BlockCompressedLog.INDEX_ENTRY_SIZE);
+    indexEntry.putLong(this.offset).put(this.compressed, 0, BlockCompressedLog.BLOCK_HEADER_SIZE);
+    indexEntry.flip();
+    this.indexChannel.write(indexEntry);
+    this.write(block);
+    this.blockCount++;
+    this.blockRecordCount = 0;
+    this.uncompressedBytes += uncompressedLength;
+    this.blockChannel.clear();
+  }
+
+  private void writeFileHeader() throws IOException {
+    if (this.offset > 0) {
+      return;
+    }
+    ByteBuffer header = ByteBuffer.allocate(BlockCompressedLog.FILE_HEADER_SIZE);
+    header.put(BlockCompressedLog.MAGIC);
+    header.put((byte) Arrays.asList(BlockCompressedLog.FORMATS).indexOf(this.masterLogFormat));
+    header.flip();
+    this.write(header);
+  }
+
+  private void write(ByteBuffer byteBuffer) throws IOException {
+    while (byteBuffer.hasRemaining()) {
+      this.offset += this.channel.write(byteBuffer);
+    }
+  }
+
+  /** A {@link WritableByteChannel} collecting the bytes in a growing array. */
+  private static class MemoryChannel implements WritableByteChannel {
+    private byte[] bytes;
+    private int size;
+
+    MemoryChannel(int initialCapacity) {
+      this.bytes = new byte[initialCapacity];
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+      int length = source.remaining();
+      if (this.size + length > this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, Math.max(this.size + length, this.bytes.length * 2));
+      }
+      source.get(this.bytes, this.size, length);
+      this.size += length;
+      return length;
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(this.bytes, 0, this.size);
+    }
+
+    void clear() {
+      this.size = 0;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
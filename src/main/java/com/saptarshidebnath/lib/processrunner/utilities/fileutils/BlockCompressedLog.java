@@ -0,0 +1,328 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A block compressed master log file, giving access to each of its blocks on its own.
+ *
+ * <p>The file starts with {@link BlockCompressedLog#MAGIC} and a byte for the {@link
+ * MasterLogFormat} of the records, followed by the blocks. Each block is
+ *
+ * <ul>
+ *   <li>a header of {@link BlockCompressedLog#BLOCK_HEADER_SIZE} bytes: the compressed length, the
+ *       uncompressed length and the record count of the block as integers, and the timestamp of
+ *       its first record as a long.
+ *   <li>the records of the block, written as a master log file of their own in the {@link
+ *       MasterLogFormat}, and compressed with {@link java.util.zip.Deflater}.
+ * </ul>
+ *
+ * <p>A complete file ends with the block index, holding the offset and the header of every block,
+ * and a footer of {@link BlockCompressedLog#FOOTER_SIZE} bytes: the offset of the index as a long,
+ * the number of blocks as an integer and {@link BlockCompressedLog#INDEX_MAGIC}. A file without
+ * the index, e.g. of a run which has not finished yet, is indexed by walking the block headers.
+ *
+ * <p>As the blocks do not depend on each other, they can be inflated in parallel, and a reader can
+ * start at any block, e.g. the one holding a timestamp, see {@link
+ * BlockCompressedLog#findBlock(long)}. Thread safe.
+ */
+public class BlockCompressedLog implements Closeable {
+
+  /** The bytes a block compressed master log file starts with, "PRLZ" version 1. */
+  static final byte[] MAGIC = {'P', 'R', 'L', 'Z', 1};
+
+  /** The bytes a complete block compressed master log file ends with. */
+  static final byte[] INDEX_MAGIC = {'P', 'R', 'L', 'X'};
+
+  /** The {@link MasterLogFormat} of the records by the byte it is written as. */
+  static final MasterLogFormat[] FORMATS = {MasterLogFormat.JSON, MasterLogFormat.BINARY};
+
+  static final int FILE_HEADER_SIZE = MAGIC.length + 1;
+  static final int BLOCK_HEADER_SIZE = Integer.BYTES * 3 + Long.BYTES;
+  static final int INDEX_ENTRY_SIZE = Long.BYTES + BLOCK_HEADER_SIZE;
+  static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES + INDEX_MAGIC.length;
+
+  private final FileChannel fileChannel;
+  private final MasterLogFormat masterLogFormat;
+  private final Charset charset;
+  private final long[] offsets;
+  private final int[] compressedLengths;
+  private final int[] uncompressedLengths;
+  private final int[] recordCounts;
+  private final long[] firstTimeStamps;
+
+  private BlockCompressedLog(FileChannel fileChannel, Charset charset) throws IOException {
+    this.fileChannel = fileChannel;
+    this.charset = charset;
+    ByteBuffer header = this.read(0L, FILE_HEADER_SIZE);
+    byte[] magic = new byte[MAGIC.length];
+    header.get(magic);
+    int formatCode = header.get();
+    if (!Arrays.equals(magic, MAGIC) || formatCode < 0 || formatCode >= FORMATS.length) {
+      throw new IOException("Not a block compressed master log file");
+    }
+    this.masterLogFormat = FORMATS[formatCode];
+    ByteBuffer index = this.readIndex();
+    int blockCount = index.remaining() / INDEX_ENTRY_SIZE;
+    this.offsets = new long[blockCount];
+    this.compressedLengths = new int[blockCount];
+    this.uncompressedLengths = new int[blockCount];
+    this.recordCounts = new int[blockCount];
+    this.firstTimeStamps = new long[blockCount];
+    for (int block = 0; block < blockCount; block++) {
+      this.offsets[block] = index.getLong();
+      this.compressedLengths[block] = index.getInt();
+      this.uncompressedLengths[block] = index.getInt();
+      this.recordCounts[block] = index.getInt();
+      this.firstTimeStamps[block] = index.getLong();
+    }
+  }
+
+  /**
+   * Opens a block compressed master log file.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @param charset the {@link Charset} the records were written with.
+   * @return a new {@link BlockCompressedLog}.
+   * @throws IOException if the file cannot be read or is not block compressed.
+   */
+  public static BlockCompressedLog open(File masterLogFile, Charset charset) throws IOException {
+    FileChannel fileChannel = new RandomAccessFile(masterLogFile, "r").getChannel();
+    try {
+      return new BlockCompressedLog(fileChannel, charset);
+    } catch (IOException | RuntimeException ex) {
+      fileChannel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Tells if a master log file is block compressed.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @return {@link Boolean#TRUE} if the file starts with {@link BlockCompressedLog#MAGIC}.
+   * @throws IOException if the file cannot be read.
+   */
+  public static boolean isBlockCompressed(File masterLogFile) throws IOException {
+    byte[] magic = new byte[MAGIC.length];
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(masterLogFile, "r")) {
+      if (randomAccessFile.length() < magic.length) {
+        return false;
+      }
+      randomAccessFile.readFully(magic);
+    }
+    return Arrays.equals(magic, MAGIC);
+  }
+
+  /**
+   * Returns the {@link MasterLogFormat} the records are written in.
+   *
+   * @return a reference of {@link MasterLogFormat}
+   */
+  public MasterLogFormat getMasterLogFormat() {
+    return this.masterLogFormat;
+  }
+
+  /**
+   * Returns the number of blocks.
+   *
+   * @return a {@link Integer} count of the blocks.
+   */
+  public int getBlockCount() {
+    return this.offsets.length;
+  }
+
+  /**
+   * Returns the number of records in a block.
+   *
+   * @param block the index of the block.
+   * @return a {@link Integer} count of the records.
+   */
+  public int getRecordCount(int block) {
+    return this.recordCounts[block];
+  }
+
+  /**
+   * Returns the timestamp of the first record of a block.
+   *
+   * @param block the index of the block.
+   * @return the timestamp as in {@link
+   *     com.saptarshidebnath.lib.processrunner.model.OutputRecord#getTimeStamp()}.
+   */
+  public long getFirstTimeStamp(int block) {
+    return this.firstTimeStamps[block];
+  }
+
+  /**
+   * Returns the number of bytes the records take once inflated, in the {@link MasterLogFormat}.
+   *
+   * @return a {@link Long} count of the bytes.
+   */
+  public long getUncompressedLength() {
+    long length = 0;
+    for (int uncompressedLength : this.uncompressedLengths) {
+      length += uncompressedLength;
+    }
+    return length;
+  }
+
+  /**
+   * Finds the block to start reading at for the records from a timestamp on, without inflating
+   * any block. Only meaningful if the timestamps grow from record to record, as they do for all
+   * the capture engines but {@link
+   * com.saptarshidebnath.lib.processrunner.constants.CaptureEngine#REDIRECT} without merged
+   * streams.
+   *
+   * @param timeStamp the timestamp to look for.
+   * @return the index of the last block starting at or before the timestamp, or zero.
+   */
+  public int findBlock(long timeStamp) {
+    int low = 0;
+    int high = this.firstTimeStamps.length - 1;
+    int found = 0;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (this.firstTimeStamps[middle] <= timeStamp) {
+        found = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Reads and inflates a single block.
+   *
+   * @param block the index of the block.
+   * @return a {@link RecordReader} over the records of the block.
+   * @throws IOException if the block cannot be read or is corrupt.
+   */
+  public RecordReader openBlock(int block) throws IOException {
+    return this.openReader(this.inflate(block));
+  }
+
+  /**
+   * Opens a {@link RecordReader} over all the records from a block on, inflating the blocks ahead
+   * of the reader in parallel.
+   *
+   * @param fromBlock the index of the first block to read.
+   * @return a new {@link RecordReader}, which closes this {@link BlockCompressedLog} when closed.
+   */
+  public RecordReader openReader(int fromBlock) {
+    return new BlockCompressedReader(this, fromBlock);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.fileChannel.close();
+  }
+
+  /**
+   * Reads and inflates the records of a block.
+   *
+   * @param block the index of the block.
+   * @return the records of the block as written in the {@link MasterLogFormat}.
+   * @throws IOException if the block cannot be read or is corrupt.
+   */
+  byte[] inflate(int block) throws IOException {
+    ByteBuffer compressed =
+        this.read(this.offsets[block] + BLOCK_HEADER_SIZE, this.compressedLengths[block]);
+    byte[] uncompressed = new byte[this.uncompressedLengths[block]];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed.array(), 0, compressed.limit());
+      int inflated = 0;
+      while (inflated < uncompressed.length && !inflater.finished()) {
+        int count = inflater.inflate(uncompressed, inflated, uncompressed.length - inflated);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        inflated += count;
+      }
+      if (inflated != uncompressed.length) {
+        throw new IOException("Corrupt master log file, block " + block + " is cut short");
+      }
+    } catch (DataFormatException ex) {
+      throw new IOException("Corrupt master log file, block " + block, ex);
+    } finally {
+      inflater.end();
+    }
+    return uncompressed;
+  }
+
+  /**
+   * Opens a {@link RecordReader} over the inflated records of a block.
+   *
+   * @param records the records as returned by {@link BlockCompressedLog#inflate(int)}.
+   * @return a new {@link RecordReader}.
+   */
+  RecordReader openReader(byte[] records) {
+    InputStream inputStream = new ByteArrayInputStream(records);
+    if (this.masterLogFormat == MasterLogFormat.BINARY) {
+      return new BinaryLogReader(inputStream);
+    }
+    return new MasterLogReader(inputStream, this.charset);
+  }
+
+  /**
+   * Reads the block index from the end of the file, or builds it out of the block headers if the
+   * file has no index.
+   */
+  private ByteBuffer readIndex() throws IOException {
+    long fileLength = this.fileChannel.size();
+    if (fileLength >= FILE_HEADER_SIZE + FOOTER_SIZE) {
+      ByteBuffer footer = this.read(fileLength - FOOTER_SIZE, FOOTER_SIZE);
+      long indexOffset = footer.getLong();
+      int blockCount = footer.getInt();
+      byte[] indexMagic = new byte[INDEX_MAGIC.length];
+      footer.get(indexMagic);
+      if (Arrays.equals(indexMagic, INDEX_MAGIC)
+          && indexOffset + (long) blockCount * INDEX_ENTRY_SIZE == fileLength - FOOTER_SIZE) {
+        return this.read(indexOffset, blockCount * INDEX_ENTRY_SIZE);
+      }
+    }
+    ByteBuffer index = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 64);
+    long offset = FILE_HEADER_SIZE;
+    while (offset + BLOCK_HEADER_SIZE <= fileLength) {
+      ByteBuffer blockHeader = this.read(offset, BLOCK_HEADER_SIZE);
+      int compressedLength = blockHeader.getInt(0);
+      if (compressedLength < 0 || offset + BLOCK_HEADER_SIZE + compressedLength > fileLength) {
+        break;
+      }
+      if (index.remaining() < INDEX_ENTRY_SIZE) {
+        ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2);
+        index.flip();
+        index = grown.put(index);
+      }
+      index.putLong(offset).put(blockHeader);
+      offset += BLOCK_HEADER_SIZE + compressedLength;
+    }
+    index.flip();
+    return index;
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (this.fileChannel.read(buffer, position + buffer.position()) == -1) {
+        throw new EOFException("Corrupt master log file, it is cut short");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+}
@@ -0,0 +1,113 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Reads the records of a {@link BlockCompressedLog} in order, while the next blocks are inflated
+ * in parallel on the common {@link java.util.concurrent.ForkJoinPool}. At most one block per
+ * processor is inflated ahead of the reader.
+ */
+class BlockCompressedReader implements RecordReader {
+
+  private static final int READ_AHEAD_BLOCKS = Runtime.getRuntime().availableProcessors();
+  private final BlockCompressedLog blockCompressedLog;
+  private final ArrayDeque<CompletableFuture<byte[]>> inflatedBlocks;
+  private int nextBlock;
+  private RecordReader blockReader;
+
+  /**
+   * Creates a {@link BlockCompressedReader}.
+   *
+   * @param blockCompressedLog the {@link BlockCompressedLog} to read. Closed along with the reader.
+   * @param fromBlock the index of the first block to read.
+   */
+  BlockCompressedReader(BlockCompressedLog blockCompressedLog, int fromBlock) {
+    this.blockCompressedLog = blockCompressedLog;
+    this.inflatedBlocks = new ArrayDeque<>(READ_AHEAD_BLOCKS);
+    this.nextBlock = fromBlock;
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    while (this.blockReader == null || !this.blockReader.next()) {
+      this.readAhead();
+      CompletableFuture<byte[]> inflatedBlock = this.inflatedBlocks.poll();
+      if (inflatedBlock == null) {
+        return false;
+      }
+      this.blockReader = this.blockCompressedLog.openReader(join(inflatedBlock));
+    }
+    return true;
+  }
+
+  @Override
+  public long getSequence() {
+    return this.blockReader.getSequence();
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return this.blockReader.getTimeStamp();
+  }
+
+  @Override
+  public OutputSourceType getOutputSourceType() {
+    return this.blockReader.getOutputSourceType();
+  }
+
+  @Override
+  public String getOutputText() {
+    return this.blockReader.getOutputText();
+  }
+
+  @Override
+  public boolean isContinued() {
+    return this.blockReader.isContinued();
+  }
+
+  @Override
+  public CharSequence getOutputChars() {
+    return this.blockReader.getOutputChars();
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (CompletableFuture<byte[]> inflatedBlock : this.inflatedBlocks) {
+      inflatedBlock.cancel(false);
+    }
+    this.inflatedBlocks.clear();
+    this.blockCompressedLog.close();
+  }
+
+  private void readAhead() {
+    while (this.inflatedBlocks.size() < READ_AHEAD_BLOCKS
+        && this.nextBlock < this.blockCompressedLog.getBlockCount()) {
+      int block = this.nextBlock++;
+      this.inflatedBlocks.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return this.blockCompressedLog.inflate(block);
+                } catch (IOException ex) {
+                  throw new UncheckedIOException(ex);
+                }
+              }));
+    }
+  }
+
+  private static byte[] join(CompletableFuture<byte[]> inflatedBlock) throws IOException {
+    try {
+      return inflatedBlock.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) ex.getCause()).getCause();
+      }
+      throw ex;
+    }
+  }
+}
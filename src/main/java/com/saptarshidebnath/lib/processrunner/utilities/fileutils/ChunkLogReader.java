@@ -0,0 +1,300 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Reads the chunks of a master log file written by {@link ChunkLogWriter} one by one, see there
+ * for the layout. The bytes of a chunk are handed out in place, as a view of the read buffer.
+ *
+ * <p>Usage :
+ *
+ * <pre>{@code
+ * try (ChunkLogReader chunkLogReader = new ChunkLogReader(masterLogFile)) {
+ *   while (chunkLogReader.next()) {
+ *     chunkLogReader.getOffset();
+ *     chunkLogReader.getBytes();
+ *   }
+ * }
+ * }</pre>
+ */
+public class ChunkLogReader implements Closeable {
+
+  private final InputStream inputStream;
+  private final long[] streamOffsets;
+  private byte[] buffer;
+  private int start;
+  private int end;
+  private boolean endOfFile;
+  private boolean magicRead;
+  private long sequence;
+  private long timeStamp;
+  private OutputSourceType outputSourceType;
+  private long offset;
+  private int chunkStart;
+  private int chunkLength;
+
+  /**
+   * Opens a master log file of chunks for reading.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @throws IOException if the file cannot be opened.
+   */
+  public ChunkLogReader(File masterLogFile) throws IOException {
+    this(new FileInputStream(masterLogFile));
+  }
+
+  /**
+   * Reads chunks from an {@link InputStream}.
+   *
+   * @param inputStream the {@link InputStream} to read from. Closed along with the reader.
+   */
+  ChunkLogReader(InputStream inputStream) {
+    this.inputStream = inputStream;
+    this.streamOffsets = new long[BinaryLogEncoder.SOURCE_TYPES.length];
+    this.buffer = new byte[ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE];
+  }
+
+  /**
+   * Opens the bytes of a stream captured in a master log file of chunks as a {@link
+   * ReadableByteChannel}. The {@link OutputSourceType#MERGED} chunks are part of {@link
+   * OutputSourceType#SYSOUT}, as that is where the process wrote them, and {@link
+   * OutputSourceType#ALL} reads all the chunks in the order they were captured.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @param outputSourceType the {@link OutputSourceType} of the stream to read.
+   * @return a {@link ReadableByteChannel}, to be closed.
+   * @throws IOException if the file cannot be opened.
+   */
+  public static ReadableByteChannel openChannel(
+      File masterLogFile, OutputSourceType outputSourceType) throws IOException {
+    return new StreamChannel(new ChunkLogReader(masterLogFile), outputSourceType);
+  }
+
+  /**
+   * Moves to the next chunk.
+   *
+   * @return {@link Boolean#FALSE} once all the chunks have been read.
+   * @throws IOException if the file cannot be read or is corrupt.
+   */
+  public boolean next() throws IOException {
+    if (!this.magicRead) {
+      this.readMagic();
+    }
+    this.start += this.chunkLength;
+    this.chunkLength = 0;
+    if (!this.fillTo(ChunkLogWriter.MAX_CHUNK_HEADER_SIZE) && this.start == this.end) {
+      return false;
+    }
+    int index = this.start;
+    long zigzag = 0;
+    int shift = 0;
+    byte current;
+    do {
+      current = this.byteAt(index++);
+      zigzag |= (long) (current & 0x7F) << shift;
+      shift += 7;
+    } while (current < 0);
+    int sourceTypeCode = this.byteAt(index++);
+    if (sourceTypeCode < 0 || sourceTypeCode >= BinaryLogEncoder.SOURCE_TYPES.length) {
+      throw new IOException("Corrupt master log file, unknown source type : " + sourceTypeCode);
+    }
+    int length = 0;
+    shift = 0;
+    do {
+      current = this.byteAt(index++);
+      length |= (current & 0x7F) << shift;
+      shift += 7;
+    } while (current < 0 && shift < 35);
+    if (length < 0) {
+      throw new IOException("Corrupt master log file, bad chunk length : " + length);
+    }
+    this.start = index;
+    if (!this.fillTo(length)) {
+      throw new IOException("Corrupt master log file, the last chunk is cut short");
+    }
+    this.sequence++;
+    this.timeStamp += (zigzag >>> 1) ^ -(zigzag & 1);
+    this.outputSourceType = BinaryLogEncoder.SOURCE_TYPES[sourceTypeCode];
+    this.offset = this.streamOffsets[sourceTypeCode];
+    this.streamOffsets[sourceTypeCode] += length;
+    this.chunkStart = this.start;
+    this.chunkLength = length;
+    return true;
+  }
+
+  /**
+   * Returns the number of the current chunk, counted from 1 in the order the chunks were captured.
+   *
+   * @return the sequence number of the chunk.
+   */
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  /**
+   * Returns the time the current chunk was read at.
+   *
+   * @return the nanoseconds since the epoch, as in {@link
+   *     com.saptarshidebnath.lib.processrunner.utilities.WallClock#now()}.
+   */
+  public long getTimeStamp() {
+    return this.timeStamp;
+  }
+
+  /**
+   * Returns the stream the current chunk was read from.
+   *
+   * @return the {@link OutputSourceType} of the chunk.
+   */
+  public OutputSourceType getOutputSourceType() {
+    return this.outputSourceType;
+  }
+
+  /**
+   * Returns the offset of the current chunk in its stream, i.e. the number of bytes the stream
+   * had written before it.
+   *
+   * @return the offset of the first byte of the chunk.
+   */
+  public long getOffset() {
+    return this.offset;
+  }
+
+  /**
+   * Returns the number of bytes of the current chunk.
+   *
+   * @return the length of the chunk.
+   */
+  public int getLength() {
+    return this.chunkLength;
+  }
+
+  /**
+   * Returns the bytes of the current chunk as a read only view of the read buffer, valid till
+   * {@link ChunkLogReader#next()} is called again.
+   *
+   * @return a {@link ByteBuffer} holding the bytes of the chunk.
+   */
+  public ByteBuffer getBytes() {
+    return ByteBuffer.wrap(this.buffer, this.chunkStart, this.chunkLength)
+        .slice()
+        .asReadOnlyBuffer();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.inputStream.close();
+  }
+
+  private void readMagic() throws IOException {
+    this.magicRead = true;
+    this.fillTo(ChunkLogWriter.FILE_HEADER_SIZE);
+    if (this.start == this.end) {
+      return;
+    }
+    if (this.end - this.start < ChunkLogWriter.FILE_HEADER_SIZE
+        || !Arrays.equals(
+            Arrays.copyOfRange(
+                this.buffer, this.start, this.start + ChunkLogWriter.MAGIC.length),
+            ChunkLogWriter.MAGIC)
+        || this.buffer[this.start + ChunkLogWriter.MAGIC.length] != ChunkLogWriter.VERSION) {
+      throw new IOException("Not a master log file of chunks");
+    }
+    this.start += ChunkLogWriter.FILE_HEADER_SIZE;
+  }
+
+  private byte byteAt(int index) throws IOException {
+    if (index >= this.end) {
+      throw new IOException("Corrupt master log file, the last chunk is cut short");
+    }
+    return this.buffer[index];
+  }
+
+  /**
+   * Makes sure that a number of bytes past {@link ChunkLogReader#start} are in the buffer, moving
+   * the unread bytes to the start of the buffer and growing it as needed.
+   *
+   * @param length the number of bytes needed.
+   * @return {@link Boolean#FALSE} if the file ended before.
+   * @throws IOException on disk error.
+   */
+  private boolean fillTo(int length) throws IOException {
+    while (this.end - this.start < length && !this.endOfFile) {
+      int remaining = this.end - this.start;
+      if (length > this.buffer.length) {
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(length, this.buffer.length * 2));
+      }
+      if (this.start > 0) {
+        System.arraycopy(this.buffer, this.start, this.buffer, 0, remaining);
+        this.start = 0;
+        this.end = remaining;
+      }
+      int read = this.inputStream.read(this.buffer, this.end, this.buffer.length - this.end);
+      if (read == -1) {
+        this.endOfFile = true;
+      } else {
+        this.end += read;
+      }
+    }
+    return this.end - this.start >= length;
+  }
+
+  /** The bytes of the chunks of one stream, one after the other. */
+  private static class StreamChannel implements ReadableByteChannel {
+    private final ChunkLogReader chunkLogReader;
+    private final OutputSourceType outputSourceType;
+    private ByteBuffer chunk;
+    private boolean open;
+
+    StreamChannel(ChunkLogReader chunkLogReader, OutputSourceType outputSourceType) {
+      this.chunkLogReader = chunkLogReader;
+      this.outputSourceType = outputSourceType;
+      this.open = true;
+    }
+
+    @Override
+    public int read(ByteBuffer target) throws IOException {
+      while (this.chunk == null || !this.chunk.hasRemaining()) {
+        if (!this.chunkLogReader.next()) {
+          return -1;
+        }
+        if (this.isPartOfStream(this.chunkLogReader.getOutputSourceType())) {
+          this.chunk = this.chunkLogReader.getBytes();
+        }
+      }
+      int count = Math.min(this.chunk.remaining(), target.remaining());
+      ByteBuffer slice = this.chunk.duplicate();
+      slice.limit(slice.position() + count);
+      target.put(slice);
+      this.chunk.position(this.chunk.position() + count);
+      return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return this.open;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.open = false;
+      this.chunkLogReader.close();
+    }
+
+    private boolean isPartOfStream(OutputSourceType chunkSourceType) {
+      return this.outputSourceType == OutputSourceType.ALL
+          || this.outputSourceType == chunkSourceType
+          || (this.outputSourceType == OutputSourceType.SYSOUT
+              && chunkSourceType == OutputSourceType.MERGED);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.DurabilityPolicy;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.utilities.WallClock;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.UnaryOperator;
+
+/**
+ * Writes the raw chunks of bytes read from the streams of a process to its master log file, see
+ * {@link Configuration#isEnableChunkCapture()}.
+ *
+ * <p>The file starts with the bytes of {@link ChunkLogWriter#MAGIC} and a version byte, {@link
+ * ChunkLogWriter#VERSION}. It is followed by the chunks. Each chunk is
+ *
+ * <ul>
+ *   <li>the difference of its timestamp, as in {@link WallClock#now()}, to the one of the chunk
+ *       before, or to zero for the first chunk, zigzag encoded as a variable length integer of
+ *       seven bits per byte.
+ *   <li>a single byte for the {@link OutputSourceType}, the same as in {@link BinaryLogEncoder}.
+ *   <li>the number of bytes of the chunk as a variable length integer.
+ *   <li>the bytes, as read from the stream.
+ * </ul>
+ *
+ * <p>The chunks are numbered from 1 in the order they are written, and the offset of a chunk is
+ * the number of bytes of its stream written before it, so neither takes any room. Chunks smaller
+ * than the free room of a buffer of {@link ProcessRunnerConstants#MASTER_LOG_WRITE_BUFFER_SIZE}
+ * bytes are gathered in it, larger ones are written straight from the read buffer of the stream.
+ * Thread safe, all the streams of a process write to the same file.
+ */
+public class ChunkLogWriter implements Closeable {
+
+  /** The bytes a master log file of chunks starts with, "PRLC". */
+  static final byte[] MAGIC = {'P', 'R', 'L', 'C'};
+
+  /** The version byte of the file. */
+  static final int VERSION = 1;
+
+  /** The bytes a file starts with before its chunks: the magic and the version byte. */
+  static final int FILE_HEADER_SIZE = MAGIC.length + 1;
+
+  /** The most bytes a chunk takes before its bytes: two variable length integers and a byte. */
+  static final int MAX_CHUNK_HEADER_SIZE = 10 + 1 + 5;
+
+  private final FileChannel fileChannel;
+  private final WritableByteChannel channel;
+  private final boolean syncOnClose;
+  private final ByteBuffer buffer;
+  private long previousTimeStamp;
+  private long chunkCount;
+  private long byteCount;
+
+  /**
+   * Creates or truncates the master log file for writing.
+   *
+   * @param configuration the {@link Configuration} holding the master log file and its {@link
+   *     DurabilityPolicy}.
+   * @param channelWrapper wraps the {@link WritableByteChannel} of the file, e.g. to measure the
+   *     writes.
+   * @throws IOException if the file cannot be opened.
+   */
+  public ChunkLogWriter(
+      Configuration configuration, UnaryOperator<WritableByteChannel> channelWrapper)
+      throws IOException {
+    this.fileChannel = new FileOutputStream(configuration.getMasterLogFile()).getChannel();
+    this.channel = channelWrapper.apply(this.fileChannel);
+    this.syncOnClose = configuration.getDurabilityPolicy() != DurabilityPolicy.NONE;
+    this.buffer = ByteBuffer.allocate(ProcessRunnerConstants.MASTER_LOG_WRITE_BUFFER_SIZE);
+    this.buffer.put(MAGIC).put((byte) VERSION);
+  }
+
+  /**
+   * Writes a chunk read from a stream, timestamped now.
+   *
+   * @param outputSourceType the {@link OutputSourceType} of the stream.
+   * @param bytes the array holding the chunk.
+   * @param offset the index of the first byte of the chunk in the array.
+   * @param length the number of bytes of the chunk.
+   * @throws IOException if the file cannot be written to.
+   */
+  public synchronized void write(
+      OutputSourceType outputSourceType, byte[] bytes, int offset, int length)
+      throws IOException {
+    if (this.buffer.remaining() < MAX_CHUNK_HEADER_SIZE) {
+      this.flush();
+    }
+    long timeStamp = WallClock.now();
+    long delta = timeStamp - this.previousTimeStamp;
+    this.previousTimeStamp = timeStamp;
+    this.writeVarLong((delta << 1) ^ (delta >> 63));
+    this.buffer.put((byte) BinaryLogEncoder.sourceTypeCode(outputSourceType));
+    this.writeVarLong(length);
+    if (length <= this.buffer.remaining()) {
+      this.buffer.put(bytes, offset, length);
+    } else {
+      this.flush();
+      writeFully(this.channel, ByteBuffer.wrap(bytes, offset, length));
+    }
+    this.chunkCount++;
+    this.byteCount += length;
+  }
+
+  /**
+   * Hands the gathered chunks over to the operating system.
+   *
+   * @throws IOException if the file cannot be written to.
+   */
+  public synchronized void flush() throws IOException {
+    this.buffer.flip();
+    writeFully(this.channel, this.buffer);
+    this.buffer.clear();
+  }
+
+  /**
+   * Returns the number of chunks written so far.
+   *
+   * @return a {@link Long} count of the chunks.
+   */
+  public synchronized long getChunkCount() {
+    return this.chunkCount;
+  }
+
+  /**
+   * Returns the number of bytes of all the streams written so far, not counting the headers.
+   *
+   * @return a {@link Long} count of the bytes.
+   */
+  public synchronized long getByteCount() {
+    return this.byteCount;
+  }
+
+  /**
+   * Writes the gathered chunks, syncs the file unless the {@link DurabilityPolicy} is {@link
+   * DurabilityPolicy#NONE}, and closes it.
+   *
+   * @throws IOException if the file cannot be written to, synced or closed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!this.fileChannel.isOpen()) {
+      return;
+    }
+    try {
+      this.flush();
+      if (this.syncOnClose) {
+        this.fileChannel.force(Boolean.TRUE);
+      }
+    } finally {
+      this.channel.close();
+    }
+  }
+
+  private void writeVarLong(long value) {
+    while ((value & ~0x7FL) != 0) {
+      this.buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    this.buffer.put((byte) value);
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer source)
+      throws IOException {
+    while (source.hasRemaining()) {
+      channel.write(source);
+    }
+  }
+}
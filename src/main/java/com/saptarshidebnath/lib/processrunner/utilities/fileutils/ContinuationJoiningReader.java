@@ -0,0 +1,119 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.LongLinePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import java.io.IOException;
+
+/**
+ * Joins the records split off a long line, see {@link LongLinePolicy#SPLIT}, back into one. A
+ * record flagged as {@link RecordReader#isContinued()} is held back and continued by the next
+ * record of the same stream, while the records of the other streams pass
+ * through. A joined record comes once its last part is read, with the sequence number and the
+ * timestamp of its first part. The parts left unfinished at the end of the records, e.g. because
+ * the last part was dropped, come last.
+ */
+class ContinuationJoiningReader implements RecordReader {
+
+  private final RecordReader recordReader;
+  private final StringBuilder[] pendingTexts;
+  private final long[] pendingSequences;
+  private final long[] pendingTimeStamps;
+  private boolean endOfRecords;
+  private int flushedStreams;
+  private long sequence;
+  private long timeStamp;
+  private OutputSourceType outputSourceType;
+  private String outputText;
+  private boolean joined;
+
+  /**
+   * Creates a {@link ContinuationJoiningReader}.
+   *
+   * @param recordReader the {@link RecordReader} to read the records from. Closed along with the
+   *     reader.
+   */
+  ContinuationJoiningReader(RecordReader recordReader) {
+    this.recordReader = recordReader;
+    this.pendingTexts = new StringBuilder[BinaryLogEncoder.SOURCE_TYPES.length];
+    this.pendingSequences = new long[BinaryLogEncoder.SOURCE_TYPES.length];
+    this.pendingTimeStamps = new long[BinaryLogEncoder.SOURCE_TYPES.length];
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    while (!this.endOfRecords && this.recordReader.next()) {
+      int stream = BinaryLogEncoder.sourceTypeCode(this.recordReader.getOutputSourceType());
+      boolean continued = this.recordReader.isContinued();
+      if (this.pendingTexts[stream] == null && !continued) {
+        this.joined = false;
+        return true;
+      }
+      String text = this.recordReader.getOutputText();
+      if (this.pendingTexts[stream] == null) {
+        this.pendingTexts[stream] = new StringBuilder();
+        this.pendingSequences[stream] = this.recordReader.getSequence();
+        this.pendingTimeStamps[stream] = this.recordReader.getTimeStamp();
+      }
+      if (text != null) {
+        this.pendingTexts[stream].append(text);
+      }
+      if (!continued) {
+        this.takePending(stream);
+        return true;
+      }
+    }
+    this.endOfRecords = true;
+    while (this.flushedStreams < this.pendingTexts.length) {
+      int stream = this.flushedStreams++;
+      if (this.pendingTexts[stream] != null) {
+        this.takePending(stream);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public long getSequence() {
+    return this.joined ? this.sequence : this.recordReader.getSequence();
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return this.joined ? this.timeStamp : this.recordReader.getTimeStamp();
+  }
+
+  @Override
+  public OutputSourceType getOutputSourceType() {
+    return this.joined ? this.outputSourceType : this.recordReader.getOutputSourceType();
+  }
+
+  @Override
+  public String getOutputText() {
+    return this.joined ? this.outputText : this.recordReader.getOutputText();
+  }
+
+  @Override
+  public CharSequence getOutputChars() {
+    return this.joined ? this.outputText : this.recordReader.getOutputChars();
+  }
+
+  @Override
+  public long getTextReference() {
+    return this.joined ? -1L : this.recordReader.getTextReference();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.recordReader.close();
+  }
+
+  private void takePending(int stream) {
+    this.joined = true;
+    this.sequence = this.pendingSequences[stream];
+    this.timeStamp = this.pendingTimeStamps[stream];
+    this.outputSourceType = BinaryLogEncoder.SOURCE_TYPES[stream];
+    this.outputText = this.pendingTexts[stream].toString();
+    this.pendingTexts[stream] = null;
+  }
+}
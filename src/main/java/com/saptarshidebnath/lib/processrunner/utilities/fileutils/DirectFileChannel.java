@@ -0,0 +1,225 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a file with O_DIRECT, bypassing the page cache, see {@link MasterLogIoMode#DIRECT}.
+ *
+ * <p>The bytes written are gathered in a buffer of {@link
+ * ProcessRunnerConstants#MASTER_LOG_DIRECT_BUFFER_SIZE} bytes, aligned to the block size of the
+ * file store, which is written out once full. {@link DirectFileChannel#flush()} writes the
+ * blocks gathered so far, the last one padded, and cuts the file to the bytes actually written;
+ * the padded block is written again once it fills up. The buffers are pooled across files, as
+ * aligned direct buffers are costly to allocate. Not thread safe.
+ *
+ * <p>O_DIRECT is only reachable from Java 10 on, through {@code
+ * com.sun.nio.file.ExtendedOpenOption#DIRECT}, which is looked up by reflection. Use {@link
+ * DirectFileChannel#open(File)}, which falls back to a plain {@link FileChannel} if the JVM or the
+ * file system does not support it.
+ */
+class DirectFileChannel implements WritableByteChannel {
+
+  private static final Logger logger = LoggerFactory.getLogger(DirectFileChannel.class);
+  private static final OpenOption DIRECT = directOption();
+  private static final Method GET_BLOCK_SIZE = method(FileStore.class, "getBlockSize");
+  private static final Method ALIGNED_SLICE = method(ByteBuffer.class, "alignedSlice", int.class);
+  private static final Map<Integer, Queue<ByteBuffer>> BUFFER_POOL = new ConcurrentHashMap<>();
+  private static final AtomicBoolean FALLBACK_LOGGED = new AtomicBoolean();
+  private final FileChannel fileChannel;
+  private final int alignment;
+  private final ByteBuffer buffer;
+  private long bufferPosition;
+  private int bufferWritten;
+
+  private DirectFileChannel(FileChannel fileChannel, int alignment) throws IOException {
+    this.fileChannel = fileChannel;
+    this.alignment = alignment;
+    this.buffer = acquireBuffer(alignment);
+  }
+
+  /**
+   * Creates or truncates a file for writing with O_DIRECT.
+   *
+   * @param file the {@link File} to be written.
+   * @return a {@link DirectFileChannel}, or a plain {@link FileChannel} if O_DIRECT is not
+   *     supported for the file.
+   * @throws IOException if the file cannot be opened.
+   */
+  static WritableByteChannel open(File file) throws IOException {
+    if (DIRECT == null || GET_BLOCK_SIZE == null || ALIGNED_SLICE == null) {
+      logFallback(file, "the JVM does not support O_DIRECT");
+      return new FileOutputStream(file).getChannel();
+    }
+    FileChannel fileChannel = new FileOutputStream(file).getChannel();
+    try {
+      long blockSize = (Long) GET_BLOCK_SIZE.invoke(Files.getFileStore(file.toPath()));
+      if (blockSize <= 0
+          || ProcessRunnerConstants.MASTER_LOG_DIRECT_BUFFER_SIZE % blockSize != 0) {
+        logFallback(file, "the block size is " + blockSize);
+        return fileChannel;
+      }
+      FileChannel directChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, DIRECT);
+      fileChannel.close();
+      return new DirectFileChannel(directChannel, (int) blockSize);
+    } catch (IOException | ReflectiveOperationException | RuntimeException ex) {
+      logFallback(file, ex.toString());
+      return fileChannel;
+    }
+  }
+
+  @Override
+  public int write(ByteBuffer source) throws IOException {
+    int written = source.remaining();
+    while (source.hasRemaining()) {
+      int count = Math.min(this.buffer.remaining(), source.remaining());
+      ByteBuffer chunk = source.duplicate();
+      chunk.limit(chunk.position() + count);
+      this.buffer.put(chunk);
+      source.position(source.position() + count);
+      if (!this.buffer.hasRemaining()) {
+        this.writeBuffer(this.buffer.capacity());
+        this.bufferPosition += this.buffer.capacity();
+        this.bufferWritten = 0;
+        this.buffer.clear();
+      }
+    }
+    return written;
+  }
+
+  /**
+   * Hands all the bytes written so far over to the file. The last block is padded to the block
+   * size and the file is cut back to its size.
+   *
+   * @throws IOException if the file cannot be written to.
+   */
+  void flush() throws IOException {
+    int gathered = this.buffer.position();
+    if (gathered == this.bufferWritten) {
+      return;
+    }
+    this.writeBuffer((gathered + this.alignment - 1) / this.alignment * this.alignment);
+    this.bufferWritten = gathered;
+    this.fileChannel.truncate(this.bufferPosition + gathered);
+  }
+
+  /**
+   * Syncs the file to the storage device, the buffered bytes included.
+   *
+   * @param metaData {@link Boolean#TRUE} to sync the file metadata as well.
+   * @throws IOException if the file cannot be synced.
+   */
+  void force(boolean metaData) throws IOException {
+    this.flush();
+    this.fileChannel.force(metaData);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return this.fileChannel.isOpen();
+  }
+
+  /**
+   * Writes the buffered bytes, cuts the file to its size and gives the buffer back to the pool.
+   *
+   * @throws IOException if the file cannot be written to or closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!this.fileChannel.isOpen()) {
+      return;
+    }
+    try {
+      this.flush();
+    } finally {
+      this.fileChannel.close();
+      releaseBuffer(this.buffer, this.alignment);
+    }
+  }
+
+  /**
+   * Writes the buffer from the block holding its first unwritten byte up to an aligned end.
+   *
+   * @param end the aligned index after the last byte to write.
+   */
+  private void writeBuffer(int end) throws IOException {
+    ByteBuffer blocks = this.buffer.duplicate();
+    blocks.limit(end).position(this.bufferWritten / this.alignment * this.alignment);
+    while (blocks.hasRemaining()) {
+      this.fileChannel.write(blocks, this.bufferPosition + blocks.position());
+    }
+  }
+
+  private static ByteBuffer acquireBuffer(int alignment) throws IOException {
+    ByteBuffer pooled = pool(alignment).poll();
+    if (pooled != null) {
+      pooled.clear();
+      return pooled;
+    }
+    int size = ProcessRunnerConstants.MASTER_LOG_DIRECT_BUFFER_SIZE;
+    try {
+      ByteBuffer aligned =
+          (ByteBuffer) ALIGNED_SLICE.invoke(ByteBuffer.allocateDirect(size + alignment), alignment);
+      aligned.limit(size);
+      return aligned.slice();
+    } catch (IllegalAccessException | InvocationTargetException ex) {
+      throw new IOException("Cannot allocate an aligned buffer", ex);
+    }
+  }
+
+  private static void releaseBuffer(ByteBuffer buffer, int alignment) {
+    Queue<ByteBuffer> pool = pool(alignment);
+    if (pool.size() < ProcessRunnerConstants.MASTER_LOG_DIRECT_BUFFER_POOL_SIZE) {
+      pool.offer(buffer);
+    }
+  }
+
+  private static Queue<ByteBuffer> pool(int alignment) {
+    return BUFFER_POOL.computeIfAbsent(alignment, key -> new ConcurrentLinkedQueue<>());
+  }
+
+  private static void logFallback(File file, String reason) {
+    if (FALLBACK_LOGGED.compareAndSet(false, true)) {
+      logger.warn("Writing {} through the page cache, as {}", file, reason);
+    } else {
+      logger.debug("Writing {} through the page cache, as {}", file, reason);
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static OpenOption directOption() {
+    try {
+      Class optionClass = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+      return (OpenOption) Enum.valueOf(optionClass, "DIRECT");
+    } catch (ClassNotFoundException | IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException ex) {
+      return null;
+    }
+  }
+}
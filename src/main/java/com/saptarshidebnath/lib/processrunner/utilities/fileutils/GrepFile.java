@@ -2,50 +2,144 @@ package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
 import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
-import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.CompactRecordList;
 import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
 import com.saptarshidebnath.lib.processrunner.process.Runner;
-import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class GrepFile {
 
   private static final Logger logger = LoggerFactory.getLogger(GrepFile.class);
+  private final boolean compactResults;
+
+  /** Creates a {@link GrepFile} returning the records found in a plain {@link List}. */
+  public GrepFile() {
+    this(false);
+  }
+
+  /**
+   * Creates a {@link GrepFile}.
+   *
+   * @param compactResults {@link Boolean#TRUE} to pack the records found into a {@link
+   *     CompactRecordList}, see {@link Configuration#isEnableCompactGrepResults()}.
+   */
+  public GrepFile(boolean compactResults) {
+    this.compactResults = compactResults;
+  }
 
   /**
    * Greps the masterlog file as defined in the {@link Configuration} for the regular expression.
    * The method looks into both i.e. {@link OutputSourceType#ALL}. Also the method presumes that the
-   * {@link Runner} have executed successfully.
+   * {@link Runner} have executed successfully. The segments of a segmented master log, see {@link
+   * SegmentedLog}, and the blocks of a block compressed one, see {@link BlockCompressedLog}, are
+   * searched in parallel.
    *
    * @param regex A valid regular expression regular expression using which the file needs to be
    *     searched for.
    * @param configuration A configuration object.
-   * @return a list of {@link OutputRecord}
+   * @return a list of {@link OutputRecord}.
    * @throws IOException on disk error.
    */
   public List<OutputRecord> grepFile(final String regex, Configuration configuration)
       throws IOException {
-    List<OutputRecord> grepedLines = new ArrayList<>();
     logger.trace("Searching for regular expression : {}", regex);
-    try (BufferedReader br =
-        new BufferedReader(
-            new InputStreamReader(
-                new FileInputStream(configuration.getMasterLogFile()),
-                configuration.getCharset()))) {
-      for (OutputRecord record;
-          (record = ProcessRunnerConstants.GSON.fromJson(br.readLine(), OutputRecord.class))
-              != null; ) {
-        if (record.getOutputText().matches(regex)) {
-          grepedLines.add(record);
-          logger.trace("Found {} to match the regex : {}", record.getOutputSourceType(), regex);
+    Pattern pattern = Pattern.compile(regex);
+    try {
+      return this.trimToSize(
+          SegmentedLog.getSegmentFiles(configuration)
+              .parallelStream()
+              .map(segmentFile -> this.grepSegment(segmentFile, configuration, pattern))
+              .collect(this::newRecordList, List::addAll, List::addAll));
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Greps the records of a {@link RecordReader} for the regular expression, the same as {@link
+   * GrepFile#grepFile(String, Configuration)}.
+   *
+   * @param regex A valid regular expression using which the records need to be searched for.
+   * @param recordReader the {@link RecordReader} to read the records from.
+   * @return a list of {@link OutputRecord}.
+   * @throws IOException if the records cannot be read.
+   */
+  public List<OutputRecord> grepRecords(final String regex, RecordReader recordReader)
+      throws IOException {
+    logger.trace("Searching for regular expression : {}", regex);
+    return this.trimToSize(this.grep(recordReader, Pattern.compile(regex)));
+  }
+
+  private List<OutputRecord> newRecordList() {
+    return this.compactResults ? new CompactRecordList() : new ArrayList<>();
+  }
+
+  private List<OutputRecord> trimToSize(List<OutputRecord> grepedLines) {
+    if (grepedLines instanceof CompactRecordList) {
+      ((CompactRecordList) grepedLines).trimToSize();
+    }
+    return grepedLines;
+  }
+
+  private List<OutputRecord> grepSegment(
+      File segmentFile, Configuration configuration, Pattern pattern) {
+    try {
+      if (BlockCompressedLog.isBlockCompressed(segmentFile)) {
+        try (BlockCompressedLog blockCompressedLog =
+            BlockCompressedLog.open(segmentFile, configuration.getCharset())) {
+          return IntStream.range(0, blockCompressedLog.getBlockCount())
+              .parallel()
+              .mapToObj(block -> this.grepBlock(blockCompressedLog, block, pattern))
+              .collect(this::newRecordList, List::addAll, List::addAll);
         }
       }
+      try (RecordReader recordReader =
+          RecordReader.open(
+              segmentFile,
+              configuration.getMasterLogFormat(),
+              configuration.getCharset(),
+              configuration.getMasterLogIoMode())) {
+        return this.grep(recordReader, pattern);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private List<OutputRecord> grepBlock(
+      BlockCompressedLog blockCompressedLog, int block, Pattern pattern) {
+    try (RecordReader recordReader = blockCompressedLog.openBlock(block)) {
+      return this.grep(recordReader, pattern);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private List<OutputRecord> grep(RecordReader recordReader, Pattern pattern)
+      throws IOException {
+    List<OutputRecord> grepedLines = this.newRecordList();
+    RecordMatcher recordMatcher = new RecordMatcher(pattern);
+    while (recordReader.next()) {
+      if (recordMatcher.matches(recordReader)) {
+        grepedLines.add(
+            new OutputRecord(
+                recordReader.getSequence(),
+                recordReader.getTimeStamp(),
+                recordReader.getOutputSourceType(),
+                recordReader.getOutputText()));
+        logger.trace(
+            "Found {} to match the regex : {}",
+            recordReader.getOutputSourceType(),
+            pattern.pattern());
+      }
     }
     return grepedLines;
   }
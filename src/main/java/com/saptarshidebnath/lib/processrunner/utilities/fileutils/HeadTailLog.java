@@ -0,0 +1,275 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps only the first and the last records of a run, see {@link
+ * Configuration#isEnableHeadTailRetention()}, and counts the ones in between.
+ *
+ * <p>The first {@link Configuration#getRetainedHeadRecords()} records are kept as they come. The
+ * records after them go round a ring of {@link Configuration#getRetainedTailRecords()} records,
+ * each one pushing out the oldest once the ring is full, so the memory taken is bounded by the
+ * number of records kept whatever the length of the run. The fields of the records are held in
+ * arrays, grown from {@link ProcessRunnerConstants#HEAD_TAIL_LOG_MIN_CAPACITY} records up to the
+ * number kept, rather than as an {@link OutputRecord} each.
+ *
+ * <p>Usage :-
+ *
+ * <pre>{@code
+ * HeadTailLog headTailLog = new HeadTailLog(100, 1000);
+ * headTailLog.write(sequence, timeStamp, outputSourceType, outputText);
+ * headTailLog.getHead();
+ * headTailLog.getTail();
+ * headTailLog.getSkippedRecordCount();
+ * }</pre>
+ *
+ * <p>Written by a single thread. Once written, it can be read by any number of readers at once.
+ */
+public class HeadTailLog implements RecordEncoder {
+
+  private final RecordWindow head;
+  private final RecordWindow tail;
+  private long recordCount;
+  private long skippedRecordCount;
+
+  /**
+   * Creates an empty {@link HeadTailLog}.
+   *
+   * @param headRecords the number of first records kept.
+   * @param tailRecords the number of last records kept.
+   */
+  public HeadTailLog(int headRecords, int tailRecords) {
+    this.head = new RecordWindow(headRecords);
+    this.tail = new RecordWindow(tailRecords);
+  }
+
+  @Override
+  public void write(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued) {
+    this.recordCount++;
+    if (!this.head.isFull()) {
+      this.head.add(sequence, timeStamp, outputSourceType, outputText, continued);
+    } else if (this.tail.add(sequence, timeStamp, outputSourceType, outputText, continued)) {
+      this.skippedRecordCount++;
+    }
+  }
+
+  @Override
+  public void flush() {
+    //
+    // Nothing is buffered, the records are kept as written.
+    //
+  }
+
+  /**
+   * Returns the number of records written, kept or not.
+   *
+   * @return a {@link Long} count of the records.
+   */
+  public long getRecordCount() {
+    return this.recordCount;
+  }
+
+  /**
+   * Returns the number of records written but not kept, i.e. the ones between the head and the
+   * tail.
+   *
+   * @return a {@link Long} count of the records.
+   */
+  public long getSkippedRecordCount() {
+    return this.skippedRecordCount;
+  }
+
+  /**
+   * Returns the first records written.
+   *
+   * @return an unmodifiable {@link List} of {@link OutputRecord}, in the order written.
+   */
+  public List<OutputRecord> getHead() {
+    return this.head.toList();
+  }
+
+  /**
+   * Returns the last records written, after the head.
+   *
+   * @return an unmodifiable {@link List} of {@link OutputRecord}, in the order written.
+   */
+  public List<OutputRecord> getTail() {
+    return this.tail.toList();
+  }
+
+  /**
+   * Opens a reader over the records kept, the head first and then the tail.
+   *
+   * @return a new {@link RecordReader}.
+   */
+  public RecordReader openReader() {
+    return new WindowReader();
+  }
+
+  /** Reads the head, then the tail. */
+  private class WindowReader implements RecordReader {
+    private final int headSize;
+    private final int size;
+    private RecordWindow window;
+    private int index;
+
+    WindowReader() {
+      this.headSize = HeadTailLog.this.head.size;
+      this.size = this.headSize + HeadTailLog.this.tail.size;
+      this.index = -1;
+    }
+
+    @Override
+    public boolean next() {
+      if (this.index + 1 >= this.size) {
+        this.index = this.size;
+        return false;
+      }
+      this.index++;
+      this.window = this.index < this.headSize ? HeadTailLog.this.head : HeadTailLog.this.tail;
+      return true;
+    }
+
+    @Override
+    public long getSequence() {
+      return this.window.sequences[this.slot()];
+    }
+
+    @Override
+    public long getTimeStamp() {
+      return this.window.timeStamps[this.slot()];
+    }
+
+    @Override
+    public OutputSourceType getOutputSourceType() {
+      return this.window.outputSourceTypes[this.slot()];
+    }
+
+    @Override
+    public String getOutputText() {
+      return this.window.outputTexts[this.slot()];
+    }
+
+    @Override
+    public boolean isContinued() {
+      return this.window.continued[this.slot()];
+    }
+
+    @Override
+    public void close() {
+      this.index = this.size;
+    }
+
+    private int slot() {
+      return this.window.slot(this.index < this.headSize ? this.index : this.index - this.headSize);
+    }
+  }
+
+  /**
+   * Up to a number of records, oldest first. A record added to a full window pushes out the
+   * oldest one.
+   */
+  private static class RecordWindow {
+    private final int capacity;
+    private long[] sequences;
+    private long[] timeStamps;
+    private OutputSourceType[] outputSourceTypes;
+    private String[] outputTexts;
+    private boolean[] continued;
+    private int start;
+    private int size;
+
+    RecordWindow(int capacity) {
+      this.capacity = capacity;
+      int initialCapacity = Math.min(capacity, ProcessRunnerConstants.HEAD_TAIL_LOG_MIN_CAPACITY);
+      this.sequences = new long[initialCapacity];
+      this.timeStamps = new long[initialCapacity];
+      this.outputSourceTypes = new OutputSourceType[initialCapacity];
+      this.outputTexts = new String[initialCapacity];
+      this.continued = new boolean[initialCapacity];
+    }
+
+    boolean isFull() {
+      return this.size == this.capacity;
+    }
+
+    /**
+     * Adds a record, pushing out the oldest one if the window is full.
+     *
+     * @return {@link Boolean#TRUE} if a record was pushed out, or the window cannot hold any.
+     */
+    boolean add(
+        long sequence,
+        long timeStamp,
+        OutputSourceType outputSourceType,
+        String outputText,
+        boolean continued) {
+      if (this.capacity == 0) {
+        return true;
+      }
+      int slot;
+      boolean pushedOut = this.isFull();
+      if (pushedOut) {
+        slot = this.start;
+        this.start = (this.start + 1) % this.capacity;
+      } else {
+        if (this.size == this.sequences.length) {
+          this.grow();
+        }
+        slot = this.size++;
+      }
+      this.sequences[slot] = sequence;
+      this.timeStamps[slot] = timeStamp;
+      this.outputSourceTypes[slot] = outputSourceType;
+      this.outputTexts[slot] = outputText;
+      this.continued[slot] = continued;
+      return pushedOut;
+    }
+
+    /**
+     * Returns the slot of the arrays holding a record. The window only wraps around once full,
+     * when the arrays have grown to its capacity.
+     *
+     * @param index the index of the record, zero for the oldest.
+     * @return the index in the arrays.
+     */
+    int slot(int index) {
+      return (this.start + index) % this.sequences.length;
+    }
+
+    List<OutputRecord> toList() {
+      List<OutputRecord> records = new ArrayList<>(this.size);
+      for (int index = 0; index < this.size; index++) {
+        int slot = this.slot(index);
+        records.add(
+            new OutputRecord(
+                this.sequences[slot],
+                this.timeStamps[slot],
+                this.outputSourceTypes[slot],
+                this.outputTexts[slot]));
+      }
+      return Collections.unmodifiableList(records);
+    }
+
+    private void grow() {
+      int length = (int) Math.min(this.capacity, this.sequences.length * 2L);
+      this.sequences = Arrays.copyOf(this.sequences, length);
+      this.timeStamps = Arrays.copyOf(this.timeStamps, length);
+      this.outputSourceTypes = Arrays.copyOf(this.outputSourceTypes, length);
+      this.outputTexts = Arrays.copyOf(this.outputTexts, length);
+      this.continued = Arrays.copyOf(this.continued, length);
+    }
+  }
+}
@@ -2,16 +2,12 @@ package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
 import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
-import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
-import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,7 +15,10 @@ public class LogWriter {
   private static final Logger logger = LoggerFactory.getLogger(GrepFile.class);
   /**
    * Write a log content from the {@link Configuration#masterLogFile} to new {@link File} as per
-   * provided {@link Configuration} for a particular {@link OutputSourceType}.
+   * provided {@link Configuration} for a particular {@link OutputSourceType}. The {@link
+   * OutputSourceType#MERGED} records are part of {@link OutputSourceType#SYSOUT}, as that is where
+   * the process wrote them. The records split off a long line are joined back, stream by stream,
+   * and written as the one line, see {@link RecordReader#joinContinuations(RecordReader)}.
    *
    * @param configuration accepts a {@link Configuration}
    * @param targetFile accepts a target {@link File}.
@@ -32,23 +31,44 @@ public class LogWriter {
       final File targetFile,
       final OutputSourceType outputSourceType)
       throws IOException {
+    try (RecordReader recordReader = RecordReader.open(configuration)) {
+      return this.writeLog(recordReader, configuration.getCharset(), targetFile, outputSourceType);
+    }
+  }
+
+  /**
+   * Write the records of a {@link RecordReader} to new {@link File} for a particular {@link
+   * OutputSourceType}, the same as {@link LogWriter#writeLog(Configuration, File,
+   * OutputSourceType)}.
+   *
+   * @param recordReader the {@link RecordReader} to read the records from.
+   * @param charset the {@link Charset} to write the target {@link File} in.
+   * @param targetFile accepts a target {@link File}.
+   * @param outputSourceType Accepts the {@link OutputSourceType} which need to be printed only.
+   * @return a {@link File} reference to the newly written log {@link File}.
+   * @throws IOException when there are problems reading and wrting the {@link File}.
+   */
+  public File writeLog(
+      final RecordReader recordReader,
+      final Charset charset,
+      final File targetFile,
+      final OutputSourceType outputSourceType)
+      throws IOException {
     try (FileOutputStream fileOutputStream = new FileOutputStream(targetFile, Boolean.TRUE);
         PrintWriter printWriter =
-            new PrintWriter(new OutputStreamWriter(fileOutputStream, configuration.getCharset()))) {
+            new PrintWriter(new OutputStreamWriter(fileOutputStream, charset))) {
       logger.trace("Writing {} to : {}", outputSourceType, targetFile.getCanonicalPath());
-
-      try (BufferedReader br =
-          new BufferedReader(
-              new InputStreamReader(
-                  new FileInputStream(configuration.getMasterLogFile()),
-                  configuration.getCharset()))) {
-        for (OutputRecord record;
-            (record = ProcessRunnerConstants.GSON.fromJson(br.readLine(), OutputRecord.class))
-                != null; ) {
-          if (outputSourceType == OutputSourceType.ALL
-              || outputSourceType == record.getOutputSourceType()) {
-            printWriter.println(record.getOutputText());
-          }
+      //
+      // Not closed here, as that would close the reader of the caller.
+      //
+      RecordReader joiningReader = RecordReader.joinContinuations(recordReader);
+      while (joiningReader.next()) {
+        OutputSourceType recordSourceType = joiningReader.getOutputSourceType();
+        if (outputSourceType == OutputSourceType.ALL
+            || outputSourceType == recordSourceType
+            || (outputSourceType == OutputSourceType.SYSOUT
+                && recordSourceType == OutputSourceType.MERGED)) {
+          printWriter.println(joiningReader.getOutputText());
         }
       }
     }
@@ -0,0 +1,150 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a file through memory mapped regions, see {@link MasterLogIoMode#MEMORY_MAPPED}.
+ *
+ * <p>The file is mapped {@link ProcessRunnerConstants#MASTER_LOG_MAP_REGION_SIZE} bytes at a time,
+ * which grows it by as much, and the bytes written are copied into the mapped region. Once a
+ * region is full, the next one is mapped. Closing the channel unmaps the last region and cuts the
+ * file to the bytes actually written. Not thread safe.
+ */
+class MappedFileChannel implements WritableByteChannel {
+
+  private static final Logger logger = LoggerFactory.getLogger(MappedFileChannel.class);
+  private final FileChannel fileChannel;
+  private MappedByteBuffer region;
+  private long size;
+
+  /**
+   * Creates or truncates a file and maps its first region.
+   *
+   * @param file the {@link File} to be written.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  MappedFileChannel(File file) throws IOException {
+    this.fileChannel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      this.mapRegion();
+    } catch (IOException | RuntimeException ex) {
+      this.fileChannel.close();
+      throw ex;
+    }
+  }
+
+  @Override
+  public int write(ByteBuffer source) throws IOException {
+    int written = source.remaining();
+    while (source.hasRemaining()) {
+      if (!this.region.hasRemaining()) {
+        this.mapRegion();
+      }
+      int count = Math.min(this.region.remaining(), source.remaining());
+      ByteBuffer chunk = source.duplicate();
+      chunk.limit(chunk.position() + count);
+      this.region.put(chunk);
+      source.position(source.position() + count);
+      this.size += count;
+    }
+    return written;
+  }
+
+  /**
+   * Syncs the file to the storage device, the mapped pages included.
+   *
+   * @param metaData {@link Boolean#TRUE} to sync the file metadata as well.
+   * @throws IOException if the file cannot be synced.
+   */
+  void force(boolean metaData) throws IOException {
+    this.region.force();
+    this.fileChannel.force(metaData);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return this.fileChannel.isOpen();
+  }
+
+  /**
+   * Unmaps the last region and cuts the file to the bytes written.
+   *
+   * @throws IOException if the file cannot be truncated or closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!this.fileChannel.isOpen()) {
+      return;
+    }
+    try {
+      MappedByteBuffer lastRegion = this.region;
+      this.region = null;
+      unmap(lastRegion);
+      this.fileChannel.truncate(this.size);
+    } finally {
+      this.fileChannel.close();
+    }
+  }
+
+  private void mapRegion() throws IOException {
+    MappedByteBuffer fullRegion = this.region;
+    this.region =
+        this.fileChannel.map(
+            FileChannel.MapMode.READ_WRITE,
+            this.size,
+            ProcessRunnerConstants.MASTER_LOG_MAP_REGION_SIZE);
+    if (fullRegion != null) {
+      unmap(fullRegion);
+    }
+  }
+
+  /**
+   * Releases a mapped region right away instead of whenever it is garbage collected, so that the
+   * address space is given back and the file can be truncated on every platform. Done through the
+   * cleaner of the buffer, which is not public, and skipped if that fails. The buffer must never
+   * be touched afterwards.
+   *
+   * @param mappedByteBuffer the region to release.
+   */
+  static void unmap(MappedByteBuffer mappedByteBuffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner;
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (NoSuchMethodException ex) {
+        //
+        // Java 8 has no Unsafe#invokeCleaner, the cleaner of the buffer is called instead.
+        //
+        Method cleanerMethod = mappedByteBuffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(mappedByteBuffer);
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+        return;
+      }
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), mappedByteBuffer);
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      logger.debug("Mapped region left to the garbage collector : {}", ex.toString());
+    }
+  }
+}
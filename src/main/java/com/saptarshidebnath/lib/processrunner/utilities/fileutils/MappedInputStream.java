@@ -0,0 +1,84 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through memory mapped regions, see {@link MasterLogIoMode#MEMORY_MAPPED}. The file
+ * is mapped {@link ProcessRunnerConstants#MASTER_LOG_MAP_REGION_SIZE} bytes at a time, and every
+ * region is unmapped as soon as it is read through. Not thread safe.
+ */
+class MappedInputStream extends InputStream {
+
+  private final FileChannel fileChannel;
+  private final long size;
+  private long regionEnd;
+  private MappedByteBuffer region;
+
+  /**
+   * Opens a file for reading.
+   *
+   * @param file the {@link File} to be read.
+   * @throws IOException if the file cannot be opened.
+   */
+  MappedInputStream(File file) throws IOException {
+    this.fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.size = this.fileChannel.size();
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return this.read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if ((this.region == null || !this.region.hasRemaining()) && !this.mapRegion()) {
+      return -1;
+    }
+    int count = Math.min(length, this.region.remaining());
+    this.region.get(bytes, offset, count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return this.region == null ? 0 : this.region.remaining();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.unmapRegion();
+    this.fileChannel.close();
+  }
+
+  private boolean mapRegion() throws IOException {
+    this.unmapRegion();
+    if (this.regionEnd >= this.size) {
+      return false;
+    }
+    long regionSize =
+        Math.min(this.size - this.regionEnd, ProcessRunnerConstants.MASTER_LOG_MAP_REGION_SIZE);
+    this.region = this.fileChannel.map(FileChannel.MapMode.READ_ONLY, this.regionEnd, regionSize);
+    this.regionEnd += regionSize;
+    return true;
+  }
+
+  private void unmapRegion() {
+    MappedByteBuffer readRegion = this.region;
+    this.region = null;
+    if (readRegion != null) {
+      MappedFileChannel.unmap(readRegion);
+    }
+  }
+}
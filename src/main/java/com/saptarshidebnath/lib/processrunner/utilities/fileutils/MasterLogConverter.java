@@ -0,0 +1,108 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class MasterLogConverter {
+  private static final Logger logger = LoggerFactory.getLogger(MasterLogConverter.class);
+
+  /**
+   * Writes the records of the {@link Configuration#getMasterLogFile()}, or of all its segments, to
+   * a new {@link File} in another {@link MasterLogFormat}, in the same {@link Charset}.
+   *
+   * @param configuration accepts a {@link Configuration}
+   * @param targetFile accepts a target {@link File}.
+   * @param targetFormat the {@link MasterLogFormat} the target {@link File} is written in.
+   * @return a {@link File} reference to the newly written master log {@link File}.
+   * @throws IOException when there are problems reading and writing the {@link File}.
+   */
+  public File convert(
+      final Configuration configuration, final File targetFile, final MasterLogFormat targetFormat)
+      throws IOException {
+    logger.trace(
+        "Converting master log file {} to {} : {}",
+        configuration.getMasterLogFile(),
+        targetFormat,
+        targetFile);
+    try (RecordReader recordReader = RecordReader.open(configuration)) {
+      return this.convert(recordReader, targetFile, targetFormat, configuration.getCharset());
+    }
+  }
+
+  /**
+   * Writes the records of a master log {@link File} to a new {@link File} in another {@link
+   * MasterLogFormat}.
+   *
+   * @param sourceFile the master log {@link File} to be read.
+   * @param sourceFormat the {@link MasterLogFormat} of the source {@link File}.
+   * @param targetFile accepts a target {@link File}.
+   * @param targetFormat the {@link MasterLogFormat} the target {@link File} is written in.
+   * @param charset the {@link Charset} of both the {@link File}.
+   * @return a {@link File} reference to the newly written master log {@link File}.
+   * @throws IOException when there are problems reading and writing the {@link File}.
+   */
+  public File convert(
+      final File sourceFile,
+      final MasterLogFormat sourceFormat,
+      final File targetFile,
+      final MasterLogFormat targetFormat,
+      final Charset charset)
+      throws IOException {
+    logger.trace(
+        "Converting {} master log file {} to {} : {}",
+        sourceFormat,
+        sourceFile,
+        targetFormat,
+        targetFile);
+    try (RecordReader recordReader = RecordReader.open(sourceFile, sourceFormat, charset)) {
+      return this.convert(recordReader, targetFile, targetFormat, charset);
+    }
+  }
+
+  /**
+   * Writes the records of a {@link RecordReader} to a new {@link File} in a {@link
+   * MasterLogFormat}.
+   *
+   * @param recordReader the {@link RecordReader} to read the records from.
+   * @param targetFile accepts a target {@link File}.
+   * @param targetFormat the {@link MasterLogFormat} the target {@link File} is written in.
+   * @param charset the {@link Charset} the target {@link File} is written in.
+   * @return a {@link File} reference to the newly written master log {@link File}.
+   * @throws IOException when there are problems reading and writing the {@link File}.
+   */
+  public File convert(
+      final RecordReader recordReader,
+      final File targetFile,
+      final MasterLogFormat targetFormat,
+      final Charset charset)
+      throws IOException {
+    int recordCount = 0;
+    try (FileOutputStream fileOutputStream = new FileOutputStream(targetFile)) {
+      RecordEncoder recordEncoder =
+          RecordEncoder.create(
+              fileOutputStream.getChannel(),
+              targetFormat,
+              charset,
+              ProcessRunnerConstants.MASTER_LOG_WRITE_BUFFER_SIZE);
+      while (recordReader.next()) {
+        recordEncoder.write(
+            recordReader.getSequence(),
+            recordReader.getTimeStamp(),
+            recordReader.getOutputSourceType(),
+            recordReader.getOutputText(),
+            recordReader.isContinued());
+        recordCount++;
+      }
+      recordEncoder.finish();
+    }
+    logger.debug("Converted {} records to : {}", recordCount, targetFile);
+    return targetFile;
+  }
+}
@@ -0,0 +1,233 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Writes {@link OutputRecord} as single line json, i.e. {@link MasterLogFormat#JSON}, to a master
+ * log file, byte for byte the same as {@link ProcessRunnerConstants#GSON} followed by {@link
+ * java.io.PrintWriter#println()}. A continued record, see {@link RecordReader#isContinued()}, has
+ * a last field of its own, {@code "continued":true}.
+ *
+ * <p>The json of a record is built in a reusable char buffer, encoded into a reusable byte buffer
+ * and written to the channel once the byte buffer is full or on {@link MasterLogEncoder#flush()}.
+ * No object is created per record once the buffers have grown to the longest line. As with Gson,
+ * the characters {@code < > & = '} are escaped to keep the json safe to embed in html, as are the
+ * control characters and the line and paragraph separators.
+ *
+ * <p>Not thread safe.
+ */
+public class MasterLogEncoder implements RecordEncoder {
+
+  private static final char[] SEQUENCE_FIELD = "{\"sequence\":".toCharArray();
+  private static final char[] TIME_STAMP_FIELD = ",\"timeStamp\":".toCharArray();
+  private static final char[] OUTPUT_SOURCE_TYPE_FIELD = ",\"outputSourceType\":\"".toCharArray();
+  private static final char[] OUTPUT_TEXT_FIELD = ",\"outputText\":\"".toCharArray();
+  private static final char[] CONTINUED_FIELD = ",\"continued\":true".toCharArray();
+  private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final char[] MIN_LONG = String.valueOf(Long.MIN_VALUE).toCharArray();
+  private static final int INITIAL_LINE_SIZE = 256;
+  private final WritableByteChannel channel;
+  private final CharsetEncoder charsetEncoder;
+  private final ByteBuffer byteBuffer;
+  private char[] line;
+  private CharBuffer lineBuffer;
+  private int length;
+
+  /**
+   * Creates a {@link MasterLogEncoder}.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file.
+   * @param charset the {@link Charset} of the master log file. Characters it cannot encode are
+   *     replaced, same as {@link java.io.OutputStreamWriter}.
+   * @param bufferSize the size of the byte buffer, i.e. of the largest write to the channel.
+   */
+  public MasterLogEncoder(WritableByteChannel channel, Charset charset, int bufferSize) {
+    this.channel = channel;
+    this.charsetEncoder =
+        charset
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.byteBuffer = ByteBuffer.allocate(bufferSize);
+    this.line = new char[INITIAL_LINE_SIZE];
+    this.lineBuffer = CharBuffer.wrap(this.line);
+  }
+
+  @Override
+  public void write(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException {
+    this.length = 0;
+    this.append(SEQUENCE_FIELD);
+    this.appendLong(sequence);
+    this.append(TIME_STAMP_FIELD);
+    this.appendLong(timeStamp);
+    if (outputSourceType != null) {
+      this.append(OUTPUT_SOURCE_TYPE_FIELD);
+      this.appendEscaped(outputSourceType.name());
+      this.append('"');
+    }
+    if (outputText != null) {
+      this.append(OUTPUT_TEXT_FIELD);
+      this.appendEscaped(outputText);
+      this.append('"');
+    }
+    if (continued) {
+      this.append(CONTINUED_FIELD);
+    }
+    this.append('}');
+    this.append(LINE_SEPARATOR);
+    this.encodeLine();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    this.byteBuffer.flip();
+    while (this.byteBuffer.hasRemaining()) {
+      this.channel.write(this.byteBuffer);
+    }
+    this.byteBuffer.clear();
+  }
+
+  private void encodeLine() throws IOException {
+    //
+    // Every line ends with the line separator, so nothing is ever left over in the encoder between
+    // lines. The encoding is kept open across lines, the same as the writer the file was written
+    // with before, so charsets with a byte order mark write it once per file and not per line.
+    //
+    this.lineBuffer.limit(this.length).position(0);
+    CoderResult coderResult;
+    while ((coderResult = this.charsetEncoder.encode(this.lineBuffer, this.byteBuffer, false))
+        .isOverflow()) {
+      this.flush();
+    }
+    if (coderResult.isError()) {
+      coderResult.throwException();
+    }
+  }
+
+  private void appendEscaped(String text) {
+    int textLength = text.length();
+    this.ensureCapacity(textLength);
+    int from = 0;
+    for (int index = 0; index < textLength; index++) {
+      char current = text.charAt(index);
+      if (needsEscape(current)) {
+        text.getChars(from, index, this.line, this.length);
+        this.length += index - from;
+        this.appendEscape(current);
+        this.ensureCapacity(textLength - index);
+        from = index + 1;
+      }
+    }
+    text.getChars(from, textLength, this.line, this.length);
+    this.length += textLength - from;
+  }
+
+  private void appendEscape(char current) {
+    switch (current) {
+      case '"':
+        this.append('\\', '"');
+        break;
+      case '\\':
+        this.append('\\', '\\');
+        break;
+      case '\t':
+        this.append('\\', 't');
+        break;
+      case '\b':
+        this.append('\\', 'b');
+        break;
+      case '\n':
+        this.append('\\', 'n');
+        break;
+      case '\r':
+        this.append('\\', 'r');
+        break;
+      case '\f':
+        this.append('\\', 'f');
+        break;
+      default:
+        this.append('\\', 'u');
+        this.append(HEX_DIGITS[current >>> 12 & 0xF], HEX_DIGITS[current >>> 8 & 0xF]);
+        this.append(HEX_DIGITS[current >>> 4 & 0xF], HEX_DIGITS[current & 0xF]);
+    }
+  }
+
+  private void appendLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      this.append(MIN_LONG);
+      return;
+    }
+    this.ensureCapacity(MIN_LONG.length);
+    if (value < 0) {
+      this.line[this.length++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+      digits++;
+    }
+    for (int index = this.length + digits - 1; index >= this.length; index--) {
+      this.line[index] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    this.length += digits;
+  }
+
+  private void append(char[] chars) {
+    this.ensureCapacity(chars.length);
+    System.arraycopy(chars, 0, this.line, this.length, chars.length);
+    this.length += chars.length;
+  }
+
+  private void append(char character) {
+    this.ensureCapacity(1);
+    this.line[this.length++] = character;
+  }
+
+  private void append(char first, char second) {
+    this.ensureCapacity(2);
+    this.line[this.length++] = first;
+    this.line[this.length++] = second;
+  }
+
+  private void ensureCapacity(int additional) {
+    int required = this.length + additional;
+    if (required > this.line.length) {
+      this.line = Arrays.copyOf(this.line, Math.max(required, this.line.length * 2));
+      this.lineBuffer = CharBuffer.wrap(this.line);
+    }
+  }
+
+  private static boolean needsEscape(char current) {
+    if (current >= 0x80) {
+      return current == '\u2028' || current == '\u2029';
+    }
+    return current < 0x20
+        || current == '"'
+        || current == '\\'
+        || current == '<'
+        || current == '>'
+        || current == '&'
+        || current == '='
+        || current == '\'';
+  }
+}
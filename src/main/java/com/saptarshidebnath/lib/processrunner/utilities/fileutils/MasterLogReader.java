@@ -0,0 +1,288 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import com.saptarshidebnath.lib.processrunner.utilities.AsciiCharSequence;
+import com.saptarshidebnath.lib.processrunner.utilities.ByteScanner;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the {@link OutputRecord} of a {@link MasterLogFormat#JSON} master log file one by one.
+ *
+ * <p>The file is read in large chunks and scanned with {@link ByteScanner}. The fields of a record
+ * are picked straight out of the bytes of its line, and the output text is only decoded once it is
+ * asked for. Only the lines whose output text holds an escape sequence are parsed with {@link
+ * ProcessRunnerConstants#GSON}. A master log file written with a {@link Charset} which is not ASCII
+ * compatible is read line by line with {@link ProcessRunnerConstants#GSON}.
+ *
+ * <p>Usage :-
+ *
+ * <pre>{@code
+ * try (MasterLogReader masterLogReader = new MasterLogReader(masterLogFile, charset)) {
+ *   while (masterLogReader.next()) {
+ *     masterLogReader.getOutputText();
+ *   }
+ * }
+ * }</pre>
+ */
+public class MasterLogReader implements RecordReader {
+
+  private static final byte[] SEQUENCE_FIELD = field("\"sequence\":");
+  private static final byte[] TIME_STAMP_FIELD = field("\"timeStamp\":");
+  private static final OutputSourceType[] SOURCE_TYPES = {
+    OutputSourceType.SYSOUT, OutputSourceType.SYSERR, OutputSourceType.MERGED
+  };
+  private static final byte[][] SOURCE_TYPE_FIELDS = new byte[SOURCE_TYPES.length][];
+  private static final byte[] OUTPUT_TEXT_FIELD = field("\"outputText\":\"");
+  private static final String CONTINUED_FIELD = ",\"continued\":true}";
+  private static final byte[] CONTINUED_FIELD_BYTES = field(CONTINUED_FIELD);
+
+  static {
+    for (int index = 0; index < SOURCE_TYPES.length; index++) {
+      SOURCE_TYPE_FIELDS[index] = field("\"outputSourceType\":\"" + SOURCE_TYPES[index] + "\"");
+    }
+  }
+
+  private final InputStream inputStream;
+  private final BufferedReader lineReader;
+  private final Charset charset;
+  private final AsciiCharSequence outputChars = new AsciiCharSequence();
+  private byte[] buffer;
+  private ByteBuffer scanBuffer;
+  private int start;
+  private int end;
+  private boolean endOfFile;
+  private long sequence;
+  private long timeStamp;
+  private OutputSourceType outputSourceType;
+  private String outputText;
+  private boolean continued;
+  private boolean textPending;
+  private int textStart;
+  private int textEnd;
+
+  /**
+   * Opens a master log file for reading.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @param charset the {@link Charset} the file was written with, as in {@link
+   *     Configuration#getCharset()}.
+   * @throws IOException if the file cannot be opened.
+   */
+  public MasterLogReader(File masterLogFile, Charset charset) throws IOException {
+    this(new FileInputStream(masterLogFile), charset);
+  }
+
+  /**
+   * Reads master log records from an {@link InputStream}.
+   *
+   * @param inputStream the {@link InputStream} to read from. Closed along with the reader.
+   * @param charset the {@link Charset} the records were written with.
+   */
+  MasterLogReader(InputStream inputStream, Charset charset) {
+    this.inputStream = inputStream;
+    this.charset = charset;
+    if (ByteScanner.isAsciiCompatible(charset)) {
+      this.lineReader = null;
+      this.buffer = new byte[ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE];
+      this.scanBuffer = ByteScanner.wrap(this.buffer);
+    } else {
+      this.lineReader = new BufferedReader(new InputStreamReader(this.inputStream, charset));
+    }
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    if (this.lineReader != null) {
+      return this.nextFromLineReader();
+    }
+    while (true) {
+      int lineEnd = ByteScanner.indexOf(this.scanBuffer, this.start, this.end, (byte) '\n');
+      if (lineEnd == -1 && !this.endOfFile) {
+        this.fill();
+        continue;
+      }
+      if (lineEnd == -1 && this.start == this.end) {
+        return false;
+      }
+      int lineStart = this.start;
+      this.start = lineEnd == -1 ? this.end : lineEnd + 1;
+      if (lineEnd == -1) {
+        lineEnd = this.end;
+      }
+      if (lineEnd > lineStart && this.buffer[lineEnd - 1] == '\r') {
+        lineEnd--;
+      }
+      if (lineEnd > lineStart) {
+        this.parse(lineStart, lineEnd);
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return this.timeStamp;
+  }
+
+  @Override
+  public OutputSourceType getOutputSourceType() {
+    return this.outputSourceType;
+  }
+
+  @Override
+  public String getOutputText() {
+    if (this.textPending) {
+      this.outputText =
+          ByteScanner.decode(this.scanBuffer, this.textStart, this.textEnd, this.charset);
+      this.textPending = false;
+    }
+    return this.outputText;
+  }
+
+  @Override
+  public boolean isContinued() {
+    return this.continued;
+  }
+
+  @Override
+  public CharSequence getOutputChars() {
+    if (this.textPending && ByteScanner.isAscii(this.scanBuffer, this.textStart, this.textEnd)) {
+      return this.outputChars.wrap(this.buffer, this.textStart, this.textEnd);
+    }
+    return this.getOutputText();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.inputStream.close();
+  }
+
+  private boolean nextFromLineReader() throws IOException {
+    for (String line; (line = this.lineReader.readLine()) != null; ) {
+      if (!line.isEmpty()) {
+        this.setFields(ProcessRunnerConstants.GSON.fromJson(line, OutputRecord.class));
+        this.continued = line.endsWith(CONTINUED_FIELD);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Moves the unread bytes to the start of the buffer, growing it if a single line does not fit,
+   * and reads more.
+   */
+  private void fill() throws IOException {
+    int remaining = this.end - this.start;
+    if (remaining == this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+      this.scanBuffer = ByteScanner.wrap(this.buffer);
+    } else if (this.start > 0) {
+      System.arraycopy(this.buffer, this.start, this.buffer, 0, remaining);
+    }
+    this.start = 0;
+    this.end = remaining;
+    int read = this.inputStream.read(this.buffer, this.end, this.buffer.length - this.end);
+    if (read == -1) {
+      this.endOfFile = true;
+    } else {
+      this.end += read;
+    }
+  }
+
+  private void parse(int lineStart, int lineEnd) {
+    //
+    // The quotes of the output text are escaped, so the continued field cannot be made up by it.
+    //
+    this.continued =
+        lineEnd - lineStart >= CONTINUED_FIELD_BYTES.length
+            && ByteScanner.indexOf(
+                    this.scanBuffer,
+                    lineEnd - CONTINUED_FIELD_BYTES.length,
+                    lineEnd,
+                    CONTINUED_FIELD_BYTES)
+                != -1;
+    int sequenceField = ByteScanner.indexOf(this.scanBuffer, lineStart, lineEnd, SEQUENCE_FIELD);
+    int timeStampField = ByteScanner.indexOf(this.scanBuffer, lineStart, lineEnd, TIME_STAMP_FIELD);
+    OutputSourceType sourceType = null;
+    int sourceTypeField = -1;
+    for (int index = 0; index < SOURCE_TYPES.length && sourceTypeField == -1; index++) {
+      sourceType = SOURCE_TYPES[index];
+      sourceTypeField =
+          ByteScanner.indexOf(this.scanBuffer, lineStart, lineEnd, SOURCE_TYPE_FIELDS[index]);
+    }
+    int textField = ByteScanner.indexOf(this.scanBuffer, lineStart, lineEnd, OUTPUT_TEXT_FIELD);
+    int textStart = textField + OUTPUT_TEXT_FIELD.length;
+    int textEnd =
+        textField == -1
+            ? -1
+            : ByteScanner.indexOfQuoteOrBackslash(this.scanBuffer, textStart, lineEnd);
+    if (timeStampField == -1
+        || sourceTypeField == -1
+        || textEnd == -1
+        || this.buffer[textEnd] == '\\') {
+      //
+      // Escaped output text or an unexpected layout, let Gson deal with it.
+      //
+      this.setFields(
+          ProcessRunnerConstants.GSON.fromJson(
+              new String(this.buffer, lineStart, lineEnd - lineStart, this.charset),
+              OutputRecord.class));
+      return;
+    }
+    //
+    // Files written before the records were numbered have no sequence.
+    //
+    this.sequence =
+        sequenceField == -1 ? 0L : this.parseLong(sequenceField + SEQUENCE_FIELD.length, lineEnd);
+    this.timeStamp = this.parseLong(timeStampField + TIME_STAMP_FIELD.length, lineEnd);
+    this.outputSourceType = sourceType;
+    this.outputText = null;
+    this.textPending = true;
+    this.textStart = textStart;
+    this.textEnd = textEnd;
+  }
+
+  private long parseLong(int from, int to) {
+    boolean negative = this.buffer[from] == '-';
+    long value = 0;
+    for (int index = negative ? from + 1 : from; index < to; index++) {
+      int digit = this.buffer[index] - '0';
+      if (digit < 0 || digit > 9) {
+        break;
+      }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  private void setFields(OutputRecord outputRecord) {
+    this.sequence = outputRecord.getSequence();
+    this.timeStamp = outputRecord.getTimeStamp();
+    this.outputSourceType = outputRecord.getOutputSourceType();
+    this.outputText = outputRecord.getOutputText();
+    this.textPending = false;
+  }
+
+  private static byte[] field(String name) {
+    return name.getBytes(StandardCharsets.US_ASCII);
+  }
+}
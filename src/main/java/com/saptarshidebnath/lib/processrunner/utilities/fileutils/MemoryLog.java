@@ -0,0 +1,310 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the records of a run in memory instead of a master log file, see {@link
+ * Configuration#isEnableInMemoryCapture()}.
+ *
+ * <p>The records are encoded as in {@link MasterLogFormat#BINARY} into chunks of bytes. The first
+ * chunk takes {@link ProcessRunnerConstants#MEMORY_LOG_MIN_CHUNK_SIZE} bytes and every next one
+ * twice the one before, up to {@link ProcessRunnerConstants#MEMORY_LOG_MAX_CHUNK_SIZE}, so a run of
+ * a few lines costs a few kilobytes and a chatty one is never copied over to grow.
+ *
+ * <p>A {@link MemoryLog} may be given a budget, see {@link
+ * Configuration#getInMemoryCaptureRunBytes()} and {@link
+ * Configuration#getInMemoryCaptureGlobalBytes()}. The chunks of all the {@link MemoryLog} count
+ * against the global budget till they are released, or the {@link MemoryLog} is garbage collected.
+ * A chunk is cut down to what is left of the budgets, so {@link MemoryLog#isOverBudget()} turns
+ * true once the records take at most {@link ProcessRunnerConstants#MEMORY_LOG_MIN_CHUNK_SIZE} bytes
+ * more than a budget. The writer is expected to move the records elsewhere then, and {@link
+ * MemoryLog#release()} the {@link MemoryLog}.
+ *
+ * <p>Usage :-
+ *
+ * <pre>{@code
+ * MemoryLog memoryLog = new MemoryLog();
+ * memoryLog.write(sequence, timeStamp, outputSourceType, outputText);
+ * memoryLog.finish();
+ * try (RecordReader recordReader = memoryLog.openReader()) {
+ *   while (recordReader.next()) {
+ *     recordReader.getOutputText();
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Written by a single thread. Once finished, it can be read by any number of readers at once.
+ */
+public class MemoryLog implements RecordEncoder {
+
+  private static final AtomicLong GLOBAL_SIZE = new AtomicLong();
+  private static final ReferenceQueue<MemoryLog> COLLECTED_LOGS = new ReferenceQueue<>();
+  private static final Set<Reservation> RESERVATIONS = ConcurrentHashMap.newKeySet();
+  private final List<byte[]> chunks;
+  private final RecordEncoder recordEncoder;
+  private final long runBytes;
+  private final long globalBytes;
+  private final Reservation reservation;
+  private boolean overBudget;
+  private byte[] lastChunk;
+  private int lastChunkSize;
+  private long size;
+  private long recordCount;
+
+  /** Creates an empty {@link MemoryLog} without a budget. */
+  public MemoryLog() {
+    this(0L, 0L, Boolean.FALSE);
+  }
+
+  /**
+   * Creates an empty {@link MemoryLog} with a budget.
+   *
+   * @param runBytes the bytes the records are kept within, zero for no limit.
+   * @param globalBytes the bytes the records of all the {@link MemoryLog} are kept within, zero
+   *     for no limit.
+   */
+  public MemoryLog(long runBytes, long globalBytes) {
+    this(runBytes, globalBytes, Boolean.FALSE);
+  }
+
+  /**
+   * Creates an empty {@link MemoryLog} with a budget, optionally keeping the recurring texts as
+   * references, see {@link Configuration#isEnableLineDictionary()}.
+   *
+   * @param runBytes the bytes the records are kept within, zero for no limit.
+   * @param globalBytes the bytes the records of all the {@link MemoryLog} are kept within, zero
+   *     for no limit.
+   * @param dictionaryEnabled {@link Boolean#TRUE} to keep recurring texts as references.
+   */
+  public MemoryLog(long runBytes, long globalBytes, boolean dictionaryEnabled) {
+    this.chunks = new ArrayList<>();
+    this.recordEncoder =
+        new BinaryLogEncoder(
+            new ChunkChannel(),
+            ProcessRunnerConstants.MEMORY_LOG_MIN_CHUNK_SIZE,
+            dictionaryEnabled);
+    this.runBytes = runBytes;
+    this.globalBytes = globalBytes;
+    this.reservation = new Reservation(this);
+  }
+
+  /**
+   * Returns the number of bytes taken by the chunks of all the {@link MemoryLog} not yet released
+   * or garbage collected.
+   *
+   * @return a {@link Long} count of the bytes.
+   */
+  public static long getGlobalSize() {
+    releaseCollected();
+    return GLOBAL_SIZE.get();
+  }
+
+  @Override
+  public void write(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException {
+    this.recordEncoder.write(sequence, timeStamp, outputSourceType, outputText, continued);
+    this.recordCount++;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    this.recordEncoder.flush();
+  }
+
+  /**
+   * Returns the number of bytes the records written up to the last flush take.
+   *
+   * @return a {@link Long} count of the bytes.
+   */
+  public long getSize() {
+    return this.size;
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} once the chunks take more than the run budget, or the chunks of
+   * all the {@link MemoryLog} more than the global budget.
+   *
+   * @return a {@link Boolean}
+   */
+  public boolean isOverBudget() {
+    return this.overBudget;
+  }
+
+  /**
+   * Drops the records and gives their memory back to the global budget. Nothing can be written
+   * to or read from the {@link MemoryLog} afterwards.
+   */
+  public void release() {
+    this.chunks.clear();
+    this.lastChunk = null;
+    this.lastChunkSize = 0;
+    this.reservation.release();
+  }
+
+  /**
+   * Returns the number of records written.
+   *
+   * @return a {@link Long} count of the records.
+   */
+  public long getRecordCount() {
+    return this.recordCount;
+  }
+
+  /**
+   * Opens a reader over the records written up to the last flush.
+   *
+   * @return a new {@link RecordReader}.
+   */
+  public RecordReader openReader() {
+    return new BinaryLogReader(new ChunkInputStream());
+  }
+
+  /** Appends the bytes written to it to the chunks. */
+  private class ChunkChannel implements WritableByteChannel {
+
+    @Override
+    public int write(ByteBuffer source) {
+      int written = source.remaining();
+      while (source.hasRemaining()) {
+        if (MemoryLog.this.lastChunk == null
+            || MemoryLog.this.lastChunkSize == MemoryLog.this.lastChunk.length) {
+          this.addChunk();
+        }
+        int count =
+            Math.min(
+                source.remaining(), MemoryLog.this.lastChunk.length - MemoryLog.this.lastChunkSize);
+        source.get(MemoryLog.this.lastChunk, MemoryLog.this.lastChunkSize, count);
+        MemoryLog.this.lastChunkSize += count;
+      }
+      MemoryLog.this.size += written;
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+      // Nothing to release, the chunks are kept for reading.
+    }
+
+    private void addChunk() {
+      int length =
+          MemoryLog.this.lastChunk == null
+              ? ProcessRunnerConstants.MEMORY_LOG_MIN_CHUNK_SIZE
+              : Math.min(
+                  MemoryLog.this.lastChunk.length * 2,
+                  ProcessRunnerConstants.MEMORY_LOG_MAX_CHUNK_SIZE);
+      long reservedBytes = MemoryLog.this.reservation.getBytes();
+      if (MemoryLog.this.runBytes > 0L) {
+        length = fitBudget(length, MemoryLog.this.runBytes - reservedBytes);
+      }
+      if (MemoryLog.this.globalBytes > 0L) {
+        length = fitBudget(length, MemoryLog.this.globalBytes - getGlobalSize());
+      }
+      long globalSize = MemoryLog.this.reservation.add(length);
+      if ((MemoryLog.this.runBytes > 0L && reservedBytes + length > MemoryLog.this.runBytes)
+          || (MemoryLog.this.globalBytes > 0L && globalSize > MemoryLog.this.globalBytes)) {
+        MemoryLog.this.overBudget = true;
+      }
+      MemoryLog.this.lastChunk = new byte[length];
+      MemoryLog.this.lastChunkSize = 0;
+      MemoryLog.this.chunks.add(MemoryLog.this.lastChunk);
+    }
+  }
+
+  private static int fitBudget(int length, long budgetLeft) {
+    return (int)
+        Math.max(ProcessRunnerConstants.MEMORY_LOG_MIN_CHUNK_SIZE, Math.min(length, budgetLeft));
+  }
+
+  private static void releaseCollected() {
+    for (Reference<? extends MemoryLog> collected;
+        (collected = COLLECTED_LOGS.poll()) != null; ) {
+      ((Reservation) collected).release();
+    }
+  }
+
+  /**
+   * The bytes of the chunks of a {@link MemoryLog}, counted against the global budget till the
+   * {@link MemoryLog} is released or garbage collected.
+   */
+  private static class Reservation extends PhantomReference<MemoryLog> {
+    private final AtomicLong bytes = new AtomicLong();
+
+    Reservation(MemoryLog memoryLog) {
+      super(memoryLog, COLLECTED_LOGS);
+      RESERVATIONS.add(this);
+    }
+
+    long getBytes() {
+      return this.bytes.get();
+    }
+
+    long add(long count) {
+      this.bytes.addAndGet(count);
+      return GLOBAL_SIZE.addAndGet(count);
+    }
+
+    void release() {
+      GLOBAL_SIZE.addAndGet(-this.bytes.getAndSet(0L));
+      RESERVATIONS.remove(this);
+    }
+  }
+
+  /** Reads the chunks as they are when opened. */
+  private class ChunkInputStream extends InputStream {
+    private final int chunkCount = MemoryLog.this.chunks.size();
+    private final int lastChunkEnd = MemoryLog.this.lastChunkSize;
+    private int chunkIndex;
+    private int chunkOffset;
+
+    @Override
+    public int read() {
+      byte[] single = new byte[1];
+      return this.read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      while (this.chunkIndex < this.chunkCount) {
+        byte[] chunk = MemoryLog.this.chunks.get(this.chunkIndex);
+        int chunkEnd = this.chunkIndex == this.chunkCount - 1 ? this.lastChunkEnd : chunk.length;
+        if (this.chunkOffset < chunkEnd) {
+          int count = Math.min(length, chunkEnd - this.chunkOffset);
+          System.arraycopy(chunk, this.chunkOffset, bytes, offset, count);
+          this.chunkOffset += count;
+          return count;
+        }
+        this.chunkIndex++;
+        this.chunkOffset = 0;
+      }
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Writes {@link OutputRecord} to a master log file in one of the {@link MasterLogFormat}, either
+ * as is or block compressed. The records are buffered and only reach the channel once the buffer
+ * is full or on {@link RecordEncoder#flush()}. Not thread safe.
+ */
+public interface RecordEncoder extends Flushable {
+
+  /**
+   * Creates the {@link RecordEncoder} of a {@link MasterLogFormat}.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file.
+   * @param masterLogFormat the {@link MasterLogFormat} to write in.
+   * @param charset the {@link Charset} of the master log file.
+   * @param bufferSize the size of the buffer, i.e. of the largest write to the channel.
+   * @return a new {@link RecordEncoder}.
+   */
+  static RecordEncoder create(
+      WritableByteChannel channel,
+      MasterLogFormat masterLogFormat,
+      Charset charset,
+      int bufferSize) {
+    return create(channel, masterLogFormat, charset, bufferSize, Boolean.FALSE);
+  }
+
+  /**
+   * Creates the {@link RecordEncoder} of a {@link MasterLogFormat}, optionally writing the records
+   * in compressed blocks, see {@link BlockCompressedEncoder}.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file.
+   * @param masterLogFormat the {@link MasterLogFormat} to write in.
+   * @param charset the {@link Charset} of the master log file.
+   * @param bufferSize the size of the buffer, i.e. of the largest write to the channel.
+   * @param blockCompressed {@link Boolean#TRUE} to compress the records in blocks.
+   * @return a new {@link RecordEncoder}.
+   */
+  static RecordEncoder create(
+      WritableByteChannel channel,
+      MasterLogFormat masterLogFormat,
+      Charset charset,
+      int bufferSize,
+      boolean blockCompressed) {
+    return create(channel, masterLogFormat, charset, bufferSize, blockCompressed, Boolean.FALSE);
+  }
+
+  /**
+   * Creates the {@link RecordEncoder} of a {@link MasterLogFormat}, optionally writing the records
+   * in compressed blocks and the recurring texts as references, see {@link BinaryLogEncoder}.
+   *
+   * @param channel the {@link WritableByteChannel} of the master log file.
+   * @param masterLogFormat the {@link MasterLogFormat} to write in.
+   * @param charset the {@link Charset} of the master log file.
+   * @param bufferSize the size of the buffer, i.e. of the largest write to the channel.
+   * @param blockCompressed {@link Boolean#TRUE} to compress the records in blocks.
+   * @param dictionaryEnabled {@link Boolean#TRUE} to write recurring texts as references, only
+   *     with {@link MasterLogFormat#BINARY}.
+   * @return a new {@link RecordEncoder}.
+   */
+  static RecordEncoder create(
+      WritableByteChannel channel,
+      MasterLogFormat masterLogFormat,
+      Charset charset,
+      int bufferSize,
+      boolean blockCompressed,
+      boolean dictionaryEnabled) {
+    if (blockCompressed) {
+      return new BlockCompressedEncoder(channel, masterLogFormat, charset, dictionaryEnabled);
+    } else if (masterLogFormat == MasterLogFormat.BINARY) {
+      return new BinaryLogEncoder(channel, bufferSize, dictionaryEnabled);
+    }
+    return new MasterLogEncoder(channel, charset, bufferSize);
+  }
+
+  /**
+   * Writes a record, flagged as continued if it is a part split off a long line which the next
+   * record of the same stream goes on with, see {@link RecordReader#isContinued()}.
+   *
+   * @param sequence the sequence number as in {@link OutputRecord#getSequence()}.
+   * @param timeStamp the timestamp as in {@link OutputRecord#getTimeStamp()}.
+   * @param outputSourceType the {@link OutputSourceType} of the record, may be null.
+   * @param outputText the line of output, may be null.
+   * @param continued {@link Boolean#TRUE} if the next record of the stream continues the line.
+   * @throws IOException if the channel cannot be written to.
+   */
+  void write(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException;
+
+  /**
+   * Writes a record which is not continued.
+   *
+   * @param sequence the sequence number as in {@link OutputRecord#getSequence()}.
+   * @param timeStamp the timestamp as in {@link OutputRecord#getTimeStamp()}.
+   * @param outputSourceType the {@link OutputSourceType} of the record, may be null.
+   * @param outputText the line of output, may be null.
+   * @throws IOException if the channel cannot be written to.
+   */
+  default void write(
+      long sequence, long timeStamp, OutputSourceType outputSourceType, String outputText)
+      throws IOException {
+    this.write(sequence, timeStamp, outputSourceType, outputText, Boolean.FALSE);
+  }
+
+  /**
+   * Writes a record without a sequence number.
+   *
+   * @param timeStamp the timestamp as in {@link OutputRecord#getTimeStamp()}.
+   * @param outputSourceType the {@link OutputSourceType} of the record, may be null.
+   * @param outputText the line of output, may be null.
+   * @throws IOException if the channel cannot be written to.
+   */
+  default void write(long timeStamp, OutputSourceType outputSourceType, String outputText)
+      throws IOException {
+    this.write(0L, timeStamp, outputSourceType, outputText);
+  }
+
+  /**
+   * Writes a record.
+   *
+   * @param outputRecord the {@link OutputRecord} to be written.
+   * @throws IOException if the channel cannot be written to.
+   */
+  default void write(OutputRecord outputRecord) throws IOException {
+    this.write(
+        outputRecord.getSequence(),
+        outputRecord.getTimeStamp(),
+        outputRecord.getOutputSourceType(),
+        outputRecord.getOutputText());
+  }
+
+  /**
+   * Writes all the buffered bytes to the channel.
+   *
+   * @throws IOException if the channel cannot be written to.
+   */
+  @Override
+  void flush() throws IOException;
+
+  /**
+   * Writes all the buffered bytes to the channel, along with whatever the format needs at the end
+   * of the file. Nothing is to be written after.
+   *
+   * @throws IOException if the channel cannot be written to.
+   */
+  default void finish() throws IOException {
+    this.flush();
+  }
+}
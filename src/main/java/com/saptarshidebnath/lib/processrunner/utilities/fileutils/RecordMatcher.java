@@ -0,0 +1,58 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the output text of the records of a {@link RecordReader} against a {@link Pattern}, one
+ * {@link Matcher} reused for all of them.
+ *
+ * <p>The result for a text kept in the line dictionary, see {@link
+ * RecordReader#getTextReference()}, is remembered, so a line repeated over and over is matched
+ * once. Not thread safe, meant for a single reader.
+ */
+public class RecordMatcher {
+
+  private final Matcher matcher;
+  private final long[] textReferences;
+  private final boolean[] matches;
+
+  /**
+   * Creates a {@link RecordMatcher}.
+   *
+   * @param pattern the {@link Pattern} the texts have to match in full.
+   */
+  public RecordMatcher(Pattern pattern) {
+    this.matcher = pattern.matcher("");
+    this.textReferences = new long[ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES];
+    this.matches = new boolean[ProcessRunnerConstants.LINE_DICTIONARY_ENTRIES];
+  }
+
+  /**
+   * Returns {@link Boolean#TRUE} if the output text of the current record of the {@link
+   * RecordReader} matches the pattern in full.
+   *
+   * @param recordReader the {@link RecordReader}, on a record.
+   * @return a {@link Boolean}
+   */
+  public boolean matches(RecordReader recordReader) {
+    long textReference = recordReader.getTextReference();
+    if (textReference < 0) {
+      return this.matches(recordReader.getOutputChars());
+    }
+    int index = (int) (textReference & (this.textReferences.length - 1));
+    //
+    // Ids are kept plus one, so that zero stands for none.
+    //
+    if (this.textReferences[index] != textReference + 1) {
+      this.matches[index] = this.matches(recordReader.getOutputChars());
+      this.textReferences[index] = textReference + 1;
+    }
+    return this.matches[index];
+  }
+
+  private boolean matches(CharSequence outputChars) {
+    return outputChars != null && this.matcher.reset(outputChars).matches();
+  }
+}
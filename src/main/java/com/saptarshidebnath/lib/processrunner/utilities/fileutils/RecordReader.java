@@ -0,0 +1,196 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the {@link OutputRecord} of a master log file one by one, whatever its {@link
+ * MasterLogFormat}.
+ *
+ * <p>Usage :-
+ *
+ * <pre>{@code
+ * try (RecordReader recordReader = RecordReader.open(configuration)) {
+ *   while (recordReader.next()) {
+ *     recordReader.getOutputText();
+ *   }
+ * }
+ * }</pre>
+ */
+public interface RecordReader extends Closeable {
+
+  /**
+   * Opens the master log file of a {@link Configuration} for reading. The segments of a segmented
+   * master log are read one after the other, see {@link SegmentedLog}.
+   *
+   * @param configuration the {@link Configuration} holding the master log file, its {@link
+   *     MasterLogFormat} and its {@link Charset}.
+   * @return a new {@link RecordReader}.
+   * @throws IOException if the file cannot be opened.
+   */
+  static RecordReader open(Configuration configuration) throws IOException {
+    if (configuration.isMasterLogSegmented()) {
+      return new SegmentedReader(
+          SegmentedLog.getSegmentFiles(configuration),
+          configuration.getMasterLogFormat(),
+          configuration.getCharset(),
+          configuration.getMasterLogIoMode());
+    }
+    return open(
+        configuration.getMasterLogFile(),
+        configuration.getMasterLogFormat(),
+        configuration.getCharset(),
+        configuration.getMasterLogIoMode());
+  }
+
+  /**
+   * Opens a master log file for reading. A block compressed file is recognised by its first bytes
+   * and read with its blocks inflated in parallel, see {@link BlockCompressedLog}.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @param masterLogFormat the {@link MasterLogFormat} the file was written in.
+   * @param charset the {@link Charset} the file was written with.
+   * @return a new {@link RecordReader}.
+   * @throws IOException if the file cannot be opened.
+   */
+  static RecordReader open(File masterLogFile, MasterLogFormat masterLogFormat, Charset charset)
+      throws IOException {
+    return open(masterLogFile, masterLogFormat, charset, MasterLogIoMode.STREAM);
+  }
+
+  /**
+   * Opens a master log file for reading with a {@link MasterLogIoMode}. A block compressed file is
+   * always read through positioned reads, whatever the {@link MasterLogIoMode}, as only its blocks
+   * are read.
+   *
+   * @param masterLogFile the master log {@link File}.
+   * @param masterLogFormat the {@link MasterLogFormat} the file was written in.
+   * @param charset the {@link Charset} the file was written with.
+   * @param masterLogIoMode the {@link MasterLogIoMode} to read the file with.
+   * @return a new {@link RecordReader}.
+   * @throws IOException if the file cannot be opened.
+   */
+  static RecordReader open(
+      File masterLogFile,
+      MasterLogFormat masterLogFormat,
+      Charset charset,
+      MasterLogIoMode masterLogIoMode)
+      throws IOException {
+    if (BlockCompressedLog.isBlockCompressed(masterLogFile)) {
+      return BlockCompressedLog.open(masterLogFile, charset).openReader(0);
+    }
+    InputStream inputStream =
+        masterLogIoMode == MasterLogIoMode.MEMORY_MAPPED
+            ? new MappedInputStream(masterLogFile)
+            : new FileInputStream(masterLogFile);
+    if (masterLogFormat == MasterLogFormat.BINARY) {
+      return new BinaryLogReader(inputStream);
+    }
+    return new MasterLogReader(inputStream, charset);
+  }
+
+  /**
+   * Wraps a {@link RecordReader} to join the records split off a long line back into one, see
+   * {@link ContinuationJoiningReader}. Each joined line is held in memory whole.
+   *
+   * @param recordReader the {@link RecordReader} to read the records from.
+   * @return a new {@link RecordReader}, closing the wrapped one along with it.
+   */
+  static RecordReader joinContinuations(RecordReader recordReader) {
+    return new ContinuationJoiningReader(recordReader);
+  }
+
+  /**
+   * Moves to the next record.
+   *
+   * @return {@link Boolean#FALSE} once all the records are read.
+   * @throws IOException on disk error.
+   */
+  boolean next() throws IOException;
+
+  /**
+   * Returns the sequence number of the current record.
+   *
+   * @return the sequence number as in {@link OutputRecord#getSequence()}, zero for the records of
+   *     a master log file written before the records were numbered.
+   */
+  long getSequence();
+
+  /**
+   * Returns the timestamp of the current record.
+   *
+   * @return the timestamp as in {@link OutputRecord#getTimeStamp()}.
+   */
+  long getTimeStamp();
+
+  /**
+   * Returns the {@link OutputSourceType} of the current record.
+   *
+   * @return {@link OutputSourceType#SYSOUT}, {@link OutputSourceType#SYSERR} or {@link
+   *     OutputSourceType#MERGED}.
+   */
+  OutputSourceType getOutputSourceType();
+
+  /**
+   * Returns the output text of the current record.
+   *
+   * @return the line of output as in {@link OutputRecord#getOutputText()}.
+   */
+  String getOutputText();
+
+  /**
+   * Tells if the current record is a part split off a long line, which the next record of the same
+   * stream goes on with, see {@link
+   * com.saptarshidebnath.lib.processrunner.constants.LongLinePolicy#SPLIT}. The flag is kept apart
+   * from the output text, so any text the process wrote is read back as it was.
+   *
+   * @return {@link Boolean#TRUE} if the current record is continued.
+   */
+  default boolean isContinued() {
+    return false;
+  }
+
+  /**
+   * Returns the output text of the current record without creating a {@link String} for it, if
+   * the reader can help it. Meant for scanning, e.g. with a {@link java.util.regex.Matcher}, so
+   * that only the records of interest are turned into {@link String}. The characters are only
+   * valid till the next call to {@link RecordReader#next()}.
+   *
+   * @return the line of output, or null.
+   */
+  default CharSequence getOutputChars() {
+    return this.getOutputText();
+  }
+
+  /**
+   * Returns an id of the text of the current record, shared by the records repeating the same text
+   * if the reader knows of it, see {@link BinaryLogReader#getTextReference()}.
+   *
+   * @return the id of the text, or -1 if unknown.
+   */
+  default long getTextReference() {
+    return -1L;
+  }
+
+  /**
+   * Creates an {@link OutputRecord} out of the current record.
+   *
+   * @return a new {@link OutputRecord}.
+   */
+  default OutputRecord getOutputRecord() {
+    return new OutputRecord(
+        this.getSequence(),
+        this.getTimeStamp(),
+        this.getOutputSourceType(),
+        this.getOutputText());
+  }
+}
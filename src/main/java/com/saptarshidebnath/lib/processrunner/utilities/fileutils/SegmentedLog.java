@@ -0,0 +1,102 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The files of a segmented master log, see {@link Configuration#isMasterLogSegmented()}.
+ *
+ * <p>The records go to segment files next to the master log file, named after it with a sequence
+ * number appended, e.g. "run.json.000003". The master log file itself is the manifest: a text file
+ * listing the names of the segments still retained, oldest first, one per line. The manifest is
+ * replaced atomically every time a segment is opened or deleted, so a reader always finds a
+ * complete list. Each segment is a complete master log file of its own, in the {@link
+ * com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat} of the run and block
+ * compressed if so configured.
+ */
+public final class SegmentedLog {
+
+  /** Private constructor */
+  private SegmentedLog() {}
+
+  /**
+   * Returns the files holding the records of the master log of a {@link Configuration}, oldest
+   * first. That is the master log file itself unless the master log is segmented.
+   *
+   * @param configuration the {@link Configuration} of the run.
+   * @return a {@link List} of the {@link File}, without the segments already deleted.
+   * @throws IOException if the manifest cannot be read.
+   */
+  public static List<File> getSegmentFiles(Configuration configuration) throws IOException {
+    File masterLogFile = configuration.getMasterLogFile();
+    if (!configuration.isMasterLogSegmented()) {
+      return Collections.singletonList(masterLogFile);
+    }
+    List<File> segmentFiles = new ArrayList<>();
+    if (!masterLogFile.exists()) {
+      return segmentFiles;
+    }
+    File directory = masterLogFile.getAbsoluteFile().getParentFile();
+    for (String segmentName :
+        Files.readAllLines(masterLogFile.toPath(), ProcessRunnerConstants.UTF_8)) {
+      File segmentFile = new File(directory, segmentName);
+      if (!segmentName.isEmpty() && segmentFile.exists()) {
+        segmentFiles.add(segmentFile);
+      }
+    }
+    return segmentFiles;
+  }
+
+  /**
+   * Returns the {@link File} of a segment.
+   *
+   * @param masterLogFile the master log {@link File}, i.e. the manifest.
+   * @param sequence the sequence number of the segment.
+   * @return the segment {@link File}, in the directory of the master log file.
+   */
+  static File getSegmentFile(File masterLogFile, int sequence) {
+    File absoluteFile = masterLogFile.getAbsoluteFile();
+    return new File(
+        absoluteFile.getParentFile(),
+        String.format(
+            ProcessRunnerConstants.MASTER_LOG_SEGMENT_NAME_FORMAT,
+            absoluteFile.getName(),
+            sequence));
+  }
+
+  /**
+   * Replaces the manifest with a new list of segments.
+   *
+   * @param masterLogFile the master log {@link File}, i.e. the manifest.
+   * @param segmentFiles the segment {@link File}, oldest first.
+   * @throws IOException if the manifest cannot be written.
+   */
+  static void writeManifest(File masterLogFile, List<File> segmentFiles) throws IOException {
+    List<String> segmentNames = new ArrayList<>(segmentFiles.size());
+    for (File segmentFile : segmentFiles) {
+      segmentNames.add(segmentFile.getName());
+    }
+    Path manifest = masterLogFile.getAbsoluteFile().toPath();
+    Path newManifest =
+        manifest.resolveSibling(manifest.getFileName() + ProcessRunnerConstants.FILE_SUFFIX_TEMP);
+    Files.write(newManifest, segmentNames, ProcessRunnerConstants.UTF_8);
+    try {
+      Files.move(
+          newManifest,
+          manifest,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(newManifest, manifest, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
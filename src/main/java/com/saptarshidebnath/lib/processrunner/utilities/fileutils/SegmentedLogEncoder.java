@@ -0,0 +1,269 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.constants.DurabilityPolicy;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the records of a run to its master log file, or to the segments of its master log if the
+ * master log is segmented, see {@link SegmentedLog}.
+ *
+ * <p>A new segment is started, before a record is written, once the current one has had {@link
+ * Configuration#getMasterLogSegmentBytes()} bytes written to it or has been open for {@link
+ * Configuration#getMasterLogSegmentMillis()}. The segment being closed is finished by its {@link
+ * RecordEncoder}, so every segment is a complete master log file, and synced unless the {@link
+ * DurabilityPolicy} is {@link DurabilityPolicy#NONE}. If {@link
+ * Configuration#getMasterLogRetainedBytes()} is set, the oldest segments are then deleted till
+ * the closed ones take no more than that.
+ *
+ * <p>The files are written through a {@link FileChannel}, through a {@link MappedFileChannel} with
+ * {@link MasterLogIoMode#MEMORY_MAPPED}, or through a {@link DirectFileChannel} with {@link
+ * MasterLogIoMode#DIRECT}. Not thread safe.
+ */
+public class SegmentedLogEncoder implements RecordEncoder, Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SegmentedLogEncoder.class);
+  private final File masterLogFile;
+  private final MasterLogFormat masterLogFormat;
+  private final Charset charset;
+  private final boolean blockCompressed;
+  private final boolean dictionaryEnabled;
+  private final MasterLogIoMode masterLogIoMode;
+  private final boolean segmented;
+  private final long segmentBytes;
+  private final long segmentNanos;
+  private final long retainedBytes;
+  private final boolean autoDeleteFileOnExit;
+  private final boolean syncOnRoll;
+  private final UnaryOperator<WritableByteChannel> channelWrapper;
+  private final List<File> segmentFiles;
+  private WritableByteChannel fileChannel;
+  private RecordEncoder recordEncoder;
+  private int nextSequence;
+  private long segmentWrittenBytes;
+  private long segmentRecordCount;
+  private long segmentStartNanos;
+  private long uncompressedBytes;
+
+  /**
+   * Opens the master log file, or the first segment, for writing.
+   *
+   * @param configuration the {@link Configuration} holding the master log file and its settings.
+   * @param channelWrapper wraps the {@link WritableByteChannel} of every file opened, e.g. to
+   *     measure the writes.
+   * @throws IOException if the file cannot be opened.
+   */
+  public SegmentedLogEncoder(
+      Configuration configuration, UnaryOperator<WritableByteChannel> channelWrapper)
+      throws IOException {
+    this.masterLogFile = configuration.getMasterLogFile();
+    this.masterLogFormat = configuration.getMasterLogFormat();
+    this.charset = configuration.getCharset();
+    this.blockCompressed = configuration.isEnableMasterLogCompression();
+    this.dictionaryEnabled = configuration.isEnableLineDictionary();
+    this.masterLogIoMode = configuration.getMasterLogIoMode();
+    this.segmented = configuration.isMasterLogSegmented();
+    this.segmentBytes = configuration.getMasterLogSegmentBytes();
+    this.segmentNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getMasterLogSegmentMillis());
+    this.retainedBytes = configuration.getMasterLogRetainedBytes();
+    this.autoDeleteFileOnExit = configuration.getAutoDeleteFileOnExit();
+    this.syncOnRoll = configuration.getDurabilityPolicy() != DurabilityPolicy.NONE;
+    this.channelWrapper = channelWrapper;
+    this.segmentFiles = new ArrayList<>();
+    this.openSegment();
+  }
+
+  @Override
+  public void write(
+      long sequence,
+      long timeStamp,
+      OutputSourceType outputSourceType,
+      String outputText,
+      boolean continued)
+      throws IOException {
+    if (this.segmented && this.segmentRecordCount > 0 && this.isSegmentFull()) {
+      this.rollSegment();
+    }
+    this.recordEncoder.write(sequence, timeStamp, outputSourceType, outputText, continued);
+    this.segmentRecordCount++;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    this.recordEncoder.flush();
+    if (this.fileChannel instanceof DirectFileChannel) {
+      ((DirectFileChannel) this.fileChannel).flush();
+    }
+  }
+
+  /**
+   * Writes all the buffered bytes, and ends the current file as its format needs.
+   *
+   * @throws IOException if the file cannot be written to.
+   */
+  @Override
+  public void finish() throws IOException {
+    this.recordEncoder.finish();
+    this.uncompressedBytes +=
+        this.recordEncoder instanceof BlockCompressedEncoder
+            ? ((BlockCompressedEncoder) this.recordEncoder).getUncompressedBytes()
+            : this.segmentWrittenBytes;
+  }
+
+  /**
+   * Syncs the current file to the storage device.
+   *
+   * @param metaData {@link Boolean#TRUE} to sync the file metadata as well.
+   * @throws IOException if the file cannot be synced.
+   */
+  public void force(boolean metaData) throws IOException {
+    if (this.fileChannel instanceof MappedFileChannel) {
+      ((MappedFileChannel) this.fileChannel).force(metaData);
+    } else if (this.fileChannel instanceof DirectFileChannel) {
+      ((DirectFileChannel) this.fileChannel).force(metaData);
+    } else {
+      ((FileChannel) this.fileChannel).force(metaData);
+    }
+  }
+
+  /**
+   * Returns the number of bytes the finished files took before compression, i.e. as encoded in
+   * the {@link MasterLogFormat}, including the segments deleted since.
+   *
+   * @return a {@link Long} count of the bytes.
+   */
+  public long getUncompressedBytes() {
+    return this.uncompressedBytes;
+  }
+
+  /**
+   * Closes the current file. Call {@link SegmentedLogEncoder#finish()} before.
+   *
+   * @throws IOException if the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    this.fileChannel.close();
+  }
+
+  private boolean isSegmentFull() {
+    return this.segmentWrittenBytes >= this.segmentBytes
+        || (this.segmentNanos > 0L
+            && System.nanoTime() - this.segmentStartNanos >= this.segmentNanos);
+  }
+
+  private void openSegment() throws IOException {
+    File file =
+        this.segmented
+            ? SegmentedLog.getSegmentFile(this.masterLogFile, this.nextSequence++)
+            : this.masterLogFile;
+    if (this.segmented && this.autoDeleteFileOnExit) {
+      file.deleteOnExit();
+    }
+    this.fileChannel = this.openChannel(file);
+    this.segmentWrittenBytes = 0L;
+    this.segmentRecordCount = 0L;
+    this.segmentStartNanos = System.nanoTime();
+    this.recordEncoder =
+        RecordEncoder.create(
+            this.channelWrapper.apply(new SegmentChannel()),
+            this.masterLogFormat,
+            this.charset,
+            ProcessRunnerConstants.MASTER_LOG_WRITE_BUFFER_SIZE,
+            this.blockCompressed,
+            this.dictionaryEnabled);
+    if (this.segmented) {
+      this.segmentFiles.add(file);
+      SegmentedLog.writeManifest(this.masterLogFile, this.segmentFiles);
+      logger.debug("Opened master log segment : {}", file);
+    }
+  }
+
+  private WritableByteChannel openChannel(File file) throws IOException {
+    switch (this.masterLogIoMode) {
+      case MEMORY_MAPPED:
+        return new MappedFileChannel(file);
+      case DIRECT:
+        return DirectFileChannel.open(file);
+      default:
+        return new FileOutputStream(file).getChannel();
+    }
+  }
+
+  private void rollSegment() throws IOException {
+    this.finish();
+    try {
+      if (this.syncOnRoll) {
+        this.force(Boolean.TRUE);
+      }
+    } finally {
+      this.close();
+    }
+    this.openSegment();
+    this.deleteOldSegments();
+  }
+
+  private void deleteOldSegments() throws IOException {
+    if (this.retainedBytes <= 0L) {
+      return;
+    }
+    long closedBytes = 0L;
+    for (int index = 0; index < this.segmentFiles.size() - 1; index++) {
+      closedBytes += this.segmentFiles.get(index).length();
+    }
+    List<File> deletedFiles = new ArrayList<>();
+    while (closedBytes > this.retainedBytes && this.segmentFiles.size() > 1) {
+      File oldestFile = this.segmentFiles.remove(0);
+      closedBytes -= oldestFile.length();
+      deletedFiles.add(oldestFile);
+    }
+    if (deletedFiles.isEmpty()) {
+      return;
+    }
+    SegmentedLog.writeManifest(this.masterLogFile, this.segmentFiles);
+    for (File deletedFile : deletedFiles) {
+      Files.deleteIfExists(deletedFile.toPath());
+      logger.debug("Deleted master log segment : {}", deletedFile);
+    }
+  }
+
+  /** The {@link WritableByteChannel} of the current file, counting the bytes written to it. */
+  private class SegmentChannel implements WritableByteChannel {
+    private final WritableByteChannel segmentFileChannel = SegmentedLogEncoder.this.fileChannel;
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+      int written = this.segmentFileChannel.write(source);
+      SegmentedLogEncoder.this.segmentWrittenBytes += written;
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return this.segmentFileChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.segmentFileChannel.close();
+    }
+  }
+}
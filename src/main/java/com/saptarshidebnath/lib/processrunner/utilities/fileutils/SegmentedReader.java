@@ -0,0 +1,94 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the records of the segments of a master log one after the other, see {@link
+ * SegmentedLog}. A segment is only opened once the one before is read through.
+ */
+class SegmentedReader implements RecordReader {
+
+  private final Iterator<File> segmentFiles;
+  private final MasterLogFormat masterLogFormat;
+  private final Charset charset;
+  private final MasterLogIoMode masterLogIoMode;
+  private RecordReader segmentReader;
+
+  /**
+   * Creates a {@link SegmentedReader}.
+   *
+   * @param segmentFiles the segment {@link File}, oldest first.
+   * @param masterLogFormat the {@link MasterLogFormat} of the segments.
+   * @param charset the {@link Charset} of the segments.
+   * @param masterLogIoMode the {@link MasterLogIoMode} to read the segments with.
+   */
+  SegmentedReader(
+      List<File> segmentFiles,
+      MasterLogFormat masterLogFormat,
+      Charset charset,
+      MasterLogIoMode masterLogIoMode) {
+    this.segmentFiles = segmentFiles.iterator();
+    this.masterLogFormat = masterLogFormat;
+    this.charset = charset;
+    this.masterLogIoMode = masterLogIoMode;
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    while (this.segmentReader == null || !this.segmentReader.next()) {
+      this.close();
+      if (!this.segmentFiles.hasNext()) {
+        return false;
+      }
+      this.segmentReader =
+          RecordReader.open(
+              this.segmentFiles.next(), this.masterLogFormat, this.charset, this.masterLogIoMode);
+    }
+    return true;
+  }
+
+  @Override
+  public long getSequence() {
+    return this.segmentReader.getSequence();
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return this.segmentReader.getTimeStamp();
+  }
+
+  @Override
+  public OutputSourceType getOutputSourceType() {
+    return this.segmentReader.getOutputSourceType();
+  }
+
+  @Override
+  public String getOutputText() {
+    return this.segmentReader.getOutputText();
+  }
+
+  @Override
+  public boolean isContinued() {
+    return this.segmentReader.isContinued();
+  }
+
+  @Override
+  public CharSequence getOutputChars() {
+    return this.segmentReader.getOutputChars();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.segmentReader != null) {
+      this.segmentReader.close();
+      this.segmentReader = null;
+    }
+  }
+}
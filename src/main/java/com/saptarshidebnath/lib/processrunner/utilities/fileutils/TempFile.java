@@ -15,4 +15,36 @@ public class TempFile {
     return File.createTempFile(
         ProcessRunnerConstants.FILE_PREFIX_NAME_LOG_DUMP, ProcessRunnerConstants.FILE_SUFFIX_JSON);
   }
+
+  /**
+   * Creates a temporary {@link File} to hold the records overflowing the capture buffer. The
+   * {@link File} is deleted when the JVM exits.
+   *
+   * @return a reference to {@link File}
+   * @throws IOException if there are any issues creating the {@link File}
+   */
+  public File createTempSpillFile() throws IOException {
+    File spillFile =
+        File.createTempFile(
+            ProcessRunnerConstants.FILE_PREFIX_NAME_SPILL,
+            ProcessRunnerConstants.FILE_SUFFIX_BINARY);
+    spillFile.deleteOnExit();
+    return spillFile;
+  }
+
+  /**
+   * Creates a temporary {@link File} for a process stream to be redirected to. The {@link File} is
+   * deleted when the JVM exits.
+   *
+   * @return a reference to {@link File}
+   * @throws IOException if there are any issues creating the {@link File}
+   */
+  public File createTempRedirectFile() throws IOException {
+    File redirectFile =
+        File.createTempFile(
+            ProcessRunnerConstants.FILE_PREFIX_NAME_REDIRECT,
+            ProcessRunnerConstants.FILE_SUFFIX_LOG);
+    redirectFile.deleteOnExit();
+    return redirectFile;
+  }
 }
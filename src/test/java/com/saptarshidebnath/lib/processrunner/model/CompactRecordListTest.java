@@ -0,0 +1,92 @@
+package com.saptarshidebnath.lib.processrunner.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class CompactRecordListTest {
+
+  @Test
+  public void readsBackWhatWasAdded() {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    outputRecords.add(new OutputRecord(Long.MIN_VALUE, OutputSourceType.SYSERR, ""));
+    outputRecords.add(new OutputRecord(Long.MAX_VALUE, OutputSourceType.MERGED, "plain text"));
+    outputRecords.add(new OutputRecord(-42L, null, "caf\u00e9 \u20ac \ud83d\ude00"));
+    outputRecords.add(new OutputRecord(42L, OutputSourceType.SYSOUT, null));
+    for (int counter = 0; counter < 5000; counter++) {
+      outputRecords.add(
+          new OutputRecord(counter, OutputSourceType.SYSOUT, "line " + counter + " of the output"));
+    }
+    CompactRecordList recordList = new CompactRecordList();
+    CompactRecordList otherList = new CompactRecordList();
+    for (int index = 0; index < outputRecords.size(); index++) {
+      (index < 3000 ? recordList : otherList).add(outputRecords.get(index));
+    }
+    recordList.addAll(otherList);
+    recordList.trimToSize();
+    assertThat("Validating size : ", recordList.size(), is(outputRecords.size()));
+    for (int index = outputRecords.size() - 1; index >= 0; index--) {
+      OutputRecord added = outputRecords.get(index);
+      OutputRecord read = recordList.get(index);
+      assertThat("Validating timestamp : ", read.getTimeStamp(), is(added.getTimeStamp()));
+      assertThat(
+          "Validating output source type : ",
+          read.getOutputSourceType(),
+          is(added.getOutputSourceType()));
+      assertThat("Validating output text : ", read.getOutputText(), is(added.getOutputText()));
+      assertThat("Validating json : ", read.getAsJson(), is(added.getAsJson()));
+    }
+    assertThat(
+        "Validating json of the list : ",
+        ProcessRunnerConstants.GSON.toJson(recordList),
+        is(ProcessRunnerConstants.GSON.toJson(outputRecords)));
+  }
+
+  @Test
+  public void appendsAnyCollection() {
+    List<OutputRecord> recordList = new CompactRecordList();
+    CompactRecordList otherList = new CompactRecordList();
+    otherList.add(new OutputRecord(1L, 10L, OutputSourceType.SYSOUT, "first line"));
+    otherList.add(new OutputRecord(2L, 20L, OutputSourceType.SYSERR, "second line"));
+    assertThat("Validating compact list appended : ", recordList.addAll(otherList), is(true));
+    assertThat(
+        "Validating plain list appended : ",
+        recordList.addAll(
+            Arrays.asList(new OutputRecord(3L, 30L, OutputSourceType.SYSOUT, "third line"))),
+        is(true));
+    assertThat(
+        "Validating empty list appended : ",
+        recordList.addAll(new CompactRecordList()),
+        is(false));
+    assertThat("Validating size : ", recordList.size(), is(3));
+    for (int index = 0; index < recordList.size(); index++) {
+      assertThat("Validating sequence : ", recordList.get(index).getSequence(), is(index + 1L));
+    }
+    assertThat("Validating output text : ", recordList.get(1).getOutputText(), is("second line"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void cannotBeReplaced() {
+    CompactRecordList recordList = new CompactRecordList();
+    recordList.add(new OutputRecord(0L, OutputSourceType.SYSOUT, "line"));
+    recordList.set(0, new OutputRecord(0L, OutputSourceType.SYSOUT, "other line"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void cannotBeModified() {
+    CompactRecordList recordList = new CompactRecordList();
+    recordList.add(new OutputRecord(0L, OutputSourceType.SYSOUT, "line"));
+    recordList.remove(0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void cannotBeReadPastTheEnd() {
+    new CompactRecordList().get(0);
+  }
+}
@@ -3,25 +3,49 @@ package com.saptarshidebnath.lib.processrunner.ouput;
 import static com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants.FILE_PREFIX_NAME_LOG_DUMP;
 import static com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants.FILE_SUFFIX_JSON;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration.ConfigBuilder;
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.CaptureEngine;
+import com.saptarshidebnath.lib.processrunner.constants.DurabilityPolicy;
+import com.saptarshidebnath.lib.processrunner.constants.LongLinePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogIoMode;
 import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
 import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessConfigurationException;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessException;
+import com.saptarshidebnath.lib.processrunner.model.CompactRecordList;
 import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import com.saptarshidebnath.lib.processrunner.model.SamplingWindow;
+import com.saptarshidebnath.lib.processrunner.output.CaptureStatistics;
 import com.saptarshidebnath.lib.processrunner.output.Output;
 import com.saptarshidebnath.lib.processrunner.process.RunnerFactory;
+import com.saptarshidebnath.lib.processrunner.utilities.fileutils.ChunkLogReader;
 import com.saptarshidebnath.lib.processrunner.utilities.fileutils.TempFile;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import org.junit.Test;
 
 /** Created by saptarshi on 7/4/2017. */
@@ -136,6 +160,30 @@ public class OutputTest {
         is("pom.xml"));
   }
 
+  @Test
+  public void grepResultsArePackedOnlyIfAskedFor()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException {
+    for (boolean compactGrepResultsEnabled : new boolean[] {false, true}) {
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                  .enableCompactGrepResults(compactGrepResultsEnabled)
+                  .build());
+      List<OutputRecord> records = output.grepForRegex(".*");
+      assertThat(
+          "Validating grep result type : ",
+          records,
+          instanceOf(compactGrepResultsEnabled ? CompactRecordList.class : ArrayList.class));
+      assertThat("Validating grep : ", records.size(), is(20001));
+      assertThat(
+          "Validating output source type : ",
+          output.grepForRegex("testing for output").get(0).getOutputSourceType(),
+          is(OutputSourceType.SYSERR));
+    }
+  }
+
   @Test(expected = ProcessConfigurationException.class)
   public void seachMasterLogFileForRegexWithoutMasterLogFile()
       throws IOException, ExecutionException, ProcessConfigurationException, InterruptedException {
@@ -173,7 +221,7 @@ public class OutputTest {
             .build();
     Output output = RunnerFactory.startProcess(configuration);
     String outputtoString = output.toString();
-    String expectedValue =
+    String expectedStart =
         "OutputImpl{configuration=Configuration{interpreter='"
             + interPreter
             + "', command='"
@@ -184,8 +232,47 @@ public class OutputTest {
             + workingDir.toString()
             + ", masterLogFile="
             + tempFile.getCanonicalPath()
-            + ", charset=UTF-8, autoDeleteFileOnExit=true, enableLogStreaming=true}, returnCode=0}";
-    assertThat("Output to string", outputtoString, is(expectedValue));
+            + ", charset=UTF-8, autoDeleteFileOnExit=true, enableLogStreaming=true";
+    assertThat("Output to string", outputtoString, startsWith(expectedStart));
+    assertThat("Output to string", outputtoString, endsWith("}, returnCode=0}"));
+    List<String> settings =
+        Arrays.asList(
+            "captureEngine",
+            "captureBufferCapacity",
+            "backpressurePolicy",
+            "enableStreamMerging",
+            "enableSharedLogWriter",
+            "durabilityPolicy",
+            "groupCommitRecords",
+            "groupCommitDelayMillis",
+            "masterLogFormat",
+            "enableMasterLogCompression",
+            "masterLogSegmentBytes",
+            "masterLogSegmentMillis",
+            "masterLogRetainedBytes",
+            "masterLogIoMode",
+            "enableInMemoryCapture",
+            "inMemoryCaptureRunBytes",
+            "inMemoryCaptureGlobalBytes",
+            "enableLineDictionary",
+            "enableChunkCapture",
+            "maxRecordLength",
+            "longLinePolicy",
+            "enableContinuationJoining",
+            "enableHeadTailRetention",
+            "retainedHeadRecords",
+            "retainedTailRecords",
+            "captureSampleInterval",
+            "captureRateLimit",
+            "captureRateLimitBurst",
+            "captureKeepPattern",
+            "enableCompactGrepResults");
+    for (String setting : settings) {
+      assertThat(
+          "Validating " + setting + " in output to string : ",
+          outputtoString,
+          containsString(", " + setting + "="));
+    }
   }
 
   @Test
@@ -206,4 +293,984 @@ public class OutputTest {
                   "Timestamp validation : ", outputRecord.getTimeStamp(), is(notNullValue()));
             });
   }
+
+  @Test
+  public void captureBufferWithSpillToDisk()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "largefile.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .setCaptureBuffer(16, BackpressurePolicy.SPILL_TO_DISK)
+                .build());
+    assertThat(
+        "Validating dropped lines : ",
+        output.getCaptureStatistics().getDroppedRecordCount(),
+        is(0L));
+    try (Stream<String> lines = Files.lines(output.getMasterLogAsJson().toPath())) {
+      assertThat("Validating captured lines : ", lines.count(), is(20001L));
+    }
+  }
+
+  @Test
+  public void captureBufferWithDropNewest()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "largefile.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .setCaptureBuffer(1, BackpressurePolicy.DROP_NEWEST)
+                .build());
+    try (Stream<String> lines = Files.lines(output.getMasterLogAsJson().toPath())) {
+      assertThat(
+          "Validating captured and dropped lines : ",
+          lines.count() + output.getCaptureStatistics().getDroppedRecordCount(),
+          is(20001L));
+    }
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void captureBufferWithInvalidCapacity() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setCaptureBuffer(0, BackpressurePolicy.BLOCK);
+  }
+
+  @Test
+  public void durabilityPolicyAndWriteMetrics()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException {
+    for (DurabilityPolicy durabilityPolicy : DurabilityPolicy.values()) {
+      File masterLogFile = new TempFile().createTempLogDump();
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(masterLogFile, Boolean.TRUE)
+                  .setDurabilityPolicy(durabilityPolicy)
+                  .setGroupCommit(5000, Long.MAX_VALUE)
+                  .build());
+      CaptureStatistics captureStatistics = output.getCaptureStatistics();
+      assertThat(
+          "Validating written records with " + durabilityPolicy + " : ",
+          captureStatistics.getWrittenRecordCount(),
+          is(20001L));
+      assertThat(
+          "Validating written bytes : ",
+          captureStatistics.getMasterLogWrittenBytes(),
+          is(masterLogFile.length()));
+      assertThat(
+          "Validating writes are batched : ",
+          captureStatistics.getAverageBytesPerWrite(),
+          is(greaterThan(ProcessRunnerConstants.MASTER_LOG_WRITE_BUFFER_SIZE / 4L)));
+      if (durabilityPolicy == DurabilityPolicy.NONE) {
+        assertThat("Validating no sync : ", captureStatistics.getMasterLogSyncCount(), is(0L));
+      } else if (durabilityPolicy == DurabilityPolicy.SYNC_ON_EXIT) {
+        assertThat("Validating single sync : ", captureStatistics.getMasterLogSyncCount(), is(1L));
+      } else {
+        assertThat(
+            "Validating sync per commit : ",
+            captureStatistics.getMasterLogSyncCount(),
+            is(greaterThan(0L)));
+      }
+    }
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void groupCommitWithInvalidRecords() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setGroupCommit(0, 10L);
+  }
+
+  @Test
+  public void redirectCaptureEngine()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "largefile.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .setCaptureEngine(CaptureEngine.REDIRECT)
+                .build());
+    File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+    sysOut.deleteOnExit();
+    try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+      assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+    }
+    List<OutputRecord> records = output.grepForRegex("testing for output");
+    assertThat("Validating grep : ", records.size(), is(1));
+    assertThat(
+        "Validating output source type : ",
+        records.get(0).getOutputSourceType(),
+        is(OutputSourceType.SYSERR));
+    try (Stream<String> lines = Files.lines(output.getMasterLogAsJson().toPath())) {
+      assertThat("Validating master log : ", lines.count(), is(20001L));
+    }
+  }
+
+  @Test
+  public void redirectedFilesDeletedOnRelease()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "largefile.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .setCaptureEngine(CaptureEngine.REDIRECT)
+                .build());
+    long redirectFileCount = countRedirectFiles();
+    output.release();
+    assertThat(
+        "Validating redirected files deleted : ", countRedirectFiles(), is(redirectFileCount - 2));
+    File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+    sysOut.deleteOnExit();
+    try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+      assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+    }
+    assertThat("Validating grep : ", output.grepForRegex("testing for output").size(), is(1));
+  }
+
+  private static long countRedirectFiles() throws IOException {
+    try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+      return files
+          .filter(
+              file ->
+                  file.getFileName()
+                      .toString()
+                      .startsWith(ProcessRunnerConstants.FILE_PREFIX_NAME_REDIRECT))
+          .count();
+    }
+  }
+
+  @Test
+  public void mergedStreamsKeepTheOrderOfTheOutput()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "chatty.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                  .setCaptureEngine(captureEngine)
+                  .enableStreamMerging(Boolean.TRUE)
+                  .build());
+      List<OutputRecord> records = output.grepForRegex(".*");
+      assertThat("Validating record count with " + captureEngine + " : ", records.size(), is(100));
+      for (int index = 0; index < records.size(); index++) {
+        OutputRecord outputRecord = records.get(index);
+        assertThat(
+            "Validating output source type : ",
+            outputRecord.getOutputSourceType(),
+            is(OutputSourceType.MERGED));
+        assertThat(
+            "Validating output order with " + captureEngine + " : ",
+            outputRecord.getOutputText(),
+            is((index % 2 == 0 ? "sysout line " : "syserr line ") + (index / 2 + 1)));
+      }
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(100L));
+      }
+      File sysErr = output.saveSysError(new TempFile().createTempLogDump());
+      sysErr.deleteOnExit();
+      assertThat("Validating saved syserr : ", sysErr.length(), is(0L));
+    }
+  }
+
+  @Test
+  public void readMasterLogWithEscapedAndNonAsciiOutput()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "escapes.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(
+                    new TempFile().createTempLogDump(), Boolean.TRUE, ProcessRunnerConstants.UTF_8)
+                .build());
+    assertThat(
+        "Validating escaped output : ",
+        output.grepForRegex("say.*").get(0).getOutputText(),
+        is("say \"hello\" <b> & back\\slash"));
+    assertThat(
+        "Validating non ascii output : ",
+        output.grepForRegex("caf.*").get(0).getOutputText(),
+        is("caf\u00e9 cr lf"));
+    assertThat(
+        "Validating output source type : ",
+        output.grepForRegex("syserr.*").get(0).getOutputSourceType(),
+        is(OutputSourceType.SYSERR));
+    assertThat("Validating search : ", output.searchMasterLog("plain.*"), is(Boolean.TRUE));
+    File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+    sysOut.deleteOnExit();
+    assertThat(
+        "Validating saved sysout : ",
+        Files.readAllLines(sysOut.toPath(), ProcessRunnerConstants.UTF_8),
+        is(Arrays.asList("plain line", "say \"hello\" <b> & back\\slash", "caf\u00e9 cr lf")));
+  }
+
+  @Test
+  public void binaryMasterLogFormat()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      File masterLogFile = new TempFile().createTempLogDump();
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(
+                      masterLogFile,
+                      Boolean.TRUE,
+                      ProcessRunnerConstants.UTF_8,
+                      MasterLogFormat.BINARY)
+                  .setCaptureEngine(captureEngine)
+                  .build());
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep with " + captureEngine + " : ", records.size(), is(1));
+      assertThat(
+          "Validating output source type : ",
+          records.get(0).getOutputSourceType(),
+          is(OutputSourceType.SYSERR));
+      assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      File masterLogAsJson = output.getMasterLogAsJson();
+      try (Stream<String> lines = Files.lines(masterLogAsJson.toPath())) {
+        assertThat("Validating converted master log : ", lines.count(), is(20001L));
+      }
+      assertThat(
+          "Validating binary master log is smaller : ",
+          masterLogFile.length(),
+          is(lessThan(masterLogAsJson.length())));
+    }
+  }
+
+  @Test
+  public void blockCompressedMasterLog()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      File masterLogFile = new TempFile().createTempLogDump();
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(masterLogFile, Boolean.TRUE, ProcessRunnerConstants.UTF_8)
+                  .setCaptureEngine(captureEngine)
+                  .enableMasterLogCompression(Boolean.TRUE)
+                  .build());
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep with " + captureEngine + " : ", records.size(), is(1));
+      assertThat(
+          "Validating output source type : ",
+          records.get(0).getOutputSourceType(),
+          is(OutputSourceType.SYSERR));
+      assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+      assertThat(
+          "Validating failed search : ", output.searchMasterLog("absent"), is(Boolean.FALSE));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      File masterLogAsJson = output.getMasterLogAsJson();
+      try (Stream<String> lines = Files.lines(masterLogAsJson.toPath())) {
+        assertThat("Validating converted master log : ", lines.count(), is(20001L));
+      }
+      assertThat(
+          "Validating compressed master log is smaller : ",
+          masterLogFile.length() * 4,
+          is(lessThan(masterLogAsJson.length())));
+      if (captureEngine != CaptureEngine.REDIRECT) {
+        assertThat(
+            "Validating compression ratio : ",
+            output.getCaptureStatistics().getMasterLogCompressionRatio() > 4.0d,
+            is(Boolean.TRUE));
+      }
+    }
+  }
+
+  @Test
+  public void segmentedMasterLog()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      File masterLogFile = new TempFile().createTempLogDump();
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(masterLogFile, Boolean.TRUE, ProcessRunnerConstants.UTF_8)
+                  .setCaptureEngine(captureEngine)
+                  .enableMasterLogCompression(captureEngine == CaptureEngine.REACTOR)
+                  .setMasterLogSegments(
+                      captureEngine == CaptureEngine.REACTOR ? 16 * 1024 : 1024 * 1024, 0L, 0L)
+                  .build());
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep with " + captureEngine + " : ", records.size(), is(1));
+      assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+      assertThat(
+          "Validating failed search : ", output.searchMasterLog("absent"), is(Boolean.FALSE));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      File masterLogAsJson = output.getMasterLogAsJson();
+      try (Stream<String> lines = Files.lines(masterLogAsJson.toPath())) {
+        assertThat("Validating converted master log : ", lines.count(), is(20001L));
+      }
+      List<String> segmentNames = Files.readAllLines(masterLogFile.toPath());
+      assertThat("Validating segment count : ", segmentNames.size() > 1, is(Boolean.TRUE));
+      for (String segmentName : segmentNames) {
+        assertThat(
+            "Validating segment exists : ",
+            new File(masterLogFile.getParentFile(), segmentName).exists(),
+            is(Boolean.TRUE));
+      }
+    }
+  }
+
+  @Test
+  public void segmentedMasterLogWithRetention()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    File masterLogFile = new TempFile().createTempLogDump();
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "largefile.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(masterLogFile, Boolean.TRUE, ProcessRunnerConstants.UTF_8)
+                .setMasterLogSegments(1024 * 1024, 0L, 2 * 1024 * 1024)
+                .build());
+    List<String> segmentNames = Files.readAllLines(masterLogFile.toPath());
+    File firstSegment = new File(masterLogFile.getAbsolutePath() + ".000000");
+    assertThat("Validating oldest segment deleted : ", firstSegment.exists(), is(Boolean.FALSE));
+    long retainedBytes = 0L;
+    for (String segmentName : segmentNames.subList(0, segmentNames.size() - 1)) {
+      retainedBytes += new File(masterLogFile.getParentFile(), segmentName).length();
+    }
+    assertThat(
+        "Validating retained size : ", retainedBytes <= 2 * 1024 * 1024, is(Boolean.TRUE));
+    File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+    sysOut.deleteOnExit();
+    try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+      long lineCount = lines.count();
+      assertThat("Validating lines lost : ", lineCount < 20000L, is(Boolean.TRUE));
+      assertThat("Validating lines kept : ", lineCount > 0L, is(Boolean.TRUE));
+    }
+    assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+  }
+
+  @Test
+  public void memoryMappedMasterLog()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      MasterLogFormat masterLogFormat =
+          captureEngine == CaptureEngine.REACTOR ? MasterLogFormat.BINARY : MasterLogFormat.JSON;
+      File masterLogFile = new TempFile().createTempLogDump();
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(
+                      masterLogFile, Boolean.TRUE, ProcessRunnerConstants.UTF_8, masterLogFormat)
+                  .setCaptureEngine(captureEngine)
+                  .setMasterLogIoMode(MasterLogIoMode.MEMORY_MAPPED)
+                  .build());
+      assertThat(
+          "Validating mapped file cut to size with " + captureEngine + " : ",
+          masterLogFile.length(),
+          is(lessThan((long) ProcessRunnerConstants.MASTER_LOG_MAP_REGION_SIZE)));
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep with " + captureEngine + " : ", records.size(), is(1));
+      assertThat(
+          "Validating output source type : ",
+          records.get(0).getOutputSourceType(),
+          is(OutputSourceType.SYSERR));
+      assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+      assertThat(
+          "Validating failed search : ", output.searchMasterLog("absent"), is(Boolean.FALSE));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      File masterLogAsJson = output.getMasterLogAsJson();
+      try (Stream<String> lines = Files.lines(masterLogAsJson.toPath())) {
+        assertThat("Validating converted master log : ", lines.count(), is(20001L));
+      }
+    }
+  }
+
+  @Test
+  public void directMasterLog()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      File masterLogFile = new TempFile().createTempLogDump();
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(masterLogFile, Boolean.TRUE, ProcessRunnerConstants.UTF_8)
+                  .setCaptureEngine(captureEngine)
+                  .setDurabilityPolicy(DurabilityPolicy.SYNC_ON_COMMIT)
+                  .setMasterLogIoMode(MasterLogIoMode.DIRECT)
+                  .build());
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep with " + captureEngine + " : ", records.size(), is(1));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      try (Stream<String> lines = Files.lines(output.getMasterLogAsJson().toPath())) {
+        assertThat("Validating master log : ", lines.count(), is(20001L));
+      }
+    }
+  }
+
+  @Test
+  public void inMemoryCapture()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      if (captureEngine == CaptureEngine.REDIRECT) {
+        continue;
+      }
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setCaptureEngine(captureEngine)
+                  .enableInMemoryCapture(Boolean.TRUE)
+                  .build());
+      assertThat(
+          "Validating records kept with " + captureEngine + " : ",
+          output.getCaptureStatistics().getWrittenRecordCount(),
+          is(20001L));
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep with " + captureEngine + " : ", records.size(), is(1));
+      assertThat(
+          "Validating output source type : ",
+          records.get(0).getOutputSourceType(),
+          is(OutputSourceType.SYSERR));
+      assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+      assertThat(
+          "Validating failed search : ", output.searchMasterLog("absent"), is(Boolean.FALSE));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      try (Stream<String> lines = Files.lines(output.getMasterLogAsJson().toPath())) {
+        assertThat("Validating master log : ", lines.count(), is(20001L));
+      }
+    }
+  }
+
+  @Test
+  public void inMemoryCaptureWithinBudget()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (long runBytes : new long[] {64 * 1024L, 64 * 1024 * 1024L}) {
+      File masterLogFile = new TempFile().createTempLogDump();
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(masterLogFile, Boolean.TRUE, ProcessRunnerConstants.UTF_8)
+                  .setInMemoryCaptureBudget(runBytes, 0L)
+                  .build());
+      assertThat(
+          "Validating master log file spilled to over " + runBytes + " bytes : ",
+          masterLogFile.length() > 0L,
+          is(runBytes < 1024 * 1024L));
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep : ", records.size(), is(1));
+      assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      try (Stream<String> lines = Files.lines(output.getMasterLogAsJson().toPath())) {
+        assertThat("Validating master log : ", lines.count(), is(20001L));
+      }
+    }
+  }
+
+  @Test
+  public void lineDictionary()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    File plainMasterLogFile = new TempFile().createTempLogDump();
+    RunnerFactory.startProcess(
+        new ConfigBuilder("bash", "largefile.sh")
+            .setWorkigDir(getShellScriptDir())
+            .setMasterLogFile(
+                plainMasterLogFile,
+                Boolean.TRUE,
+                ProcessRunnerConstants.UTF_8,
+                MasterLogFormat.BINARY)
+            .build());
+    for (boolean inMemoryCapture : new boolean[] {false, true}) {
+      File masterLogFile = new TempFile().createTempLogDump();
+      ConfigBuilder configBuilder =
+          new ConfigBuilder("bash", "largefile.sh")
+              .setWorkigDir(getShellScriptDir())
+              .enableLineDictionary(Boolean.TRUE)
+              .enableInMemoryCapture(inMemoryCapture);
+      if (!inMemoryCapture) {
+        configBuilder.setMasterLogFile(
+            masterLogFile, Boolean.TRUE, ProcessRunnerConstants.UTF_8, MasterLogFormat.BINARY);
+      }
+      Output output = RunnerFactory.startProcess(configBuilder.build());
+      List<OutputRecord> records = output.grepForRegex("testing for output");
+      assertThat("Validating grep in memory " + inMemoryCapture + " : ", records.size(), is(1));
+      assertThat(
+          "Validating output source type : ",
+          records.get(0).getOutputSourceType(),
+          is(OutputSourceType.SYSERR));
+      assertThat(
+          "Validating grep of the recurring line : ",
+          output.grepForRegex("The World Cyber Games.*").size(),
+          is(10000));
+      assertThat("Validating search : ", output.searchMasterLog("testing.*"), is(Boolean.TRUE));
+      assertThat(
+          "Validating failed search : ", output.searchMasterLog("absent"), is(Boolean.FALSE));
+      File sysOut = output.saveSysOut(new TempFile().createTempLogDump());
+      sysOut.deleteOnExit();
+      try (Stream<String> lines = Files.lines(sysOut.toPath())) {
+        assertThat("Validating saved sysout : ", lines.count(), is(20000L));
+      }
+      try (Stream<String> lines = Files.lines(output.getMasterLogAsJson().toPath())) {
+        assertThat("Validating master log : ", lines.count(), is(20001L));
+      }
+      if (!inMemoryCapture) {
+        assertThat(
+            "Validating master log with line dictionary is smaller : ",
+            masterLogFile.length() * 3,
+            is(lessThan(plainMasterLogFile.length() * 2)));
+      }
+    }
+  }
+
+  @Test
+  public void recordsAreNumberedAndTimestamped()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      long start = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(
+                      new TempFile().createTempLogDump(),
+                      Boolean.TRUE,
+                      ProcessRunnerConstants.UTF_8,
+                      MasterLogFormat.BINARY)
+                  .setCaptureEngine(captureEngine)
+                  .build());
+      //
+      // The redirected files are only read, and timestamped, when the master log is first needed.
+      //
+      List<OutputRecord> records = output.grepForRegex(".*");
+      long end = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() + 3);
+      assertThat("Validating " + captureEngine + " records : ", records.size(), is(20001));
+      for (int index = 0; index < records.size(); index++) {
+        OutputRecord record = records.get(index);
+        assertThat("Validating sequence : ", record.getSequence(), is(index + 1L));
+        assertThat(
+            "Validating timestamp : ",
+            record.getTimeStamp() >= start && record.getTimeStamp() <= end,
+            is(Boolean.TRUE));
+      }
+    }
+  }
+
+  @Test
+  public void chunkCapture()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    for (String percent : new String[] {"0", "25", "50", "75", "100"}) {
+      expected.write(("\rprogress " + percent + "%").getBytes(ProcessRunnerConstants.UTF_8));
+    }
+    expected.write('\n');
+    for (int counter = 0; counter < 300; counter++) {
+      for (int value = 0; value < 256; value++) {
+        expected.write(value);
+      }
+    }
+    for (CaptureEngine captureEngine :
+        new CaptureEngine[] {CaptureEngine.THREAD_PER_STREAM, CaptureEngine.REACTOR}) {
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "binary.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                  .enableChunkCapture(Boolean.TRUE)
+                  .setCaptureEngine(captureEngine)
+                  .build());
+      assertThat("Validating return code : ", output.getReturnCode(), is(0));
+      File sysOut = new TempFile().createTempLogDump();
+      output.saveSysOut(sysOut);
+      assertThat(
+          "Validating " + captureEngine + " sysout bytes : ",
+          Arrays.equals(Files.readAllBytes(sysOut.toPath()), expected.toByteArray()),
+          is(Boolean.TRUE));
+      ByteArrayOutputStream channelBytes = new ByteArrayOutputStream();
+      ByteBuffer buffer = ByteBuffer.allocate(4096);
+      try (ReadableByteChannel channel = output.openChannel(OutputSourceType.SYSOUT)) {
+        while (channel.read(buffer) != -1) {
+          channelBytes.write(buffer.array(), 0, buffer.position());
+          buffer.clear();
+        }
+      }
+      assertThat(
+          "Validating channel bytes : ",
+          Arrays.equals(channelBytes.toByteArray(), expected.toByteArray()),
+          is(Boolean.TRUE));
+      long sysOutOffset = 0;
+      try (ChunkLogReader chunkLogReader = output.openChunkReader()) {
+        while (chunkLogReader.next()) {
+          if (chunkLogReader.getOutputSourceType() == OutputSourceType.SYSOUT) {
+            assertThat("Validating offset : ", chunkLogReader.getOffset(), is(sysOutOffset));
+            sysOutOffset += chunkLogReader.getLength();
+          }
+        }
+      }
+      assertThat("Validating sysout length : ", sysOutOffset, is((long) expected.size()));
+      List<OutputRecord> records = output.grepForRegex("binary done");
+      assertThat("Validating grep : ", records.size(), is(1));
+      assertThat(
+          "Validating grep source : ",
+          records.get(0).getOutputSourceType(),
+          is(OutputSourceType.SYSERR));
+      assertThat(
+          "Validating search : ", output.searchMasterLog("progress 100%"), is(Boolean.TRUE));
+    }
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void openChannelWithoutChunkCapture()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "echo Hi")
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .build())
+        .openChannel(OutputSourceType.SYSOUT);
+  }
+
+  @Test
+  public void longLinesAreSplit()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "longline.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                  .setMaxRecordLength(64 * 1024, LongLinePolicy.SPLIT)
+                  .setCaptureEngine(captureEngine)
+                  .build());
+      List<OutputRecord> records = output.grepForRegex("x.*");
+      assertThat("Validating " + captureEngine + " records : ", records.size(), is(5));
+      for (OutputRecord record : records.subList(0, 4)) {
+        assertThat(
+            "Validating continued record : ",
+            record.getOutputText().length(),
+            is(64 * 1024));
+      }
+      assertThat(
+          "Validating long lines : ", output.getCaptureStatistics().getLongLineCount(), is(1L));
+      File sysOut = new TempFile().createTempLogDump();
+      output.saveSysOut(sysOut);
+      List<String> lines = Files.readAllLines(sysOut.toPath());
+      assertThat("Validating saved lines : ", lines.size(), is(2));
+      assertThat("Validating saved long line : ", lines.get(0).length(), is(300_000));
+      assertThat("Validating saved short line : ", lines.get(1), is("short line"));
+    }
+  }
+
+  @Test
+  public void nulCharactersAreKeptWhenSaved()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (MasterLogFormat masterLogFormat : MasterLogFormat.values()) {
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("printf", "a\\0\\nb\\n")
+                  .setMasterLogFile(
+                      new TempFile().createTempLogDump(),
+                      Boolean.TRUE,
+                      ProcessRunnerConstants.UTF_8,
+                      masterLogFormat)
+                  .setMaxRecordLength(64 * 1024, LongLinePolicy.SPLIT)
+                  .build());
+      File sysOut = new TempFile().createTempLogDump();
+      output.saveSysOut(sysOut);
+      assertThat(
+          "Validating " + masterLogFormat + " sysout : ",
+          new String(Files.readAllBytes(sysOut.toPath()), ProcessRunnerConstants.UTF_8),
+          is("a\u0000\nb\n"));
+    }
+  }
+
+  @Test
+  public void longLinesAreJoinedWhenSearched()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "longline.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(
+                    new TempFile().createTempLogDump(),
+                    Boolean.TRUE,
+                    ProcessRunnerConstants.UTF_8,
+                    MasterLogFormat.BINARY)
+                .setMaxRecordLength(64 * 1024, LongLinePolicy.SPLIT)
+                .enableContinuationJoining(Boolean.TRUE)
+                .build());
+    List<OutputRecord> records = output.grepForRegex("^x{300000}$");
+    assertThat("Validating joined records : ", records.size(), is(1));
+    assertThat("Validating sequence : ", records.get(0).getSequence(), is(1L));
+    assertThat(
+        "Validating search : ", output.searchMasterLog("^x{300000}$"), is(Boolean.TRUE));
+  }
+
+  @Test
+  public void longLinesAreTruncated()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "longline.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .setMaxRecordLength(1000, LongLinePolicy.TRUNCATE)
+                .build());
+    List<OutputRecord> records = output.grepForRegex("x.*");
+    assertThat("Validating records : ", records.size(), is(1));
+    assertThat(
+        "Validating truncated record : ",
+        records.get(0).getOutputText().endsWith("x...[299000 bytes truncated]"),
+        is(Boolean.TRUE));
+    assertThat(
+        "Validating truncated bytes : ",
+        output.getCaptureStatistics().getTruncatedByteCount(),
+        is(299_000L));
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void maxRecordLengthOfNoSize() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "longline.sh").setMaxRecordLength(0, LongLinePolicy.SPLIT);
+  }
+
+  @Test
+  public void headAndTailRetention()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      if (captureEngine == CaptureEngine.REDIRECT) {
+        continue;
+      }
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setCaptureEngine(captureEngine)
+                  .setHeadTailRetention(100, 1000)
+                  .build());
+      List<OutputRecord> head = output.getHead();
+      assertThat("Validating head : ", head.size(), is(100));
+      assertThat("Validating first record : ", head.get(0).getSequence(), is(1L));
+      List<OutputRecord> tail = output.getTail();
+      assertThat("Validating tail : ", tail.size(), is(1000));
+      assertThat("Validating last record : ", tail.get(999).getSequence(), is(20001L));
+      CaptureStatistics captureStatistics = output.getCaptureStatistics();
+      assertThat(
+          "Validating skipped records : ", captureStatistics.getSkippedRecordCount(), is(18901L));
+      assertThat(
+          "Validating kept records : ", captureStatistics.getWrittenRecordCount(), is(1100L));
+      assertThat("Validating writer lag : ", captureStatistics.getWriterLag(), is(0L));
+      assertThat(
+          "Validating grep : ", output.grepForRegex("testing for output").size(), is(1));
+      File log = output.saveLog(new TempFile().createTempLogDump());
+      log.deleteOnExit();
+      try (Stream<String> lines = Files.lines(log.toPath())) {
+        assertThat("Validating saved log : ", lines.count(), is(1100L));
+      }
+    }
+  }
+
+  @Test
+  public void captureSampling()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    for (CaptureEngine captureEngine : CaptureEngine.values()) {
+      if (captureEngine == CaptureEngine.REDIRECT) {
+        continue;
+      }
+      Output output =
+          RunnerFactory.startProcess(
+              new ConfigBuilder("bash", "largefile.sh")
+                  .setWorkigDir(getShellScriptDir())
+                  .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                  .setCaptureEngine(captureEngine)
+                  .setCaptureSampleInterval(100)
+                  .setCaptureKeepPattern("1000 The World.*")
+                  .build());
+      CaptureStatistics captureStatistics = output.getCaptureStatistics();
+      assertThat(
+          "Validating sampled out records with " + captureEngine + " : ",
+          captureStatistics.getSampledOutRecordCount(),
+          is(19799L));
+      assertThat(
+          "Validating captured records : ", captureStatistics.getCapturedRecordCount(), is(202L));
+      assertThat(
+          "Validating window drops : ",
+          droppedInWindows(captureStatistics),
+          is(captureStatistics.getSampledOutRecordCount()));
+      assertThat(
+          "Validating kept pattern : ", output.grepForRegex("1000 The World.*").size(), is(1));
+      assertThat(
+          "Validating syserr kept : ", output.grepForRegex("testing for output").size(), is(1));
+    }
+  }
+
+  @Test
+  public void captureRateLimit()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    Output output =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "largefile.sh")
+                .setWorkigDir(getShellScriptDir())
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .setCaptureRateLimit(1000, 100)
+                .build());
+    CaptureStatistics captureStatistics = output.getCaptureStatistics();
+    long sampledOutRecordCount = captureStatistics.getSampledOutRecordCount();
+    assertThat("Validating sampled out records : ", sampledOutRecordCount, greaterThan(0L));
+    assertThat(
+        "Validating all records accounted for : ",
+        captureStatistics.getCapturedRecordCount() + sampledOutRecordCount,
+        is(20001L));
+    assertThat(
+        "Validating window drops : ",
+        droppedInWindows(captureStatistics),
+        is(sampledOutRecordCount));
+    for (SamplingWindow samplingWindow : captureStatistics.getSamplingWindows()) {
+      assertThat(
+          "Validating sampled stream : ",
+          samplingWindow.getOutputSourceType(),
+          is(OutputSourceType.SYSOUT));
+    }
+    assertThat(
+        "Validating syserr kept : ", output.grepForRegex("testing for output").size(), is(1));
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void captureSampleIntervalOfZero() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setCaptureSampleInterval(0);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void captureKeepPatternNotARegex() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setCaptureKeepPattern("(");
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void captureSamplingOfMergedStreams() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh")
+        .enableStreamMerging(Boolean.TRUE)
+        .setCaptureSampleInterval(100);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void streamMergingOfRateLimitedCapture() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh")
+        .setCaptureRateLimit(1000, 100)
+        .enableStreamMerging(Boolean.TRUE);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void headWithoutHeadTailRetention()
+      throws ProcessConfigurationException, InterruptedException, ExecutionException, IOException,
+          ProcessException {
+    RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "echo Hi")
+                .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+                .build())
+        .getHead();
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void headTailRetentionOfNoRecords() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setHeadTailRetention(0, 0);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void headTailRetentionWithMasterLogFile()
+      throws ProcessConfigurationException, IOException {
+    new ConfigBuilder("bash", "largefile.sh")
+        .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE)
+        .setHeadTailRetention(100, 1000);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void masterLogFileWithHeadTailRetention()
+      throws ProcessConfigurationException, IOException {
+    new ConfigBuilder("bash", "largefile.sh")
+        .setHeadTailRetention(100, 1000)
+        .setMasterLogFile(new TempFile().createTempLogDump(), Boolean.TRUE);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void inMemoryCaptureWithoutBudget() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setInMemoryCaptureBudget(0L, 0L);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void masterLogWithoutIoMode() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setMasterLogIoMode(null);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void masterLogSegmentsOfNoSize() throws ProcessConfigurationException {
+    new ConfigBuilder("bash", "largefile.sh").setMasterLogSegments(0L, 1000L, 0L);
+  }
+
+  @Test(expected = ProcessConfigurationException.class)
+  public void masterLogWithoutFormat() throws ProcessConfigurationException, IOException {
+    new ConfigBuilder("bash", "largefile.sh")
+        .setMasterLogFile(
+            new TempFile().createTempLogDump(), Boolean.TRUE, ProcessRunnerConstants.UTF_8, null);
+  }
+
+  private static Path getShellScriptDir() {
+    return Paths.get(ProcessRunnerConstants.USER_DIR, "src", "test", "scripts", "shell");
+  }
+
+  private static long droppedInWindows(CaptureStatistics captureStatistics) {
+    long dropped = 0L;
+    for (SamplingWindow samplingWindow : captureStatistics.getSamplingWindows()) {
+      dropped += samplingWindow.getDroppedRecordCount();
+    }
+    return dropped;
+  }
 }
@@ -0,0 +1,199 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+public class CaptureBufferTest {
+
+  @Test
+  public void dropNewestKeepsTheOldestRecords() throws InterruptedException, IOException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(2, BackpressurePolicy.DROP_NEWEST, 1, captureStatistics);
+    addLines(captureBuffer, 5);
+    captureBuffer.endOfStream();
+    assertThat("Validating retained records : ", drain(captureBuffer), is(lines(0, 1)));
+    assertThat(
+        "Validating dropped record count : ", captureStatistics.getDroppedRecordCount(), is(3L));
+  }
+
+  @Test
+  public void dropOldestKeepsTheNewestRecords() throws InterruptedException, IOException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(2, BackpressurePolicy.DROP_OLDEST, 1, captureStatistics);
+    addLines(captureBuffer, 5);
+    captureBuffer.endOfStream();
+    assertThat("Validating retained records : ", drain(captureBuffer), is(lines(3, 4)));
+    assertThat(
+        "Validating dropped record count : ", captureStatistics.getDroppedRecordCount(), is(3L));
+  }
+
+  @Test
+  public void droppedRecordsLeaveSequenceGaps() throws InterruptedException, IOException {
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(2, BackpressurePolicy.DROP_OLDEST, 1, new CaptureStatistics());
+    addLines(captureBuffer, 5);
+    captureBuffer.endOfStream();
+    List<Long> sequences = new ArrayList<>();
+    int drained;
+    do {
+      drained =
+          captureBuffer.drainTo(
+              (sequence, timeStamp, type, text, continued) -> sequences.add(sequence), 3);
+    } while (drained != -1);
+    assertThat("Validating sequences : ", sequences, is(Arrays.asList(4L, 5L)));
+  }
+
+  @Test
+  public void spilledRecordsKeepTheirSequence() throws InterruptedException, IOException {
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(2, BackpressurePolicy.SPILL_TO_DISK, 1, new CaptureStatistics());
+    addLines(captureBuffer, 5);
+    captureBuffer.endOfStream();
+    List<Long> sequences = new ArrayList<>();
+    int drained;
+    do {
+      drained =
+          captureBuffer.drainTo(
+              (sequence, timeStamp, type, text, continued) -> sequences.add(sequence), 3);
+    } while (drained != -1);
+    assertThat("Validating sequences : ", sequences, is(Arrays.asList(1L, 2L, 3L, 4L, 5L)));
+  }
+
+  @Test
+  public void spillToDiskKeepsEveryRecordInOrder() throws InterruptedException, IOException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(2, BackpressurePolicy.SPILL_TO_DISK, 1, captureStatistics);
+    addLines(captureBuffer, 5);
+    List<String> records = new ArrayList<>();
+    captureBuffer.drainTo((sequence, timeStamp, type, text, continued) -> records.add(text), 1);
+    addLines(captureBuffer, 5);
+    captureBuffer.endOfStream();
+    records.addAll(drain(captureBuffer));
+    assertThat("Validating record order : ", records, is(lines(0, 1, 2, 3, 4, 0, 1, 2, 3, 4)));
+    assertThat(
+        "Validating dropped record count : ", captureStatistics.getDroppedRecordCount(), is(0L));
+    assertThat(
+        "Validating spilled record count : ", captureStatistics.getSpilledRecordCount(), is(8L));
+  }
+
+  @Test
+  public void blockWaitsForTheWriter()
+      throws InterruptedException, IOException, ExecutionException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(1, BackpressurePolicy.BLOCK, 1, captureStatistics);
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    Future<?> reader =
+        executorService.submit(
+            () -> {
+              addLines(captureBuffer, 100);
+              captureBuffer.endOfStream();
+              return null;
+            });
+    assertThat("Validating all records delivered : ", drain(captureBuffer).size(), is(100));
+    reader.get();
+    executorService.shutdown();
+    assertThat(
+        "Validating buffer is emptied : ", captureBuffer.remainingCapacity(), is(1));
+    assertThat(
+        "Validating dropped record count : ", captureStatistics.getDroppedRecordCount(), is(0L));
+  }
+
+  @Test
+  public void blockDropsOnceTheWriterFails()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(1, BackpressurePolicy.BLOCK, 1, captureStatistics);
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    Future<?> reader =
+        executorService.submit(
+            () -> {
+              addLines(captureBuffer, 100);
+              captureBuffer.endOfStream();
+              return null;
+            });
+    try {
+      captureBuffer.drainTo(
+          (sequence, timeStamp, type, text, continued) -> {
+            throw new IOException("No space left on device");
+          },
+          3);
+    } catch (IOException ex) {
+      captureBuffer.abandon();
+    }
+    reader.get(5, TimeUnit.SECONDS);
+    executorService.shutdown();
+    assertThat(
+        "Validating dropped record count : ",
+        captureStatistics.getDroppedRecordCount(),
+        is(greaterThanOrEqualTo(98L)));
+  }
+
+  @Test
+  public void pollDoesNotWaitForRecords() throws InterruptedException, IOException {
+    CaptureBuffer captureBuffer =
+        new CaptureBuffer(2, BackpressurePolicy.SPILL_TO_DISK, 1, new CaptureStatistics());
+    List<String> records = new ArrayList<>();
+    RecordHandoff.RecordConsumer recordConsumer =
+        (sequence, timeStamp, type, text, continued) -> records.add(text);
+    assertThat("Validating empty poll : ", captureBuffer.pollTo(recordConsumer, 10), is(0));
+    addLines(captureBuffer, 4);
+    assertThat("Validating memory poll : ", captureBuffer.pollTo(recordConsumer, 10), is(2));
+    assertThat("Validating spill poll : ", captureBuffer.pollTo(recordConsumer, 10), is(2));
+    captureBuffer.endOfStream();
+    int polled;
+    do {
+      polled = captureBuffer.pollTo(recordConsumer, 10);
+    } while (polled == 0);
+    assertThat("Validating ended poll : ", polled, is(-1));
+    assertThat("Validating polled records : ", records, is(lines(0, 1, 2, 3)));
+  }
+
+  private static void addLines(CaptureBuffer captureBuffer, int count)
+      throws InterruptedException {
+    for (int counter = 0; counter < count; counter++) {
+      captureBuffer.add(
+          OutputSourceType.SYSOUT, Collections.singletonList(String.valueOf(counter)));
+    }
+  }
+
+  private static List<String> drain(CaptureBuffer captureBuffer)
+      throws InterruptedException, IOException {
+    List<String> records = new ArrayList<>();
+    int drained;
+    do {
+      drained =
+          captureBuffer.drainTo(
+              (sequence, timeStamp, type, text, continued) -> records.add(text), 3);
+    } while (drained != -1);
+    return records;
+  }
+
+  private static List<String> lines(Integer... numbers) {
+    List<String> lines = new ArrayList<>();
+    for (Integer number : numbers) {
+      lines.add(String.valueOf(number));
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,151 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.LongLinePolicy;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class LineSplitterTest {
+
+  //
+  // Appended to the lines flagged as continued, the way a shell marks a continued line.
+  //
+  private static final String CONTINUED = "\\";
+
+  @Test
+  public void splitsOnEveryLineSeparator() {
+    assertThat(
+        "Validating lines : ",
+        split(StandardCharsets.UTF_8, 1024, "a\nb\r\nc\rd\r\r\ne"),
+        is(Arrays.asList("a", "b", "c", "d", "", "e")));
+  }
+
+  @Test
+  public void joinsLinesSplitAcrossChunks() {
+    for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+      assertThat(
+          "Validating lines with chunk size " + chunkSize + " : ",
+          split(StandardCharsets.UTF_8, chunkSize, "first\r\nsecond\n\nthird\rlast"),
+          is(Arrays.asList("first", "second", "", "third", "last")));
+    }
+  }
+
+  @Test
+  public void decodesMultiByteCharactersSplitAcrossChunks() {
+    assertThat(
+        "Validating lines : ",
+        split(StandardCharsets.UTF_8, 1, "h\u00e9llo \u20ac\nna\u00efve\n"),
+        is(Arrays.asList("h\u00e9llo \u20ac", "na\u00efve")));
+  }
+
+  @Test
+  public void decodesWithTheGivenCharset() {
+    assertThat(
+        "Validating lines : ",
+        split(StandardCharsets.ISO_8859_1, 1024, "caf\u00e9\n"),
+        is(Arrays.asList("caf\u00e9")));
+  }
+
+  @Test
+  public void countsLines() {
+    LineSplitter lineSplitter = new LineSplitter(StandardCharsets.UTF_8, lines -> {});
+    byte[] bytes = "a\nb\nc".getBytes(StandardCharsets.UTF_8);
+    lineSplitter.split(bytes, 0, bytes.length);
+    assertThat("Validating line count : ", lineSplitter.getLineCount(), is(2));
+    lineSplitter.finish();
+    assertThat("Validating line count : ", lineSplitter.getLineCount(), is(3));
+  }
+
+  @Test
+  public void supportsAsciiCompatibleCharsetsOnly() {
+    assertThat("Validating UTF-8 : ", LineSplitter.supports(StandardCharsets.UTF_8), is(true));
+    assertThat(
+        "Validating ISO-8859-1 : ", LineSplitter.supports(StandardCharsets.ISO_8859_1), is(true));
+    assertThat("Validating UTF-16 : ", LineSplitter.supports(StandardCharsets.UTF_16), is(false));
+  }
+
+  @Test
+  public void splitsLongLines() {
+    for (int chunkSize = 1; chunkSize < 12; chunkSize++) {
+      CaptureStatistics captureStatistics = new CaptureStatistics();
+      assertThat(
+          "Validating lines with chunk size " + chunkSize + " : ",
+          split(4, LongLinePolicy.SPLIT, captureStatistics, chunkSize, "abcdefghij\nabcd\nxy"),
+          is(Arrays.asList("abcd" + CONTINUED, "efgh" + CONTINUED, "ij", "abcd", "xy")));
+      assertThat("Validating long lines : ", captureStatistics.getLongLineCount(), is(1L));
+    }
+  }
+
+  @Test
+  public void splitsLongLinesBeforeACharacter() {
+    assertThat(
+        "Validating lines : ",
+        split(4, LongLinePolicy.SPLIT, new CaptureStatistics(), 1024, "abc\u00e9z\n"),
+        is(Arrays.asList("abc" + CONTINUED, "\u00e9z")));
+    assertThat(
+        "Validating lines : ",
+        split(4, LongLinePolicy.SPLIT, new CaptureStatistics(), 1, "ab\u00e9\u00e9z"),
+        is(Arrays.asList("ab\u00e9" + CONTINUED, "\u00e9z")));
+  }
+
+  @Test
+  public void truncatesLongLines() {
+    for (int chunkSize = 1; chunkSize < 12; chunkSize++) {
+      CaptureStatistics captureStatistics = new CaptureStatistics();
+      assertThat(
+          "Validating lines with chunk size " + chunkSize + " : ",
+          split(
+              4,
+              LongLinePolicy.TRUNCATE,
+              captureStatistics,
+              chunkSize,
+              "abcdefghij\nxy\nabc\u00e9z"),
+          is(Arrays.asList("abcd...[6 bytes truncated]", "xy", "abc...[3 bytes truncated]")));
+      assertThat("Validating long lines : ", captureStatistics.getLongLineCount(), is(2L));
+      assertThat(
+          "Validating truncated bytes : ", captureStatistics.getTruncatedByteCount(), is(9L));
+    }
+  }
+
+  private static List<String> split(Charset charset, int chunkSize, String text) {
+    List<String> result = new ArrayList<>();
+    byte[] bytes = text.getBytes(charset);
+    return split(new LineSplitter(charset, result::addAll), result, chunkSize, bytes);
+  }
+
+  private static List<String> split(
+      int maxLineLength,
+      LongLinePolicy longLinePolicy,
+      CaptureStatistics captureStatistics,
+      int chunkSize,
+      String text) {
+    List<String> result = new ArrayList<>();
+    LineSplitter lineSplitter =
+        new LineSplitter(
+            StandardCharsets.UTF_8,
+            maxLineLength,
+            longLinePolicy,
+            captureStatistics,
+            (lines, continuedLines) -> {
+              for (int index = 0; index < lines.size(); index++) {
+                result.add(lines.get(index) + (continuedLines.get(index) ? CONTINUED : ""));
+              }
+            });
+    return split(lineSplitter, result, chunkSize, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<String> split(
+      LineSplitter lineSplitter, List<String> result, int chunkSize, byte[] bytes) {
+    for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+      lineSplitter.split(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+    }
+    lineSplitter.finish();
+    return result;
+  }
+}
@@ -0,0 +1,204 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.BackpressurePolicy;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+public class RecordRingBufferTest {
+
+  @Test
+  public void capacityIsRoundedUpToPowerOfTwo() {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    assertThat(
+        "Validating capacity : ",
+        new RecordRingBuffer(1, BackpressurePolicy.BLOCK, 1, captureStatistics).getCapacity(),
+        is(1));
+    assertThat(
+        "Validating capacity : ",
+        new RecordRingBuffer(64, BackpressurePolicy.BLOCK, 1, captureStatistics).getCapacity(),
+        is(64));
+    assertThat(
+        "Validating capacity : ",
+        new RecordRingBuffer(100, BackpressurePolicy.BLOCK, 1, captureStatistics).getCapacity(),
+        is(128));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void spillToDiskIsNotSupported() {
+    new RecordRingBuffer(16, BackpressurePolicy.SPILL_TO_DISK, 1, new CaptureStatistics());
+  }
+
+  @Test
+  public void dropNewestKeepsTheOldestRecords() throws InterruptedException, IOException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    RecordRingBuffer recordRingBuffer =
+        new RecordRingBuffer(4, BackpressurePolicy.DROP_NEWEST, 1, captureStatistics);
+    recordRingBuffer.add(OutputSourceType.SYSOUT, lines("a", 0, 3));
+    recordRingBuffer.add(OutputSourceType.SYSOUT, lines("a", 3, 10));
+    recordRingBuffer.endOfStream();
+    List<String> records = new ArrayList<>();
+    drain(recordRingBuffer, records, new ArrayList<>());
+    assertThat("Validating retained records : ", records, is(lines("a", 0, 4)));
+    assertThat(
+        "Validating dropped record count : ", captureStatistics.getDroppedRecordCount(), is(6L));
+  }
+
+  @Test
+  public void blockKeepsEveryProducerInOrder()
+      throws InterruptedException, IOException, ExecutionException {
+    int producerCount = 4;
+    int linesPerProducer = 10000;
+    RecordRingBuffer recordRingBuffer =
+        new RecordRingBuffer(64, BackpressurePolicy.BLOCK, producerCount, new CaptureStatistics());
+    ExecutorService executorService = Executors.newFixedThreadPool(producerCount);
+    List<Future<?>> producers = new ArrayList<>();
+    for (int producer = 0; producer < producerCount; producer++) {
+      String prefix = String.valueOf(producer);
+      OutputSourceType outputSourceType =
+          producer % 2 == 0 ? OutputSourceType.SYSOUT : OutputSourceType.SYSERR;
+      producers.add(
+          executorService.submit(
+              () -> {
+                for (int line = 0; line < linesPerProducer; line += 7) {
+                  recordRingBuffer.add(
+                      outputSourceType,
+                      lines(prefix, line, Math.min(line + 7, linesPerProducer)));
+                }
+                recordRingBuffer.endOfStream();
+                return null;
+              }));
+    }
+    List<String> records = new ArrayList<>();
+    List<OutputSourceType> types = new ArrayList<>();
+    drain(recordRingBuffer, records, types);
+    for (Future<?> producer : producers) {
+      producer.get();
+    }
+    executorService.shutdown();
+    assertThat(
+        "Validating all records delivered : ",
+        records.size(),
+        is(producerCount * linesPerProducer));
+    int[] expectedLine = new int[producerCount];
+    for (int index = 0; index < records.size(); index++) {
+      String[] record = records.get(index).split(":");
+      int producer = Integer.parseInt(record[0]);
+      assertThat(
+          "Validating order of producer " + producer + " : ",
+          Integer.parseInt(record[1]),
+          is(expectedLine[producer]++));
+      assertThat(
+          "Validating output source type : ",
+          types.get(index),
+          is(producer % 2 == 0 ? OutputSourceType.SYSOUT : OutputSourceType.SYSERR));
+    }
+  }
+
+  @Test
+  public void blockDropsOnceTheWriterFails()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    RecordRingBuffer recordRingBuffer =
+        new RecordRingBuffer(1, BackpressurePolicy.BLOCK, 1, captureStatistics);
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    Future<?> reader =
+        executorService.submit(
+            () -> {
+              for (int line = 0; line < 100; line++) {
+                recordRingBuffer.add(OutputSourceType.SYSOUT, lines("a", line, line + 1));
+              }
+              recordRingBuffer.endOfStream();
+              return null;
+            });
+    try {
+      recordRingBuffer.drainTo(
+          (sequence, timeStamp, type, text, continued) -> {
+            throw new IOException("No space left on device");
+          },
+          50);
+    } catch (IOException ex) {
+      recordRingBuffer.abandon();
+    }
+    reader.get(5, TimeUnit.SECONDS);
+    executorService.shutdown();
+    assertThat(
+        "Validating dropped record count : ",
+        captureStatistics.getDroppedRecordCount(),
+        is(greaterThanOrEqualTo(98L)));
+  }
+
+  @Test
+  public void pollDoesNotWaitForRecords() throws InterruptedException, IOException {
+    RecordRingBuffer recordRingBuffer =
+        new RecordRingBuffer(8, BackpressurePolicy.BLOCK, 1, new CaptureStatistics());
+    List<String> records = new ArrayList<>();
+    RecordHandoff.RecordConsumer recordConsumer =
+        (sequence, timeStamp, type, text, continued) -> records.add(text);
+    assertThat("Validating empty poll : ", recordRingBuffer.pollTo(recordConsumer, 2), is(0));
+    recordRingBuffer.add(OutputSourceType.SYSOUT, lines("a", 0, 3));
+    assertThat("Validating first poll : ", recordRingBuffer.pollTo(recordConsumer, 2), is(2));
+    assertThat("Validating second poll : ", recordRingBuffer.pollTo(recordConsumer, 2), is(1));
+    assertThat("Validating drained poll : ", recordRingBuffer.pollTo(recordConsumer, 2), is(0));
+    recordRingBuffer.endOfStream();
+    assertThat("Validating ended poll : ", recordRingBuffer.pollTo(recordConsumer, 2), is(-1));
+    assertThat("Validating polled records : ", records, is(lines("a", 0, 3)));
+  }
+
+  @Test
+  public void recordsAreNumberedInHandoverOrder() throws InterruptedException, IOException {
+    RecordRingBuffer recordRingBuffer =
+        new RecordRingBuffer(8, BackpressurePolicy.BLOCK, 1, new CaptureStatistics());
+    List<Long> sequences = new ArrayList<>();
+    List<Long> timeStamps = new ArrayList<>();
+    RecordHandoff.RecordConsumer recordConsumer =
+        (sequence, timeStamp, type, text, continued) -> {
+          sequences.add(sequence);
+          timeStamps.add(timeStamp);
+        };
+    recordRingBuffer.add(OutputSourceType.SYSOUT, lines("a", 0, 3));
+    recordRingBuffer.add(OutputSourceType.SYSERR, lines("b", 0, 2));
+    recordRingBuffer.pollTo(recordConsumer, 8);
+    assertThat("Validating sequences : ", sequences, is(Arrays.asList(1L, 2L, 3L, 4L, 5L)));
+    assertThat(
+        "Validating one timestamp per batch : ",
+        timeStamps.get(2).equals(timeStamps.get(0)) && timeStamps.get(4) >= timeStamps.get(2),
+        is(true));
+  }
+
+  private static void drain(
+      RecordRingBuffer recordRingBuffer, List<String> records, List<OutputSourceType> types)
+      throws InterruptedException, IOException {
+    int drained;
+    do {
+      drained =
+          recordRingBuffer.drainTo(
+              (sequence, timeStamp, type, text, continued) -> {
+                records.add(text);
+                types.add(type);
+              },
+              50);
+    } while (drained != -1);
+  }
+
+  private static List<String> lines(String prefix, int from, int to) {
+    List<String> lines = new ArrayList<>();
+    for (int number = from; number < to; number++) {
+      lines.add(prefix + ":" + number);
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,131 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration.ConfigBuilder;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.exception.ProcessConfigurationException;
+import com.saptarshidebnath.lib.processrunner.model.SamplingWindow;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.Test;
+
+public class RecordSamplerTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  public void keepsEveryNthLine() throws ProcessConfigurationException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    RecordSampler recordSampler =
+        new RecordSampler(
+            OutputSourceType.SYSOUT,
+            new ConfigBuilder("bash", "chatty.sh").setCaptureSampleInterval(10).build(),
+            captureStatistics);
+    List<String> kept = new ArrayList<>();
+    kept.addAll(recordSampler.sample(lines(0, 55), 0L));
+    kept.addAll(recordSampler.sample(lines(55, 100), 10L));
+    recordSampler.finish();
+    assertThat("Validating kept lines : ", kept, is(lines(0, 100, 10)));
+    assertThat(
+        "Validating sampled out : ", captureStatistics.getSampledOutRecordCount(), is(90L));
+    List<SamplingWindow> samplingWindows = captureStatistics.getSamplingWindows();
+    assertThat("Validating windows : ", samplingWindows.size(), is(1));
+    assertThat("Validating window end : ", samplingWindows.get(0).getEndTime(), is(10L));
+    assertThat("Validating kept : ", samplingWindows.get(0).getKeptRecordCount(), is(10L));
+    assertThat("Validating dropped : ", samplingWindows.get(0).getDroppedRecordCount(), is(90L));
+  }
+
+  @Test
+  public void limitsTheRateWithBursts() throws ProcessConfigurationException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    RecordSampler recordSampler =
+        new RecordSampler(
+            OutputSourceType.MERGED,
+            new ConfigBuilder("bash", "chatty.sh").setCaptureRateLimit(100, 10).build(),
+            captureStatistics);
+    assertThat(
+        "Validating burst : ", recordSampler.sample(lines(0, 50), 0L), is(lines(0, 10)));
+    assertThat(
+        "Validating refill up to the burst : ",
+        recordSampler.sample(lines(50, 150), SECOND / 2),
+        is(lines(50, 60)));
+    List<String> quiet = lines(150, 155);
+    assertThat(
+        "Validating all kept after a quiet spell : ",
+        recordSampler.sample(quiet, 2 * SECOND),
+        is(quiet));
+    recordSampler.finish();
+    assertThat(
+        "Validating sampled out : ", captureStatistics.getSampledOutRecordCount(), is(130L));
+    List<SamplingWindow> samplingWindows = captureStatistics.getSamplingWindows();
+    assertThat("Validating windows : ", samplingWindows.size(), is(1));
+    SamplingWindow samplingWindow = samplingWindows.get(0);
+    assertThat(
+        "Validating source type : ",
+        samplingWindow.getOutputSourceType(),
+        is(OutputSourceType.MERGED));
+    assertThat("Validating window start : ", samplingWindow.getStartTime(), is(0L));
+    assertThat("Validating window end : ", samplingWindow.getEndTime(), is(SECOND / 2));
+    assertThat("Validating kept : ", samplingWindow.getKeptRecordCount(), is(20L));
+    assertThat("Validating dropped : ", samplingWindow.getDroppedRecordCount(), is(130L));
+  }
+
+  @Test
+  public void alwaysKeepsTheLinesMatchingThePattern() throws ProcessConfigurationException {
+    CaptureStatistics captureStatistics = new CaptureStatistics();
+    RecordSampler recordSampler =
+        new RecordSampler(
+            OutputSourceType.SYSOUT,
+            new ConfigBuilder("bash", "chatty.sh")
+                .setCaptureSampleInterval(1000)
+                .setCaptureRateLimit(1, 1)
+                .setCaptureKeepPattern("ERROR")
+                .build(),
+            captureStatistics);
+    assertThat(
+        "Validating kept lines : ",
+        recordSampler.sample(
+            Arrays.asList("first", "ERROR one", "second", "[main] ERROR two", "third"), 0L),
+        is(Arrays.asList("first", "ERROR one", "[main] ERROR two")));
+    List<String> unsampled = Arrays.asList("ERROR three");
+    assertThat(
+        "Validating same list when nothing is dropped : ",
+        recordSampler.sample(unsampled, 1L) == unsampled,
+        is(Boolean.TRUE));
+    assertThat(
+        "Validating sampled out : ", captureStatistics.getSampledOutRecordCount(), is(2L));
+  }
+
+  @Test
+  public void keepsOrDropsTheSplitPartsOfALineTogether() throws ProcessConfigurationException {
+    RecordSampler recordSampler =
+        new RecordSampler(
+            OutputSourceType.SYSOUT,
+            new ConfigBuilder("bash", "chatty.sh").setCaptureSampleInterval(2).build(),
+            new CaptureStatistics());
+    BitSet continuedLines = new BitSet();
+    continuedLines.set(0);
+    continuedLines.set(3);
+    assertThat(
+        "Validating kept lines : ",
+        recordSampler.sample(Arrays.asList("a", "b", "c", "d", "e", "f"), continuedLines, 0L),
+        is(Arrays.asList("a", "b", "d", "e")));
+    assertThat("Validating continued lines : ", continuedLines.toString(), is("{0, 2}"));
+  }
+
+  private static List<String> lines(int from, int to) {
+    return lines(from, to, 1);
+  }
+
+  private static List<String> lines(int from, int to, int step) {
+    List<String> lines = new ArrayList<>();
+    for (int line = from; line < to; line += step) {
+      lines.add("line " + line);
+    }
+    return lines;
+  }
+}
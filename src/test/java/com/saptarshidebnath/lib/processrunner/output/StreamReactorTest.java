@@ -0,0 +1,239 @@
+package com.saptarshidebnath.lib.processrunner.output;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+public class StreamReactorTest {
+
+  @Test
+  public void readsTheOutputOfAGrandchildTillTheEnd()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    //
+    // The writer end stays open after the process is dead, as when a grandchild outlives it.
+    //
+    PipedOutputStream grandchild = new PipedOutputStream();
+    try (PipedInputStream pipe = new PipedInputStream(grandchild)) {
+      grandchild.write("first\n".getBytes(StandardCharsets.UTF_8));
+      List<String> lines = Collections.synchronizedList(new ArrayList<>());
+      CompletableFuture<Integer> completion =
+          StreamReactor.getInstance()
+              .register(
+                  new FakeProcess(false),
+                  pipe,
+                  new LineSplitter(StandardCharsets.UTF_8, lines::addAll),
+                  () -> Integer.MAX_VALUE);
+      Thread.sleep(200L);
+      assertThat("Validating stream still open : ", completion.isDone(), is(false));
+      grandchild.write("last".getBytes(StandardCharsets.UTF_8));
+      grandchild.close();
+      assertThat("Validating line count : ", completion.get(5, TimeUnit.SECONDS), is(2));
+      assertThat("Validating lines : ", lines, is(Arrays.asList("first", "last")));
+    } finally {
+      grandchild.close();
+    }
+  }
+
+  @Test
+  public void readsNoMoreLinesThanTheConsumerHasRoomFor()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    PipedOutputStream process = new PipedOutputStream();
+    try (PipedInputStream pipe = new PipedInputStream(process)) {
+      for (int line = 0; line < 100; line++) {
+        process.write('\n');
+      }
+      process.close();
+      List<Integer> batchSizes = new ArrayList<>();
+      int lineCount =
+          StreamReactor.getInstance()
+              .register(
+                  new FakeProcess(false),
+                  pipe,
+                  new LineSplitter(StandardCharsets.UTF_8, lines -> batchSizes.add(lines.size())),
+                  () -> 3)
+              .get(5, TimeUnit.SECONDS);
+      assertThat("Validating line count : ", lineCount, is(100));
+      assertThat(
+          "Validating batches within room : ",
+          Collections.max(batchSizes),
+          is(lessThanOrEqualTo(3)));
+    } finally {
+      process.close();
+    }
+  }
+
+  @Test
+  public void pinsTheStreamsOfAProcessToTheLeastLoadedThread()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    StreamReactor streamReactor = new StreamReactor(2);
+    FakeProcess busyProcess = new FakeProcess(true);
+    FakeProcess otherProcess = new FakeProcess(true);
+    Map<Process, Set<Thread>> readingThreads = new ConcurrentHashMap<>();
+    List<CompletableFuture<Integer>> completions = new ArrayList<>();
+    try {
+      for (Process process : Arrays.asList(busyProcess, busyProcess, otherProcess)) {
+        completions.add(
+            streamReactor.register(
+                process,
+                new ByteArrayInputStream(new byte[] {'\n'}),
+                (buffer, offset, length) ->
+                    readingThreads
+                        .computeIfAbsent(process, key -> ConcurrentHashMap.newKeySet())
+                        .add(Thread.currentThread())));
+      }
+      busyProcess.destroy();
+      otherProcess.destroy();
+      for (CompletableFuture<Integer> completion : completions) {
+        assertThat("Validating chunk count : ", completion.get(5, TimeUnit.SECONDS), is(1));
+      }
+    } finally {
+      streamReactor.shutdown();
+    }
+    Set<Thread> busyThreads = readingThreads.get(busyProcess);
+    assertThat("Validating streams of a process on one thread : ", busyThreads.size(), is(1));
+    assertThat(
+        "Validating other process on the other thread : ",
+        readingThreads.get(otherProcess).containsAll(busyThreads),
+        is(false));
+  }
+
+  @Test
+  public void servicesThousandsOfStreamsFromFewThreads()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    final int numberOfChildren = 5000;
+    List<FakeProcess> processes = new ArrayList<>(numberOfChildren);
+    List<CompletableFuture<Integer>> completions = new ArrayList<>(numberOfChildren * 2);
+    for (int counter = 0; counter < numberOfChildren; counter++) {
+      FakeProcess process = new FakeProcess(true);
+      processes.add(process);
+      for (String stream : Arrays.asList("sysout", "syserr")) {
+        completions.add(
+            StreamReactor.getInstance()
+                .register(
+                    process,
+                    new ByteArrayInputStream(
+                        (stream + " line 1\n" + stream + " line 2\n")
+                            .getBytes(StandardCharsets.UTF_8)),
+                    new LineSplitter(StandardCharsets.UTF_8, lines -> {}),
+                    () -> Integer.MAX_VALUE));
+      }
+    }
+    long reactorThreads =
+        Thread.getAllStackTraces()
+            .keySet()
+            .stream()
+            .filter(
+                thread ->
+                    thread.getName().contains(ProcessRunnerConstants.REACTOR_THREAD_NAME_SUFFIX))
+            .count();
+    assertThat(
+        "Validating number of reactor threads : ",
+        reactorThreads,
+        is(lessThanOrEqualTo((long) ProcessRunnerConstants.REACTOR_THREAD_COUNT)));
+    for (FakeProcess process : processes) {
+      process.destroy();
+    }
+    for (CompletableFuture<Integer> completion : completions) {
+      assertThat("Validating line count : ", completion.get(5, TimeUnit.SECONDS), is(2));
+    }
+  }
+
+  @Test
+  public void completesTheStreamsExceptionallyOnceInterrupted()
+      throws IOException, InterruptedException, TimeoutException {
+    StreamReactor streamReactor = new StreamReactor(1);
+    Process process = new FakeProcess(true);
+    StreamReactor.ChunkConsumer ignoreChunks = (buffer, offset, length) -> {};
+    CompletableFuture<Integer> idleStream =
+        streamReactor.register(process, new ByteArrayInputStream(new byte[0]), ignoreChunks);
+    //
+    // The chunk consumer runs on the reactor thread.
+    //
+    CompletableFuture<Integer> interruptingStream =
+        streamReactor.register(
+            process,
+            new ByteArrayInputStream(new byte[] {'\n'}),
+            (buffer, offset, length) -> Thread.currentThread().interrupt());
+    for (CompletableFuture<Integer> completion : Arrays.asList(interruptingStream, idleStream)) {
+      try {
+        completion.get(5, TimeUnit.SECONDS);
+      } catch (ExecutionException ex) {
+        assertThat("Validating cause : ", ex.getCause(), is(instanceOf(IOException.class)));
+      }
+      assertThat("Validating stream abandoned : ", completion.isCompletedExceptionally(), is(true));
+    }
+    assertThat(
+        "Validating stream registered afterwards : ",
+        streamReactor
+            .register(process, new ByteArrayInputStream(new byte[0]), ignoreChunks)
+            .isCompletedExceptionally(),
+        is(true));
+    streamReactor.shutdown();
+  }
+
+  /** A {@link Process} alive till told it has exited. */
+  private static class FakeProcess extends Process {
+    private volatile boolean alive;
+
+    FakeProcess(boolean alive) {
+      this.alive = alive;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int waitFor() {
+      return 0;
+    }
+
+    @Override
+    public int exitValue() {
+      return 0;
+    }
+
+    @Override
+    public void destroy() {
+      this.alive = false;
+    }
+
+    @Override
+    public boolean isAlive() {
+      return this.alive;
+    }
+  }
+}
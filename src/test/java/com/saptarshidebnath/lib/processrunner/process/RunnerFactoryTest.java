@@ -29,12 +29,14 @@ import static com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerCons
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.StringStartsWith.startsWith;
 
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
 import com.saptarshidebnath.lib.processrunner.configuration.Configuration.ConfigBuilder;
+import com.saptarshidebnath.lib.processrunner.constants.CaptureEngine;
 import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessConfigurationException;
 import com.saptarshidebnath.lib.processrunner.exception.ProcessException;
@@ -48,10 +50,12 @@ import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.SystemUtils;
 import org.junit.Test;
 
@@ -525,6 +529,136 @@ public class RunnerFactoryTest {
         "Validating number of input on SYSOUT : ", getFileLineNumber(sysout), is(greaterThan(0)));
   }
 
+  @Test
+  public void testReactorCaptureEngine()
+      throws IOException, ProcessException, InterruptedException, ProcessConfigurationException,
+          ExecutionException {
+    if (!SystemUtils.IS_OS_LINUX) {
+      return;
+    }
+    final File tempFile = new TempFile().createTempLogDump();
+    final Output response =
+        RunnerFactory.startProcess(
+            new ConfigBuilder("bash", "chatty.sh")
+                .setWorkigDir(getShellScriptDir().toPath())
+                .setMasterLogFile(tempFile, true)
+                .setCaptureEngine(CaptureEngine.REACTOR)
+                .build());
+    assertThat("Validating process return code : ", response.getReturnCode(), is(0));
+    assertThat(
+        "Validating SYSOUT records : ", response.grepForRegex("sysout line .*").size(), is(50));
+    assertThat(
+        "Validating SYSERR records : ", response.grepForRegex("syserr line .*").size(), is(50));
+  }
+
+  @Test
+  public void testReactorCaptureEngineWithManyChildren()
+      throws IOException, ProcessException, InterruptedException, ProcessConfigurationException,
+          ExecutionException {
+    if (!SystemUtils.IS_OS_LINUX) {
+      return;
+    }
+    final int numberOfChildren = Integer.getInteger("processrunner.scale.children", 50);
+    final List<Future<Output>> runs = new ArrayList<>(numberOfChildren);
+    for (int counter = 0; counter < numberOfChildren; counter++) {
+      runs.add(
+          RunnerFactory.startAsyncProcess(
+              new ConfigBuilder("bash", "chatty.sh")
+                  .setWorkigDir(getShellScriptDir().toPath())
+                  .setMasterLogFile(new TempFile().createTempLogDump(), true)
+                  .setCaptureEngine(CaptureEngine.REACTOR)
+                  .build()));
+    }
+    final long reactorThreads =
+        Thread.getAllStackTraces()
+            .keySet()
+            .stream()
+            .filter(
+                thread ->
+                    thread.getName().contains(ProcessRunnerConstants.REACTOR_THREAD_NAME_SUFFIX))
+            .count();
+    final long streamReaderThreads =
+        Thread.getAllStackTraces()
+            .keySet()
+            .stream()
+            .filter(
+                thread ->
+                    thread
+                        .getName()
+                        .contains(ProcessRunnerConstants.STREAM_READER_THREAD_NAME_SUFFIX))
+            .count();
+    assertThat(
+        "Validating number of reactor threads : ",
+        reactorThreads,
+        is(lessThanOrEqualTo((long) ProcessRunnerConstants.REACTOR_THREAD_COUNT)));
+    assertThat("Validating no stream reader threads : ", streamReaderThreads, is(0L));
+    for (Future<Output> run : runs) {
+      final Output response = run.get();
+      assertThat("Validating process return code : ", response.getReturnCode(), is(0));
+      try (Stream<String> lines = Files.lines(response.getMasterLogAsJson().toPath())) {
+        assertThat("Validating json log record number : ", lines.count(), is(100L));
+      }
+    }
+  }
+
+  @Test
+  public void testSharedLogWriterWithManyConcurrentRuns()
+      throws IOException, ProcessException, InterruptedException, ProcessConfigurationException,
+          ExecutionException {
+    final int numberOfRuns = Integer.getInteger("processrunner.scale.runs", 20);
+    final List<Future<Output>> runs = new ArrayList<>(numberOfRuns);
+    for (int counter = 0; counter < numberOfRuns; counter++) {
+      runs.add(
+          RunnerFactory.startAsyncProcess(
+              new ConfigBuilder("bash", "chatty.sh")
+                  .setWorkigDir(getShellScriptDir().toPath())
+                  .setMasterLogFile(new TempFile().createTempLogDump(), true)
+                  .setCaptureEngine(CaptureEngine.REACTOR)
+                  .enableSharedLogWriter(true)
+                  .build()));
+    }
+    for (Future<Output> run : runs) {
+      final Output response = run.get();
+      assertThat("Validating process return code : ", response.getReturnCode(), is(0));
+      assertThat(
+          "Validating written record count : ",
+          response.getCaptureStatistics().getWrittenRecordCount(),
+          is(100L));
+      assertThat(
+          "Validating writer lag : ", response.getCaptureStatistics().getWriterLag(), is(0L));
+      try (Stream<String> lines = Files.lines(response.getMasterLogAsJson().toPath())) {
+        assertThat("Validating json log record number : ", lines.count(), is(100L));
+      }
+    }
+    final long sharedWriterThreads =
+        Thread.getAllStackTraces()
+            .keySet()
+            .stream()
+            .filter(
+                thread ->
+                    thread
+                        .getName()
+                        .contains(ProcessRunnerConstants.SHARED_WRITER_THREAD_NAME_SUFFIX))
+            .count();
+    assertThat(
+        "Validating number of shared writer threads : ",
+        sharedWriterThreads,
+        is((long) ProcessRunnerConstants.SHARED_WRITER_THREAD_COUNT));
+  }
+
+  private File getShellScriptDir() {
+    return new File(
+        ProcessRunnerConstants.DEFAULT_CURRENT_DIR.getAbsolutePath()
+            + File.separator
+            + "src"
+            + File.separator
+            + "test"
+            + File.separator
+            + "scripts"
+            + File.separator
+            + "shell");
+  }
+
   private int getFileLineNumber(final File fileToCountLineNumber) throws IOException {
     LineNumberReader lnr = null;
     int lineNumber;
@@ -0,0 +1,33 @@
+package com.saptarshidebnath.lib.processrunner.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class AsciiCharSequenceTest {
+
+  @Test
+  public void readsTheWrappedBytesInPlace() {
+    byte[] bytes = "{\"outputText\":\"testing for output\"}".getBytes(StandardCharsets.US_ASCII);
+    AsciiCharSequence chars = new AsciiCharSequence().wrap(bytes, 15, 33);
+    assertThat("Validating length : ", chars.length(), is(18));
+    assertThat("Validating charAt : ", chars.charAt(0), is('t'));
+    assertThat("Validating subSequence : ", chars.subSequence(8, 11).toString(), is("for"));
+    assertThat("Validating toString : ", chars.toString(), is("testing for output"));
+    assertThat(
+        "Validating regex match : ",
+        Pattern.compile("testing.*output").matcher(chars).matches(),
+        is(true));
+    bytes[15] = 'T';
+    assertThat("Validating bytes read in place : ", chars.charAt(0), is('T'));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void rejectsIndicesPastTheWrappedBytes() {
+    byte[] bytes = "abcdef".getBytes(StandardCharsets.US_ASCII);
+    new AsciiCharSequence().wrap(bytes, 0, 3).charAt(3);
+  }
+}
@@ -0,0 +1,95 @@
+package com.saptarshidebnath.lib.processrunner.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class ByteScannerTest {
+
+  @Test
+  public void findsEveryByteAtEveryPosition() {
+    for (int length = 1; length < 40; length++) {
+      for (int position = 0; position < length; position++) {
+        byte[] bytes = new byte[length];
+        bytes[position] = '\n';
+        ByteBuffer buffer = ByteScanner.wrap(bytes);
+        assertThat(
+            "Validating line feed at " + position + " : ",
+            ByteScanner.indexOf(buffer, 0, length, (byte) '\n'),
+            is(position));
+        assertThat(
+            "Validating line separator at " + position + " : ",
+            ByteScanner.indexOfLineSeparator(buffer, 0, length),
+            is(position));
+        assertThat(
+            "Validating search after the byte : ",
+            ByteScanner.indexOf(buffer, position + 1, length, (byte) '\n'),
+            is(-1));
+      }
+    }
+  }
+
+  @Test
+  public void findsTheFirstOfSeveralMatches() {
+    ByteBuffer buffer = wrap("0123456789\r\n\"\\abc\"");
+    assertThat(
+        "Validating line separator : ", ByteScanner.indexOfLineSeparator(buffer, 0, 17), is(10));
+    assertThat(
+        "Validating quote or backslash : ",
+        ByteScanner.indexOfQuoteOrBackslash(buffer, 0, 17),
+        is(12));
+    assertThat(
+        "Validating quote or backslash : ",
+        ByteScanner.indexOfQuoteOrBackslash(buffer, 13, 17),
+        is(13));
+    assertThat(
+        "Validating search window : ", ByteScanner.indexOfLineSeparator(buffer, 0, 10), is(-1));
+  }
+
+  @Test
+  public void findsHighBytes() {
+    ByteBuffer buffer = ByteScanner.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, (byte) 0xFF, 0});
+    assertThat("Validating 0xFF : ", ByteScanner.indexOf(buffer, 0, 10, (byte) 0xFF), is(8));
+    assertThat("Validating 0x00 : ", ByteScanner.indexOf(buffer, 0, 10, (byte) 0), is(9));
+  }
+
+  @Test
+  public void findsLiterals() {
+    ByteBuffer buffer = wrap("{\"timeStamp\":1,\"outputText\":\"outputText\"}");
+    byte[] literal = "\"outputText\":\"".getBytes(StandardCharsets.US_ASCII);
+    assertThat("Validating literal : ", ByteScanner.indexOf(buffer, 0, 41, literal), is(15));
+    assertThat(
+        "Validating missing literal : ", ByteScanner.indexOf(buffer, 16, 41, literal), is(-1));
+    assertThat(
+        "Validating literal at the end : ",
+        ByteScanner.indexOf(buffer, 0, 41, "\"}".getBytes(StandardCharsets.US_ASCII)),
+        is(39));
+  }
+
+  @Test
+  public void detectsAsciiAndDecodes() {
+    byte[] bytes = "abcdefgh caf\u00e9".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteScanner.wrap(bytes);
+    assertThat("Validating ASCII : ", ByteScanner.isAscii(buffer, 0, 12), is(true));
+    assertThat("Validating non ASCII : ", ByteScanner.isAscii(buffer, 0, bytes.length), is(false));
+    assertThat(
+        "Validating ASCII decoding : ",
+        ByteScanner.decode(buffer, 2, 8, StandardCharsets.UTF_8),
+        is("cdefgh"));
+    assertThat(
+        "Validating UTF-8 decoding : ",
+        ByteScanner.decode(buffer, 9, bytes.length, StandardCharsets.UTF_8),
+        is("caf\u00e9"));
+    assertThat(
+        "Validating UTF-16 : ",
+        ByteScanner.isAsciiCompatible(StandardCharsets.UTF_16),
+        is(false));
+  }
+
+  private static ByteBuffer wrap(String text) {
+    return ByteScanner.wrap(text.getBytes(StandardCharsets.US_ASCII));
+  }
+}
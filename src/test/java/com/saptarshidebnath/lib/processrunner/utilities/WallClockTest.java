@@ -0,0 +1,33 @@
+package com.saptarshidebnath.lib.processrunner.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class WallClockTest {
+
+  @Test
+  public void readsTheSystemClock() {
+    long before = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    long now = WallClock.now();
+    long after = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() + 1);
+    assertThat(
+        "Validating time is near the system clock : ",
+        Math.abs(now - before),
+        lessThan(TimeUnit.SECONDS.toNanos(1)));
+    assertThat("Validating time is not ahead : ", now <= after + 2_000_000L, is(true));
+  }
+
+  @Test
+  public void neverGoesBackwards() {
+    long previous = WallClock.now();
+    for (int counter = 0; counter < 100_000; counter++) {
+      long now = WallClock.now();
+      assertThat("Validating time is monotonic : ", now >= previous, is(true));
+      previous = now;
+    }
+  }
+}
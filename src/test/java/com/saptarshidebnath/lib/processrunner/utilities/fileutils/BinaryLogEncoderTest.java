@@ -0,0 +1,271 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class BinaryLogEncoderTest {
+
+  @Test
+  public void readsBackWhatWasWritten() throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    StringBuilder longText = new StringBuilder();
+    while (longText.length() < 3 * ProcessRunnerConstants.STREAM_READ_BUFFER_SIZE) {
+      longText.append("a long line \u00e9\u20ac\ud83d\ude00 ");
+    }
+    outputRecords.add(new OutputRecord(0L, OutputSourceType.SYSOUT, longText.toString()));
+    outputRecords.add(new OutputRecord(Long.MIN_VALUE, OutputSourceType.SYSERR, ""));
+    outputRecords.add(new OutputRecord(Long.MAX_VALUE, OutputSourceType.MERGED, "plain text"));
+    outputRecords.add(new OutputRecord(-42L, null, "say \"hello\"\n<b> & back\\slash"));
+    outputRecords.add(new OutputRecord(42L, OutputSourceType.SYSOUT, null));
+    Random random = new Random(7L);
+    long timeStamp = System.nanoTime();
+    for (int counter = 0; counter < 5000; counter++) {
+      char[] text = new char[random.nextInt(400)];
+      for (int index = 0; index < text.length; index++) {
+        text[index] = (char) (random.nextBoolean() ? random.nextInt(0x80) : random.nextInt());
+      }
+      timeStamp += random.nextInt(100_000) - 1000;
+      outputRecords.add(new OutputRecord(timeStamp, OutputSourceType.SYSERR, new String(text)));
+    }
+    File binaryFile = write(outputRecords, MasterLogFormat.BINARY);
+    List<OutputRecord> readRecords = read(binaryFile, MasterLogFormat.BINARY);
+    assertThat("Validating record count : ", readRecords.size(), is(outputRecords.size()));
+    for (int index = 0; index < outputRecords.size(); index++) {
+      OutputRecord written = outputRecords.get(index);
+      OutputRecord read = readRecords.get(index);
+      assertThat("Validating timestamp : ", read.getTimeStamp(), is(written.getTimeStamp()));
+      assertThat(
+          "Validating output source type : ",
+          read.getOutputSourceType(),
+          is(written.getOutputSourceType()));
+      assertThat(
+          "Validating output text : ",
+          read.getOutputText(),
+          is(
+              written.getOutputText() == null
+                  ? null
+                  : new String(
+                      written.getOutputText().getBytes(ProcessRunnerConstants.UTF_8),
+                      ProcessRunnerConstants.UTF_8)));
+    }
+  }
+
+  @Test
+  public void convertsToJsonAndBack() throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    for (int counter = 0; counter < 10_000; counter++) {
+      outputRecords.add(
+          new OutputRecord(
+              System.nanoTime(),
+              counter % 3 == 0 ? OutputSourceType.SYSERR : OutputSourceType.SYSOUT,
+              "line number " + counter + " of \"the\" output, caf\u00e9"));
+    }
+    File jsonFile = write(outputRecords, MasterLogFormat.JSON);
+    File binaryFile = createTempFile();
+    new MasterLogConverter()
+        .convert(
+            jsonFile,
+            MasterLogFormat.JSON,
+            binaryFile,
+            MasterLogFormat.BINARY,
+            ProcessRunnerConstants.UTF_8);
+    File convertedJsonFile = createTempFile();
+    new MasterLogConverter()
+        .convert(
+            binaryFile,
+            MasterLogFormat.BINARY,
+            convertedJsonFile,
+            MasterLogFormat.JSON,
+            ProcessRunnerConstants.UTF_8);
+    assertThat(
+        "Validating round trip : ",
+        Files.readAllBytes(convertedJsonFile.toPath()),
+        is(Files.readAllBytes(jsonFile.toPath())));
+    assertThat(
+        "Validating binary file is smaller : ",
+        binaryFile.length() < jsonFile.length() / 2,
+        is(Boolean.TRUE));
+  }
+
+  @Test
+  public void readsBackRecurringLinesWithLineDictionary() throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    Random random = new Random(11L);
+    for (int counter = 0; counter < 20_000; counter++) {
+      int line = random.nextInt(counter % 1000 < 500 ? 8 : 1000);
+      String outputText;
+      if (line == 0) {
+        outputText = null;
+      } else if (line == 1) {
+        outputText = "short";
+      } else if (line == 2) {
+        outputText = "a line seen once, number " + counter;
+      } else {
+        outputText = "a recurring line, caf\u00e9 \ud83d\ude00 number " + line;
+      }
+      outputRecords.add(
+          new OutputRecord(
+              counter,
+              counter % 2 == 0 ? OutputSourceType.SYSOUT : OutputSourceType.SYSERR,
+              outputText));
+    }
+    File binaryFile = write(outputRecords, MasterLogFormat.BINARY, Boolean.FALSE);
+    File dictionaryFile = write(outputRecords, MasterLogFormat.BINARY, Boolean.TRUE);
+    List<OutputRecord> readRecords = read(dictionaryFile, MasterLogFormat.BINARY);
+    assertThat("Validating record count : ", readRecords.size(), is(outputRecords.size()));
+    for (int index = 0; index < outputRecords.size(); index++) {
+      assertThat(
+          "Validating record " + index + " : ",
+          readRecords.get(index).getAsJson(),
+          is(outputRecords.get(index).getAsJson()));
+    }
+    assertThat(
+        "Validating dictionary file is smaller : ",
+        dictionaryFile.length() * 3 < binaryFile.length() * 2,
+        is(Boolean.TRUE));
+  }
+
+  @Test
+  public void matchesRecurringLinesOnce() throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    for (int counter = 0; counter < 1000; counter++) {
+      outputRecords.add(
+          new OutputRecord(
+              counter, OutputSourceType.SYSOUT, "progress line number " + counter % 10));
+    }
+    File dictionaryFile = write(outputRecords, MasterLogFormat.BINARY, Boolean.TRUE);
+    int matchCount = 0;
+    long[] textReferences = new long[10];
+    try (RecordReader recordReader =
+        RecordReader.open(dictionaryFile, MasterLogFormat.BINARY, ProcessRunnerConstants.UTF_8)) {
+      RecordMatcher recordMatcher = new RecordMatcher(Pattern.compile(".*number [37]"));
+      for (int counter = 0; recordReader.next(); counter++) {
+        if (recordMatcher.matches(recordReader)) {
+          matchCount++;
+        }
+        if (counter >= 20) {
+          assertThat(
+              "Validating text reference : ",
+              recordReader.getTextReference(),
+              is(textReferences[counter % 10]));
+        } else if (counter >= 10) {
+          textReferences[counter % 10] = recordReader.getTextReference();
+        }
+      }
+    }
+    assertThat("Validating match count : ", matchCount, is(200));
+  }
+
+  @Test
+  public void readsBackSequences() throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    long[] sequences = {1L, 2L, 3L, 7L, 8L, 0L, 5L, Long.MAX_VALUE};
+    for (long sequence : sequences) {
+      outputRecords.add(
+          new OutputRecord(sequence, sequence * 1000L, OutputSourceType.SYSOUT, "line"));
+    }
+    for (MasterLogFormat masterLogFormat : MasterLogFormat.values()) {
+      List<OutputRecord> readRecords = read(write(outputRecords, masterLogFormat), masterLogFormat);
+      for (int index = 0; index < sequences.length; index++) {
+        assertThat(
+            "Validating " + masterLogFormat + " sequence : ",
+            readRecords.get(index).getSequence(),
+            is(sequences[index]));
+      }
+    }
+  }
+
+  @Test
+  public void readsAFileWrittenWithoutSequences() throws IOException {
+    File file = createTempFile();
+    Files.write(
+        file.toPath(),
+        new byte[] {
+          'P', 'R', 'L', 'B', BinaryLogEncoder.VERSION, 84, 1, 4, 'o', 'l', 'd', 2, 2, 1
+        });
+    List<OutputRecord> readRecords = read(file, MasterLogFormat.BINARY);
+    assertThat("Validating record count : ", readRecords.size(), is(2));
+    assertThat("Validating sequence : ", readRecords.get(0).getSequence(), is(0L));
+    assertThat("Validating timestamp : ", readRecords.get(0).getTimeStamp(), is(42L));
+    assertThat("Validating output text : ", readRecords.get(0).getOutputText(), is("old"));
+    assertThat("Validating timestamp : ", readRecords.get(1).getTimeStamp(), is(43L));
+    assertThat(
+        "Validating output source type : ",
+        readRecords.get(1).getOutputSourceType(),
+        is(OutputSourceType.SYSERR));
+    assertThat("Validating output text : ", readRecords.get(1).getOutputText(), is(""));
+  }
+
+  @Test
+  public void readsAnEmptyFile() throws IOException {
+    assertThat(
+        "Validating no records : ",
+        read(createTempFile(), MasterLogFormat.BINARY).size(),
+        is(0));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsAJsonFile() throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    outputRecords.add(new OutputRecord(1L, OutputSourceType.SYSOUT, "json"));
+    read(write(outputRecords, MasterLogFormat.JSON), MasterLogFormat.BINARY);
+  }
+
+  private static File write(List<OutputRecord> outputRecords, MasterLogFormat masterLogFormat)
+      throws IOException {
+    return write(outputRecords, masterLogFormat, Boolean.FALSE);
+  }
+
+  private static File write(
+      List<OutputRecord> outputRecords, MasterLogFormat masterLogFormat, boolean dictionaryEnabled)
+      throws IOException {
+    File file = createTempFile();
+    try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+      RecordEncoder recordEncoder =
+          RecordEncoder.create(
+              fileOutputStream.getChannel(),
+              masterLogFormat,
+              ProcessRunnerConstants.UTF_8,
+              256,
+              Boolean.FALSE,
+              dictionaryEnabled);
+      for (OutputRecord outputRecord : outputRecords) {
+        recordEncoder.write(outputRecord);
+      }
+      recordEncoder.flush();
+    }
+    return file;
+  }
+
+  private static List<OutputRecord> read(File file, MasterLogFormat masterLogFormat)
+      throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    try (RecordReader recordReader =
+        RecordReader.open(file, masterLogFormat, ProcessRunnerConstants.UTF_8)) {
+      while (recordReader.next()) {
+        outputRecords.add(recordReader.getOutputRecord());
+      }
+    }
+    return outputRecords;
+  }
+
+  private static File createTempFile() throws IOException {
+    File file = new TempFile().createTempLogDump();
+    file.deleteOnExit();
+    return file;
+  }
+}
@@ -0,0 +1,165 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class BlockCompressedLogTest {
+
+  @Test
+  public void readsBackWhatWasWritten() throws IOException {
+    List<OutputRecord> outputRecords = createRecords(40_000);
+    for (MasterLogFormat masterLogFormat : MasterLogFormat.values()) {
+      File file = write(outputRecords, masterLogFormat, 5_000);
+      assertRecords(read(file, masterLogFormat), outputRecords);
+      try (BlockCompressedLog blockCompressedLog =
+          BlockCompressedLog.open(file, ProcessRunnerConstants.UTF_8)) {
+        assertThat(
+            "Validating master log format : ",
+            blockCompressedLog.getMasterLogFormat(),
+            is(masterLogFormat));
+        assertThat(
+            "Validating more than one block : ",
+            blockCompressedLog.getBlockCount() > 1,
+            is(Boolean.TRUE));
+        assertThat(
+            "Validating file is compressed : ",
+            file.length() * 4 < blockCompressedLog.getUncompressedLength(),
+            is(Boolean.TRUE));
+      }
+    }
+  }
+
+  @Test
+  public void readsAFileWithoutTheIndex() throws IOException {
+    List<OutputRecord> outputRecords = createRecords(10_000);
+    File file = write(outputRecords, MasterLogFormat.BINARY, 1_000);
+    int blockCount;
+    try (BlockCompressedLog blockCompressedLog =
+        BlockCompressedLog.open(file, ProcessRunnerConstants.UTF_8)) {
+      blockCount = blockCompressedLog.getBlockCount();
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      randomAccessFile.setLength(
+          file.length()
+              - BlockCompressedLog.FOOTER_SIZE
+              - (long) blockCount * BlockCompressedLog.INDEX_ENTRY_SIZE);
+    }
+    try (BlockCompressedLog blockCompressedLog =
+        BlockCompressedLog.open(file, ProcessRunnerConstants.UTF_8)) {
+      assertThat(
+          "Validating block count : ", blockCompressedLog.getBlockCount(), is(blockCount));
+    }
+    assertRecords(read(file, MasterLogFormat.BINARY), outputRecords);
+  }
+
+  @Test
+  public void findsTheBlockOfATimeStamp() throws IOException {
+    List<OutputRecord> outputRecords = createRecords(1_000);
+    File file = write(outputRecords, MasterLogFormat.JSON, 100);
+    try (BlockCompressedLog blockCompressedLog =
+        BlockCompressedLog.open(file, ProcessRunnerConstants.UTF_8)) {
+      assertThat("Validating block count : ", blockCompressedLog.getBlockCount(), is(10));
+      int block = blockCompressedLog.findBlock(outputRecords.get(550).getTimeStamp());
+      assertThat("Validating block found : ", block, is(5));
+      assertThat("Validating record count : ", blockCompressedLog.getRecordCount(block), is(100));
+      assertThat(
+          "Validating block found before the first record : ",
+          blockCompressedLog.findBlock(Long.MIN_VALUE),
+          is(0));
+      try (RecordReader recordReader = blockCompressedLog.openBlock(block)) {
+        assertThat("Validating block has records : ", recordReader.next(), is(Boolean.TRUE));
+        assertThat(
+            "Validating first record of the block : ",
+            recordReader.getOutputText(),
+            is(outputRecords.get(500).getOutputText()));
+      }
+    }
+  }
+
+  @Test
+  public void readsAFileWithoutRecords() throws IOException {
+    File file = write(new ArrayList<>(), MasterLogFormat.JSON, 1);
+    assertThat(
+        "Validating file is block compressed : ",
+        BlockCompressedLog.isBlockCompressed(file),
+        is(Boolean.TRUE));
+    assertThat("Validating no records : ", read(file, MasterLogFormat.JSON).size(), is(0));
+  }
+
+  private static List<OutputRecord> createRecords(int count) {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    long timeStamp = System.nanoTime();
+    for (int counter = 0; counter < count; counter++) {
+      timeStamp += counter % 7;
+      outputRecords.add(
+          new OutputRecord(
+              timeStamp,
+              counter % 3 == 0 ? OutputSourceType.SYSERR : OutputSourceType.SYSOUT,
+              "line number " + counter + " of \"the\" output, caf\u00e9"));
+    }
+    return outputRecords;
+  }
+
+  private static void assertRecords(
+      List<OutputRecord> readRecords, List<OutputRecord> outputRecords) {
+    assertThat("Validating record count : ", readRecords.size(), is(outputRecords.size()));
+    for (int index = 0; index < outputRecords.size(); index++) {
+      OutputRecord written = outputRecords.get(index);
+      OutputRecord read = readRecords.get(index);
+      assertThat("Validating timestamp : ", read.getTimeStamp(), is(written.getTimeStamp()));
+      assertThat(
+          "Validating output source type : ",
+          read.getOutputSourceType(),
+          is(written.getOutputSourceType()));
+      assertThat("Validating output text : ", read.getOutputText(), is(written.getOutputText()));
+    }
+  }
+
+  private static File write(
+      List<OutputRecord> outputRecords, MasterLogFormat masterLogFormat, int recordsPerFlush)
+      throws IOException {
+    File file = new TempFile().createTempLogDump();
+    file.deleteOnExit();
+    try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+      RecordEncoder recordEncoder =
+          RecordEncoder.create(
+              fileOutputStream.getChannel(),
+              masterLogFormat,
+              ProcessRunnerConstants.UTF_8,
+              256,
+              Boolean.TRUE);
+      for (int index = 0; index < outputRecords.size(); index++) {
+        recordEncoder.write(outputRecords.get(index));
+        if ((index + 1) % recordsPerFlush == 0) {
+          recordEncoder.flush();
+        }
+      }
+      recordEncoder.finish();
+    }
+    return file;
+  }
+
+  private static List<OutputRecord> read(File file, MasterLogFormat masterLogFormat)
+      throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    try (RecordReader recordReader =
+        RecordReader.open(file, masterLogFormat, ProcessRunnerConstants.UTF_8)) {
+      while (recordReader.next()) {
+        outputRecords.add(recordReader.getOutputRecord());
+      }
+    }
+    return outputRecords;
+  }
+}
@@ -0,0 +1,145 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration;
+import com.saptarshidebnath.lib.processrunner.configuration.Configuration.ConfigBuilder;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.exception.ProcessConfigurationException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import org.junit.Test;
+
+public class ChunkLogTest {
+
+  @Test
+  public void readsBackWhatWasWritten() throws IOException, ProcessConfigurationException {
+    File file = createTempFile();
+    Random random = new Random(7L);
+    byte[][] chunks = new byte[500][];
+    OutputSourceType[] sourceTypes = new OutputSourceType[chunks.length];
+    long start = System.currentTimeMillis();
+    try (ChunkLogWriter chunkLogWriter =
+        new ChunkLogWriter(configuration(file), UnaryOperator.identity())) {
+      for (int index = 0; index < chunks.length; index++) {
+        //
+        // Every tenth chunk is larger than the write buffer, and some are empty.
+        //
+        chunks[index] =
+            new byte
+                [index % 10 == 0
+                    ? ProcessRunnerConstants.MASTER_LOG_WRITE_BUFFER_SIZE + random.nextInt(100)
+                    : random.nextInt(300)];
+        random.nextBytes(chunks[index]);
+        sourceTypes[index] =
+            index % 3 == 0
+                ? OutputSourceType.SYSERR
+                : index % 3 == 1 ? OutputSourceType.SYSOUT : OutputSourceType.MERGED;
+        byte[] padded = new byte[chunks[index].length + 4];
+        System.arraycopy(chunks[index], 0, padded, 2, chunks[index].length);
+        chunkLogWriter.write(sourceTypes[index], padded, 2, chunks[index].length);
+      }
+      assertThat(
+          "Validating chunk count : ", chunkLogWriter.getChunkCount(), is((long) chunks.length));
+    }
+    long end = System.currentTimeMillis() + 3;
+    long[] offsets = new long[OutputSourceType.values().length];
+    try (ChunkLogReader chunkLogReader = new ChunkLogReader(file)) {
+      for (int index = 0; index < chunks.length; index++) {
+        assertThat("Validating next : ", chunkLogReader.next(), is(Boolean.TRUE));
+        assertThat("Validating sequence : ", chunkLogReader.getSequence(), is(index + 1L));
+        assertThat(
+            "Validating source type : ",
+            chunkLogReader.getOutputSourceType(),
+            is(sourceTypes[index]));
+        int stream = sourceTypes[index].ordinal();
+        assertThat("Validating offset : ", chunkLogReader.getOffset(), is(offsets[stream]));
+        offsets[stream] += chunks[index].length;
+        long timeStamp = chunkLogReader.getTimeStamp() / 1_000_000L;
+        assertThat(
+            "Validating timestamp : ", timeStamp >= start && timeStamp <= end, is(Boolean.TRUE));
+        ByteBuffer bytes = chunkLogReader.getBytes();
+        byte[] read = new byte[bytes.remaining()];
+        bytes.get(read);
+        assertThat("Validating bytes : ", Arrays.equals(read, chunks[index]), is(Boolean.TRUE));
+      }
+      assertThat("Validating end of chunks : ", chunkLogReader.next(), is(Boolean.FALSE));
+    }
+    ByteArrayOutputStream sysOut = new ByteArrayOutputStream();
+    ByteArrayOutputStream sysErr = new ByteArrayOutputStream();
+    ByteArrayOutputStream all = new ByteArrayOutputStream();
+    for (int index = 0; index < chunks.length; index++) {
+      (sourceTypes[index] == OutputSourceType.SYSERR ? sysErr : sysOut).write(chunks[index]);
+      all.write(chunks[index]);
+    }
+    assertThat(
+        "Validating sysout channel : ",
+        Arrays.equals(readChannel(file, OutputSourceType.SYSOUT), sysOut.toByteArray()),
+        is(Boolean.TRUE));
+    assertThat(
+        "Validating syserr channel : ",
+        Arrays.equals(readChannel(file, OutputSourceType.SYSERR), sysErr.toByteArray()),
+        is(Boolean.TRUE));
+    assertThat(
+        "Validating all channel : ",
+        Arrays.equals(readChannel(file, OutputSourceType.ALL), all.toByteArray()),
+        is(Boolean.TRUE));
+  }
+
+  @Test
+  public void readsAnEmptyLog() throws IOException, ProcessConfigurationException {
+    File file = createTempFile();
+    new ChunkLogWriter(configuration(file), UnaryOperator.identity()).close();
+    try (ChunkLogReader chunkLogReader = new ChunkLogReader(file)) {
+      assertThat("Validating end of chunks : ", chunkLogReader.next(), is(Boolean.FALSE));
+    }
+    assertThat("Validating channel : ", readChannel(file, OutputSourceType.ALL).length, is(0));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsAFileOfRecords() throws IOException {
+    File file = createTempFile();
+    try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+      fileOutputStream.write(
+          "{\"outputText\":\"not chunks\"}".getBytes(ProcessRunnerConstants.UTF_8));
+    }
+    try (ChunkLogReader chunkLogReader = new ChunkLogReader(file)) {
+      chunkLogReader.next();
+    }
+  }
+
+  private static byte[] readChannel(File file, OutputSourceType outputSourceType)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ByteBuffer buffer = ByteBuffer.allocate(1000);
+    try (ReadableByteChannel channel = ChunkLogReader.openChannel(file, outputSourceType)) {
+      while (channel.read(buffer) != -1) {
+        bytes.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Configuration configuration(File file) throws ProcessConfigurationException {
+    return new ConfigBuilder("bash", "binary.sh")
+        .setMasterLogFile(file, Boolean.TRUE)
+        .enableChunkCapture(Boolean.TRUE)
+        .build();
+  }
+
+  private static File createTempFile() throws IOException {
+    File file = new TempFile().createTempLogDump();
+    file.deleteOnExit();
+    return file;
+  }
+}
@@ -0,0 +1,150 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.MasterLogFormat;
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class ContinuationJoiningReaderTest {
+
+  private static final List<OutputRecord> SPLIT_RECORDS =
+      Arrays.asList(
+          new OutputRecord(1L, 10L, OutputSourceType.SYSOUT, "ab"),
+          new OutputRecord(2L, 20L, OutputSourceType.SYSERR, "err\u0000"),
+          new OutputRecord(3L, 30L, OutputSourceType.SYSOUT, "cd"),
+          new OutputRecord(4L, 40L, OutputSourceType.SYSOUT, "ef"),
+          new OutputRecord(5L, 50L, OutputSourceType.SYSOUT, "gh\u0000"),
+          new OutputRecord(6L, 60L, OutputSourceType.SYSERR, "tail"));
+
+  //
+  // The sequences of the records which the next record of their stream goes on with.
+  //
+  private static final List<Long> CONTINUED_SEQUENCES = Arrays.asList(1L, 3L, 6L);
+
+  @Test
+  public void joinsSplitRecords() throws IOException {
+    for (MasterLogFormat masterLogFormat : MasterLogFormat.values()) {
+      for (boolean blockCompressed : new boolean[] {Boolean.FALSE, Boolean.TRUE}) {
+        List<OutputRecord> joinedRecords = new ArrayList<>();
+        try (RecordReader recordReader =
+            RecordReader.joinContinuations(
+                RecordReader.open(
+                    write(masterLogFormat, blockCompressed),
+                    masterLogFormat,
+                    ProcessRunnerConstants.UTF_8))) {
+          while (recordReader.next()) {
+            joinedRecords.add(recordReader.getOutputRecord());
+          }
+        }
+        assertThat(
+            "Validating " + masterLogFormat + " records : ",
+            joinedRecords.toString(),
+            is(
+                Arrays.asList(
+                        new OutputRecord(2L, 20L, OutputSourceType.SYSERR, "err\u0000"),
+                        new OutputRecord(1L, 10L, OutputSourceType.SYSOUT, "abcdef"),
+                        new OutputRecord(5L, 50L, OutputSourceType.SYSOUT, "gh\u0000"),
+                        new OutputRecord(6L, 60L, OutputSourceType.SYSERR, "tail"))
+                    .toString()));
+      }
+    }
+  }
+
+  @Test
+  public void keepsTheContinuedFlagOfEveryRecord() throws IOException {
+    for (MasterLogFormat masterLogFormat : MasterLogFormat.values()) {
+      List<Long> continuedSequences = new ArrayList<>();
+      try (RecordReader recordReader =
+          RecordReader.open(
+              write(masterLogFormat, Boolean.FALSE),
+              masterLogFormat,
+              ProcessRunnerConstants.UTF_8)) {
+        while (recordReader.next()) {
+          if (recordReader.isContinued()) {
+            continuedSequences.add(recordReader.getSequence());
+          }
+        }
+      }
+      assertThat(
+          "Validating " + masterLogFormat + " continued records : ",
+          continuedSequences,
+          is(CONTINUED_SEQUENCES));
+    }
+  }
+
+  @Test
+  public void savesSplitRecordsAsOneLine() throws IOException {
+    File sysOut = createTempFile();
+    try (RecordReader recordReader =
+        RecordReader.open(
+            write(MasterLogFormat.BINARY, Boolean.FALSE),
+            MasterLogFormat.BINARY,
+            ProcessRunnerConstants.UTF_8)) {
+      new LogWriter()
+          .writeLog(recordReader, ProcessRunnerConstants.UTF_8, sysOut, OutputSourceType.SYSOUT);
+    }
+    assertThat(
+        "Validating saved lines : ",
+        Files.readAllLines(sysOut.toPath(), ProcessRunnerConstants.UTF_8),
+        is(Arrays.asList("abcdef", "gh\u0000")));
+  }
+
+  @Test
+  public void savesSplitRecordsOfEveryStreamApart() throws IOException {
+    File all = createTempFile();
+    try (RecordReader recordReader =
+        RecordReader.open(
+            write(MasterLogFormat.JSON, Boolean.FALSE),
+            MasterLogFormat.JSON,
+            ProcessRunnerConstants.UTF_8)) {
+      new LogWriter()
+          .writeLog(recordReader, ProcessRunnerConstants.UTF_8, all, OutputSourceType.ALL);
+    }
+    assertThat(
+        "Validating saved lines : ",
+        Files.readAllLines(all.toPath(), ProcessRunnerConstants.UTF_8),
+        is(Arrays.asList("err\u0000", "abcdef", "gh\u0000", "tail")));
+  }
+
+  private static File write(MasterLogFormat masterLogFormat, boolean blockCompressed)
+      throws IOException {
+    File file = createTempFile();
+    try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+      RecordEncoder recordEncoder =
+          RecordEncoder.create(
+              fileOutputStream.getChannel(),
+              masterLogFormat,
+              ProcessRunnerConstants.UTF_8,
+              256,
+              blockCompressed,
+              Boolean.TRUE);
+      for (OutputRecord outputRecord : SPLIT_RECORDS) {
+        recordEncoder.write(
+            outputRecord.getSequence(),
+            outputRecord.getTimeStamp(),
+            outputRecord.getOutputSourceType(),
+            outputRecord.getOutputText(),
+            CONTINUED_SEQUENCES.contains(outputRecord.getSequence()));
+      }
+      recordEncoder.flush();
+    }
+    return file;
+  }
+
+  private static File createTempFile() throws IOException {
+    File file = new TempFile().createTempLogDump();
+    file.deleteOnExit();
+    return file;
+  }
+}
@@ -0,0 +1,41 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class DirectFileChannelTest {
+
+  @Test
+  public void writesUnalignedBytesAcrossBuffers() throws IOException {
+    byte[] bytes = new byte[ProcessRunnerConstants.MASTER_LOG_DIRECT_BUFFER_SIZE * 2 + 12_345];
+    new Random(42).nextBytes(bytes);
+    File file = new TempFile().createTempLogDump();
+    int written = 0;
+    try (WritableByteChannel channel = DirectFileChannel.open(file)) {
+      for (int chunk = 0; written < bytes.length; chunk++) {
+        int length = Math.min(1 + chunk * 7_919 % 100_000, bytes.length - written);
+        channel.write(ByteBuffer.wrap(bytes, written, length));
+        written += length;
+        if (channel instanceof DirectFileChannel) {
+          ((DirectFileChannel) channel).flush();
+          assertThat("Validating flushed size : ", file.length(), is((long) written));
+        }
+      }
+    }
+    assertThat("Validating size : ", file.length(), is((long) bytes.length));
+    assertThat(
+        "Validating content : ",
+        Arrays.equals(Files.readAllBytes(file.toPath()), bytes),
+        is(Boolean.TRUE));
+  }
+}
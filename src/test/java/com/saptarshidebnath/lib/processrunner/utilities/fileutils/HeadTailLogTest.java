@@ -0,0 +1,102 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class HeadTailLogTest {
+
+  @Test
+  public void keepsTheHeadAndTheTail() throws IOException {
+    HeadTailLog headTailLog = new HeadTailLog(3, 100);
+    int recordCount = 10_000;
+    write(headTailLog, recordCount);
+    assertThat("Validating record count : ", headTailLog.getRecordCount(), is((long) recordCount));
+    assertThat(
+        "Validating skipped record count : ",
+        headTailLog.getSkippedRecordCount(),
+        is(recordCount - 103L));
+    assertThat("Validating head : ", sequences(headTailLog.getHead()), is(range(1, 3)));
+    assertThat(
+        "Validating tail : ",
+        sequences(headTailLog.getTail()),
+        is(range(recordCount - 99, recordCount)));
+    OutputRecord last = headTailLog.getTail().get(99);
+    assertThat("Validating timestamp : ", last.getTimeStamp(), is(recordCount * 10L));
+    assertThat(
+        "Validating output source type : ",
+        last.getOutputSourceType(),
+        is(OutputSourceType.SYSERR));
+    assertThat("Validating output text : ", last.getOutputText(), is("line " + recordCount));
+    List<Long> read = new ArrayList<>();
+    try (RecordReader recordReader = headTailLog.openReader()) {
+      while (recordReader.next()) {
+        read.add(recordReader.getSequence());
+        assertThat(
+            "Validating read text : ",
+            recordReader.getOutputText(),
+            is("line " + recordReader.getSequence()));
+      }
+    }
+    List<Long> expected = range(1, 3);
+    expected.addAll(range(recordCount - 99, recordCount));
+    assertThat("Validating records read : ", read, is(expected));
+  }
+
+  @Test
+  public void keepsEverythingWhileThereIsRoom() {
+    HeadTailLog headTailLog = new HeadTailLog(5, 5);
+    write(headTailLog, 8);
+    assertThat("Validating head : ", sequences(headTailLog.getHead()), is(range(1, 5)));
+    assertThat("Validating tail : ", sequences(headTailLog.getTail()), is(range(6, 8)));
+    assertThat(
+        "Validating skipped record count : ", headTailLog.getSkippedRecordCount(), is(0L));
+  }
+
+  @Test
+  public void keepsOnlyTheHeadOrOnlyTheTail() {
+    HeadTailLog headOnly = new HeadTailLog(2, 0);
+    write(headOnly, 10);
+    assertThat("Validating head : ", sequences(headOnly.getHead()), is(range(1, 2)));
+    assertThat("Validating no tail : ", headOnly.getTail().isEmpty(), is(Boolean.TRUE));
+    assertThat("Validating skipped : ", headOnly.getSkippedRecordCount(), is(8L));
+    HeadTailLog tailOnly = new HeadTailLog(0, 2);
+    write(tailOnly, 10);
+    assertThat("Validating no head : ", tailOnly.getHead().isEmpty(), is(Boolean.TRUE));
+    assertThat("Validating tail : ", sequences(tailOnly.getTail()), is(range(9, 10)));
+    assertThat("Validating skipped : ", tailOnly.getSkippedRecordCount(), is(8L));
+  }
+
+  private static void write(HeadTailLog headTailLog, int recordCount) {
+    for (long sequence = 1; sequence <= recordCount; sequence++) {
+      headTailLog.write(
+          sequence,
+          sequence * 10L,
+          sequence % 2 == 0 ? OutputSourceType.SYSERR : OutputSourceType.SYSOUT,
+          "line " + sequence,
+          Boolean.FALSE);
+    }
+  }
+
+  private static List<Long> sequences(List<OutputRecord> records) {
+    List<Long> sequences = new ArrayList<>();
+    for (OutputRecord record : records) {
+      sequences.add(record.getSequence());
+    }
+    return sequences;
+  }
+
+  private static List<Long> range(long first, long last) {
+    List<Long> range = new ArrayList<>();
+    for (long sequence = first; sequence <= last; sequence++) {
+      range.add(sequence);
+    }
+    return range;
+  }
+}
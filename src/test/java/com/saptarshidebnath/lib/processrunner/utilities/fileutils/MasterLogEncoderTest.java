@@ -0,0 +1,131 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import com.saptarshidebnath.lib.processrunner.model.OutputRecord;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class MasterLogEncoderTest {
+
+  @Test
+  public void writesTheSameBytesAsGson() throws IOException {
+    List<OutputRecord> outputRecords = new ArrayList<>();
+    StringBuilder everyChar = new StringBuilder();
+    for (char current = 0; current < 0x3000; current++) {
+      everyChar.append(current);
+    }
+    outputRecords.add(new OutputRecord(0L, OutputSourceType.SYSOUT, everyChar.toString()));
+    outputRecords.add(new OutputRecord(Long.MIN_VALUE, OutputSourceType.SYSERR, ""));
+    outputRecords.add(new OutputRecord(Long.MAX_VALUE, OutputSourceType.MERGED, "plain text"));
+    outputRecords.add(new OutputRecord(-42L, null, "say \"hello\" <b> & back\\slash"));
+    outputRecords.add(new OutputRecord(42L, OutputSourceType.SYSOUT, null));
+    outputRecords.add(
+        new OutputRecord(7L, OutputSourceType.SYSOUT, "caf\u00e9 \ud83d\ude00 lone \ud83d end"));
+    Random random = new Random(7L);
+    for (int counter = 0; counter < 1000; counter++) {
+      char[] text = new char[random.nextInt(400)];
+      for (int index = 0; index < text.length; index++) {
+        text[index] = (char) (random.nextBoolean() ? random.nextInt(0x80) : random.nextInt());
+      }
+      outputRecords.add(
+          new OutputRecord(random.nextLong(), OutputSourceType.SYSERR, new String(text)));
+    }
+    for (Charset charset :
+        new Charset[] {
+          StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16
+        }) {
+      assertThat(
+          "Validating bytes written in " + charset + " : ",
+          encode(outputRecords, charset, 64),
+          is(gson(outputRecords, charset)));
+    }
+  }
+
+  @Test
+  public void doesNotAllocatePerRecord() throws IOException {
+    java.lang.management.ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+    if (!(threadMxBean instanceof com.sun.management.ThreadMXBean)) {
+      return;
+    }
+    com.sun.management.ThreadMXBean allocationBean =
+        (com.sun.management.ThreadMXBean) threadMxBean;
+    long threadId = Thread.currentThread().getId();
+    WritableByteChannel discard =
+        new WritableByteChannel() {
+          @Override
+          public int write(ByteBuffer source) {
+            int remaining = source.remaining();
+            source.position(source.limit());
+            return remaining;
+          }
+
+          @Override
+          public boolean isOpen() {
+            return true;
+          }
+
+          @Override
+          public void close() {}
+        };
+    MasterLogEncoder masterLogEncoder =
+        new MasterLogEncoder(
+            discard, StandardCharsets.UTF_8, ProcessRunnerConstants.MASTER_LOG_WRITE_BUFFER_SIZE);
+    String[] lines = {
+      "a plain line of process output, about as long as most of them",
+      "a line with \"quotes\", a <tag> & a tab\tand caf\u00e9"
+    };
+    int recordCount = 200_000;
+    for (int counter = 0; counter < recordCount; counter++) {
+      masterLogEncoder.write(counter, OutputSourceType.SYSOUT, lines[counter & 1]);
+    }
+    long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+    for (int counter = 0; counter < recordCount; counter++) {
+      masterLogEncoder.write(System.nanoTime(), OutputSourceType.SYSOUT, lines[counter & 1]);
+    }
+    masterLogEncoder.flush();
+    long allocatedAfter = allocationBean.getThreadAllocatedBytes(threadId);
+    assertThat(
+        "Validating bytes allocated per record : ",
+        (allocatedAfter - allocatedBefore) / (double) recordCount,
+        is(lessThan(1.0)));
+  }
+
+  private static byte[] encode(List<OutputRecord> outputRecords, Charset charset, int bufferSize)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    MasterLogEncoder masterLogEncoder =
+        new MasterLogEncoder(Channels.newChannel(bytes), charset, bufferSize);
+    for (OutputRecord outputRecord : outputRecords) {
+      masterLogEncoder.write(outputRecord);
+    }
+    masterLogEncoder.flush();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] gson(List<OutputRecord> outputRecords, Charset charset) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(bytes, charset))) {
+      for (OutputRecord outputRecord : outputRecords) {
+        printWriter.println(ProcessRunnerConstants.GSON.toJson(outputRecord));
+      }
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,99 @@
+package com.saptarshidebnath.lib.processrunner.utilities.fileutils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.saptarshidebnath.lib.processrunner.constants.OutputSourceType;
+import com.saptarshidebnath.lib.processrunner.constants.ProcessRunnerConstants;
+import java.io.IOException;
+import org.junit.Test;
+
+public class MemoryLogTest {
+
+  @Test
+  public void readsBackWhatWasWrittenAcrossChunks() throws IOException {
+    MemoryLog memoryLog = new MemoryLog();
+    int recordCount = 80_000;
+    for (int counter = 0; counter < recordCount; counter++) {
+      memoryLog.write(
+          counter,
+          counter % 2 == 0 ? OutputSourceType.SYSOUT : OutputSourceType.SYSERR,
+          "line number " + counter + (counter % 7 == 0 ? " \u00e9\u20ac" : ""));
+    }
+    memoryLog.finish();
+    assertThat("Validating record count : ", memoryLog.getRecordCount(), is((long) recordCount));
+    assertThat(
+        "Validating chunks up to the largest : ",
+        memoryLog.getSize(),
+        is(greaterThan((long) ProcessRunnerConstants.MEMORY_LOG_MAX_CHUNK_SIZE)));
+    for (int pass = 0; pass < 2; pass++) {
+      try (RecordReader recordReader = memoryLog.openReader()) {
+        int counter = 0;
+        while (recordReader.next()) {
+          assertThat("Validating timestamp : ", recordReader.getTimeStamp(), is((long) counter));
+          assertThat(
+              "Validating output source type : ",
+              recordReader.getOutputSourceType(),
+              is(counter % 2 == 0 ? OutputSourceType.SYSOUT : OutputSourceType.SYSERR));
+          assertThat(
+              "Validating output text : ",
+              recordReader.getOutputText(),
+              is("line number " + counter + (counter % 7 == 0 ? " \u00e9\u20ac" : "")));
+          counter++;
+        }
+        assertThat("Validating records read : ", counter, is(recordCount));
+      }
+    }
+  }
+
+  @Test
+  public void readsOnlyWhatWasFlushedWhenOpened() throws IOException {
+    MemoryLog memoryLog = new MemoryLog();
+    memoryLog.write(1L, OutputSourceType.SYSOUT, "first");
+    memoryLog.flush();
+    RecordReader recordReader = memoryLog.openReader();
+    memoryLog.write(2L, OutputSourceType.SYSOUT, "second");
+    memoryLog.finish();
+    int counter = 0;
+    while (recordReader.next()) {
+      counter++;
+    }
+    recordReader.close();
+    assertThat("Validating records read : ", counter, is(1));
+  }
+
+  @Test
+  public void turnsOverBudgetAndReleases() throws IOException {
+    long globalSize = MemoryLog.getGlobalSize();
+    long runBytes = 64 * 1024;
+    MemoryLog memoryLog = new MemoryLog(runBytes, 0L);
+    int counter = 0;
+    while (!memoryLog.isOverBudget()) {
+      memoryLog.write(counter, OutputSourceType.SYSOUT, "line number " + counter++);
+    }
+    memoryLog.flush();
+    assertThat(
+        "Validating budget kept within a chunk : ",
+        memoryLog.getSize(),
+        is(lessThanOrEqualTo(runBytes + ProcessRunnerConstants.MEMORY_LOG_MIN_CHUNK_SIZE)));
+    assertThat(
+        "Validating global size : ", MemoryLog.getGlobalSize(), is(greaterThan(globalSize)));
+    memoryLog.release();
+    assertThat("Validating global size released : ", MemoryLog.getGlobalSize(), is(globalSize));
+  }
+
+  @Test
+  public void turnsOverGlobalBudget() throws IOException {
+    MemoryLog heldLog = new MemoryLog();
+    heldLog.write(0L, OutputSourceType.SYSOUT, "held");
+    heldLog.flush();
+    MemoryLog memoryLog = new MemoryLog(Long.MAX_VALUE, MemoryLog.getGlobalSize());
+    memoryLog.write(0L, OutputSourceType.SYSOUT, "over");
+    memoryLog.flush();
+    assertThat("Validating over global budget : ", memoryLog.isOverBudget(), is(Boolean.TRUE));
+    memoryLog.release();
+    heldLog.release();
+  }
+}
@@ -0,0 +1,13 @@
+#!/usr/bin/env bash
+
+for percent in 0 25 50 75 100
+do
+  printf '\rprogress %d%%' ${percent}
+done
+printf '\n'
+bytes=$(printf '\\%03o' {0..255})
+for i in {1..300}
+do
+  printf "${bytes}"
+done
+echo 'binary done' 1>&2
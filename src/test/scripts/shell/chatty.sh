@@ -0,0 +1,7 @@
+#!/usr/bin/env bash
+
+for i in {1..50}
+do
+  echo "sysout line ${i}"
+  echo "syserr line ${i}" 1>&2
+done
@@ -0,0 +1,6 @@
+#!/usr/bin/env bash
+
+echo 'plain line'
+echo 'say "hello" <b> & back\slash'
+printf 'caf\303\251 cr lf\r\n'
+echo 'syserr line' 1>&2
@@ -0,0 +1,5 @@
+#!/usr/bin/env bash
+
+head -c 300000 /dev/zero | tr '\0' 'x'
+echo
+echo 'short line'